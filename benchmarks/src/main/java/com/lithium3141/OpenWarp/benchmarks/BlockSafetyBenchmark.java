@@ -0,0 +1,109 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OWSafeLandingService;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubWorld;
+import com.lithium3141.OpenWarp.util.BlockSafety;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Safe landing scans through BlockSafety, starting <tt>distance</tt> blocks away
+ * from the surface of a flat world, and the same lookups served from the
+ * OWSafeLandingService cache. Block reads go through a dynamic-proxy World, so
+ * absolute times include proxy overhead; compare runs against each other rather
+ * than against a live server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockSafetyBenchmark {
+
+    /**
+     * Number of blocks between the scan's starting point and the surface.
+     */
+    @Param({"1", "16", "60"})
+    public int distance;
+
+    /**
+     * The world scanned.
+     */
+    private World world;
+
+    /**
+     * Feet Y-coordinate of the surface.
+     */
+    private int surface;
+
+    /**
+     * A landing cache primed for the scanned column.
+     */
+    private OWSafeLandingService service;
+
+    /**
+     * Build the world and prime the cache.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        StubWorld stub = new StubWorld("world", OpenWarpFixture.WORLD_HEIGHT, OpenWarpFixture.GROUND_Y);
+        this.world = stub.getWorld();
+        this.surface = stub.getGroundY() + 1;
+        this.service = new OWSafeLandingService();
+        this.service.getLandingY(this.world, 0, this.surface + this.distance, 0);
+    }
+
+    /**
+     * Scan upward from inside the ground.
+     *
+     * @return The landing found.
+     */
+    @Benchmark
+    public int scanUpFromUnderground() {
+        return BlockSafety.scanUp(this.world, 0, this.surface - this.distance, 0);
+    }
+
+    /**
+     * Scan downward from the air.
+     *
+     * @return The landing found.
+     */
+    @Benchmark
+    public int scanDownFromAir() {
+        return BlockSafety.scanDown(this.world, 0, this.surface + this.distance, 0, 1);
+    }
+
+    /**
+     * Find a landing from the air, which scans up to the top of the world first.
+     *
+     * @return The landing found.
+     */
+    @Benchmark
+    public int findLandingFromAir() {
+        return BlockSafety.findLandingY(this.world, 0, this.surface + this.distance, 0);
+    }
+
+    /**
+     * Find the same landing through the landing cache.
+     *
+     * @return The landing found.
+     */
+    @Benchmark
+    public int cachedLanding() {
+        return this.service.getLandingY(this.world, 0, this.surface + this.distance, 0);
+    }
+}
@@ -0,0 +1,175 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.commands.OWWarpBackCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpDeleteCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpDetailCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpListCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpSetCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpShareCommand;
+import com.lithium3141.OpenWarp.commands.OWWarpUnshareCommand;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubHandler;
+import com.pneumaticraft.commandhandler.Command;
+import com.pneumaticraft.commandhandler.CommandHandler;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command lookup and dispatch through CommandHandler#locateAndRunCommand. The
+ * handler holds OpenWarp's core commands plus <tt>extraCommands</tt> no-op
+ * commands, as another plugin sharing the handler might register.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+
+    /**
+     * Number of no-op commands registered in addition to OpenWarp's own.
+     */
+    @Param({"0", "100", "1000"})
+    public int extraCommands;
+
+    /**
+     * The plugin under test.
+     */
+    private OpenWarpFixture fixture;
+
+    /**
+     * The handler under test.
+     */
+    private CommandHandler handler;
+
+    /**
+     * The sender of every command.
+     */
+    private CommandSender console;
+
+    /**
+     * Arguments naming the first no-op command.
+     */
+    private List<String> noopArgs;
+
+    /**
+     * Arguments naming no command.
+     */
+    private List<String> unknownArgs;
+
+    /**
+     * Arguments for a detail lookup of a missing warp.
+     */
+    private List<String> detailArgs;
+
+    /**
+     * Build the command handler.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.fixture = new OpenWarpFixture();
+        OpenWarp plugin = this.fixture.getPlugin();
+        this.console = StubHandler.empty(ConsoleCommandSender.class);
+
+        this.handler = new CommandHandler(plugin);
+        this.handler.registerCommand(new OWWarpCommand(plugin));
+        this.handler.registerCommand(new OWWarpListCommand(plugin));
+        this.handler.registerCommand(new OWWarpDetailCommand(plugin));
+        this.handler.registerCommand(new OWWarpSetCommand(plugin));
+        this.handler.registerCommand(new OWWarpDeleteCommand(plugin));
+        this.handler.registerCommand(new OWWarpShareCommand(plugin));
+        this.handler.registerCommand(new OWWarpUnshareCommand(plugin));
+        this.handler.registerCommand(new OWWarpBackCommand(plugin));
+        for (int i = 0; i < this.extraCommands; i++) {
+            this.handler.registerCommand(new NoopCommand(plugin, i));
+        }
+        this.handler.registerCommand(new NoopCommand(plugin, -1));
+
+        this.noopArgs = Arrays.asList("bench", "noop-1");
+        this.unknownArgs = Arrays.asList("nothing", "here");
+        this.detailArgs = Arrays.asList("warp", "detail", "nosuchwarp");
+    }
+
+    /**
+     * Tear down the plugin.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    /**
+     * Dispatch a command that does nothing.
+     *
+     * @return Whether the command was handled.
+     */
+    @Benchmark
+    public boolean dispatchNoop() {
+        return this.handler.locateAndRunCommand(this.console, this.noopArgs, false);
+    }
+
+    /**
+     * Dispatch a line matching no command.
+     *
+     * @return Whether the command was handled.
+     */
+    @Benchmark
+    public boolean dispatchUnknown() {
+        return this.handler.locateAndRunCommand(this.console, this.unknownArgs, false);
+    }
+
+    /**
+     * Dispatch a warp detail request for a missing warp.
+     *
+     * @return Whether the command was handled.
+     */
+    @Benchmark
+    public boolean dispatchDetail() {
+        return this.handler.locateAndRunCommand(this.console, this.detailArgs, false);
+    }
+
+    /**
+     * A command that does nothing, keyed <tt>bench noop{N}</tt>.
+     */
+    private static final class NoopCommand extends Command {
+        /**
+         * Create a new no-op command.
+         *
+         * @param plugin The plugin backing the command.
+         * @param index  The number in the command's key.
+         */
+        NoopCommand(JavaPlugin plugin, int index) {
+            super(plugin);
+            this.setName("Noop " + index);
+            this.setArgRange(0, 0);
+            this.setCommandUsage("/bench noop" + index);
+            this.setPermission("openwarp.bench.noop" + index, "No-op benchmark command", PermissionDefault.TRUE);
+            this.addKey("bench noop" + index);
+        }
+
+        @Override
+        public void runCommand(CommandSender sender, List<String> args) {
+        }
+    }
+}
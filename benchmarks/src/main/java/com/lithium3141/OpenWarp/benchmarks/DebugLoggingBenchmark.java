@@ -0,0 +1,79 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OWDebug;
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubWorld;
+import com.lithium3141.OpenWarp.util.LocationUtil;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of debug logging on the teleport path while debugging is off: the
+ * OWDebug facade against the eager string building it replaced. Run with
+ * <tt>-prof gc</tt>; the facade should show no allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebugLoggingBenchmark {
+
+    /**
+     * Name of the teleporting player.
+     */
+    private String playerName;
+
+    /**
+     * Teleport origin.
+     */
+    private Location from;
+
+    /**
+     * Teleport destination.
+     */
+    private Location to;
+
+    /**
+     * Turn debug logging off and build the logged values.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        OpenWarp.DEBUG_LOG.setLevel(java.util.logging.Level.OFF);
+        StubWorld world = new StubWorld("world", OpenWarpFixture.WORLD_HEIGHT, OpenWarpFixture.GROUND_Y);
+        this.playerName = "player";
+        this.from = new Location(world.getWorld(), 10.5, 64.0, -3.25);
+        this.to = new Location(world.getWorld(), 1200.5, 70.0, 845.75);
+    }
+
+    /**
+     * Log a teleport through the facade.
+     */
+    @Benchmark
+    public void facade() {
+        OWDebug.fine("Player '{}' teleported ( {} -> {} ).", this.playerName, this.from, this.to);
+    }
+
+    /**
+     * Log a teleport the way the listener used to.
+     */
+    @Benchmark
+    public void eager() {
+        String fromLocation = LocationUtil.getHumanReadableString(this.from, 1);
+        String toLocation = LocationUtil.getHumanReadableString(this.to, 1);
+        OpenWarp.DEBUG_LOG.fine("Player '" + this.playerName + "' teleported ( " + fromLocation + " -> " + toLocation + " ).");
+    }
+}
@@ -0,0 +1,248 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubHandler;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubPlayer;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubServer;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubWorld;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fully enabled OpenWarp instance running against a stub server with a single
+ * flat world, with its data folder in a fresh temporary directory. Warps and
+ * players can be added directly, without going through commands.
+ */
+public class OpenWarpFixture {
+
+    /**
+     * Name of the fixture's world.
+     */
+    public static final String WORLD_NAME = "world";
+
+    /**
+     * Height of the fixture's world.
+     */
+    public static final int WORLD_HEIGHT = 128;
+
+    /**
+     * Highest Y-coordinate of the fixture world's stone floor.
+     */
+    public static final int GROUND_Y = 63;
+
+    /**
+     * Side length of the square over which generated warps are spread.
+     */
+    private static final int SPREAD = 4096;
+
+    /**
+     * The stub server the plugin runs against.
+     */
+    private final StubServer server;
+
+    /**
+     * The fixture's world.
+     */
+    private final StubWorld world;
+
+    /**
+     * The plugin's data folder.
+     */
+    private final File dataFolder;
+
+    /**
+     * The enabled plugin.
+     */
+    private final OpenWarp plugin;
+
+    /**
+     * Create and enable a new fixture.
+     */
+    public OpenWarpFixture() throws IOException {
+        this.dataFolder = File.createTempFile("openwarp-bench", "");
+        if (!this.dataFolder.delete() || !this.dataFolder.mkdirs()) {
+            throw new IOException("Couldn't create data folder " + this.dataFolder.getPath());
+        }
+        writeFile(new File(this.dataFolder, "config.yml"), "players: []\n");
+        writeFile(new File(this.dataFolder, "warps.yml"), "warps: {}\n");
+
+        this.server = new StubServer();
+        this.world = this.server.addWorld(WORLD_NAME, WORLD_HEIGHT, GROUND_Y);
+        if (Bukkit.getServer() == null) {
+            // Permission#recalculatePermissibles() reaches the server statically
+            Bukkit.setServer(this.server.getServer());
+        }
+
+        this.plugin = new OpenWarp();
+        this.plugin.initialize(StubHandler.empty(PluginLoader.class), this.server.getServer(),
+                new PluginDescriptionFile("OpenWarp", "benchmark", OpenWarp.class.getName()),
+                this.dataFolder, new File(this.dataFolder, "OpenWarp.jar"), OpenWarpFixture.class.getClassLoader());
+        this.plugin.onEnable();
+    }
+
+    /**
+     * Get the enabled plugin.
+     *
+     * @return The OpenWarp instance.
+     */
+    public OpenWarp getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get the stub server the plugin runs against.
+     *
+     * @return The server stub.
+     */
+    public StubServer getServer() {
+        return this.server;
+    }
+
+    /**
+     * Get the fixture's world.
+     *
+     * @return The world stub.
+     */
+    public StubWorld getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Get the plugin's data folder.
+     *
+     * @return The data folder.
+     */
+    public File getDataFolder() {
+        return this.dataFolder;
+    }
+
+    /**
+     * Get a location standing on the ground of the fixture's world.
+     *
+     * @param x The X-coordinate.
+     * @param z The Z-coordinate.
+     * @return The location.
+     */
+    public Location ground(double x, double z) {
+        return new Location(this.world.getWorld(), x, GROUND_Y + 1, z);
+    }
+
+    /**
+     * Bring a player online without firing a join event, giving them an empty
+     * private warp list and an empty player configuration on disk.
+     *
+     * @param name The name of the player.
+     * @return The player stub.
+     */
+    public StubPlayer addPlayer(String name) throws IOException {
+        this.preparePlayerFolder(name);
+        this.plugin.createPrivateWarps(name);
+        return this.server.addPlayer(name, this.ground(0.5, 0.5));
+    }
+
+    /**
+     * Create the on-disk player configuration the plugin expects to find for a player.
+     *
+     * @param name The name of the player.
+     */
+    public void preparePlayerFolder(String name) throws IOException {
+        File folder = new File(this.dataFolder, name);
+        File warps = new File(folder, "warps.yml");
+        if (!warps.exists()) {
+            folder.mkdirs();
+            writeFile(warps, "warps: {}\n");
+        }
+    }
+
+    /**
+     * Add public warps named <tt>{prefix}0</tt> upward, spread over the world.
+     *
+     * @param prefix The warp name prefix.
+     * @param count  The number of warps to add.
+     * @param owner  The owner of the new warps.
+     * @return The names of the new warps.
+     */
+    public List<String> addPublicWarps(String prefix, int count, String owner) {
+        return this.addWarps(this.plugin.getPublicWarps(), prefix, count, owner);
+    }
+
+    /**
+     * Add private warps named <tt>{prefix}0</tt> upward, spread over the world.
+     *
+     * @param owner  The owner of the new warps.
+     * @param prefix The warp name prefix.
+     * @param count  The number of warps to add.
+     * @return The names of the new warps.
+     */
+    public List<String> addPrivateWarps(String owner, String prefix, int count) {
+        return this.addWarps(this.plugin.createPrivateWarps(owner), prefix, count, owner);
+    }
+
+    /**
+     * Disable the plugin and delete its data folder.
+     */
+    public void close() {
+        this.plugin.onDisable();
+        delete(this.dataFolder);
+    }
+
+    /**
+     * Add generated warps to a warp map.
+     *
+     * @param target The map to add to.
+     * @param prefix The warp name prefix.
+     * @param count  The number of warps to add.
+     * @param owner  The owner of the new warps.
+     * @return The names of the new warps.
+     */
+    private List<String> addWarps(Map<String, Warp> target, String prefix, int count, String owner) {
+        List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            String name = prefix + i;
+            Location loc = this.ground((i * 31) % SPREAD + 0.5, (i * 17) / SPREAD * 3 + 0.5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+            target.put(name, new Warp(this.plugin, name, loc, owner));
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Write a small text file.
+     *
+     * @param file     The file to write.
+     * @param contents The contents of the file.
+     */
+    private static void writeFile(File file, String contents) throws IOException {
+        FileWriter out = new FileWriter(file);
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Delete a file or directory tree.
+     *
+     * @param file The file or directory to delete.
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
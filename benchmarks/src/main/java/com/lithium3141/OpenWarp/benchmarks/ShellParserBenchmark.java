@@ -0,0 +1,68 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.shellparser.ShellParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line tokenizing through ShellParser#parseString, for lines with
+ * <tt>tokens</tt> words, a quarter of them quoted phrases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShellParserBenchmark {
+
+    /**
+     * Number of tokens in the parsed line.
+     */
+    @Param({"2", "8", "64"})
+    public int tokens;
+
+    /**
+     * The line to parse.
+     */
+    private String line;
+
+    /**
+     * Build the line to parse.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("warp");
+        for (int i = 1; i < this.tokens; i++) {
+            if (i % 4 == 0) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+                builder.append(" \"quoted phrase ").append(i).append('"');
+            } else {
+                builder.append(" word").append(i);
+            }
+        }
+        this.line = builder.toString();
+    }
+
+    /**
+     * Tokenize the line.
+     *
+     * @return The tokens.
+     */
+    @Benchmark
+    public List<String> parseString() throws Exception {
+        return ShellParser.parseString(this.line);
+    }
+}
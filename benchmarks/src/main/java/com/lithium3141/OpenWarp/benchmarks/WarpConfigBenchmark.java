@@ -0,0 +1,114 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warp serialization: Warp#getConfigurationMap over every public warp, and the
+ * YAML save and load of the public warp file through OWConfigurationManager,
+ * for <tt>warpCount</tt> public warps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarpConfigBenchmark {
+
+    /**
+     * Number of public warps.
+     */
+    @Param({"10", "1000", "10000"})
+    public int warpCount;
+
+    /**
+     * The plugin under test.
+     */
+    private OpenWarpFixture fixture;
+
+    /**
+     * The plugin instance.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The public warp file, as last saved.
+     */
+    private File warpFile;
+
+    /**
+     * Build the warp registry and save it once.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.fixture = new OpenWarpFixture();
+        this.plugin = this.fixture.getPlugin();
+        this.fixture.addPublicWarps("public", this.warpCount, "admin");
+        this.plugin.getConfigurationManager().saveGlobalConfiguration();
+        this.warpFile = new File(this.fixture.getDataFolder(), "warps.yml");
+    }
+
+    /**
+     * Tear down the plugin.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    /**
+     * Build the configuration map of every public warp.
+     *
+     * @return The number of map entries built.
+     */
+    @Benchmark
+    public int configurationMaps() {
+        int entries = 0;
+        for (Warp warp : this.plugin.getPublicWarps().values()) {
+            entries += warp.getConfigurationMap().size();
+        }
+        return entries;
+    }
+
+    /**
+     * Save the global configuration and public warp file.
+     */
+    @Benchmark
+    public void saveYaml() {
+        this.plugin.getConfigurationManager().saveGlobalConfiguration();
+    }
+
+    /**
+     * Parse the public warp file and build Warp objects from it.
+     *
+     * @return The warps loaded.
+     */
+    @Benchmark
+    public Map<String, Warp> loadYaml() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(this.warpFile);
+        Map<String, Warp> target = new HashMap<String, Warp>();
+        this.plugin.getConfigurationManager().loadWarps(config, target);
+        return target;
+    }
+}
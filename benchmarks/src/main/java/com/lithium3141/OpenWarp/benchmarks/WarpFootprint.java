@@ -0,0 +1,186 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.Location;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap comparison of the compact Warp against the layout it replaced, which
+ * held a Location, its own owner String and its own invitee ArrayList per warp.
+ * Each layout is measured by building the given number of warps (100,000 by
+ * default) with owners drawn from a pool of players, as when loading from YAML,
+ * and taking the difference in used heap after garbage collection.
+ * <p/>
+ * Run with:
+ * <pre>
+ * java -cp target/benchmarks.jar com.lithium3141.OpenWarp.benchmarks.WarpFootprint [WARPS]
+ * </pre>
+ */
+public final class WarpFootprint {
+
+    /**
+     * Number of warps built when no count is given.
+     */
+    private static final int DEFAULT_WARPS = 100000;
+
+    /**
+     * Number of distinct owners among the warps.
+     */
+    private static final int OWNERS = 500;
+
+    /**
+     * Number of garbage collections requested before reading used heap.
+     */
+    private static final int GC_PASSES = 5;
+
+    /**
+     * Bytes per megabyte.
+     */
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    /**
+     * Private constructor so as not to instantiate utility classes.
+     */
+    private WarpFootprint() {
+        super();
+    }
+
+    /**
+     * Measure and print the footprint of both layouts.
+     *
+     * @param args Optionally, the number of warps to build.
+     */
+    public static void main(String[] args) throws IOException {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WARPS);
+        OpenWarpFixture fixture = new OpenWarpFixture();
+        try {
+            OpenWarp plugin = fixture.getPlugin();
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = "warp" + i;
+            }
+
+            long legacy = measureLegacy(fixture, names);
+            long compact = measureCompact(fixture, plugin, names);
+
+            System.out.println(String.format("%d warps, %d owners", count, OWNERS));
+            System.out.println(String.format("  legacy:  %8.2f MB  %5d B/warp", legacy / BYTES_PER_MB, legacy / count));
+            System.out.println(String.format("  compact: %8.2f MB  %5d B/warp", compact / BYTES_PER_MB, compact / count));
+            System.out.println(String.format("  saved:   %8.2f MB  (%.0f%%)", (legacy - compact) / BYTES_PER_MB,
+                    100.0 * (legacy - compact) / legacy));
+        } finally {
+            fixture.close();
+        }
+    }
+
+    /**
+     * Measure the heap held by warps in the legacy layout.
+     *
+     * @param fixture The fixture providing the world.
+     * @param names   The warp names.
+     * @return The bytes held.
+     */
+    private static long measureLegacy(OpenWarpFixture fixture, String[] names) {
+        List<Object> keep = new ArrayList<Object>(names.length);
+        long before = usedHeap();
+        for (int i = 0; i < names.length; i++) {
+            keep.add(new LegacyWarp(names[i], fixture.ground(i, i), new String("player" + (i % OWNERS))));
+        }
+        long used = usedHeap() - before;
+        if (keep.size() != names.length) {
+            throw new IllegalStateException();
+        }
+        return used;
+    }
+
+    /**
+     * Measure the heap held by compact Warps.
+     *
+     * @param fixture The fixture providing the world.
+     * @param plugin  The plugin owning the warps.
+     * @param names   The warp names.
+     * @return The bytes held.
+     */
+    private static long measureCompact(OpenWarpFixture fixture, OpenWarp plugin, String[] names) {
+        List<Object> keep = new ArrayList<Object>(names.length);
+        long before = usedHeap();
+        for (int i = 0; i < names.length; i++) {
+            keep.add(new Warp(plugin, names[i], fixture.ground(i, i), new String("player" + (i % OWNERS))));
+        }
+        long used = usedHeap() - before;
+        if (keep.size() != names.length) {
+            throw new IllegalStateException();
+        }
+        return used;
+    }
+
+    /**
+     * Collect garbage and read the used heap.
+     *
+     * @return The used heap, in bytes.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_PASSES; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The fields of a Warp before the compact layout.
+     */
+    private static final class LegacyWarp {
+        /**
+         * Back-reference to the plugin, as the old layout held.
+         */
+        private final Object plugin = null;
+
+        /**
+         * The warp name.
+         */
+        private final String name;
+
+        /**
+         * The warp destination.
+         */
+        private final Location location;
+
+        /**
+         * The owner name, one String per warp.
+         */
+        private final String owner;
+
+        /**
+         * The invitee list, one per warp.
+         */
+        private final List<String> invitees = new ArrayList<String>();
+
+        /**
+         * The safe teleport flag.
+         */
+        private boolean safeTeleport;
+
+        /**
+         * The safe landing Y-coordinate.
+         */
+        private int landingY;
+
+        /**
+         * Create a legacy warp.
+         *
+         * @param warpName  The warp name.
+         * @param loc       The warp destination.
+         * @param warpOwner The owner name.
+         */
+        LegacyWarp(String warpName, Location loc, String warpOwner) {
+            this.name = warpName;
+            this.location = loc;
+            this.owner = warpOwner;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.lithium3141.OpenWarp.benchmarks;
+
+import com.lithium3141.OpenWarp.OWCoordinateDestination;
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warp lookups through OpenWarp#getWarp, by name and by location, and
+ * coordinate destination parsing. The registry
+ * holds <tt>warpCount</tt> public warps plus the same number of private warps
+ * spread across ten other players; the requesting player owns a few warps and
+ * is invited to one of another player's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarpLookupBenchmark {
+
+    /**
+     * Number of other players owning private warps.
+     */
+    private static final int OWNERS = 10;
+
+    /**
+     * Number of public warps, and of private warps across all other players.
+     */
+    @Param({"10", "1000", "10000"})
+    public int warpCount;
+
+    /**
+     * The plugin under test.
+     */
+    private OpenWarpFixture fixture;
+
+    /**
+     * The plugin instance.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The player making requests.
+     */
+    private Player requester;
+
+    /**
+     * Name of the last public warp added.
+     */
+    private String publicName;
+
+    /**
+     * Name of one of the requester's own warps.
+     */
+    private String privateName;
+
+    /**
+     * Owner-qualified name of the warp shared with the requester.
+     */
+    private String sharedName;
+
+    /**
+     * Location of the last public warp added.
+     */
+    private Location publicLocation;
+
+    /**
+     * A location matching no warp.
+     */
+    private Location missLocation;
+
+    /**
+     * Build the warp registry.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.fixture = new OpenWarpFixture();
+        this.plugin = this.fixture.getPlugin();
+        this.requester = this.fixture.addPlayer("requester").getPlayer();
+
+        List<String> publics = this.fixture.addPublicWarps("public", this.warpCount, "admin");
+        this.publicName = publics.get(publics.size() - 1);
+        this.publicLocation = this.plugin.getPublicWarps().get(this.publicName).getLocation().clone();
+        this.missLocation = this.fixture.ground(-1000.5, -1000.5);
+
+        this.privateName = this.fixture.addPrivateWarps("requester", "mine", OWNERS).get(OWNERS - 1);
+
+        String sharedOwner = null;
+        String sharedWarp = null;
+        for (int i = 0; i < OWNERS; i++) {
+            String owner = "owner" + i;
+            this.fixture.addPlayer(owner);
+            List<String> names = this.fixture.addPrivateWarps(owner, "private", Math.max(this.warpCount / OWNERS, 1));
+            sharedOwner = owner;
+            sharedWarp = names.get(names.size() - 1);
+        }
+        Warp shared = this.plugin.getPrivateWarps(sharedOwner).get(sharedWarp);
+        shared.addInvitee("requester");
+        this.sharedName = sharedOwner + ":" + sharedWarp;
+    }
+
+    /**
+     * Tear down the plugin.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    /**
+     * Look up a public warp by name.
+     *
+     * @return The warp found.
+     */
+    @Benchmark
+    public Warp publicByName() {
+        return this.plugin.getWarp(this.requester, this.publicName);
+    }
+
+    /**
+     * Look up one of the requester's private warps by name.
+     *
+     * @return The warp found.
+     */
+    @Benchmark
+    public Warp privateByName() {
+        return this.plugin.getWarp(this.requester, this.privateName);
+    }
+
+    /**
+     * Look up a warp shared with the requester by owner-qualified name.
+     *
+     * @return The warp found.
+     */
+    @Benchmark
+    public Warp sharedByName() {
+        return this.plugin.getWarp(this.requester, this.sharedName);
+    }
+
+    /**
+     * Look up a name matching no warp.
+     *
+     * @return null.
+     */
+    @Benchmark
+    public Warp missByName() {
+        return this.plugin.getWarp(this.requester, "nosuchwarp");
+    }
+
+    /**
+     * Parse and resolve a coordinate destination, as <code>/warp</code> does before
+     * any warp lookup.
+     *
+     * @return The destination found.
+     */
+    @Benchmark
+    public Location coordinates() {
+        return OWCoordinateDestination.parse("world:120,70,-45").getLocation(this.plugin.getServer(), this.requester.getWorld());
+    }
+
+    /**
+     * Look up a public warp by location.
+     *
+     * @return The warp found.
+     */
+    @Benchmark
+    public Warp publicByLocation() {
+        return this.plugin.getWarp(this.requester, this.publicLocation);
+    }
+
+    /**
+     * Look up a location matching no warp.
+     *
+     * @return null.
+     */
+    @Benchmark
+    public Warp missByLocation() {
+        return this.plugin.getWarp(this.requester, this.missLocation);
+    }
+}
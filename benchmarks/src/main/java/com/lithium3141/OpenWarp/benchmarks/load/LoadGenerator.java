@@ -0,0 +1,460 @@
+package com.lithium3141.OpenWarp.benchmarks.load;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.benchmarks.OpenWarpFixture;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubPlayer;
+import com.lithium3141.OpenWarp.benchmarks.stub.StubServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic load generator. Runs an enabled OpenWarp against the stub server,
+ * with a population of players issuing a weighted mix of warp, set, list,
+ * share and back commands through OpenWarp#onCommand and joining and quitting
+ * through the plugin's listeners, at a fixed rate per simulated second.
+ * <p/>
+ * Simulated time advances one server tick at a time as fast as the machine
+ * allows, so a run reports both how long each operation took and how much of
+ * each 50 ms tick the plugin would have used at the requested rate. Allocation
+ * is measured per operation where the JVM supports thread allocation counters.
+ * Everything runs in-process; nothing touches the network.
+ * <p/>
+ * Run with:
+ * <pre>
+ * java -cp target/benchmarks.jar com.lithium3141.OpenWarp.benchmarks.load.LoadGenerator \
+ *     --players=200 --public-warps=5000 --rate=400 --seconds=120
+ * </pre>
+ *
+ * @see LoadProfile
+ */
+public final class LoadGenerator {
+
+    /**
+     * Number of server ticks per second.
+     */
+    private static final int TICKS_PER_SECOND = 20;
+
+    /**
+     * Main-thread time available to a server tick, in nanoseconds.
+     */
+    private static final long TICK_BUDGET_NANOS = 50000000L;
+
+    /**
+     * Number of private warps each player moves around with <tt>/warp set</tt>.
+     */
+    private static final int SET_NAMES = 8;
+
+    /**
+     * Percentage of warp operations that target a public warp.
+     */
+    private static final int PUBLIC_WARP_PERCENT = 70;
+
+    /**
+     * Percentage of joining players who return rather than arrive new.
+     */
+    private static final int RETURNING_PERCENT = 50;
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /**
+     * The shape of this run.
+     */
+    private final LoadProfile profile;
+
+    /**
+     * Source of every random choice.
+     */
+    private final Random random;
+
+    /**
+     * The plugin and stub server under load.
+     */
+    private OpenWarpFixture fixture;
+
+    /**
+     * Names of online players.
+     */
+    private final List<String> online = new ArrayList<String>();
+
+    /**
+     * Names of players who have played and quit.
+     */
+    private final List<String> offline = new ArrayList<String>();
+
+    /**
+     * Number used to name the next new player.
+     */
+    private int nextPlayer;
+
+    /**
+     * Names of the public warps.
+     */
+    private List<String> publicWarps;
+
+    /**
+     * The <tt>/warp</tt> command, as registered by the server.
+     */
+    private final Command warpCommand = new LoadCommand("warp");
+
+    /**
+     * The <tt>/back</tt> command, as registered by the server.
+     */
+    private final Command backCommand = new LoadCommand("back");
+
+    /**
+     * Samples for each operation.
+     */
+    private final Map<Operation, OperationStats> stats = new EnumMap<Operation, OperationStats>(Operation.class);
+
+    /**
+     * Samples of the main-thread time of each whole tick: operations plus scheduled tasks.
+     */
+    private OperationStats tickStats;
+
+    /**
+     * Samples of the time spent running scheduled plugin tasks each tick.
+     */
+    private OperationStats taskStats;
+
+    /**
+     * Number of ticks whose main-thread time exceeded the tick budget.
+     */
+    private int overruns;
+
+    /**
+     * Thread allocation counter, or null if the JVM has none.
+     */
+    private com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * Create a new load generator for the given profile.
+     *
+     * @param loadProfile The shape of the run.
+     */
+    public LoadGenerator(LoadProfile loadProfile) {
+        this.profile = loadProfile;
+        this.random = new Random(loadProfile.getSeed());
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                this.allocationBean = sunBean;
+            }
+        }
+    }
+
+    /**
+     * Run a load test from the command line and print its report.
+     *
+     * @param args Profile options; see LoadProfile.
+     */
+    public static void main(String[] args) throws IOException {
+        LoadProfile profile;
+        try {
+            profile = LoadProfile.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --players=N --public-warps=N --private-warps=N --rate=OPS --seconds=N --warmup=N --seed=N"
+                    + " --mix=warp:W,set:W,list:W,share:W,back:W,churn:W");
+            System.exit(1);
+            return;
+        }
+
+        LoadGenerator generator = new LoadGenerator(profile);
+        generator.run(System.out);
+    }
+
+    /**
+     * Set up the plugin, run the warmup and measured phases, print the report and
+     * tear the plugin down.
+     *
+     * @param out Where to print progress and the report.
+     */
+    public void run(PrintStream out) throws IOException {
+        out.println("OpenWarp load test: " + this.profile);
+        this.setUp();
+        try {
+            this.resetStats();
+            this.runTicks(this.profile.getWarmupSeconds() * TICKS_PER_SECOND);
+
+            this.resetStats();
+            long wallStart = System.nanoTime();
+            this.runTicks(this.profile.getSeconds() * TICKS_PER_SECOND);
+            long wallNanos = System.nanoTime() - wallStart;
+
+            this.report(out, wallNanos);
+        } finally {
+            this.fixture.close();
+        }
+    }
+
+    /**
+     * Start the plugin and bring the initial population online.
+     */
+    private void setUp() throws IOException {
+        this.fixture = new OpenWarpFixture();
+        this.publicWarps = this.fixture.addPublicWarps("pub", this.profile.getPublicWarps(), "server");
+        for (int i = 0; i < this.profile.getPlayers(); i++) {
+            this.join(this.newPlayerName());
+        }
+    }
+
+    /**
+     * Discard every sample taken so far.
+     */
+    private void resetStats() {
+        for (Operation op : Operation.values()) {
+            this.stats.put(op, new OperationStats());
+        }
+        this.tickStats = new OperationStats();
+        this.taskStats = new OperationStats();
+        this.overruns = 0;
+    }
+
+    /**
+     * Run a number of server ticks, issuing operations at the profile's rate.
+     *
+     * @param ticks The number of ticks to run.
+     */
+    private void runTicks(int ticks) {
+        double perTick = this.profile.getRate() / TICKS_PER_SECOND;
+        double owed = 0.0;
+        for (int tick = 0; tick < ticks; tick++) {
+            long tickStart = System.nanoTime();
+
+            owed += perTick;
+            while (owed >= 1.0) {
+                owed -= 1.0;
+                this.issue(this.pickOperation());
+            }
+
+            long taskStart = System.nanoTime();
+            this.fixture.getServer().getStubScheduler().tick();
+            long end = System.nanoTime();
+
+            this.taskStats.record(end - taskStart, -1);
+            this.tickStats.record(end - tickStart, -1);
+            if (end - tickStart > TICK_BUDGET_NANOS) {
+                this.overruns++;
+            }
+        }
+    }
+
+    /**
+     * Choose the next operation according to the profile's mix.
+     *
+     * @return The operation to issue.
+     */
+    private Operation pickOperation() {
+        int roll = this.random.nextInt(this.profile.getTotalWeight());
+        for (Operation op : Operation.values()) {
+            roll -= this.profile.getWeight(op);
+            if (roll < 0) {
+                return op;
+            }
+        }
+        return Operation.WARP;
+    }
+
+    /**
+     * Issue a single operation from a random online player, timing it.
+     *
+     * @param op The operation to issue.
+     */
+    private void issue(Operation op) {
+        String name = this.online.get(this.random.nextInt(this.online.size()));
+        CommandSender sender = this.fixture.getServer().getStubPlayer(name).getPlayer();
+        OpenWarp plugin = this.fixture.getPlugin();
+
+        // Choose arguments before timing, so only the plugin's work is measured
+        Command command = this.warpCommand;
+        String[] args;
+        switch (op) {
+            case WARP:
+                if (this.random.nextInt(100) < PUBLIC_WARP_PERCENT) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    args = new String[] {this.publicWarps.get(this.random.nextInt(this.publicWarps.size()))};
+                } else {
+                    args = new String[] {"p" + this.random.nextInt(this.profile.getPrivateWarps())};
+                }
+                break;
+            case SET:
+                args = new String[] {"set", "s" + this.random.nextInt(SET_NAMES), "private"};
+                break;
+            case LIST:
+                args = new String[] {"list"};
+                break;
+            case SHARE:
+                args = new String[] {"share", "p" + this.random.nextInt(this.profile.getPrivateWarps()),
+                    this.online.get(this.random.nextInt(this.online.size()))};
+                break;
+            case BACK:
+                command = this.backCommand;
+                args = new String[0];
+                break;
+            default:
+                args = null;
+                break;
+        }
+
+        long bytesBefore = this.allocatedBytes();
+        long start = System.nanoTime();
+        if (op == Operation.CHURN) {
+            this.churn(name);
+        } else {
+            plugin.onCommand(sender, command, command.getLabel(), args);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytesAfter = this.allocatedBytes();
+
+        this.stats.get(op).record(nanos, (bytesBefore < 0 ? -1 : bytesAfter - bytesBefore)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Take an online player offline and bring another player on, either one who
+     * has played before or a new one.
+     *
+     * @param leaving The name of the player who quits.
+     */
+    private void churn(String leaving) {
+        StubServer server = this.fixture.getServer();
+        StubPlayer player = server.getStubPlayer(leaving);
+        server.removePlayer(leaving);
+        this.online.remove(leaving);
+        this.offline.add(leaving);
+        server.getStubPluginManager().callEvent(new PlayerQuitEvent(player.getPlayer(), null));
+
+        String joining;
+        if (this.offline.size() > 1 && this.random.nextInt(100) < RETURNING_PERCENT) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+            joining = this.offline.remove(this.random.nextInt(this.offline.size() - 1));
+        } else {
+            joining = this.newPlayerName();
+        }
+        this.join(joining);
+    }
+
+    /**
+     * Bring a player online through the plugin's join listener. New players are
+     * given their private warps once they have joined.
+     *
+     * @param name The name of the joining player.
+     */
+    private void join(String name) {
+        boolean known = (this.fixture.getPlugin().getPrivateWarps(name) != null);
+        StubPlayer player = this.fixture.getServer().addPlayer(name, this.fixture.ground(0.5, 0.5)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        player.grant("*");
+        this.online.add(name);
+        this.fixture.getServer().getStubPluginManager().callEvent(new PlayerJoinEvent(player.getPlayer(), null));
+        if (!known) {
+            this.fixture.addPrivateWarps(name, "p", this.profile.getPrivateWarps());
+        }
+    }
+
+    /**
+     * Make up a name for a player who has never played.
+     *
+     * @return A fresh player name.
+     */
+    private String newPlayerName() {
+        return "player" + this.nextPlayer++;
+    }
+
+    /**
+     * Get the bytes allocated by the current thread so far.
+     *
+     * @return The allocation counter, or -1 if the JVM has none.
+     */
+    private long allocatedBytes() {
+        if (this.allocationBean == null) {
+            return -1;
+        }
+        return this.allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Print the results of the measured phase.
+     *
+     * @param out       Where to print.
+     * @param wallNanos Wall-clock time of the measured phase, in nanoseconds.
+     */
+    private void report(PrintStream out, long wallNanos) {
+        int totalOps = 0;
+        long busyNanos = 0;
+        out.println();
+        out.println(String.format("%-8s %9s %10s %10s %10s %10s %10s %12s",
+                "op", "count", "mean us", "p50 us", "p90 us", "p99 us", "max us", "alloc B/op"));
+        for (Operation op : Operation.values()) {
+            OperationStats s = this.stats.get(op);
+            if (s.getCount() == 0) {
+                continue;
+            }
+            totalOps += s.getCount();
+            busyNanos += s.getTotalNanos();
+            out.println(String.format("%-8s %9d %10.1f %10.1f %10.1f %10.1f %10.1f %12s", op.getKey(), s.getCount(),
+                    s.getTotalNanos() / NANOS_PER_MICRO / s.getCount(),
+                    s.getPercentile(50.0) / NANOS_PER_MICRO, // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    s.getPercentile(90.0) / NANOS_PER_MICRO, // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    s.getPercentile(99.0) / NANOS_PER_MICRO, // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    s.getPercentile(100.0) / NANOS_PER_MICRO, // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    (s.getBytesPerOp() < 0 ? "n/a" : Long.toString(s.getBytesPerOp())))); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+
+        double meanTickNanos = (double) this.tickStats.getTotalNanos() / Math.max(this.tickStats.getCount(), 1);
+
+        out.println();
+        out.println(String.format("ticks:      %d, mean %.3f ms, p99 %.3f ms, max %.3f ms; %d over the 50 ms budget",
+                this.tickStats.getCount(), meanTickNanos / NANOS_PER_MILLI,
+                this.tickStats.getPercentile(99.0) / NANOS_PER_MILLI, // SUPPRESS CHECKSTYLE MagicNumberCheck
+                this.tickStats.getPercentile(100.0) / NANOS_PER_MILLI, this.overruns)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        out.println(String.format("tasks:      mean %.3f ms/tick, max %.3f ms",
+                (double) this.taskStats.getTotalNanos() / Math.max(this.taskStats.getCount(), 1) / NANOS_PER_MILLI,
+                this.taskStats.getPercentile(100.0) / NANOS_PER_MILLI)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        out.println(String.format("tick usage: %.2f%% of the main thread at %.0f ops/s",
+                100.0 * meanTickNanos / TICK_BUDGET_NANOS, this.profile.getRate())); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        out.println(String.format("throughput: %d ops in %.2f s wall = %.0f ops/s; %.0f ops/s of pure command time",
+                totalOps, wallNanos / NANOS_PER_MILLI / 1000.0, totalOps / (wallNanos / NANOS_PER_MILLI / 1000.0), // SUPPRESS CHECKSTYLE MagicNumberCheck
+                totalOps / Math.max(busyNanos / NANOS_PER_MILLI / 1000.0, 1e-9))); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        out.println(String.format("population: %d online, %d offline, %d player configs",
+                this.online.size(), this.offline.size(), this.fixture.getPlugin().getPrivateWarps().size()));
+    }
+
+    /**
+     * A server command, as Bukkit would pass it to OpenWarp#onCommand.
+     */
+    private static final class LoadCommand extends Command {
+        /**
+         * Create a new command with the given name and label.
+         *
+         * @param name The command name.
+         */
+        LoadCommand(String name) {
+            super(name);
+        }
+
+        @Override
+        public boolean execute(CommandSender sender, String label, String[] args) {
+            return false;
+        }
+    }
+}
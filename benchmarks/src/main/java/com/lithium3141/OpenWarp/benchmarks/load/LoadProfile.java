@@ -0,0 +1,218 @@
+package com.lithium3141.OpenWarp.benchmarks.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The shape of a load run: how many players and warps exist, how many
+ * operations per second players issue, in what mix, and for how long.
+ * <p/>
+ * Profiles are parsed from <tt>--name=value</tt> arguments; the operation mix
+ * is given as <tt>--mix=warp:60,set:5,list:10,share:5,back:15,churn:5</tt>,
+ * where each weight is relative to the sum of all weights.
+ */
+public class LoadProfile {
+
+    /**
+     * Number of players online at any time.
+     */
+    private int players = 100;
+
+    /**
+     * Number of public warps.
+     */
+    private int publicWarps = 1000;
+
+    /**
+     * Number of private warps per player.
+     */
+    private int privateWarps = 10;
+
+    /**
+     * Operations issued per simulated second, across all players.
+     */
+    private double rate = 200.0;
+
+    /**
+     * Simulated seconds measured.
+     */
+    private int seconds = 60;
+
+    /**
+     * Simulated seconds run before measuring, to warm up the JIT.
+     */
+    private int warmupSeconds = 10;
+
+    /**
+     * Seed for the random choice of players, operations and targets.
+     */
+    private long seed = 42L;
+
+    /**
+     * Relative weight of each operation.
+     */
+    private final Map<Operation, Integer> mix = new EnumMap<Operation, Integer>(Operation.class);
+
+    /**
+     * Create a profile with the default settings.
+     */
+    public LoadProfile() {
+        this.mix.put(Operation.WARP, 60); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.mix.put(Operation.SET, 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.mix.put(Operation.LIST, 10); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.mix.put(Operation.SHARE, 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.mix.put(Operation.BACK, 15); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.mix.put(Operation.CHURN, 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * Parse a profile from command-line arguments, starting from the defaults.
+     *
+     * @param args Arguments of the form <tt>--name=value</tt>.
+     * @return The parsed profile.
+     * @throws IllegalArgumentException if an argument is malformed or unknown.
+     */
+    public static LoadProfile parse(String[] args) {
+        LoadProfile profile = new LoadProfile();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            if (name.equals("players")) {
+                profile.players = Math.max(Integer.parseInt(value), 2);
+            } else if (name.equals("public-warps")) {
+                profile.publicWarps = Math.max(Integer.parseInt(value), 1);
+            } else if (name.equals("private-warps")) {
+                profile.privateWarps = Math.max(Integer.parseInt(value), 1);
+            } else if (name.equals("rate")) {
+                profile.rate = Math.max(Double.parseDouble(value), 0.0);
+            } else if (name.equals("seconds")) {
+                profile.seconds = Math.max(Integer.parseInt(value), 1);
+            } else if (name.equals("warmup")) {
+                profile.warmupSeconds = Math.max(Integer.parseInt(value), 0);
+            } else if (name.equals("seed")) {
+                profile.seed = Long.parseLong(value);
+            } else if (name.equals("mix")) {
+                profile.mix.clear();
+                for (String part : value.split(",")) {
+                    String[] pair = part.split(":");
+                    if (pair.length != 2) {
+                        throw new IllegalArgumentException("Expected op:weight in mix, got: " + part);
+                    }
+                    profile.mix.put(Operation.forKey(pair[0].trim()), Math.max(Integer.parseInt(pair[1].trim()), 0));
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (profile.getTotalWeight() == 0) {
+            throw new IllegalArgumentException("Operation mix has no positive weights");
+        }
+        return profile;
+    }
+
+    /**
+     * Get the number of players online at any time.
+     *
+     * @return The player count.
+     */
+    public int getPlayers() {
+        return this.players;
+    }
+
+    /**
+     * Get the number of public warps.
+     *
+     * @return The public warp count.
+     */
+    public int getPublicWarps() {
+        return this.publicWarps;
+    }
+
+    /**
+     * Get the number of private warps per player.
+     *
+     * @return The private warp count per player.
+     */
+    public int getPrivateWarps() {
+        return this.privateWarps;
+    }
+
+    /**
+     * Get the number of operations issued per simulated second.
+     *
+     * @return The operation rate.
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Get the number of simulated seconds measured.
+     *
+     * @return The measured duration.
+     */
+    public int getSeconds() {
+        return this.seconds;
+    }
+
+    /**
+     * Get the number of simulated seconds run before measuring.
+     *
+     * @return The warmup duration.
+     */
+    public int getWarmupSeconds() {
+        return this.warmupSeconds;
+    }
+
+    /**
+     * Get the random seed.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Get the relative weight of an operation.
+     *
+     * @param op The operation.
+     * @return The operation's weight; 0 if it is not in the mix.
+     */
+    public int getWeight(Operation op) {
+        Integer weight = this.mix.get(op);
+        return (weight == null ? 0 : weight); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Get the sum of all operation weights.
+     *
+     * @return The total weight.
+     */
+    public int getTotalWeight() {
+        int total = 0;
+        for (int weight : this.mix.values()) {
+            total += weight;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(this.players).append(" players, ").append(this.publicWarps).append(" public warps, ")
+                .append(this.privateWarps).append(" private warps/player, ").append(this.rate).append(" ops/s for ")
+                .append(this.seconds).append("s (+").append(this.warmupSeconds).append("s warmup), seed ").append(this.seed)
+                .append(", mix");
+        for (Operation op : Operation.values()) {
+            if (this.getWeight(op) > 0) {
+                builder.append(' ').append(op.getKey()).append(':').append(this.getWeight(op));
+            }
+        }
+        return builder.toString();
+    }
+}
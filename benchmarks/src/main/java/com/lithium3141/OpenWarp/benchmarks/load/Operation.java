@@ -0,0 +1,70 @@
+package com.lithium3141.OpenWarp.benchmarks.load;
+
+/**
+ * A kind of player action issued by the load generator.
+ */
+public enum Operation {
+    /**
+     * <tt>/warp NAME</tt> to a public warp or one of the player's own private warps.
+     */
+    WARP("warp"),
+    /**
+     * <tt>/warp set NAME private</tt>, moving one of a small set of the player's warps.
+     */
+    SET("set"),
+    /**
+     * <tt>/warp list</tt>.
+     */
+    LIST("list"),
+    /**
+     * <tt>/warp share NAME PLAYER</tt> with another online player.
+     */
+    SHARE("share"),
+    /**
+     * <tt>/back</tt>.
+     */
+    BACK("back"),
+    /**
+     * An online player quits and another player joins.
+     */
+    CHURN("churn");
+
+    /**
+     * The name of this operation in load profiles and reports.
+     */
+    private final String key;
+
+    /**
+     * Create a new operation.
+     *
+     * @param name The name of the operation in load profiles and reports.
+     */
+    private Operation(String name) {
+        this.key = name;
+    }
+
+    /**
+     * Get the name of this operation in load profiles and reports.
+     *
+     * @return The operation name.
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * Find the operation with the given name.
+     *
+     * @param name The operation name.
+     * @return The matching operation.
+     * @throws IllegalArgumentException if no operation has the given name.
+     */
+    public static Operation forKey(String name) {
+        for (Operation op : values()) {
+            if (op.key.equalsIgnoreCase(name)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+}
@@ -0,0 +1,103 @@
+package com.lithium3141.OpenWarp.benchmarks.load;
+
+import java.util.Arrays;
+
+/**
+ * Latency and allocation samples for one kind of operation. Every latency is
+ * kept, so percentiles are exact.
+ */
+public class OperationStats {
+
+    /**
+     * Latency samples, in nanoseconds; only the first #count are valid.
+     */
+    private long[] samples = new long[1024]; // SUPPRESS CHECKSTYLE MagicNumberCheck
+
+    /**
+     * Number of samples recorded.
+     */
+    private int count;
+
+    /**
+     * Sum of all latency samples, in nanoseconds.
+     */
+    private long totalNanos;
+
+    /**
+     * Sum of bytes allocated by all samples, or -1 if allocation is not measured.
+     */
+    private long totalBytes;
+
+    /**
+     * Whether #samples is sorted.
+     */
+    private boolean sorted = true;
+
+    /**
+     * Record one operation.
+     *
+     * @param nanos The latency of the operation, in nanoseconds.
+     * @param bytes The bytes allocated by the operation, or -1 if unknown.
+     */
+    public void record(long nanos, long bytes) {
+        if (this.count == this.samples.length) {
+            this.samples = Arrays.copyOf(this.samples, this.count * 2);
+        }
+        this.samples[this.count++] = nanos;
+        this.totalNanos += nanos;
+        if (bytes < 0 || this.totalBytes < 0) {
+            this.totalBytes = -1;
+        } else {
+            this.totalBytes += bytes;
+        }
+        this.sorted = false;
+    }
+
+    /**
+     * Get the number of operations recorded.
+     *
+     * @return The operation count.
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the total latency of all operations recorded.
+     *
+     * @return The summed latency, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Get the mean bytes allocated per operation.
+     *
+     * @return The mean allocation, or -1 if allocation is not measured.
+     */
+    public long getBytesPerOp() {
+        if (this.totalBytes < 0 || this.count == 0) {
+            return -1;
+        }
+        return this.totalBytes / this.count;
+    }
+
+    /**
+     * Get a latency percentile.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency at that percentile, in nanoseconds; 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        if (!this.sorted) {
+            Arrays.sort(this.samples, 0, this.count);
+            this.sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * this.count) - 1; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        return this.samples[Math.min(Math.max(index, 0), this.count - 1)];
+    }
+}
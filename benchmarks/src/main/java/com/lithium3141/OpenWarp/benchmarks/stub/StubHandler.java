@@ -0,0 +1,125 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class for dynamic-proxy stand-ins of Bukkit interfaces. Subclasses answer
+ * the methods they care about by name in #handle(String, Object[]); every other
+ * method returns a neutral value for its return type (false, zero, an empty
+ * array or collection, or null), so stubs keep working as the Bukkit API grows.
+ */
+public abstract class StubHandler implements InvocationHandler {
+
+    /**
+     * Returned by #handle(String, Object[]) for methods a stub does not implement.
+     */
+    protected static final Object UNHANDLED = new Object();
+
+    /**
+     * Argument array used for methods called without arguments.
+     */
+    private static final Object[] NO_ARGS = new Object[0];
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        Object[] actual = (args == null ? NO_ARGS : args);
+        if (name.equals("equals") && actual.length == 1) {
+            return proxy == actual[0];
+        } else if (name.equals("hashCode") && actual.length == 0) {
+            return System.identityHashCode(proxy);
+        } else if (name.equals("toString") && actual.length == 0) {
+            return this.toString();
+        }
+
+        Object result = this.handle(name, actual);
+        if (result == UNHANDLED) {
+            return defaultValue(method.getReturnType());
+        }
+        return result;
+    }
+
+    /**
+     * Answer a single method call.
+     *
+     * @param method The name of the method called.
+     * @param args   The arguments of the call; never null.
+     * @return The result of the call, or UNHANDLED to return a neutral value.
+     */
+    protected abstract Object handle(String method, Object[] args);
+
+    /**
+     * Create a proxy instance of the given interface backed by this handler.
+     *
+     * @param <T>  The interface type.
+     * @param type The interface to implement.
+     * @return A new proxy implementing the interface.
+     */
+    protected <T> T proxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, this));
+    }
+
+    /**
+     * Create a proxy instance of the given interface on which every method returns
+     * a neutral value.
+     *
+     * @param <T>  The interface type.
+     * @param type The interface to implement.
+     * @return A new proxy implementing the interface.
+     */
+    public static <T> T empty(Class<T> type) {
+        return new StubHandler() {
+            @Override
+            protected Object handle(String method, Object[] args) {
+                return UNHANDLED;
+            }
+        }.proxy(type);
+    }
+
+    /**
+     * Get a neutral value for the given return type.
+     *
+     * @param type The return type of a method.
+     * @return A neutral value of that type.
+     */
+    static Object defaultValue(Class<?> type) {
+        if (type == Void.TYPE) {
+            return null;
+        } else if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Integer.TYPE) {
+            return 0;
+        } else if (type == Long.TYPE) {
+            return 0L;
+        } else if (type == Double.TYPE) {
+            return 0.0;
+        } else if (type == Float.TYPE) {
+            return 0.0f;
+        } else if (type == Short.TYPE) {
+            return (short) 0;
+        } else if (type == Byte.TYPE) {
+            return (byte) 0;
+        } else if (type == Character.TYPE) {
+            return (char) 0;
+        } else if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        } else if (type == List.class || type == Collection.class) {
+            return new ArrayList<Object>();
+        } else if (type == Set.class) {
+            return new HashSet<Object>();
+        } else if (type == Map.class) {
+            return new HashMap<Object, Object>();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,172 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.permissions.Permission;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stand-in for an online Bukkit Player. Keeps a location, a set of granted
+ * permission nodes and an op flag, and counts the messages sent to it.
+ * Teleports fire a PlayerTeleportEvent through the server's plugin manager
+ * before moving the player, as a real server does.
+ */
+public class StubPlayer extends StubHandler {
+
+    /**
+     * The server this player is on.
+     */
+    private final StubServer server;
+
+    /**
+     * The name of this player.
+     */
+    private final String name;
+
+    /**
+     * Permission nodes granted to this player.
+     */
+    private final Set<String> permissions = new HashSet<String>();
+
+    /**
+     * The current location of this player.
+     */
+    private Location location;
+
+    /**
+     * Whether this player is an operator.
+     */
+    private boolean op;
+
+    /**
+     * Number of messages sent to this player.
+     */
+    private long messages;
+
+    /**
+     * The last message sent to this player, or null.
+     */
+    private String lastMessage;
+
+    /**
+     * The proxy answering Player calls.
+     */
+    private final Player player;
+
+    /**
+     * Create a new player at the given location.
+     *
+     * @param owner      The server the player is on.
+     * @param playerName The name of the player.
+     * @param loc        The initial location of the player.
+     */
+    public StubPlayer(StubServer owner, String playerName, Location loc) {
+        this.server = owner;
+        this.name = playerName;
+        this.location = loc.clone();
+        this.player = this.proxy(Player.class);
+    }
+
+    /**
+     * Get the Player proxy for this stub.
+     *
+     * @return The Player.
+     */
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Grant a permission node to this player.
+     *
+     * @param node The node to grant.
+     */
+    public void grant(String node) {
+        this.permissions.add(node);
+    }
+
+    /**
+     * Set whether this player is an operator.
+     *
+     * @param value True to make the player an operator.
+     */
+    public void setOp(boolean value) {
+        this.op = value;
+    }
+
+    /**
+     * Get the number of messages sent to this player.
+     *
+     * @return The message count.
+     */
+    public long getMessageCount() {
+        return this.messages;
+    }
+
+    /**
+     * Get the last message sent to this player.
+     *
+     * @return The last message, or null if none was sent.
+     */
+    public String getLastMessage() {
+        return this.lastMessage;
+    }
+
+    /**
+     * Move this player, firing a teleport event first.
+     *
+     * @param to The destination.
+     * @return True if the teleport was not cancelled.
+     */
+    public boolean teleport(Location to) {
+        PlayerTeleportEvent event = new PlayerTeleportEvent(this.player, this.location.clone(), to.clone());
+        this.server.getStubPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return false;
+        }
+        this.location = event.getTo().clone();
+        return true;
+    }
+
+    @Override
+    protected Object handle(String method, Object[] args) {
+        if (method.equals("getName") || method.equals("getDisplayName")) {
+            return this.name;
+        } else if (method.equals("getLocation")) {
+            return this.location.clone();
+        } else if (method.equals("getWorld")) {
+            return this.location.getWorld();
+        } else if (method.equals("getServer")) {
+            return this.server.getServer();
+        } else if (method.equals("isOnline")) {
+            return this.server.getStubPlayer(this.name) == this;
+        } else if (method.equals("isOp")) {
+            return this.op;
+        } else if (method.equals("setOp")) {
+            this.op = (Boolean) args[0];
+            return null;
+        } else if (method.equals("hasPermission") || method.equals("isPermissionSet")) {
+            String node = (args[0] instanceof Permission ? ((Permission) args[0]).getName() : (String) args[0]);
+            return this.permissions.contains(node) || this.permissions.contains("*");
+        } else if (method.equals("sendMessage") || method.equals("sendRawMessage")) {
+            this.messages++;
+            this.lastMessage = (String) args[0];
+            return null;
+        } else if (method.equals("teleport")) {
+            if (args[0] instanceof Entity) {
+                return this.teleport(((Entity) args[0]).getLocation());
+            }
+            return this.teleport((Location) args[0]);
+        }
+        return UNHANDLED;
+    }
+
+    @Override
+    public String toString() {
+        return "StubPlayer{" + this.name + "}";
+    }
+}
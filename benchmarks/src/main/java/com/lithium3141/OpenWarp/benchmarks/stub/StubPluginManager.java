@@ -0,0 +1,172 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.permissions.Permission;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for the Bukkit PluginManager. Stores registered permissions and
+ * dispatches events to registered listeners' <code>@EventHandler</code> methods
+ * in priority order.
+ */
+public class StubPluginManager extends StubHandler {
+
+    /**
+     * Registered permissions, mapped to by lowercase name.
+     */
+    private final Map<String, Permission> permissions = new HashMap<String, Permission>();
+
+    /**
+     * Handler methods of registered listeners, in priority order.
+     */
+    private final List<Handler> handlers = new ArrayList<Handler>();
+
+    /**
+     * Number of events dispatched.
+     */
+    private long eventCount;
+
+    /**
+     * The proxy answering PluginManager calls.
+     */
+    private final PluginManager manager;
+
+    /**
+     * Create a new plugin manager with no permissions or listeners.
+     */
+    public StubPluginManager() {
+        this.manager = this.proxy(PluginManager.class);
+    }
+
+    /**
+     * Get the PluginManager proxy for this stub.
+     *
+     * @return The PluginManager.
+     */
+    public PluginManager getPluginManager() {
+        return this.manager;
+    }
+
+    /**
+     * Get the number of events dispatched so far.
+     *
+     * @return The event count.
+     */
+    public long getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * Register every <code>@EventHandler</code> method of the given listener.
+     *
+     * @param listener The listener to register.
+     */
+    public void registerEvents(Listener listener) {
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation != null && method.getParameterTypes().length == 1) {
+                this.handlers.add(new Handler(listener, method, annotation));
+            }
+        }
+        Collections.sort(this.handlers, new Comparator<Handler>() {
+            @Override
+            public int compare(Handler a, Handler b) {
+                return a.annotation.priority().compareTo(b.annotation.priority());
+            }
+        });
+    }
+
+    /**
+     * Dispatch an event to every registered handler accepting it.
+     *
+     * @param event The event to dispatch.
+     */
+    public void callEvent(Event event) {
+        this.eventCount++;
+        for (Handler handler : this.handlers) {
+            if (!handler.method.getParameterTypes()[0].isInstance(event)) {
+                continue;
+            }
+            try {
+                handler.method.invoke(handler.listener, event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Listener threw while handling " + event.getEventName(), e.getCause());
+            }
+        }
+    }
+
+    @Override
+    protected Object handle(String method, Object[] args) {
+        if (method.equals("addPermission")) {
+            Permission perm = (Permission) args[0];
+            String key = perm.getName().toLowerCase();
+            if (this.permissions.containsKey(key)) {
+                throw new IllegalArgumentException("The permission " + key + " is already defined!");
+            }
+            this.permissions.put(key, perm);
+            return null;
+        } else if (method.equals("getPermission")) {
+            return this.permissions.get(((String) args[0]).toLowerCase());
+        } else if (method.equals("removePermission")) {
+            String key = (args[0] instanceof Permission ? ((Permission) args[0]).getName() : (String) args[0]);
+            this.permissions.remove(key.toLowerCase());
+            return null;
+        } else if (method.equals("getPermissions")) {
+            return new HashSet<Permission>(this.permissions.values());
+        } else if (method.equals("registerEvents")) {
+            this.registerEvents((Listener) args[0]);
+            return null;
+        } else if (method.equals("callEvent")) {
+            this.callEvent((Event) args[0]);
+            return null;
+        }
+        return UNHANDLED;
+    }
+
+    /**
+     * A single registered event handler method.
+     */
+    private static final class Handler {
+        /**
+         * The listener owning the method.
+         */
+        private final Listener listener;
+
+        /**
+         * The handler method.
+         */
+        private final Method method;
+
+        /**
+         * The method's handler annotation.
+         */
+        private final EventHandler annotation;
+
+        /**
+         * Create a new handler record.
+         *
+         * @param l The listener owning the method.
+         * @param m The handler method.
+         * @param a The method's handler annotation.
+         */
+        Handler(Listener l, Method m, EventHandler a) {
+            this.listener = l;
+            this.method = m;
+            this.annotation = a;
+        }
+    }
+}
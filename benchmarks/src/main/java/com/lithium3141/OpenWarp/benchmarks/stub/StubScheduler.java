@@ -0,0 +1,194 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Stand-in for the Bukkit scheduler. Tasks only run when #tick() is called, so
+ * a harness controls exactly when scheduled work happens. Asynchronous tasks are
+ * run on the ticking thread as well, which keeps runs deterministic.
+ */
+public class StubScheduler extends StubHandler {
+
+    /**
+     * Scheduled tasks, in order of scheduling.
+     */
+    private final List<Task> tasks = new ArrayList<Task>();
+
+    /**
+     * ID given to the next scheduled task.
+     */
+    private int nextId = 1;
+
+    /**
+     * Number of ticks run so far.
+     */
+    private long currentTick;
+
+    /**
+     * The proxy answering BukkitScheduler calls.
+     */
+    private final BukkitScheduler scheduler;
+
+    /**
+     * Create a new scheduler with no tasks.
+     */
+    public StubScheduler() {
+        this.scheduler = this.proxy(BukkitScheduler.class);
+    }
+
+    /**
+     * Get the BukkitScheduler proxy for this stub.
+     *
+     * @return The BukkitScheduler.
+     */
+    public BukkitScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Get the number of ticks run so far.
+     *
+     * @return The current tick.
+     */
+    public long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * Get the number of tasks waiting to run, including repeating tasks.
+     *
+     * @return The number of scheduled tasks.
+     */
+    public int getTaskCount() {
+        return this.tasks.size();
+    }
+
+    /**
+     * Run one server tick: every task due this tick runs once, in scheduling order.
+     */
+    public void tick() {
+        this.currentTick++;
+        List<Task> due = new ArrayList<Task>();
+        for (Task task : this.tasks) {
+            if (task.nextRun <= this.currentTick) {
+                due.add(task);
+            }
+        }
+        for (Task task : due) {
+            if (!this.tasks.contains(task)) {
+                continue;
+            }
+            if (task.period > 0) {
+                task.nextRun = this.currentTick + task.period;
+            } else {
+                this.tasks.remove(task);
+            }
+            task.runnable.run();
+        }
+    }
+
+    /**
+     * Schedule a task.
+     *
+     * @param runnable The task body.
+     * @param delay    Ticks before the first run.
+     * @param period   Ticks between runs, or 0 to run once.
+     * @return The task ID.
+     */
+    private int schedule(Runnable runnable, long delay, long period) {
+        Task task = new Task(this.nextId++, runnable, this.currentTick + Math.max(delay, 1), period);
+        this.tasks.add(task);
+        return task.id;
+    }
+
+    @Override
+    protected Object handle(String method, Object[] args) {
+        if (method.equals("scheduleSyncDelayedTask") || method.equals("scheduleAsyncDelayedTask")) {
+            long delay = (args.length > 2 ? (Long) args[2] : 0L);
+            return this.schedule((Runnable) args[1], delay, 0L);
+        } else if (method.equals("scheduleSyncRepeatingTask") || method.equals("scheduleAsyncRepeatingTask")) {
+            return this.schedule((Runnable) args[1], (Long) args[2], Math.max((Long) args[3], 1L));
+        } else if (method.equals("callSyncMethod")) {
+            FutureTask<Object> future = new FutureTask<Object>(castCallable(args[1]));
+            future.run();
+            return future;
+        } else if (method.equals("cancelTask")) {
+            int id = (Integer) args[0];
+            for (Iterator<Task> it = this.tasks.iterator(); it.hasNext();) {
+                if (it.next().id == id) {
+                    it.remove();
+                }
+            }
+            return null;
+        } else if (method.equals("cancelTasks") || method.equals("cancelAllTasks")) {
+            this.tasks.clear();
+            return null;
+        } else if (method.equals("isQueued")) {
+            int id = (Integer) args[0];
+            for (Task task : this.tasks) {
+                if (task.id == id) {
+                    return Boolean.TRUE;
+                }
+            }
+            return Boolean.FALSE;
+        }
+        return UNHANDLED;
+    }
+
+    /**
+     * Cast an argument to a Callable of unknown result type.
+     *
+     * @param callable The argument.
+     * @return The argument as a Callable.
+     */
+    @SuppressWarnings("unchecked")
+    private static Callable<Object> castCallable(Object callable) {
+        return (Callable<Object>) callable;
+    }
+
+    /**
+     * A single scheduled task.
+     */
+    private static final class Task {
+        /**
+         * The task ID.
+         */
+        private final int id;
+
+        /**
+         * The task body.
+         */
+        private final Runnable runnable;
+
+        /**
+         * Tick on which the task next runs.
+         */
+        private long nextRun;
+
+        /**
+         * Ticks between runs, or 0 to run once.
+         */
+        private final long period;
+
+        /**
+         * Create a new task record.
+         *
+         * @param taskId The task ID.
+         * @param r      The task body.
+         * @param first  Tick on which the task first runs.
+         * @param every  Ticks between runs, or 0 to run once.
+         */
+        Task(int taskId, Runnable r, long first, long every) {
+            this.id = taskId;
+            this.runnable = r;
+            this.nextRun = first;
+            this.period = every;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicesManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stand-in for a Bukkit Server, holding stub worlds and players and wiring up a
+ * stub plugin manager and scheduler. Entirely in-process; nothing touches the
+ * network.
+ */
+public class StubServer extends StubHandler {
+
+    /**
+     * Worlds on this server, mapped to by name.
+     */
+    private final Map<String, StubWorld> worlds = new LinkedHashMap<String, StubWorld>();
+
+    /**
+     * Online players, mapped to by name.
+     */
+    private final Map<String, StubPlayer> players = new LinkedHashMap<String, StubPlayer>();
+
+    /**
+     * The plugin manager of this server.
+     */
+    private final StubPluginManager pluginManager = new StubPluginManager();
+
+    /**
+     * The scheduler of this server.
+     */
+    private final StubScheduler scheduler = new StubScheduler();
+
+    /**
+     * The services manager of this server, on which registrations are ignored.
+     */
+    private final ServicesManager servicesManager = empty(ServicesManager.class);
+
+    /**
+     * The logger of this server.
+     */
+    private final Logger logger = Logger.getLogger("StubServer");
+
+    /**
+     * The proxy answering Server calls.
+     */
+    private final Server server;
+
+    /**
+     * Create a new server with no worlds or players.
+     */
+    public StubServer() {
+        this.server = this.proxy(Server.class);
+    }
+
+    /**
+     * Get the Server proxy for this stub.
+     *
+     * @return The Server.
+     */
+    public Server getServer() {
+        return this.server;
+    }
+
+    /**
+     * Get the stub plugin manager of this server.
+     *
+     * @return The plugin manager stub.
+     */
+    public StubPluginManager getStubPluginManager() {
+        return this.pluginManager;
+    }
+
+    /**
+     * Get the stub scheduler of this server.
+     *
+     * @return The scheduler stub.
+     */
+    public StubScheduler getStubScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Add a flat world to this server.
+     *
+     * @param name      The name of the world.
+     * @param maxHeight The height of the world.
+     * @param groundY   Highest Y-coordinate of the stone floor.
+     * @return The new world stub.
+     */
+    public StubWorld addWorld(String name, int maxHeight, int groundY) {
+        StubWorld world = new StubWorld(name, maxHeight, groundY);
+        this.worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * Bring a player online at the given location. Does not fire a join event.
+     *
+     * @param name     The name of the player.
+     * @param location The initial location of the player.
+     * @return The new player stub.
+     */
+    public StubPlayer addPlayer(String name, Location location) {
+        StubPlayer player = new StubPlayer(this, name, location);
+        this.players.put(name, player);
+        return player;
+    }
+
+    /**
+     * Take a player offline. Does not fire a quit event.
+     *
+     * @param name The name of the player.
+     * @return The removed player stub, or null if the player was not online.
+     */
+    public StubPlayer removePlayer(String name) {
+        return this.players.remove(name);
+    }
+
+    /**
+     * Get an online player's stub.
+     *
+     * @param name The name of the player.
+     * @return The player stub, or null if the player is not online.
+     */
+    public StubPlayer getStubPlayer(String name) {
+        return this.players.get(name);
+    }
+
+    @Override
+    protected Object handle(String method, Object[] args) {
+        if (method.equals("getWorld")) {
+            if (args[0] instanceof UUID) {
+                for (StubWorld world : this.worlds.values()) {
+                    if (world.getWorld().getUID().equals(args[0])) {
+                        return world.getWorld();
+                    }
+                }
+                return null;
+            }
+            StubWorld world = this.worlds.get((String) args[0]);
+            return (world == null ? null : world.getWorld());
+        } else if (method.equals("getWorlds")) {
+            List<World> result = new ArrayList<World>();
+            for (StubWorld world : this.worlds.values()) {
+                result.add(world.getWorld());
+            }
+            return result;
+        } else if (method.equals("getPlayerExact") || method.equals("getPlayer")) {
+            StubPlayer player = this.players.get((String) args[0]);
+            return (player == null ? null : player.getPlayer());
+        } else if (method.equals("getOnlinePlayers")) {
+            Player[] result = new Player[this.players.size()];
+            int i = 0;
+            for (StubPlayer player : this.players.values()) {
+                result[i++] = player.getPlayer();
+            }
+            return result;
+        } else if (method.equals("getPluginManager")) {
+            return this.pluginManager.getPluginManager();
+        } else if (method.equals("getScheduler")) {
+            return this.scheduler.getScheduler();
+        } else if (method.equals("getServicesManager")) {
+            return this.servicesManager;
+        } else if (method.equals("getLogger")) {
+            return this.logger;
+        } else if (method.equals("getName")) {
+            return "StubServer";
+        } else if (method.equals("getVersion") || method.equals("getBukkitVersion")) {
+            return "stub";
+        } else if (method.equals("getMaxPlayers")) {
+            return Integer.MAX_VALUE;
+        }
+        return UNHANDLED;
+    }
+}
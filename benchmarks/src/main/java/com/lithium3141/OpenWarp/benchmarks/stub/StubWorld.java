@@ -0,0 +1,161 @@
+package com.lithium3141.OpenWarp.benchmarks.stub;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stand-in for a Bukkit World. Terrain is flat: stone up to a ground level and
+ * air above it, everywhere, with individual blocks overridable. All chunks
+ * report as loaded.
+ */
+public class StubWorld extends StubHandler {
+
+    /**
+     * Block type ID of stone.
+     */
+    public static final int STONE = 1;
+
+    /**
+     * Block type ID of air.
+     */
+    public static final int AIR = 0;
+
+    /**
+     * The name of this world.
+     */
+    private final String name;
+
+    /**
+     * The unique ID of this world.
+     */
+    private final UUID uid = UUID.randomUUID();
+
+    /**
+     * The height of this world.
+     */
+    private final int maxHeight;
+
+    /**
+     * Highest Y-coordinate of the stone floor.
+     */
+    private final int groundY;
+
+    /**
+     * Overridden block types, keyed by packed coordinates.
+     */
+    private final Map<Long, Integer> overrides = new HashMap<Long, Integer>();
+
+    /**
+     * The proxy answering World calls.
+     */
+    private final World world;
+
+    /**
+     * Create a new flat world.
+     *
+     * @param worldName The name of the world.
+     * @param height    The height of the world.
+     * @param ground    Highest Y-coordinate of the stone floor.
+     */
+    public StubWorld(String worldName, int height, int ground) {
+        this.name = worldName;
+        this.maxHeight = height;
+        this.groundY = ground;
+        this.world = this.proxy(World.class);
+    }
+
+    /**
+     * Get the World proxy for this stub.
+     *
+     * @return The World.
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Get the highest Y-coordinate of the stone floor.
+     *
+     * @return The ground level.
+     */
+    public int getGroundY() {
+        return this.groundY;
+    }
+
+    /**
+     * Override the block type at the given coordinates.
+     *
+     * @param x    The X-coordinate.
+     * @param y    The Y-coordinate.
+     * @param z    The Z-coordinate.
+     * @param type The block type ID to place.
+     */
+    public void setBlockTypeId(int x, int y, int z, int type) {
+        this.overrides.put(key(x, y, z), type);
+    }
+
+    /**
+     * Get the block type at the given coordinates.
+     *
+     * @param x The X-coordinate.
+     * @param y The Y-coordinate.
+     * @param z The Z-coordinate.
+     * @return The block type ID.
+     */
+    public int getBlockTypeId(int x, int y, int z) {
+        if (!this.overrides.isEmpty()) {
+            Integer type = this.overrides.get(key(x, y, z));
+            if (type != null) {
+                return type;
+            }
+        }
+        return (y >= 0 && y <= this.groundY ? STONE : AIR);
+    }
+
+    @Override
+    protected Object handle(String method, Object[] args) {
+        if (method.equals("getName")) {
+            return this.name;
+        } else if (method.equals("getUID")) {
+            return this.uid;
+        } else if (method.equals("getMaxHeight")) {
+            return this.maxHeight;
+        } else if (method.equals("getSeaLevel")) {
+            return this.groundY;
+        } else if (method.equals("getBlockTypeIdAt")) {
+            if (args.length == 1) {
+                Location loc = (Location) args[0];
+                return this.getBlockTypeId(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+            }
+            return this.getBlockTypeId((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+        } else if (method.equals("getHighestBlockYAt")) {
+            return this.groundY + 1;
+        } else if (method.equals("isChunkLoaded") || method.equals("loadChunk") || method.equals("unloadChunk")) {
+            return Boolean.TRUE;
+        } else if (method.equals("getSpawnLocation")) {
+            return new Location(this.world, 0.5, this.groundY + 1, 0.5);
+        }
+        return UNHANDLED;
+    }
+
+    @Override
+    public String toString() {
+        return "StubWorld{" + this.name + "}";
+    }
+
+    /**
+     * Pack block coordinates into a single key.
+     *
+     * @param x The X-coordinate.
+     * @param y The Y-coordinate.
+     * @param z The Z-coordinate.
+     * @return The packed key.
+     */
+    private static long key(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (y & 0xFFFL); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+}
@@ -0,0 +1,249 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+
+/**
+ * A destination given as block coordinates instead of a warp name, written
+ * <code>[world:]x,y,z</code>, e.g. <code>100,64,-20</code> or
+ * <code>nether:100,64,-20</code>. Without a world, the destination is in the
+ * world of whoever uses it.
+ * <p/>
+ * Parsing is a single scan of the input with no regular expressions or
+ * intermediate strings; input that is not coordinates is rejected without
+ * allocating anything, so the check can run ahead of every warp name lookup.
+ */
+public final class OWCoordinateDestination {
+
+    /**
+     * Result of a successful scan when no destination is wanted.
+     */
+    private static final OWCoordinateDestination MATCHED = new OWCoordinateDestination(null, 0, 0, 0, 0);
+
+    /**
+     * Marker for a coordinate that failed to parse; outside the range of int.
+     */
+    private static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * The text this destination was parsed from.
+     */
+    private final String text;
+
+    /**
+     * Length of the world name at the start of #text, or 0 if none was given.
+     */
+    private final int worldLength;
+
+    /**
+     * The X block coordinate.
+     */
+    private final int x;
+
+    /**
+     * The Y block coordinate.
+     */
+    private final int y;
+
+    /**
+     * The Z block coordinate.
+     */
+    private final int z;
+
+    /**
+     * Create a new destination. Use #parse(String) instead.
+     *
+     * @param source          The text the destination was parsed from.
+     * @param worldNameLength Length of the world name at the start of the text, or 0.
+     * @param blockX          The X block coordinate.
+     * @param blockY          The Y block coordinate.
+     * @param blockZ          The Z block coordinate.
+     */
+    private OWCoordinateDestination(String source, int worldNameLength, int blockX, int blockY, int blockZ) {
+        this.text = source;
+        this.worldLength = worldNameLength;
+        this.x = blockX;
+        this.y = blockY;
+        this.z = blockZ;
+    }
+
+    /**
+     * Check whether the given text is a coordinate destination, without allocating.
+     *
+     * @param text The text to check; may be null.
+     * @return True if #parse(String) would return a destination for the text.
+     */
+    public static boolean isCoordinates(String text) {
+        return scan(text, false) != null;
+    }
+
+    /**
+     * Parse a coordinate destination.
+     *
+     * @param text The text to parse; may be null.
+     * @return The destination, or null if the text is not of the form <code>[world:]x,y,z</code>.
+     */
+    public static OWCoordinateDestination parse(String text) {
+        return scan(text, true);
+    }
+
+    /**
+     * Scan the given text as a coordinate destination.
+     *
+     * @param text  The text to scan; may be null.
+     * @param build Whether to create a destination for a match.
+     * @return Null if the text does not match; otherwise the new destination, or a
+     *         shared marker if build is false.
+     */
+    private static OWCoordinateDestination scan(String text, boolean build) {
+        if (text == null) {
+            return null;
+        }
+
+        int worldNameLength = 0;
+        int colon = text.indexOf(':');
+        if (colon >= 0) {
+            if (colon == 0) {
+                return null;
+            }
+            for (int i = 0; i < colon; i++) {
+                char c = text.charAt(i);
+                if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                    return null;
+                }
+            }
+            worldNameLength = colon;
+        }
+
+        int start = colon + 1;
+        int firstComma = text.indexOf(',', start);
+        if (firstComma < 0) {
+            return null;
+        }
+        int secondComma = text.indexOf(',', firstComma + 1);
+        if (secondComma < 0) {
+            return null;
+        }
+
+        long blockX = parseCoordinate(text, start, firstComma);
+        long blockY = parseCoordinate(text, firstComma + 1, secondComma);
+        long blockZ = parseCoordinate(text, secondComma + 1, text.length());
+        if (blockX == INVALID || blockY == INVALID || blockZ == INVALID) {
+            return null;
+        }
+
+        if (!build) {
+            return MATCHED;
+        }
+        return new OWCoordinateDestination(text, worldNameLength, (int) blockX, (int) blockY, (int) blockZ);
+    }
+
+    /**
+     * Parse an optionally negative decimal integer from part of a string.
+     *
+     * @param text The string.
+     * @param from Index of the first character of the integer.
+     * @param to   Index just past the last character of the integer.
+     * @return The integer, or #INVALID if the range is not an integer that fits in an int.
+     */
+    private static long parseCoordinate(String text, int from, int to) {
+        int digits = from;
+        boolean negative = false;
+        if (digits < to && text.charAt(digits) == '-') {
+            negative = true;
+            digits++;
+        }
+        if (digits >= to) {
+            return INVALID;
+        }
+
+        long value = 0;
+        for (int i = digits; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0'); // SUPPRESS CHECKSTYLE MagicNumberCheck
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return INVALID;
+            }
+        }
+
+        if (negative) {
+            return -value;
+        }
+        return (value > Integer.MAX_VALUE ? INVALID : value); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Check whether this destination names its world.
+     *
+     * @return True if a world was given.
+     */
+    public boolean hasWorldName() {
+        return this.worldLength > 0;
+    }
+
+    /**
+     * Get the name of the world given for this destination.
+     *
+     * @return The world name, or null if none was given.
+     */
+    public String getWorldName() {
+        if (this.worldLength == 0) {
+            return null;
+        }
+        return this.text.substring(0, this.worldLength);
+    }
+
+    /**
+     * Get the X block coordinate of this destination.
+     *
+     * @return The X coordinate.
+     */
+    public int getX() {
+        return this.x;
+    }
+
+    /**
+     * Get the Y block coordinate of this destination.
+     *
+     * @return The Y coordinate.
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * Get the Z block coordinate of this destination.
+     *
+     * @return The Z coordinate.
+     */
+    public int getZ() {
+        return this.z;
+    }
+
+    /**
+     * Get the Location of this destination.
+     *
+     * @param server       The server on which to look up a named world.
+     * @param defaultWorld The world to use if none was given; may be null.
+     * @return The Location, or null if the world is unknown or none was available.
+     */
+    public Location getLocation(Server server, World defaultWorld) {
+        World world = defaultWorld;
+        if (this.worldLength > 0) {
+            world = server.getWorld(this.getWorldName());
+        }
+        if (world == null) {
+            return null;
+        }
+        return new Location(world, (double) this.x, (double) this.y, (double) this.z);
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -0,0 +1,207 @@
+package com.lithium3141.OpenWarp;
+
+import com.lithium3141.OpenWarp.util.LocationUtil;
+import org.bukkit.Location;
+
+import java.util.logging.Level;
+
+/**
+ * Level-guarded front end for the OpenWarp debug log. Messages are templates
+ * with <code>{}</code> placeholders, filled in from the given arguments only if
+ * the debug log accepts the message's level; when debugging is off, a call
+ * costs a level check and allocates nothing. Arguments that are Locations are
+ * rendered with LocationUtil, so callers need not format them up front.
+ * <p/>
+ * Callers with arguments that are expensive to compute should check
+ * #isEnabled(Level) first, or pass a Message to defer the work.
+ */
+public final class OWDebug {
+
+    /**
+     * Placeholder replaced by an argument in a message template.
+     */
+    private static final String PLACEHOLDER = "{}";
+
+    /**
+     * Number of decimal places used when rendering Location arguments.
+     */
+    private static final int LOCATION_PRECISION = 1;
+
+    /**
+     * Private constructor so as not to instantiate utility classes.
+     */
+    private OWDebug() {
+        super();
+    }
+
+    /**
+     * A debug message built only when it will be logged.
+     */
+    public interface Message {
+        /**
+         * Build the text of this message.
+         *
+         * @return The message text.
+         */
+        String build();
+    }
+
+    /**
+     * Check whether the debug log accepts messages at the given level.
+     *
+     * @param level The level to check.
+     * @return True if messages at the given level will be logged.
+     */
+    public static boolean isEnabled(Level level) {
+        return OpenWarp.DEBUG_LOG.isLoggable(level);
+    }
+
+    /**
+     * Log a message at level FINE.
+     *
+     * @param msg The message to log.
+     */
+    public static void fine(String msg) {
+        log(Level.FINE, msg, null, null, null);
+    }
+
+    /**
+     * Log a message template with one argument at level FINE.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     */
+    public static void fine(String msg, Object a1) {
+        log(Level.FINE, msg, a1, null, null);
+    }
+
+    /**
+     * Log a message template with two arguments at level FINE.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     * @param a2  The argument for the second placeholder.
+     */
+    public static void fine(String msg, Object a1, Object a2) {
+        log(Level.FINE, msg, a1, a2, null);
+    }
+
+    /**
+     * Log a message template with three arguments at level FINE.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     * @param a2  The argument for the second placeholder.
+     * @param a3  The argument for the third placeholder.
+     */
+    public static void fine(String msg, Object a1, Object a2, Object a3) {
+        log(Level.FINE, msg, a1, a2, a3);
+    }
+
+    /**
+     * Log a message template with one argument at level FINER.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     */
+    public static void finer(String msg, Object a1) {
+        log(Level.FINER, msg, a1, null, null);
+    }
+
+    /**
+     * Log a message template with two arguments at level FINER.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     * @param a2  The argument for the second placeholder.
+     */
+    public static void finer(String msg, Object a1, Object a2) {
+        log(Level.FINER, msg, a1, a2, null);
+    }
+
+    /**
+     * Log a message template with one argument at level FINEST.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     */
+    public static void finest(String msg, Object a1) {
+        log(Level.FINEST, msg, a1, null, null);
+    }
+
+    /**
+     * Log a message template with two arguments at level FINEST.
+     *
+     * @param msg The message template.
+     * @param a1  The argument for the first placeholder.
+     * @param a2  The argument for the second placeholder.
+     */
+    public static void finest(String msg, Object a1, Object a2) {
+        log(Level.FINEST, msg, a1, a2, null);
+    }
+
+    /**
+     * Log a deferred message at the given level.
+     *
+     * @param level The level to log at.
+     * @param msg   The message to build and log.
+     */
+    public static void log(Level level, Message msg) {
+        if (isEnabled(level)) {
+            OpenWarp.DEBUG_LOG.log(level, msg.build());
+        }
+    }
+
+    /**
+     * Log a message template with up to three arguments at the given level.
+     *
+     * @param level The level to log at.
+     * @param msg   The message template.
+     * @param a1    The argument for the first placeholder.
+     * @param a2    The argument for the second placeholder.
+     * @param a3    The argument for the third placeholder.
+     */
+    private static void log(Level level, String msg, Object a1, Object a2, Object a3) {
+        if (!isEnabled(level)) {
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder(msg.length() + 32); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        int start = 0;
+        int argIndex = 0;
+        int at = msg.indexOf(PLACEHOLDER);
+        while (at >= 0 && argIndex < 3) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+            builder.append(msg, start, at);
+            Object arg;
+            if (argIndex == 0) {
+                arg = a1;
+            } else if (argIndex == 1) {
+                arg = a2;
+            } else {
+                arg = a3;
+            }
+            appendArgument(builder, arg);
+            argIndex++;
+            start = at + PLACEHOLDER.length();
+            at = msg.indexOf(PLACEHOLDER, start);
+        }
+        builder.append(msg, start, msg.length());
+        OpenWarp.DEBUG_LOG.log(level, builder.toString());
+    }
+
+    /**
+     * Render a single message argument.
+     *
+     * @param builder The builder to append to.
+     * @param arg     The argument to render.
+     */
+    private static void appendArgument(StringBuilder builder, Object arg) {
+        if (arg instanceof Location && ((Location) arg).getWorld() != null) {
+            builder.append(LocationUtil.getHumanReadableString((Location) arg, LOCATION_PRECISION));
+        } else if (arg instanceof Message) {
+            builder.append(((Message) arg).build());
+        } else {
+            builder.append(arg);
+        }
+    }
+}
@@ -1,63 +1,398 @@
 package com.lithium3141.OpenWarp;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.logging.Handler;
 import java.util.logging.LogRecord;
 
 /**
  * Logging handler for custom debugging messages.
+ * <p/>
+ * Records are placed in a fixed-size ring buffer by the logging thread and
+ * written to disk in batches by a background writer thread, so that disk I/O
+ * never happens on the main server thread. The log file is appended to rather
+ * than truncated, and is rotated once it grows past a size limit or an age
+ * limit; a fixed number of rotated files are kept, named <tt>debug.log.1</tt>
+ * (newest) and up.
+ * <p/>
+ * If the writer falls behind and the buffer fills, the overflow policy decides
+ * whether new records are dropped (and counted) or whether the logging thread
+ * waits for room.
  */
 public class OWDebugHandler extends Handler {
 
     /**
-     * Output stream for printing debug information.
+     * What to do with a record published while the buffer is full.
      */
-    private PrintWriter out;
+    public enum OverflowPolicy {
+        /**
+         * Discard the record and note the number of discarded records in the log.
+         */
+        DROP,
+        /**
+         * Wait for the writer to make room in the buffer.
+         */
+        BLOCK
+    }
 
     /**
-     * Construct a new debug logging handler that writes to the specified file.
+     * Default maximum size of the log file before rotation, in kilobytes.
+     */
+    public static final int DEFAULT_MAX_FILE_KB = 1024;
+
+    /**
+     * Default maximum age of the log file before rotation, in hours.
+     */
+    public static final int DEFAULT_MAX_AGE_HOURS = 24;
+
+    /**
+     * Default number of rotated log files kept.
+     */
+    public static final int DEFAULT_RETAINED_FILES = 5;
+
+    /**
+     * Default number of records the buffer holds.
+     */
+    public static final int DEFAULT_BUFFER_RECORDS = 4096;
+
+    /**
+     * Maximum time the writer waits for new records before flushing, in milliseconds.
+     */
+    private static final long FLUSH_INTERVAL_MILLIS = 500L;
+
+    /**
+     * Line separator written after each record.
+     */
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    /**
+     * The file being written.
+     */
+    private File file;
+
+    /**
+     * Maximum size of the log file before rotation, in bytes.
+     */
+    private long maxBytes;
+
+    /**
+     * Maximum age of the log file before rotation, in milliseconds.
+     */
+    private long maxAgeMillis;
+
+    /**
+     * Number of rotated log files kept.
+     */
+    private int retainedFiles;
+
+    /**
+     * Policy for records published while the buffer is full.
+     */
+    private OverflowPolicy overflowPolicy;
+
+    /**
+     * Ring buffer of messages waiting to be written.
+     */
+    private String[] buffer;
+
+    /**
+     * Index of the oldest message in the buffer.
+     */
+    private int head;
+
+    /**
+     * Number of messages in the buffer.
+     */
+    private int count;
+
+    /**
+     * Number of records dropped since the last note of dropped records.
+     */
+    private long dropped;
+
+    /**
+     * Whether the writer thread has taken a batch it has not finished writing.
+     */
+    private boolean batchInFlight;
+
+    /**
+     * Whether this handler has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Background thread writing buffered messages to disk.
+     */
+    private Thread writerThread;
+
+    /**
+     * Output stream for the current log file. Used only by the writer thread.
+     */
+    private Writer out;
+
+    /**
+     * Approximate number of bytes in the current log file. Used only by the writer thread.
+     */
+    private long written;
+
+    /**
+     * Time the current log file was started. Used only by the writer thread.
+     */
+    private long openedAt;
+
+    /**
+     * Construct a new debug logging handler that writes to the specified file,
+     * using default rotation and buffer settings.
      *
-     * @param filename The file to open for writing debug information. Existing
-     *                 file contents may be cleared, if the file exists already.
+     * @param filename The file to append debug information to.
      */
     public OWDebugHandler(String filename) {
         this(new File(filename));
     }
 
     /**
-     * Construct a new debug logging handler that writes to the specified file.
+     * Construct a new debug logging handler that writes to the specified file,
+     * using default rotation and buffer settings.
      *
-     * @param file The File object to write to. Existing file contents may be
-     *             cleared, if the file exists already.
+     * @param file The File object to append debug information to.
      */
     public OWDebugHandler(File file) {
+        this(file, DEFAULT_MAX_FILE_KB, DEFAULT_MAX_AGE_HOURS, DEFAULT_RETAINED_FILES, DEFAULT_BUFFER_RECORDS, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Construct a new debug logging handler that writes to the specified file.
+     *
+     * @param file          The File object to append debug information to.
+     * @param maxFileKb     Maximum size of the log file before rotation, in kilobytes.
+     * @param maxAgeHours   Maximum age of the log file before rotation, in hours; 0 to disable.
+     * @param retained      Number of rotated log files to keep.
+     * @param bufferRecords Number of records the buffer holds.
+     * @param policy        What to do with records published while the buffer is full.
+     */
+    public OWDebugHandler(File file, int maxFileKb, int maxAgeHours, int retained, int bufferRecords, OverflowPolicy policy) {
         super();
 
+        this.file = file;
+        this.maxBytes = Math.max(maxFileKb, 1) * 1024L; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.maxAgeMillis = Math.max(maxAgeHours, 0) * 60L * 60L * 1000L; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.retainedFiles = Math.max(retained, 0);
+        this.buffer = new String[Math.max(bufferRecords, 1)];
+        this.overflowPolicy = policy;
+
         try {
-            this.out = new PrintWriter(new FileWriter(file));
+            this.openFile();
         } catch (IOException e) {
             OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't open debug log at " + file.getPath() + "; OpenWarp may not print debug messages.");
+            this.closed = true;
+            return;
         }
+
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "OpenWarp debug log writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Get the number of records dropped because the buffer was full and not yet
+     * noted in the log.
+     *
+     * @return The number of dropped records.
+     */
+    public synchronized long getDroppedCount() {
+        return this.dropped;
     }
 
     @Override
-    public void close() {
-        this.flush();
-        this.out.close();
-        this.out = null;
+    public void publish(LogRecord record) {
+        if (!this.isLoggable(record)) {
+            return;
+        }
+
+        String message = record.getMessage();
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            while (this.count == this.buffer.length) {
+                if (this.overflowPolicy == OverflowPolicy.DROP) {
+                    this.dropped++;
+                    return;
+                }
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (this.closed) {
+                    return;
+                }
+            }
+            this.buffer[(this.head + this.count) % this.buffer.length] = message;
+            this.count++;
+            this.notifyAll();
+        }
     }
 
     @Override
     public void flush() {
-        this.out.flush();
+        synchronized (this) {
+            while ((this.count > 0 || this.batchInFlight) && !this.closed) {
+                try {
+                    this.wait(FLUSH_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
     }
 
     @Override
-    public void publish(LogRecord record) {
-        this.out.println(record.getMessage());
-        this.flush();
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.notifyAll();
+        }
+
+        if (this.writerThread != null) {
+            try {
+                this.writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Body of the writer thread. Waits for messages, writes each available batch,
+     * and flushes once per batch.
+     */
+    private void writeLoop() {
+        String[] batch = new String[this.buffer.length];
+        boolean running = true;
+        while (running) {
+            int taken;
+            long droppedNow;
+            synchronized (this) {
+                while (this.count == 0 && !this.closed) {
+                    try {
+                        this.wait(FLUSH_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        this.closed = true;
+                    }
+                }
+                taken = this.count;
+                for (int i = 0; i < taken; i++) {
+                    batch[i] = this.buffer[(this.head + i) % this.buffer.length];
+                    this.buffer[(this.head + i) % this.buffer.length] = null;
+                }
+                this.head = (this.head + taken) % this.buffer.length;
+                this.count = 0;
+                droppedNow = this.dropped;
+                this.dropped = 0;
+                this.batchInFlight = true;
+                running = !this.closed;
+                this.notifyAll();
+            }
+
+            try {
+                if (droppedNow > 0) {
+                    this.writeLine("[" + droppedNow + " debug records dropped; writer fell behind]");
+                }
+                for (int i = 0; i < taken; i++) {
+                    this.writeLine(batch[i]);
+                    batch[i] = null;
+                }
+                this.out.flush();
+            } catch (IOException e) {
+                OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't write debug log; OpenWarp may not print debug messages.");
+            }
+
+            synchronized (this) {
+                this.batchInFlight = false;
+                this.notifyAll();
+            }
+        }
+
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't close debug log.");
+        }
+    }
+
+    /**
+     * Write a single line to the log file, rotating first if necessary.
+     *
+     * @param line The line to write.
+     */
+    private void writeLine(String line) throws IOException {
+        if (this.written >= this.maxBytes
+                || (this.maxAgeMillis > 0 && System.currentTimeMillis() - this.openedAt >= this.maxAgeMillis)) {
+            this.rotate();
+        }
+        this.out.write(line);
+        this.out.write(NEWLINE);
+        this.written += line.length() + NEWLINE.length();
+    }
+
+    /**
+     * Open the log file for appending.
+     */
+    private void openFile() throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file, true), "UTF-8"));
+        this.written = this.file.length();
+        this.openedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Close the current log file, shift rotated files up by one, dropping any past
+     * the retention limit, and open a fresh log file.
+     */
+    private void rotate() throws IOException {
+        this.out.close();
+
+        File oldest = this.rotatedFile(this.retainedFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't delete old debug log " + oldest.getPath());
+        }
+        for (int i = this.retainedFiles - 1; i >= 1; i--) {
+            File from = this.rotatedFile(i);
+            if (from.exists()) {
+                from.renameTo(this.rotatedFile(i + 1));
+            }
+        }
+        if (this.retainedFiles > 0) {
+            this.file.renameTo(this.rotatedFile(1));
+        } else {
+            this.file.delete();
+        }
+
+        this.openFile();
+    }
+
+    /**
+     * Get the name of a rotated log file.
+     *
+     * @param index The rotation index; 1 is the most recently rotated file.
+     * @return The File for the given rotation index.
+     */
+    private File rotatedFile(int index) {
+        return new File(this.file.getPath() + "." + index);
     }
 }
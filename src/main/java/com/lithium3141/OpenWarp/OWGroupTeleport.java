@@ -0,0 +1,259 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of players being sent to a single warp. The warp, the sender's access
+ * to it and the destination Location (including any safe landing) are resolved
+ * once for the whole batch; each player is then handed to the plugin's teleport
+ * queue, which spreads the teleports across ticks. A batch may also be sent
+ * to coordinates, written <code>[world:]x,y,z</code>, instead of a warp.
+ * <p/>
+ * Construct a batch, check #getError(), then call #start(Collection). The
+ * batch's callback fires once every player has either arrived or failed.
+ */
+public class OWGroupTeleport implements OWTeleportQueue.Callback {
+
+    /**
+     * Receiver for the outcome of a group teleport.
+     */
+    public interface Callback {
+        /**
+         * Called on the main thread once every player in the batch has been
+         * moved or has failed to move.
+         *
+         * @param batch The finished batch.
+         */
+        void groupTeleportFinished(OWGroupTeleport batch);
+    }
+
+    /**
+     * The OpenWarp instance backing this batch.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The resolved Warp the batch is headed to, or null if resolution failed or the
+     * batch is headed to coordinates.
+     */
+    private Warp warp;
+
+    /**
+     * The resolved destination of every teleport in the batch.
+     */
+    private Location destination;
+
+    /**
+     * Reason the batch cannot run, or null if it can.
+     */
+    private String error;
+
+    /**
+     * Receiver for the outcome of the batch; may be null.
+     */
+    private Callback callback;
+
+    /**
+     * Number of players submitted to the teleport queue.
+     */
+    private int total;
+
+    /**
+     * Number of players whose teleport has finished, successfully or not.
+     */
+    private int finished;
+
+    /**
+     * Names of players who were moved.
+     */
+    private List<String> succeeded = new ArrayList<String>();
+
+    /**
+     * Names of players who could not be moved.
+     */
+    private List<String> failed = new ArrayList<String>();
+
+    /**
+     * Resolve a new batch headed to the named warp on behalf of the given sender.
+     *
+     * @param ow       The OpenWarp instance used for lookups and teleporting.
+     * @param sender   The CommandSender requesting the batch; used for warp lookup and access checks.
+     * @param warpName The name of the warp to send players to.
+     * @param cb       Receiver for the outcome of the batch; may be null.
+     */
+    public OWGroupTeleport(OpenWarp ow, CommandSender sender, String warpName, Callback cb) {
+        this.plugin = ow;
+        this.callback = cb;
+
+        OWCoordinateDestination coordinates = OWCoordinateDestination.parse(warpName);
+        if (coordinates != null) {
+            if (!ow.hasPermission(sender, "openwarp.warp.coordinates", true)) {
+                this.error = "You don't have permission to send players to coordinates: " + warpName;
+                return;
+            }
+            World world = null;
+            if (sender instanceof Player) {
+                world = ((Player) sender).getWorld();
+            }
+            this.destination = coordinates.getLocation(ow.getServer(), world);
+            if (this.destination == null) {
+                this.error = "No world given or found for coordinates: " + warpName;
+            }
+            return;
+        }
+
+        this.warp = ow.getWarp(sender, warpName);
+        if (this.warp == null) {
+            this.error = "No warp found matching name: " + warpName;
+            return;
+        }
+        if (!this.canAccess(sender)) {
+            this.error = "You don't have permission to send players to warp: " + warpName;
+            this.warp = null;
+            return;
+        }
+        if (this.warp.getLocation().getWorld() == null) {
+            this.error = "Cowardly refusing to move players to a warp without a world";
+            this.warp = null;
+            return;
+        }
+
+        this.destination = this.warp.getLocation();
+        if (this.warp.useSafeTeleporter()) {
+            this.destination = ow.getSafeLandingService().getSafeLocation(this.warp);
+            if (this.destination == null) {
+                this.error = "No safe landing spot at warp: " + warpName;
+                this.warp = null;
+            }
+        }
+    }
+
+    /**
+     * Check whether the given sender may use this batch's warp. Mirrors the checks
+     * made when a player moves themselves with <code>/warp</code>.
+     *
+     * @param sender The CommandSender requesting the batch.
+     * @return True if the sender may send players to the warp.
+     */
+    private boolean canAccess(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            return true;
+        }
+        Player player = (Player) sender;
+
+        if (this.warp.isPublic()) {
+            return this.plugin.hasPermission(sender, "openwarp.warp.access.public." + this.warp.getName(), false);
+        } else if (this.warp.getOwner().equalsIgnoreCase(player.getName())) {
+            return this.plugin.hasPermission(sender, "openwarp.warp.access.private." + this.warp.getOwner() + "." + this.warp.getName(), true);
+        } else {
+            return this.warp.isInvited(player);
+        }
+    }
+
+    /**
+     * Submit every given player to the teleport queue. Players offline by the time
+     * their turn comes, or sent elsewhere while waiting, are reported as failed.
+     *
+     * @param players The Players to send to this batch's warp.
+     * @throws IllegalStateException If this batch could not be resolved.
+     */
+    public void start(Collection<Player> players) {
+        if (this.error != null) {
+            throw new IllegalStateException(this.error);
+        }
+
+        this.total = players.size();
+        if (this.total == 0) {
+            this.finishBatch();
+            return;
+        }
+
+        if (this.warp != null) {
+            this.plugin.getHotWarpTracker().recordUse(this.warp, this.total);
+        }
+        OWDebug.fine("Sending {} players to {}", this.total, this.destination);
+
+        // Copy first; completions may arrive while submitting
+        List<Player> batch = new ArrayList<Player>(players);
+        OWTeleportQueue queue = this.plugin.getTeleportQueue();
+        for (Player player : batch) {
+            queue.submit(player, this.destination, this);
+        }
+    }
+
+    @Override
+    public void teleportFinished(String playerName, Location dest, OWTeleportQueue.Outcome outcome) {
+        if (outcome == OWTeleportQueue.Outcome.MOVED) {
+            this.succeeded.add(playerName);
+        } else {
+            this.failed.add(playerName);
+        }
+        this.finished++;
+        if (this.finished == this.total) {
+            this.finishBatch();
+        }
+    }
+
+    /**
+     * Report the outcome of this batch to its callback, if any.
+     */
+    private void finishBatch() {
+        if (this.callback != null) {
+            this.callback.groupTeleportFinished(this);
+        }
+    }
+
+    /**
+     * Get the reason this batch cannot run.
+     *
+     * @return A human-readable error, or null if the batch resolved successfully.
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Get the Warp this batch is headed to.
+     *
+     * @return The resolved Warp, or null if resolution failed or the batch is headed
+     *         to coordinates.
+     */
+    public Warp getWarp() {
+        return this.warp;
+    }
+
+    /**
+     * Get the number of players submitted in this batch.
+     *
+     * @return The batch size.
+     */
+    public int getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Get the names of players moved so far.
+     *
+     * @return An unmodifiable list of player names.
+     */
+    public List<String> getSucceeded() {
+        return Collections.unmodifiableList(this.succeeded);
+    }
+
+    /**
+     * Get the names of players who could not be moved.
+     *
+     * @return An unmodifiable list of player names.
+     */
+    public List<String> getFailed() {
+        return Collections.unmodifiableList(this.failed);
+    }
+}
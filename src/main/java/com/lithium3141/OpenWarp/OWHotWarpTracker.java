@@ -0,0 +1,587 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracker keeping the chunks of the most-used warps loaded. Every use of a warp
+ * adds to its usage score, and scores decay exponentially with a configured
+ * half-life. Periodically, the loaded chunks around the top-scoring warps are
+ * marked as held, and OWWorldListener refuses to let held chunks unload. The
+ * tracker never loads chunks itself; a chunk that has already unloaded is
+ * picked up again once a teleport loads it.
+ * <p/>
+ * The number of held chunks is capped by a memory budget, using a fixed
+ * estimate of the memory taken by one loaded chunk. Each held chunk remembers
+ * the warp that caused it to be held, so operators can see why it is resident.
+ * <p/>
+ * Usage is recorded against a warp's scope, owner and name rather than the
+ * Warp object. Deleting a warp forgets its usage and releases the chunks held
+ * for it, and each recomputation looks every warp up again, so a warp moved with
+ * <code>/warp set</code> keeps its score but is held at its new location.
+ */
+public class OWHotWarpTracker implements Runnable {
+
+    /**
+     * Default number of top warps whose chunks are held.
+     */
+    public static final int DEFAULT_WARP_COUNT = 5;
+
+    /**
+     * Default half-life of a warp's usage score, in minutes.
+     */
+    public static final int DEFAULT_HALF_LIFE_MINUTES = 30;
+
+    /**
+     * Default memory budget for held chunks, in kilobytes.
+     */
+    public static final int DEFAULT_MEMORY_BUDGET_KB = 8192;
+
+    /**
+     * Default radius, in chunks, held around each hot warp.
+     */
+    public static final int DEFAULT_CHUNK_RADIUS = 1;
+
+    /**
+     * Estimated memory taken by a single loaded chunk, in kilobytes.
+     */
+    public static final int ESTIMATED_CHUNK_KB = 96;
+
+    /**
+     * Usage score below which a warp's usage record is forgotten.
+     */
+    private static final double MIN_SCORE = 0.05;
+
+    /**
+     * Number of ticks between recomputations of the held chunk set.
+     */
+    private static final long UPDATE_PERIOD_TICKS = 600L;
+
+    /**
+     * The OpenWarp instance backing this tracker.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Number of top warps whose chunks are held.
+     */
+    private int warpCount;
+
+    /**
+     * Half-life of a warp's usage score, in milliseconds.
+     */
+    private double halfLifeMillis;
+
+    /**
+     * Maximum number of chunks held at once, derived from the memory budget.
+     */
+    private int maxChunks;
+
+    /**
+     * Radius, in chunks, held around each hot warp.
+     */
+    private int chunkRadius;
+
+    /**
+     * Usage records for recently-used warps.
+     */
+    private Map<WarpKey, Usage> usage = new HashMap<WarpKey, Usage>();
+
+    /**
+     * Currently held chunks, in order of the score of the warp holding them.
+     */
+    private List<HeldChunk> held = new ArrayList<HeldChunk>();
+
+    /**
+     * Packed keys of currently held chunks for each world name. Used for fast
+     * checks on chunk unload.
+     */
+    private Map<String, Set<Long>> heldKeys = new HashMap<String, Set<Long>>();
+
+    /**
+     * Number of chunk unloads refused because the chunk was held.
+     */
+    private long refusedUnloads;
+
+    /**
+     * Bukkit scheduler ID of the periodic update task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Create a new hot warp tracker for the given OpenWarp instance.
+     *
+     * @param ow             The OpenWarp instance used for scheduling.
+     * @param count          Number of top warps whose chunks are held.
+     * @param halfLifeMins   Half-life of a warp's usage score, in minutes.
+     * @param memoryBudgetKb Memory budget for held chunks, in kilobytes.
+     * @param radius         Radius, in chunks, held around each hot warp.
+     */
+    public OWHotWarpTracker(OpenWarp ow, int count, int halfLifeMins, int memoryBudgetKb, int radius) {
+        this.plugin = ow;
+        this.warpCount = Math.max(count, 0);
+        this.halfLifeMillis = Math.max(halfLifeMins, 1) * 60.0 * 1000.0; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.maxChunks = Math.max(memoryBudgetKb, 0) / ESTIMATED_CHUNK_KB;
+        this.chunkRadius = Math.max(radius, 0);
+    }
+
+    /**
+     * Start periodically recomputing the held chunk set.
+     */
+    public void start() {
+        if (this.taskId == -1) {
+            this.taskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(this.plugin, this, UPDATE_PERIOD_TICKS, UPDATE_PERIOD_TICKS);
+        }
+    }
+
+    /**
+     * Stop recomputing the held chunk set and release every held chunk.
+     */
+    public void stop() {
+        if (this.taskId != -1) {
+            this.plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+        this.held.clear();
+        this.heldKeys.clear();
+    }
+
+    /**
+     * Record a single use of the given warp.
+     *
+     * @param warp The Warp that was used.
+     */
+    public void recordUse(Warp warp) {
+        this.recordUse(warp, 1);
+    }
+
+    /**
+     * Record several uses of the given warp at once, e.g. for a group teleport.
+     *
+     * @param warp  The Warp that was used.
+     * @param count The number of uses to record.
+     */
+    public void recordUse(Warp warp, int count) {
+        long now = System.currentTimeMillis();
+        WarpKey key = new WarpKey(warp, warp.isPublic());
+        Usage record = this.usage.get(key);
+        if (record == null) {
+            record = new Usage(key, now);
+            this.usage.put(key, record);
+        }
+        record.decayTo(now, this.halfLifeMillis);
+        record.score += count;
+    }
+
+    /**
+     * Get the current usage score of the given warp.
+     *
+     * @param warp The Warp to check.
+     * @return The warp's decayed usage score, or 0 if it has not been used recently.
+     */
+    public double getScore(Warp warp) {
+        Usage record = this.usage.get(new WarpKey(warp, warp.isPublic()));
+        if (record == null) {
+            return 0.0;
+        }
+        record.decayTo(System.currentTimeMillis(), this.halfLifeMillis);
+        return record.score;
+    }
+
+    /**
+     * Check whether the given chunk is held by this tracker.
+     *
+     * @param world The World containing the chunk.
+     * @param cx    The chunk X-coordinate.
+     * @param cz    The chunk Z-coordinate.
+     * @return True if the chunk must stay loaded.
+     */
+    public boolean isHeld(World world, int cx, int cz) {
+        if (this.heldKeys.isEmpty()) {
+            return false;
+        }
+        Set<Long> keys = this.heldKeys.get(world.getName());
+        return keys != null && keys.contains(chunkKey(cx, cz));
+    }
+
+    /**
+     * Note that an unload of a held chunk was refused.
+     */
+    public void recordRefusedUnload() {
+        this.refusedUnloads++;
+    }
+
+    /**
+     * Get the number of chunk unloads refused because the chunk was held.
+     *
+     * @return The refused unload count since this tracker was created.
+     */
+    public long getRefusedUnloads() {
+        return this.refusedUnloads;
+    }
+
+    /**
+     * Get the chunks currently held, in order of the score of the warp holding them.
+     *
+     * @return An unmodifiable list of held chunks.
+     */
+    public List<HeldChunk> getHeldChunks() {
+        return Collections.unmodifiableList(this.held);
+    }
+
+    /**
+     * Get the maximum number of chunks this tracker may hold at once.
+     *
+     * @return The chunk cap derived from the memory budget.
+     */
+    public int getMaxChunks() {
+        return this.maxChunks;
+    }
+
+    /**
+     * Forget the usage of the given warp because it was deleted. The chunks held
+     * for it are released at once; the rest of the held set is left for the next
+     * recomputation.
+     *
+     * @param warp     The deleted Warp.
+     * @param isPublic Whether the warp was public.
+     */
+    public void forget(Warp warp, boolean isPublic) {
+        WarpKey key = new WarpKey(warp, isPublic);
+        if (this.usage.remove(key) == null || this.held.isEmpty()) {
+            return;
+        }
+
+        List<HeldChunk> kept = new ArrayList<HeldChunk>(this.held.size());
+        for (HeldChunk chunk : this.held) {
+            if (!key.equals(chunk.holder)) {
+                kept.add(chunk);
+                continue;
+            }
+            Set<Long> keys = this.heldKeys.get(chunk.worldName);
+            if (keys != null) {
+                keys.remove(chunkKey(chunk.chunkX, chunk.chunkZ));
+            }
+        }
+        this.held = kept;
+    }
+
+    /**
+     * Decay all usage scores, forget warps that have gone cold or no longer exist,
+     * and recompute the set of held chunks from the loaded chunks around the
+     * top-scoring warps. Called by the Bukkit scheduler.
+     */
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+
+        // Decay and prune usage records
+        List<Usage> ranked = new ArrayList<Usage>();
+        Iterator<Map.Entry<WarpKey, Usage>> it = this.usage.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<WarpKey, Usage> entry = it.next();
+            Usage record = entry.getValue();
+            record.decayTo(now, this.halfLifeMillis);
+            record.warp = entry.getKey().resolve(this.plugin);
+            if (record.score < MIN_SCORE || record.warp == null) {
+                it.remove();
+            } else {
+                ranked.add(record);
+            }
+        }
+        Collections.sort(ranked, new Comparator<Usage>() {
+            @Override
+            public int compare(Usage a, Usage b) {
+                return Double.compare(b.score, a.score);
+            }
+        });
+
+        // Hold chunks around the top warps until the budget runs out
+        List<HeldChunk> newHeld = new ArrayList<HeldChunk>();
+        Map<String, Set<Long>> newKeys = new HashMap<String, Set<Long>>();
+        int warps = 0;
+        for (Usage record : ranked) {
+            if (warps >= this.warpCount || newHeld.size() >= this.maxChunks) {
+                break;
+            }
+            Warp warp = record.warp;
+            Location loc = warp.getLocation();
+            World world = loc.getWorld();
+            if (world == null) {
+                continue;
+            }
+            warps++;
+
+            Set<Long> keys = newKeys.get(world.getName());
+            if (keys == null) {
+                keys = new HashSet<Long>();
+                newKeys.put(world.getName(), keys);
+            }
+            int centerX = loc.getBlockX() >> 4; // SUPPRESS CHECKSTYLE MagicNumberCheck
+            int centerZ = loc.getBlockZ() >> 4; // SUPPRESS CHECKSTYLE MagicNumberCheck
+            for (int dx = -this.chunkRadius; dx <= this.chunkRadius; dx++) {
+                for (int dz = -this.chunkRadius; dz <= this.chunkRadius; dz++) {
+                    if (newHeld.size() >= this.maxChunks) {
+                        break;
+                    }
+                    int cx = centerX + dx;
+                    int cz = centerZ + dz;
+                    if (world.isChunkLoaded(cx, cz) && keys.add(chunkKey(cx, cz))) {
+                        newHeld.add(new HeldChunk(world.getName(), cx, cz, describe(warp), record.score, record.key));
+                    }
+                }
+            }
+        }
+
+        this.held = newHeld;
+        this.heldKeys = newKeys;
+        OWDebug.finer("Hot warp tracker holding {} chunks for {} warps", newHeld.size(), warps);
+    }
+
+    /**
+     * Build a display name for the given warp.
+     *
+     * @param warp The Warp to describe.
+     * @return The warp's name, prefixed with its owner if it is not public.
+     */
+    private static String describe(Warp warp) {
+        if (warp.isPublic()) {
+            return warp.getName();
+        }
+        return warp.getOwner() + ":" + warp.getName();
+    }
+
+    /**
+     * Pack chunk X- and Z-coordinates into a single key.
+     *
+     * @param cx The chunk X-coordinate.
+     * @param cz The chunk Z-coordinate.
+     * @return A key unique to the chunk within its world.
+     */
+    private static Long chunkKey(int cx, int cz) {
+        return Long.valueOf(((long) cx << 32) | (cz & 0xFFFFFFFFL)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * Identity of a warp that survives it being replaced: its scope, owner and name.
+     */
+    private static final class WarpKey {
+        /**
+         * Whether the warp is public.
+         */
+        private final boolean isPublic;
+
+        /**
+         * The id of the warp's owner for private warps, or -1 for public warps.
+         */
+        private final int ownerId;
+
+        /**
+         * The name of the warp.
+         */
+        private final String name;
+
+        /**
+         * Create the key of the given warp.
+         *
+         * @param warp The Warp.
+         * @param pub  Whether the warp is public.
+         */
+        private WarpKey(Warp warp, boolean pub) {
+            this.isPublic = pub;
+            this.ownerId = (pub ? -1 : warp.getOwnerId()); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+            this.name = warp.getName();
+        }
+
+        /**
+         * Find the warp currently registered under this key.
+         *
+         * @param ow The OpenWarp instance holding the warp registry.
+         * @return The current Warp, or null if there is none.
+         */
+        private Warp resolve(OpenWarp ow) {
+            if (this.isPublic) {
+                return ow.getPublicWarps().get(this.name);
+            }
+            Map<String, Warp> warps = ow.getPrivateWarps(this.ownerId);
+            return (warps == null ? null : warps.get(this.name)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WarpKey)) {
+                return false;
+            }
+            WarpKey other = (WarpKey) o;
+            return this.isPublic == other.isPublic && this.ownerId == other.ownerId && this.name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.name.hashCode() * 31 + this.ownerId; // SUPPRESS CHECKSTYLE MagicNumberCheck
+            if (this.isPublic) {
+                hash = ~hash;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Decaying usage score for a single warp.
+     */
+    private static final class Usage {
+        /**
+         * The key this record is kept under.
+         */
+        private final WarpKey key;
+
+        /**
+         * The warp this record was last resolved to.
+         */
+        private Warp warp;
+
+        /**
+         * The current usage score, as of <code>updated</code>.
+         */
+        private double score;
+
+        /**
+         * The time, in milliseconds, at which <code>score</code> was last decayed.
+         */
+        private long updated;
+
+        /**
+         * Create a new, zero usage record.
+         *
+         * @param warpKey The key the record is kept under.
+         * @param now     The current time in milliseconds.
+         */
+        private Usage(WarpKey warpKey, long now) {
+            this.key = warpKey;
+            this.updated = now;
+        }
+
+        /**
+         * Decay this record's score to the given time.
+         *
+         * @param now      The current time in milliseconds.
+         * @param halfLife The score half-life in milliseconds.
+         */
+        private void decayTo(long now, double halfLife) {
+            long elapsed = now - this.updated;
+            if (elapsed > 0) {
+                this.score *= Math.pow(0.5, elapsed / halfLife); // SUPPRESS CHECKSTYLE MagicNumberCheck
+                this.updated = now;
+            }
+        }
+    }
+
+    /**
+     * A chunk held loaded on behalf of a hot warp.
+     */
+    public static final class HeldChunk {
+        /**
+         * The name of the World containing the chunk.
+         */
+        private final String worldName;
+
+        /**
+         * The chunk X-coordinate.
+         */
+        private final int chunkX;
+
+        /**
+         * The chunk Z-coordinate.
+         */
+        private final int chunkZ;
+
+        /**
+         * The display name of the warp holding the chunk.
+         */
+        private final String warpName;
+
+        /**
+         * The usage score of the warp when the chunk was selected.
+         */
+        private final double score;
+
+        /**
+         * The key of the warp holding the chunk.
+         */
+        private final WarpKey holder;
+
+        /**
+         * Create a new held chunk record.
+         *
+         * @param world The name of the World containing the chunk.
+         * @param cx    The chunk X-coordinate.
+         * @param cz    The chunk Z-coordinate.
+         * @param warp  The display name of the warp holding the chunk.
+         * @param s     The usage score of the warp.
+         * @param key   The key of the warp holding the chunk.
+         */
+        private HeldChunk(String world, int cx, int cz, String warp, double s, WarpKey key) {
+            this.worldName = world;
+            this.chunkX = cx;
+            this.chunkZ = cz;
+            this.warpName = warp;
+            this.score = s;
+            this.holder = key;
+        }
+
+        /**
+         * Get the name of the World containing this chunk.
+         *
+         * @return The world name.
+         */
+        public String getWorldName() {
+            return this.worldName;
+        }
+
+        /**
+         * Get the X-coordinate of this chunk.
+         *
+         * @return The chunk X-coordinate.
+         */
+        public int getChunkX() {
+            return this.chunkX;
+        }
+
+        /**
+         * Get the Z-coordinate of this chunk.
+         *
+         * @return The chunk Z-coordinate.
+         */
+        public int getChunkZ() {
+            return this.chunkZ;
+        }
+
+        /**
+         * Get the display name of the warp holding this chunk.
+         *
+         * @return The warp name, prefixed with its owner for non-public warps.
+         */
+        public String getWarpName() {
+            return this.warpName;
+        }
+
+        /**
+         * Get the usage score of the warp holding this chunk, as of selection.
+         *
+         * @return The warp's usage score.
+         */
+        public double getScore() {
+            return this.score;
+        }
+    }
+}
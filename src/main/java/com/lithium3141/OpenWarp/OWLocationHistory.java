@@ -0,0 +1,211 @@
+package com.lithium3141.OpenWarp;
+
+/**
+ * Bounded history of locations for a single player, stored as a ring buffer of
+ * packed primitives. Each entry takes a world index, three coordinates and two
+ * angles; no Location or World objects are retained, so a history never pins a
+ * world in memory.
+ * <p/>
+ * Entries are addressed by age: entry 0 is the most recently recorded location,
+ * entry 1 the one before it, and so on. Once the history is full, recording a
+ * new location overwrites the oldest entry.
+ */
+public class OWLocationHistory {
+
+    /**
+     * Number of coordinate values stored per entry.
+     */
+    private static final int COORDS_PER_ENTRY = 3;
+
+    /**
+     * Number of angle values stored per entry.
+     */
+    private static final int ANGLES_PER_ENTRY = 2;
+
+    /**
+     * World index of each entry, by ring slot.
+     */
+    private int[] worlds;
+
+    /**
+     * X, Y and Z coordinates of each entry, packed three per ring slot.
+     */
+    private double[] coords;
+
+    /**
+     * Yaw and pitch of each entry, packed two per ring slot.
+     */
+    private float[] angles;
+
+    /**
+     * Ring slot of the most recent entry.
+     */
+    private int head = -1;
+
+    /**
+     * Number of valid entries.
+     */
+    private int size;
+
+    /**
+     * Create a new, empty history holding at most the given number of entries.
+     *
+     * @param capacity The maximum number of entries to retain; at least 1.
+     */
+    public OWLocationHistory(int capacity) {
+        int cap = Math.max(capacity, 1);
+        this.worlds = new int[cap];
+        this.coords = new double[cap * COORDS_PER_ENTRY];
+        this.angles = new float[cap * ANGLES_PER_ENTRY];
+    }
+
+    /**
+     * Get the maximum number of entries this history retains.
+     *
+     * @return The capacity of this history.
+     */
+    public int capacity() {
+        return this.worlds.length;
+    }
+
+    /**
+     * Get the number of entries currently recorded.
+     *
+     * @return The number of entries in this history.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check whether the most recent entry is exactly the given location.
+     *
+     * @param world The world index of the location.
+     * @param x     The X-coordinate of the location.
+     * @param y     The Y-coordinate of the location.
+     * @param z     The Z-coordinate of the location.
+     * @param yaw   The yaw of the location.
+     * @param pitch The pitch of the location.
+     * @return True if this history is not empty and its newest entry is the location.
+     */
+    public boolean isNewest(int world, double x, double y, double z, float yaw, float pitch) {
+        if (this.size == 0) {
+            return false;
+        }
+        int slot = this.head;
+        return this.worlds[slot] == world
+                && this.coords[slot * COORDS_PER_ENTRY] == x
+                && this.coords[slot * COORDS_PER_ENTRY + 1] == y
+                && this.coords[slot * COORDS_PER_ENTRY + 2] == z
+                && this.angles[slot * ANGLES_PER_ENTRY] == yaw
+                && this.angles[slot * ANGLES_PER_ENTRY + 1] == pitch;
+    }
+
+    /**
+     * Record a new most-recent entry, discarding the oldest if this history is full.
+     *
+     * @param world The world index of the location.
+     * @param x     The X-coordinate of the location.
+     * @param y     The Y-coordinate of the location.
+     * @param z     The Z-coordinate of the location.
+     * @param yaw   The yaw of the location.
+     * @param pitch The pitch of the location.
+     */
+    public void push(int world, double x, double y, double z, float yaw, float pitch) {
+        this.head = (this.head + 1) % this.worlds.length;
+        this.worlds[this.head] = world;
+        this.coords[this.head * COORDS_PER_ENTRY] = x;
+        this.coords[this.head * COORDS_PER_ENTRY + 1] = y;
+        this.coords[this.head * COORDS_PER_ENTRY + 2] = z;
+        this.angles[this.head * ANGLES_PER_ENTRY] = yaw;
+        this.angles[this.head * ANGLES_PER_ENTRY + 1] = pitch;
+        if (this.size < this.worlds.length) {
+            this.size++;
+        }
+    }
+
+    /**
+     * Discard the given number of most recent entries.
+     *
+     * @param count The number of entries to discard.
+     */
+    public void dropRecent(int count) {
+        int n = Math.min(Math.max(count, 0), this.size);
+        this.head = (this.head - n + this.worlds.length) % this.worlds.length;
+        this.size -= n;
+    }
+
+    /**
+     * Get the world index of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The world index of the entry.
+     */
+    public int getWorld(int age) {
+        return this.worlds[this.slot(age)];
+    }
+
+    /**
+     * Get the X-coordinate of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The X-coordinate of the entry.
+     */
+    public double getX(int age) {
+        return this.coords[this.slot(age) * COORDS_PER_ENTRY];
+    }
+
+    /**
+     * Get the Y-coordinate of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The Y-coordinate of the entry.
+     */
+    public double getY(int age) {
+        return this.coords[this.slot(age) * COORDS_PER_ENTRY + 1];
+    }
+
+    /**
+     * Get the Z-coordinate of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The Z-coordinate of the entry.
+     */
+    public double getZ(int age) {
+        return this.coords[this.slot(age) * COORDS_PER_ENTRY + 2];
+    }
+
+    /**
+     * Get the yaw of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The yaw of the entry.
+     */
+    public float getYaw(int age) {
+        return this.angles[this.slot(age) * ANGLES_PER_ENTRY];
+    }
+
+    /**
+     * Get the pitch of an entry.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The pitch of the entry.
+     */
+    public float getPitch(int age) {
+        return this.angles[this.slot(age) * ANGLES_PER_ENTRY + 1];
+    }
+
+    /**
+     * Convert an entry age into a ring slot.
+     *
+     * @param age The age of the entry; 0 is the most recent.
+     * @return The ring slot holding the entry.
+     * @throws IndexOutOfBoundsException If no entry of the given age exists.
+     */
+    private int slot(int age) {
+        if (age < 0 || age >= this.size) {
+            throw new IndexOutOfBoundsException("No history entry " + age + " (size " + this.size + ")");
+        }
+        return (this.head - age + this.worlds.length) % this.worlds.length;
+    }
+}
@@ -1,25 +1,69 @@
 package com.lithium3141.OpenWarp;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 /**
  * Utility class responsible for tracking player location changes. Used in part to
  * implement the <code>/back</code> and various warp stack functions.
+ * <p/>
+ * Each player has a bounded OWLocationHistory of packed coordinates. Worlds are
+ * recorded as ids in the plugin's shared world dictionary, so that histories
+ * hold no references to World objects and use the same world ids as warps.
+ * <p/>
+ * Histories of players who stay offline are handed to the location history
+ * store and dropped when the OWPlayerStateManager releases them.
  */
-public class OWLocationTracker {
+public class OWLocationTracker implements OWPlayerState {
+
+    /**
+     * Default number of previous locations remembered per player.
+     */
+    public static final int DEFAULT_HISTORY_DEPTH = 10;
+
+    /**
+     * The OpenWarp instance backing this tracker. Used to resolve world names.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Number of previous locations remembered per player.
+     */
+    private int historyDepth;
+
     /**
-     * Previous locations for each player. Maps a player's name to a single Location.
+     * Previous locations for each player, indexed by player id.
      */
-    private Map<String, Location> previousLocations = new HashMap<String, Location>();
+    private OWPlayerMap<OWLocationHistory> histories;
+
+    /**
+     * Name of a player whose next location change should not be recorded, or null.
+     */
+    private String suppressedPlayer;
 
     /**
      * Create a new location tracker for the given OpenWarp instance.
+     *
+     * @param ow    The OpenWarp instance used to resolve world names.
+     * @param depth The number of previous locations to remember per player.
+     */
+    public OWLocationTracker(OpenWarp ow, int depth) {
+        this.plugin = ow;
+        this.historyDepth = Math.max(depth, 1);
+        this.histories = new OWPlayerMap<OWLocationHistory>(ow.getPlayerDictionary());
+    }
+
+    /**
+     * Get the number of previous locations remembered per player.
+     *
+     * @return The history depth of this tracker.
      */
-    public OWLocationTracker() {
+    public int getHistoryDepth() {
+        return this.historyDepth;
     }
 
     /**
@@ -31,12 +75,79 @@ public class OWLocationTracker {
      *         teleport or death, or <code>null</code> if no such location is known.
      */
     public Location getPreviousLocation(String playerName) {
-        Location loc = this.previousLocations.get(playerName);
-        if (loc != null) {
-            return loc;
-        } else {
+        return this.getPreviousLocation(playerName, 0);
+    }
+
+    /**
+     * Get a previously recorded location of the player with the given name.
+     *
+     * @param playerName The name of the player for whom to get a previous location.
+     * @param age        How far back to look; 0 is the most recent location.
+     * @return The recorded Location, or <code>null</code> if no such location is known
+     *         or its world is not loaded.
+     */
+    public Location getPreviousLocation(String playerName, int age) {
+        OWLocationHistory history = this.histories.get(playerName);
+        if (history == null || age < 0 || age >= history.size()) {
+            return null;
+        }
+
+        World world = this.plugin.getServer().getWorld(this.getWorldName(history.getWorld(age)));
+        if (world == null) {
             return null;
         }
+        return new Location(world, history.getX(age), history.getY(age), history.getZ(age), history.getYaw(age), history.getPitch(age));
+    }
+
+    /**
+     * Get the location history of the player with the given name.
+     *
+     * @param playerName The name of the player for whom to get the history.
+     * @return The player's history, or null if nothing has been recorded for them.
+     */
+    public OWLocationHistory getHistory(String playerName) {
+        return this.histories.get(playerName);
+    }
+
+    /**
+     * Get every recorded history, keyed by player name.
+     *
+     * @return An unmodifiable view of all player histories.
+     */
+    public Map<String, OWLocationHistory> getHistories() {
+        return Collections.unmodifiableMap(this.histories);
+    }
+
+    /**
+     * Install a history for the given player, e.g. one restored from disk. Does
+     * nothing if the player already has a history.
+     *
+     * @param playerName The player whose history to install.
+     * @param history    The history to install.
+     */
+    public void restoreHistory(String playerName, OWLocationHistory history) {
+        if (!this.histories.containsKey(playerName) && history.size() > 0) {
+            this.histories.put(playerName, history);
+        }
+    }
+
+    /**
+     * Get the number of worlds in the plugin's world dictionary.
+     *
+     * @return The number of known world names.
+     */
+    public int getWorldCount() {
+        return this.plugin.getWorldDictionary().size();
+    }
+
+    /**
+     * Get the name of the world with the given index in the plugin's world dictionary.
+     *
+     * @param index The world index, as stored in an OWLocationHistory.
+     * @return The name of the world, or null if the index is unknown.
+     */
+    public String getWorldName(int index) {
+        return this.plugin.getWorldDictionary().nameOf(index);
     }
 
     /**
@@ -51,21 +162,91 @@ public class OWLocationTracker {
     }
 
     /**
-     * Set the last recorded location of the given player.
+     * Set the last recorded location of the given player. Older locations are kept
+     * in the player's history, up to this tracker's history depth. Recording the
+     * same location as the most recent one again does nothing.
      *
      * @param playerName The player for whom to update the location.
      * @param location   The Location to record as "previous location."
      */
     public void setPreviousLocation(String playerName, Location location) {
-        this.previousLocations.put(playerName, location);
+        if (playerName.equals(this.suppressedPlayer) || location.getWorld() == null) {
+            return;
+        }
+
+        OWLocationHistory history = this.histories.get(playerName);
+        if (history == null) {
+            history = new OWLocationHistory(this.historyDepth);
+            this.histories.put(playerName, history);
+        }
+        int world = this.getWorldIndex(location.getWorld().getName());
+        if (history.isNewest(world, location.getX(), location.getY(), location.getZ(), location.getYaw(), location.getPitch())) {
+            return;
+        }
+        history.push(world, location.getX(), location.getY(), location.getZ(), location.getYaw(), location.getPitch());
     }
 
     /**
-     * Remove the last known location for the given player.
+     * Remove the last known location for the given player. Older locations, if any,
+     * become the most recent.
      *
      * @param playerName The player for whom to clear the last known location.
      */
     public void clearPreviousLocation(String playerName) {
-        this.previousLocations.remove(playerName);
+        this.clearPreviousLocations(playerName, 1);
+    }
+
+    /**
+     * Remove the given number of most recent locations for the given player.
+     *
+     * @param playerName The player for whom to clear locations.
+     * @param count      The number of locations to remove.
+     */
+    public void clearPreviousLocations(String playerName, int count) {
+        OWLocationHistory history = this.histories.get(playerName);
+        if (history != null) {
+            history.dropRecent(count);
+            if (history.size() == 0) {
+                this.histories.remove(playerName);
+            }
+        }
+    }
+
+    @Override
+    public String getStateName() {
+        return "location histories";
+    }
+
+    @Override
+    public int getEntryCount() {
+        return this.histories.size();
+    }
+
+    @Override
+    public void releasePlayer(String playerName) {
+        if (this.plugin.getLocationHistoryStore() != null) {
+            this.plugin.getLocationHistoryStore().retire(playerName, this.histories.get(playerName));
+        }
+        this.histories.remove(playerName);
+    }
+
+    /**
+     * Stop or resume recording location changes for the given player. Used to keep
+     * <code>/back</code> teleports themselves out of a player's history.
+     *
+     * @param playerName The player to stop recording, or null to resume recording.
+     */
+    public void suppressRecording(String playerName) {
+        this.suppressedPlayer = playerName;
+    }
+
+    /**
+     * Look up a world's index in the plugin's world dictionary, adding it if necessary.
+     *
+     * @param worldName The name of the world.
+     * @return The world's index.
+     */
+    public int getWorldIndex(String worldName) {
+        return this.plugin.getWorldDictionary().idFor(worldName);
     }
 }
@@ -0,0 +1,94 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary assigning small integer ids to names, such as world
+ * or player names. Structures holding many references to the same few names
+ * store the id instead, so each distinct name is held once.
+ * <p/>
+ * Ids are assigned in order from 0 and never reused. Looking up the name for
+ * an id, or the id of a known name, takes no lock and is safe from any thread.
+ */
+public class OWNameDictionary {
+
+    /**
+     * Initial capacity of the id-to-name table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Ids, mapped to by name. Written under this dictionary's lock; read without it.
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * Names, indexed by id. Written under this dictionary's lock; read without it.
+     */
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * Number of names in this dictionary. Guarded by this dictionary's lock.
+     */
+    private int size;
+
+    /**
+     * Get the id of the given name, assigning a new id if the name is new.
+     *
+     * @param name The name to look up.
+     * @return The id of the name.
+     */
+    public synchronized int idFor(String name) {
+        Integer id = this.ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        // Slots past the last id are never read, so the new slot can be filled in
+        // place; the volatile write publishes it before the id becomes findable
+        String[] table = this.names;
+        if (this.size == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[this.size] = name;
+        this.names = table;
+        this.ids.put(name, this.size);
+        return this.size++;
+    }
+
+    /**
+     * Get the id of the given name without assigning one.
+     *
+     * @param name The name to look up.
+     * @return The id of the name, or -1 if it has none.
+     */
+    public int find(String name) {
+        Integer id = this.ids.get(name);
+        return (id == null ? -1 : id); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Get the name with the given id.
+     *
+     * @param id The id to look up.
+     * @return The name, or null if the id is negative or unassigned.
+     */
+    public String nameOf(int id) {
+        String[] table = this.names;
+        if (id < 0 || id >= table.length) {
+            return null;
+        }
+        return table[id];
+    }
+
+    /**
+     * Get the number of names in this dictionary.
+     *
+     * @return The number of ids assigned.
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,52 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central dictionary of player identities. Every player OpenWarp knows about,
+ * online or not, gets a dense integer id from this dictionary; per-player
+ * structures (private warps, player configurations, location histories and
+ * warp invitees) are keyed by that id rather than by name.
+ * <p/>
+ * Ids are assigned by player name, since names are all that warp files and
+ * offline records carry. When a Player is seen online, their UUID is recorded
+ * against the same id so callers holding only a UUID can find it.
+ */
+public class OWPlayerDictionary extends OWNameDictionary {
+
+    /**
+     * Player ids, mapped to by UUID. Only holds players seen online.
+     */
+    private final Map<UUID, Integer> uuids = new ConcurrentHashMap<UUID, Integer>();
+
+    /**
+     * Get the id of the given Player, assigning a new id if the player is new,
+     * and record the Player's UUID against it.
+     *
+     * @param player The Player to look up.
+     * @return The id of the player.
+     */
+    public int idFor(Player player) {
+        int id = this.idFor(player.getName());
+        UUID uuid = player.getUniqueId();
+        if (uuid != null) {
+            this.uuids.put(uuid, id);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of the player with the given UUID without assigning one.
+     *
+     * @param uuid The UUID to look up.
+     * @return The id of the player, or -1 if no player with that UUID has been seen.
+     */
+    public int find(UUID uuid) {
+        Integer id = this.uuids.get(uuid);
+        return (id == null ? -1 : id); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+}
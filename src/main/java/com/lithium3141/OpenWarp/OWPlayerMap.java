@@ -0,0 +1,294 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of per-player values stored in an array indexed by player id from an
+ * OWPlayerDictionary. Callers holding a player id use #get(int) and friends
+ * and never hash a name; the Map view keyed by player name is kept for
+ * callers that have only a name, and costs a single dictionary lookup.
+ * <p/>
+ * Null values are not stored; putting null removes the player's value. Like
+ * HashMap, this map is not synchronized. Iteration is in player id order.
+ *
+ * @param <V> The type of the per-player values.
+ */
+public class OWPlayerMap<V> extends AbstractMap<String, V> {
+
+    /**
+     * Initial capacity of the value table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The dictionary assigning ids to player names.
+     */
+    private final OWPlayerDictionary players;
+
+    /**
+     * Values, indexed by player id; null where a player has no value.
+     */
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Number of players with a value in this map.
+     */
+    private int size;
+
+    /**
+     * Number of structural changes made to this map, used to detect concurrent
+     * modification during iteration.
+     */
+    private int modCount;
+
+    /**
+     * Create a new empty map keyed by ids from the given dictionary.
+     *
+     * @param dictionary The dictionary assigning ids to player names.
+     */
+    public OWPlayerMap(OWPlayerDictionary dictionary) {
+        this.players = dictionary;
+    }
+
+    /**
+     * Get the value for the player with the given id.
+     *
+     * @param playerId The id of the player.
+     * @return The player's value, or null if they have none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int playerId) {
+        if (playerId < 0 || playerId >= this.values.length) {
+            return null;
+        }
+        return (V) this.values[playerId];
+    }
+
+    /**
+     * Set the value for the player with the given id.
+     *
+     * @param playerId The id of the player; must have been assigned by this map's dictionary.
+     * @param value    The new value, or null to remove the player's value.
+     * @return The player's previous value, or null if they had none.
+     */
+    public V put(int playerId, V value) {
+        if (value == null) {
+            return this.remove(playerId);
+        }
+        if (playerId >= this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.max(this.values.length * 2, playerId + 1));
+        }
+        V previous = this.get(playerId);
+        this.values[playerId] = value;
+        if (previous == null) {
+            this.size++;
+            this.modCount++;
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the value for the player with the given id.
+     *
+     * @param playerId The id of the player.
+     * @return The player's previous value, or null if they had none.
+     */
+    public V remove(int playerId) {
+        V previous = this.get(playerId);
+        if (previous != null) {
+            this.values[playerId] = null;
+            this.size--;
+            this.modCount++;
+        }
+        return previous;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return this.get(this.players.find((String) key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        if (value == null) {
+            return this.remove(key);
+        }
+        return this.put(this.players.idFor(key), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return this.remove(this.players.find((String) key));
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return OWPlayerMap.this.size;
+            }
+        };
+    }
+
+    /**
+     * Map entry for a single player slot. Writes through to the map.
+     */
+    private final class PlayerEntry implements Map.Entry<String, V> {
+
+        /**
+         * The id of the player this entry describes.
+         */
+        private final int playerId;
+
+        /**
+         * Create an entry for the given player.
+         *
+         * @param id The id of the player.
+         */
+        private PlayerEntry(int id) {
+            this.playerId = id;
+        }
+
+        @Override
+        public String getKey() {
+            return OWPlayerMap.this.players.nameOf(this.playerId);
+        }
+
+        @Override
+        public V getValue() {
+            return OWPlayerMap.this.get(this.playerId);
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) {
+                throw new NullPointerException("OWPlayerMap does not store null values");
+            }
+            return OWPlayerMap.this.put(this.playerId, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return this.getKey().equals(other.getKey()) && this.getValue().equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.getKey().hashCode() ^ this.getValue().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+
+    /**
+     * Iterator over the occupied player slots of this map, in id order.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, V>> {
+
+        /**
+         * Id of the next occupied slot, or the table length if there is none.
+         */
+        private int next = -1;
+
+        /**
+         * Id of the slot last returned by #next(), or -1.
+         */
+        private int last = -1;
+
+        /**
+         * The map's modification count this iterator expects.
+         */
+        private int expectedModCount = OWPlayerMap.this.modCount;
+
+        /**
+         * Create an iterator positioned before the first occupied slot.
+         */
+        private EntryIterator() {
+            this.advance();
+        }
+
+        /**
+         * Move #next to the next occupied slot.
+         */
+        private void advance() {
+            Object[] table = OWPlayerMap.this.values;
+            do {
+                this.next++;
+            } while (this.next < table.length && table[this.next] == null);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < OWPlayerMap.this.values.length;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (OWPlayerMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.advance();
+            return new PlayerEntry(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (OWPlayerMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            OWPlayerMap.this.remove(this.last);
+            this.expectedModCount = OWPlayerMap.this.modCount;
+            this.last = -1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.lithium3141.OpenWarp;
+
+/**
+ * A structure holding runtime state for individual players. Structures of this
+ * kind register with the OWPlayerStateManager, which releases a player's state
+ * once they have been offline for longer than the configured grace period, and
+ * which reports entry counts for each registered structure.
+ */
+public interface OWPlayerState {
+
+    /**
+     * Get a short human-readable name for this structure, used in reports.
+     *
+     * @return The name of this structure.
+     */
+    String getStateName();
+
+    /**
+     * Get the number of per-player entries currently held by this structure.
+     *
+     * @return The number of entries held.
+     */
+    int getEntryCount();
+
+    /**
+     * Release any runtime state held for the given player. Implementations must
+     * persist anything that should survive before dropping it.
+     *
+     * @param playerName The name of the player whose state to release.
+     */
+    void releasePlayer(String playerName);
+}
@@ -0,0 +1,192 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Lifecycle manager for per-player runtime state. Remembers when each player went
+ * offline and, once a player has been offline for longer than the grace period,
+ * asks every registered OWPlayerState structure to release that player's state.
+ * Players who come back within the grace period keep their state untouched.
+ */
+public class OWPlayerStateManager implements Runnable {
+
+    /**
+     * Default time a player may be offline before their state is released, in minutes.
+     */
+    public static final int DEFAULT_GRACE_MINUTES = 10;
+
+    /**
+     * Number of ticks between sweeps for expired players.
+     */
+    private static final long SWEEP_PERIOD_TICKS = 1200L;
+
+    /**
+     * Maximum number of players released by a single sweep. Players past their
+     * grace period beyond this are released by later sweeps, so that a crowd of
+     * expiries (such as every offline player marked at startup) is spread out.
+     */
+    private static final int MAX_RELEASES_PER_SWEEP = 50;
+
+    /**
+     * The OpenWarp instance backing this manager.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Time a player may be offline before their state is released, in milliseconds.
+     */
+    private long graceMillis;
+
+    /**
+     * Structures whose per-player state this manager releases.
+     */
+    private List<OWPlayerState> states = new ArrayList<OWPlayerState>();
+
+    /**
+     * Time each offline player went offline, mapped to by player name.
+     */
+    private Map<String, Long> offlineSince = new HashMap<String, Long>();
+
+    /**
+     * Number of players whose state has been released since startup.
+     */
+    private long releasedPlayers;
+
+    /**
+     * Bukkit scheduler ID of the periodic sweep task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Create a new player state manager for the given OpenWarp instance.
+     *
+     * @param ow           The OpenWarp instance used for scheduling.
+     * @param graceMinutes Time a player may be offline before their state is released, in minutes.
+     */
+    public OWPlayerStateManager(OpenWarp ow, int graceMinutes) {
+        this.plugin = ow;
+        this.graceMillis = Math.max(graceMinutes, 0) * 60L * 1000L; // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * Register a structure whose per-player state this manager should release.
+     *
+     * @param state The structure to register.
+     */
+    public void register(OWPlayerState state) {
+        this.states.add(state);
+    }
+
+    /**
+     * Start periodically releasing the state of expired players.
+     */
+    public void start() {
+        if (this.taskId == -1) {
+            this.taskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(this.plugin, this, SWEEP_PERIOD_TICKS, SWEEP_PERIOD_TICKS);
+        }
+    }
+
+    /**
+     * Stop releasing the state of expired players.
+     */
+    public void stop() {
+        if (this.taskId != -1) {
+            this.plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+    }
+
+    /**
+     * Note that the given player has come online. Their state will not be released.
+     *
+     * @param playerName The name of the player who joined.
+     */
+    public void playerJoined(String playerName) {
+        this.offlineSince.remove(playerName);
+    }
+
+    /**
+     * Note that the given player has gone offline. Their state will be released once
+     * the grace period passes, unless they return first.
+     *
+     * @param playerName The name of the player who left.
+     */
+    public void playerQuit(String playerName) {
+        this.offlineSince.put(playerName, System.currentTimeMillis());
+    }
+
+    /**
+     * Get the number of offline players whose state is waiting to be released.
+     *
+     * @return The number of players in their grace period.
+     */
+    public int getPendingCount() {
+        return this.offlineSince.size();
+    }
+
+    /**
+     * Get the number of players whose state has been released since startup.
+     *
+     * @return The number of released players.
+     */
+    public long getReleasedCount() {
+        return this.releasedPlayers;
+    }
+
+    /**
+     * Get the grace period of this manager.
+     *
+     * @return The time a player may be offline before their state is released, in minutes.
+     */
+    public long getGraceMinutes() {
+        return this.graceMillis / (60L * 1000L); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * Get the current entry count of every registered structure.
+     *
+     * @return An unmodifiable map from structure name to entry count, in registration order.
+     */
+    public Map<String, Integer> getEntryCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        for (OWPlayerState state : this.states) {
+            counts.put(state.getStateName(), state.getEntryCount());
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @Override
+    public void run() {
+        long cutoff = System.currentTimeMillis() - this.graceMillis;
+        int releases = 0;
+        Iterator<Entry<String, Long>> it = this.offlineSince.entrySet().iterator();
+        while (it.hasNext() && releases < MAX_RELEASES_PER_SWEEP) {
+            Entry<String, Long> entry = it.next();
+            if (entry.getValue() <= cutoff) {
+                it.remove();
+                this.release(entry.getKey());
+                releases++;
+            }
+        }
+    }
+
+    /**
+     * Release the state of the given player from every registered structure.
+     *
+     * @param playerName The name of the player whose state to release.
+     */
+    private void release(String playerName) {
+        OWDebug.fine("Releasing runtime state for offline player '{}'", playerName);
+        for (OWPlayerState state : this.states) {
+            state.releasePlayer(playerName);
+        }
+        this.releasedPlayers++;
+    }
+}
@@ -0,0 +1,274 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits on how many warps each player may own. Quotas are configured per
+ * permission group, separately for public and private warps, with optional
+ * tighter limits per world:
+ * <pre>
+ * quotas:
+ *   default:
+ *     public: 0
+ *     private: 20
+ *     worlds:
+ *       world_nether:
+ *         private: 5
+ *   vip:
+ *     private: 100
+ * </pre>
+ * The <code>default</code> group applies to every player; any other group
+ * applies to players with its <code>group.NAME</code> permission. A player
+ * gets the most generous limit among their groups, and no limit where none of
+ * their groups sets one; a negative limit also means no limit. Players with
+ * <code>openwarp.warp.quota.exempt</code> (ops by default) have no limits.
+ * <p/>
+ * Usage is read from the registry's OWWarpCounter, so checking a quota takes
+ * constant time per group however many warps exist.
+ */
+public class OWQuotaManager {
+
+    /**
+     * Limit meaning any number of warps is allowed.
+     */
+    public static final int UNLIMITED = -1;
+
+    /**
+     * Name of the group applying to every player.
+     */
+    public static final String DEFAULT_GROUP = "default";
+
+    /**
+     * Permission exempting a player from every quota.
+     */
+    public static final String EXEMPT_PERMISSION = "openwarp.warp.quota.exempt";
+
+    /**
+     * The YAML key for a group's public warp limit.
+     */
+    public static final String PUBLIC_KEY = "public";
+
+    /**
+     * The YAML key for a group's private warp limit.
+     */
+    public static final String PRIVATE_KEY = "private";
+
+    /**
+     * The YAML key for a group's per-world limits.
+     */
+    public static final String WORLDS_KEY = "worlds";
+
+    /**
+     * Limit for a group that does not set one.
+     */
+    private static final int UNSET = -2;
+
+    /**
+     * The OpenWarp instance whose warps are limited.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The configured groups, in configuration order.
+     */
+    private List<Group> groups = new ArrayList<Group>();
+
+    /**
+     * Create a new quota manager from the given configuration section.
+     *
+     * @param ow      The OpenWarp instance whose warps are limited.
+     * @param section The section holding one subsection per group; null for no quotas.
+     */
+    public OWQuotaManager(OpenWarp ow, ConfigurationSection section) {
+        this.plugin = ow;
+        if (section == null) {
+            return;
+        }
+        for (String groupName : section.getKeys(false)) {
+            ConfigurationSection groupSection = section.getConfigurationSection(groupName);
+            if (groupSection == null) {
+                OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Ignoring malformed quota group '" + groupName + "'");
+                continue;
+            }
+            this.groups.add(new Group(groupName, groupSection));
+        }
+    }
+
+    /**
+     * Check whether any quotas are configured.
+     *
+     * @return True if at least one group is configured.
+     */
+    public boolean isEnabled() {
+        return !this.groups.isEmpty();
+    }
+
+    /**
+     * Check whether the given sender is exempt from quotas.
+     *
+     * @param sender The sender to check.
+     * @return True if the sender may own any number of warps.
+     */
+    public boolean isExempt(CommandSender sender) {
+        return this.plugin.hasPermission(sender, EXEMPT_PERMISSION, true);
+    }
+
+    /**
+     * Get the number of warps of a scope the given player may own.
+     *
+     * @param player    The player.
+     * @param scope     The scope of the warps.
+     * @param worldName The world to get the limit within, or null for the overall limit.
+     * @return The limit, or #UNLIMITED.
+     */
+    public int getLimit(Player player, Warp.Scope scope, String worldName) {
+        int limit = UNSET;
+        for (Group group : this.groups) {
+            int groupLimit = group.getLimit(scope, worldName);
+            if (groupLimit == UNSET || !group.appliesTo(player)) {
+                continue;
+            }
+            if (groupLimit < 0) {
+                return UNLIMITED;
+            }
+            limit = Math.max(limit, groupLimit);
+        }
+        return (limit == UNSET ? UNLIMITED : limit); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Check whether the given player may add a warp to a scope without going over
+     * quota. Replacing one of the player's own warps in the same world never
+     * counts against their quota.
+     *
+     * @param player   The player setting the warp.
+     * @param scope    The scope the warp is being added to.
+     * @param warp     The new Warp, owned by the player.
+     * @param existing The Warp of the same name being replaced, or null.
+     * @return Null if the warp is within quota; otherwise a message explaining which limit was reached.
+     */
+    public String checkQuota(Player player, Warp.Scope scope, Warp warp, Warp existing) {
+        if (this.groups.isEmpty() || this.isExempt(player)) {
+            return null;
+        }
+
+        OWWarpCounter counter = this.plugin.getWarpCounter();
+        int ownerId = warp.getOwnerId();
+        boolean replacesOwn = (existing != null && existing.getOwnerId() == ownerId);
+        String kind = scope.name().toLowerCase();
+
+        int limit = this.getLimit(player, scope, null);
+        if (limit != UNLIMITED && !replacesOwn && counter.getCount(scope, ownerId) >= limit) {
+            return "You have reached your limit of " + limit + " " + kind + " warps.";
+        }
+
+        String worldName = warp.getWorldName();
+        if (worldName != null) {
+            boolean sameWorld = replacesOwn && existing.getWorldId() == warp.getWorldId();
+            int worldLimit = this.getLimit(player, scope, worldName);
+            if (worldLimit != UNLIMITED && !sameWorld && counter.getCount(scope, ownerId, warp.getWorldId()) >= worldLimit) {
+                return "You have reached your limit of " + worldLimit + " " + kind + " warps in world '" + worldName + "'.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A permission group's configured limits.
+     */
+    private static class Group {
+
+        /**
+         * The permission marking members of this group, or null if it applies to everyone.
+         */
+        private String node;
+
+        /**
+         * Overall limits, indexed by #slot(Warp.Scope).
+         */
+        private int[] limits;
+
+        /**
+         * Per-world limits, indexed by #slot(Warp.Scope), mapped to by lowercase world name.
+         */
+        private Map<String, int[]> worldLimits = new HashMap<String, int[]>();
+
+        /**
+         * Read a group's limits from its configuration section.
+         *
+         * @param groupName The name of the group.
+         * @param section   The group's configuration section.
+         */
+        Group(String groupName, ConfigurationSection section) {
+            if (!groupName.equalsIgnoreCase(DEFAULT_GROUP)) {
+                this.node = Warp.GROUP_PERMISSION_PREFIX + groupName;
+            }
+            this.limits = readLimits(section);
+
+            ConfigurationSection worlds = section.getConfigurationSection(WORLDS_KEY);
+            if (worlds != null) {
+                for (String worldName : worlds.getKeys(false)) {
+                    ConfigurationSection worldSection = worlds.getConfigurationSection(worldName);
+                    if (worldSection != null) {
+                        this.worldLimits.put(worldName.toLowerCase(), readLimits(worldSection));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Read public and private limits from a configuration section.
+         *
+         * @param section The section.
+         * @return The limits, indexed by #slot(Warp.Scope).
+         */
+        private static int[] readLimits(ConfigurationSection section) {
+            return new int[] {
+                section.getInt(PUBLIC_KEY, UNSET),
+                section.getInt(PRIVATE_KEY, UNSET),
+            };
+        }
+
+        /**
+         * Get the index of a scope's limit in a limits array.
+         *
+         * @param scope The scope.
+         * @return 0 for public warps; 1 for private warps.
+         */
+        private static int slot(Warp.Scope scope) {
+            return (scope == Warp.Scope.PUBLIC ? 0 : 1); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+
+        /**
+         * Check whether this group applies to the given player.
+         *
+         * @param player The player.
+         * @return True if the player is a member of this group.
+         */
+        boolean appliesTo(Player player) {
+            return this.node == null || player.hasPermission(this.node);
+        }
+
+        /**
+         * Get this group's limit for a scope.
+         *
+         * @param scope     The scope.
+         * @param worldName The world to get the limit within, or null for the overall limit.
+         * @return The limit, #UNLIMITED, or #UNSET if this group sets none.
+         */
+        int getLimit(Warp.Scope scope, String worldName) {
+            if (worldName == null) {
+                return this.limits[slot(scope)];
+            }
+            int[] forWorld = this.worldLimits.get(worldName.toLowerCase());
+            return (forWorld == null ? UNSET : forWorld[slot(scope)]); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.lithium3141.OpenWarp;
+
+import com.lithium3141.OpenWarp.util.BlockSafety;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Service computing and caching safe landing spots for teleports. A landing
+ * is computed by scanning a single block column with BlockSafety and is then
+ * remembered per (world, x, z) column, so that repeated teleports to the same
+ * warp never rescan the world.
+ * <p/>
+ * Cached columns are invalidated whenever a block is placed or broken in them
+ * (see OWBlockListener) and when their world unloads. Blocks also change without
+ * such events, through explosions, pistons, flowing liquid, fire, world edits or
+ * while the server is down, so every cached landing is checked with a single
+ * BlockSafety test before it is returned; a landing that is no longer safe is
+ * rescanned.
+ */
+public class OWSafeLandingService {
+
+    /**
+     * The OpenWarp instance whose warps' landings are saved, or null to never save.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Cached landings for each world. Maps a world name to a map of packed
+     * column keys to the landing computed for that column.
+     */
+    private Map<String, Map<Long, Landing>> landings = new HashMap<String, Map<Long, Landing>>();
+
+    /**
+     * Number of landing requests answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of landing requests that required a column scan.
+     */
+    private long misses;
+
+    /**
+     * Create a new, empty safe landing service that never saves warps.
+     */
+    public OWSafeLandingService() {
+        this(null);
+    }
+
+    /**
+     * Create a new, empty safe landing service.
+     *
+     * @param ow The OpenWarp instance whose configuration to save when a warp's landing moves.
+     */
+    public OWSafeLandingService(OpenWarp ow) {
+        this.plugin = ow;
+    }
+
+    /**
+     * Get a safe Location at or near the given target. Keeps the target's X, Z,
+     * yaw and pitch, adjusting only the Y-coordinate.
+     *
+     * @param target The Location a player wants to teleport to.
+     * @return A safe Location in the same column as <code>target</code>, or null
+     *         if the column has no safe spot or the target has no world.
+     */
+    public Location getSafeLocation(Location target) {
+        World world = target.getWorld();
+        if (world == null) {
+            return null;
+        }
+
+        int y = this.getLandingY(world, target.getBlockX(), target.getBlockY(), target.getBlockZ());
+        if (y == BlockSafety.NO_LANDING) {
+            return null;
+        }
+        return new Location(world, target.getX(), (double) y, target.getZ(), target.getYaw(), target.getPitch());
+    }
+
+    /**
+     * Get the safe landing for the given Warp. Uses the Warp's precomputed landing
+     * until its column changes, then rescans once and stores the new landing
+     * back on the Warp, saving the configuration holding the Warp.
+     *
+     * @param warp The Warp a player wants to teleport to.
+     * @return A safe Location near <code>warp</code>, or null if there is none.
+     */
+    public Location getSafeLocation(Warp warp) {
+        Location target = warp.getLocation();
+        Location result = this.getSafeLocation(target);
+        int landingY = (result == null ? BlockSafety.NO_LANDING : result.getBlockY()); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        if (landingY != warp.getLandingY()) {
+            OWDebug.fine("Safe landing for warp '{}' moved to y={}", warp.getName(), landingY);
+            warp.setLandingY(landingY);
+            this.save(warp);
+        }
+        return result;
+    }
+
+    /**
+     * Save the configuration holding the given Warp. Warps not yet in a warp map
+     * are left for whoever adds them to save.
+     *
+     * @param warp The Warp whose landing changed.
+     */
+    private void save(Warp warp) {
+        if (this.plugin == null) {
+            return;
+        }
+        if (warp.isPublic()) {
+            this.plugin.getConfigurationManager().saveGlobalConfiguration();
+        } else if (warp.isPrivate()) {
+            this.plugin.getConfigurationManager().savePlayerConfiguration(warp.getOwner());
+        }
+    }
+
+    /**
+     * Seed the cache with the landing stored on the given Warp, if it has one.
+     * Used when loading warps so that the first teleport after a restart checks
+     * the stored landing instead of rescanning the column.
+     *
+     * @param warp The Warp whose stored landing to seed.
+     */
+    public void primeLanding(Warp warp) {
+        Location target = warp.getLocation();
+        if (warp.useSafeTeleporter() && warp.getLandingY() != BlockSafety.NO_LANDING && target.getWorld() != null) {
+            this.primeLanding(target.getWorld().getName(), target.getBlockX(), target.getBlockY(), target.getBlockZ(), warp.getLandingY());
+        }
+    }
+
+    /**
+     * Get the feet Y-coordinate of a safe landing in the given column, scanning
+     * the column only if no cached value exists or the cached landing is no
+     * longer safe.
+     *
+     * @param world The World containing the column.
+     * @param x     The block X-coordinate of the column.
+     * @param y     The preferred feet Y-coordinate.
+     * @param z     The block Z-coordinate of the column.
+     * @return The feet Y-coordinate of the landing, or BlockSafety.NO_LANDING.
+     */
+    public int getLandingY(World world, int x, int y, int z) {
+        Map<Long, Landing> worldLandings = this.landings.get(world.getName());
+        if (worldLandings == null) {
+            worldLandings = new HashMap<Long, Landing>();
+            this.landings.put(world.getName(), worldLandings);
+        }
+
+        Long key = columnKey(x, z);
+        Landing landing = worldLandings.get(key);
+        if (landing != null && landing.fromY == y
+                && (landing.landingY == BlockSafety.NO_LANDING || BlockSafety.isSafeLanding(world, x, landing.landingY, z))) {
+            this.hits++;
+            return landing.landingY;
+        }
+
+        this.misses++;
+        int landingY = BlockSafety.findLandingY(world, x, y, z);
+        worldLandings.put(key, new Landing(y, landingY));
+        return landingY;
+    }
+
+    /**
+     * Record an already-known landing for the given column, e.g. one restored from
+     * a saved warp. Like any cached landing, it is checked before each use.
+     *
+     * @param worldName The name of the World containing the column.
+     * @param x         The block X-coordinate of the column.
+     * @param y         The preferred feet Y-coordinate the landing was computed from.
+     * @param z         The block Z-coordinate of the column.
+     * @param landingY  The feet Y-coordinate of the landing.
+     */
+    public void primeLanding(String worldName, int x, int y, int z, int landingY) {
+        Map<Long, Landing> worldLandings = this.landings.get(worldName);
+        if (worldLandings == null) {
+            worldLandings = new HashMap<Long, Landing>();
+            this.landings.put(worldName, worldLandings);
+        }
+        worldLandings.put(columnKey(x, z), new Landing(y, landingY));
+    }
+
+    /**
+     * Check whether the given column currently has a cached landing.
+     *
+     * @param worldName The name of the World containing the column.
+     * @param x         The block X-coordinate of the column.
+     * @param z         The block Z-coordinate of the column.
+     * @return True if a landing is cached for the column.
+     */
+    public boolean isCached(String worldName, int x, int z) {
+        Map<Long, Landing> worldLandings = this.landings.get(worldName);
+        return worldLandings != null && worldLandings.containsKey(columnKey(x, z));
+    }
+
+    /**
+     * Forget the cached landing, if any, for the given column.
+     *
+     * @param world The World containing the column.
+     * @param x     The block X-coordinate of the column.
+     * @param z     The block Z-coordinate of the column.
+     */
+    public void invalidateColumn(World world, int x, int z) {
+        Map<Long, Landing> worldLandings = this.landings.get(world.getName());
+        if (worldLandings != null && !worldLandings.isEmpty()) {
+            worldLandings.remove(columnKey(x, z));
+        }
+    }
+
+    /**
+     * Forget every cached landing in the given world.
+     *
+     * @param world The World for which to clear cached landings.
+     */
+    public void invalidateWorld(World world) {
+        this.landings.remove(world.getName());
+    }
+
+    /**
+     * Get the number of columns with a cached landing across all worlds.
+     *
+     * @return The number of cached columns.
+     */
+    public int getCachedColumnCount() {
+        int count = 0;
+        for (Map<Long, Landing> worldLandings : this.landings.values()) {
+            count += worldLandings.size();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of landing requests answered from the cache.
+     *
+     * @return The cache hit count since this service was created.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Get the number of landing requests that scanned a column.
+     *
+     * @return The cache miss count since this service was created.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Pack block X- and Z-coordinates into a single map key.
+     *
+     * @param x The block X-coordinate.
+     * @param z The block Z-coordinate.
+     * @return A key unique to the (x, z) column.
+     */
+    private static Long columnKey(int x, int z) {
+        return Long.valueOf(((long) x << 32) | (z & 0xFFFFFFFFL)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * A landing computed for a single column.
+     */
+    private static final class Landing {
+        /**
+         * The preferred feet Y-coordinate the landing was computed from.
+         */
+        private final int fromY;
+
+        /**
+         * The resulting feet Y-coordinate, or BlockSafety.NO_LANDING.
+         */
+        private final int landingY;
+
+        /**
+         * Create a new cached landing.
+         *
+         * @param from    The preferred feet Y-coordinate.
+         * @param landing The resulting feet Y-coordinate.
+         */
+        private Landing(int from, int landing) {
+            this.fromY = from;
+            this.landingY = landing;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.lithium3141.OpenWarp;
+
+import com.lithium3141.OpenWarp.metrics.OWCounter;
+import com.lithium3141.OpenWarp.metrics.OWHistogram;
+import com.lithium3141.OpenWarp.metrics.OWMetrics;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue spreading player teleports across server ticks. Each tick, at most a
+ * configured number of teleports run, and draining stops early once a configured
+ * amount of main-thread time has been spent. Requests beyond the budget wait for
+ * later ticks and their players are told their position in line.
+ * <p/>
+ * Destination chunks are loaded when their teleport runs, and the load is
+ * charged to that tick's budget; each chunk is loaded at most once per tick, and
+ * every other request bound for the same chunk in that tick reuses it.
+ */
+public class OWTeleportQueue implements Runnable {
+
+    /**
+     * Outcome of a queued teleport.
+     */
+    public enum Outcome {
+        /**
+         * The player was moved.
+         */
+        MOVED,
+
+        /**
+         * The player could not be moved, or went offline before their turn.
+         */
+        FAILED,
+
+        /**
+         * The player submitted another teleport while waiting, which replaced this one.
+         */
+        SUPERSEDED
+    }
+
+    /**
+     * Receiver for the outcome of a queued teleport.
+     */
+    public interface Callback {
+        /**
+         * Called on the main thread once a queued teleport has run, been replaced or
+         * been abandoned.
+         *
+         * @param playerName  The name of the player that was to be moved.
+         * @param destination The Location the player was to be moved to.
+         * @param outcome     What became of the teleport.
+         */
+        void teleportFinished(String playerName, Location destination, Outcome outcome);
+    }
+
+    /**
+     * Default maximum number of teleports run in a single tick.
+     */
+    public static final int DEFAULT_MAX_PER_TICK = 10;
+
+    /**
+     * Default maximum main-thread time, in milliseconds, spent teleporting in a single tick.
+     */
+    public static final long DEFAULT_MAX_MILLIS_PER_TICK = 5;
+
+    /**
+     * The OpenWarp instance backing this queue.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Maximum number of teleports run in a single tick.
+     */
+    private int maxPerTick;
+
+    /**
+     * Maximum main-thread time, in nanoseconds, spent teleporting in a single tick.
+     */
+    private long maxNanosPerTick;
+
+    /**
+     * Teleports waiting for a later tick, in arrival order.
+     */
+    private LinkedList<Request> pending = new LinkedList<Request>();
+
+    /**
+     * Number of pending requests bound for each destination chunk.
+     */
+    private Map<String, Integer> pendingChunks = new HashMap<String, Integer>();
+
+    /**
+     * Number of teleports run during the current tick.
+     */
+    private int usedThisTick;
+
+    /**
+     * Main-thread time, in nanoseconds, spent teleporting during the current tick.
+     */
+    private long nanosThisTick;
+
+    /**
+     * Bukkit scheduler ID of the repeating drain task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Number of teleports that had to wait for a later tick.
+     */
+    private final OWCounter queuedCount;
+
+    /**
+     * Number of teleports that moved their player.
+     */
+    private final OWCounter succeededCount;
+
+    /**
+     * Number of queued teleports replaced by a later one for the same player.
+     */
+    private final OWCounter supersededCount;
+
+    /**
+     * Number of teleports that failed or were abandoned.
+     */
+    private final OWCounter failedCount;
+
+    /**
+     * Main-thread time taken by each teleport, including any chunk load, in nanoseconds.
+     */
+    private final OWHistogram latency;
+
+    /**
+     * Create a new teleport queue for the given OpenWarp instance.
+     *
+     * @param ow            The OpenWarp instance used for scheduling and player lookup.
+     * @param perTick       Maximum number of teleports run in a single tick.
+     * @param millisPerTick Maximum milliseconds spent teleporting in a single tick.
+     */
+    public OWTeleportQueue(OpenWarp ow, int perTick, long millisPerTick) {
+        this.plugin = ow;
+        this.maxPerTick = Math.max(perTick, 1);
+        this.maxNanosPerTick = Math.max(millisPerTick, 1) * 1000000L; // SUPPRESS CHECKSTYLE MagicNumberCheck
+
+        OWMetrics metrics = ow.getMetrics();
+        this.queuedCount = metrics.counter("teleport.queued");
+        this.succeededCount = metrics.counter("teleport.succeeded");
+        this.supersededCount = metrics.counter("teleport.superseded");
+        this.failedCount = metrics.counter("teleport.failed");
+        this.latency = metrics.histogram("teleport.latency-ns");
+    }
+
+    /**
+     * Start draining this queue once per tick.
+     */
+    public void start() {
+        if (this.taskId == -1) {
+            this.taskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(this.plugin, this, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stop draining this queue. Pending teleports are abandoned and their
+     * callbacks told so.
+     */
+    public void stop() {
+        if (this.taskId != -1) {
+            this.plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+        while (!this.pending.isEmpty()) {
+            Request request = this.pending.removeFirst();
+            this.finish(request, Outcome.FAILED);
+        }
+        this.pendingChunks.clear();
+    }
+
+    /**
+     * Teleport the given player to the given destination, either immediately if
+     * this tick's budget allows or in a later tick. A player already waiting in
+     * the queue keeps their place but is redirected to the new destination; the
+     * superseded request's callback is told so with Outcome#SUPERSEDED.
+     *
+     * @param player      The Player to move.
+     * @param destination The Location to move the player to.
+     * @param callback    Receiver for the outcome of the teleport; may be null.
+     * @return 0 if the teleport ran immediately, or the player's 1-based position
+     *         in the queue otherwise.
+     */
+    public int submit(Player player, Location destination, Callback callback) {
+        String playerName = player.getName();
+
+        // Redirect an existing request rather than queueing the player twice
+        int position = 1;
+        for (Request request : this.pending) {
+            if (request.playerName.equals(playerName)) {
+                this.releaseChunk(request.destination);
+                this.finish(request, Outcome.SUPERSEDED);
+                request.destination = destination;
+                request.callback = callback;
+                this.reserveChunk(destination);
+                return position;
+            }
+            position++;
+        }
+
+        Request request = new Request(playerName, destination, callback);
+        if (this.pending.isEmpty() && this.hasBudget()) {
+            this.execute(request, player, new HashSet<String>());
+            return 0;
+        }
+
+        this.queuedCount.increment();
+        this.pending.addLast(request);
+        this.reserveChunk(destination);
+        position = this.pending.size();
+        player.sendMessage(ChatColor.GOLD + "Teleport queued; you are #" + position + " in line.");
+        return position;
+    }
+
+    /**
+     * Get the position of the given player in this queue.
+     *
+     * @param playerName The name of the player to look for.
+     * @return The player's 1-based position, or 0 if they are not waiting.
+     */
+    public int getPosition(String playerName) {
+        int position = 1;
+        for (Request request : this.pending) {
+            if (request.playerName.equals(playerName)) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of teleports waiting for a later tick.
+     *
+     * @return The number of queued teleports.
+     */
+    public int size() {
+        return this.pending.size();
+    }
+
+    /**
+     * Drain as many queued teleports as this tick's budget allows. Called by the
+     * Bukkit scheduler once per tick.
+     */
+    @Override
+    public void run() {
+        this.usedThisTick = 0;
+        this.nanosThisTick = 0;
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        Set<String> preparedChunks = new HashSet<String>();
+        while (!this.pending.isEmpty() && this.hasBudget()) {
+            Request request = this.pending.removeFirst();
+            this.releaseChunk(request.destination);
+
+            Player player = this.plugin.getServer().getPlayerExact(request.playerName);
+            if (player == null) {
+                this.finish(request, Outcome.FAILED);
+            } else {
+                this.execute(request, player, preparedChunks);
+            }
+        }
+
+        if (!this.pending.isEmpty()) {
+            OWDebug.finer("Teleport queue carried {} requests to the next tick", this.pending.size());
+        }
+    }
+
+    /**
+     * Check whether the current tick has budget left for another teleport.
+     *
+     * @return True if another teleport may run this tick.
+     */
+    private boolean hasBudget() {
+        return this.usedThisTick < this.maxPerTick && this.nanosThisTick < this.maxNanosPerTick;
+    }
+
+    /**
+     * Run a single teleport, charging its cost against the current tick's budget.
+     *
+     * @param request        The request to run.
+     * @param player         The online Player named by the request.
+     * @param preparedChunks Keys of chunks already loaded this tick; updated in place.
+     */
+    private void execute(Request request, Player player, Set<String> preparedChunks) {
+        long start = System.nanoTime();
+
+        Location destination = request.destination;
+        World world = destination.getWorld();
+        boolean success = false;
+        if (world != null) {
+            String key = chunkKey(destination);
+            if (preparedChunks.add(key)) {
+                int cx = destination.getBlockX() >> 4; // SUPPRESS CHECKSTYLE MagicNumberCheck
+                int cz = destination.getBlockZ() >> 4; // SUPPRESS CHECKSTYLE MagicNumberCheck
+                if (!world.isChunkLoaded(cx, cz)) {
+                    world.loadChunk(cx, cz);
+                }
+            }
+            success = player.teleport(destination);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        this.usedThisTick++;
+        this.nanosThisTick += elapsed;
+        this.latency.record(elapsed);
+        this.finish(request, (success ? Outcome.MOVED : Outcome.FAILED)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Report the outcome of a request to its callback, if any.
+     *
+     * @param request The finished request.
+     * @param outcome What became of the teleport.
+     */
+    private void finish(Request request, Outcome outcome) {
+        if (outcome == Outcome.MOVED) {
+            this.succeededCount.increment();
+        } else if (outcome == Outcome.SUPERSEDED) {
+            this.supersededCount.increment();
+        } else {
+            this.failedCount.increment();
+        }
+        if (request.callback != null) {
+            request.callback.teleportFinished(request.playerName, request.destination, outcome);
+        }
+    }
+
+    /**
+     * Note a pending request bound for the chunk containing the given Location.
+     * The chunk is not loaded here; #execute(Request, Player, Set) loads it within
+     * the budget of the tick the request runs in.
+     *
+     * @param destination The destination of the pending request.
+     */
+    private void reserveChunk(Location destination) {
+        if (destination.getWorld() == null) {
+            return;
+        }
+
+        String key = chunkKey(destination);
+        Integer count = this.pendingChunks.get(key);
+        if (count == null) {
+            this.pendingChunks.put(key, 1);
+        } else {
+            this.pendingChunks.put(key, count + 1);
+        }
+    }
+
+    /**
+     * Drop a pending request's claim on the chunk containing the given Location.
+     *
+     * @param destination The destination of the no-longer-pending request.
+     */
+    private void releaseChunk(Location destination) {
+        if (destination.getWorld() == null) {
+            return;
+        }
+
+        String key = chunkKey(destination);
+        Integer count = this.pendingChunks.get(key);
+        if (count == null || count <= 1) {
+            this.pendingChunks.remove(key);
+        } else {
+            this.pendingChunks.put(key, count - 1);
+        }
+    }
+
+    /**
+     * Build a key identifying the chunk containing the given Location.
+     *
+     * @param loc The Location to identify; must have a world.
+     * @return A String unique to the Location's world and chunk.
+     */
+    private static String chunkKey(Location loc) {
+        return loc.getWorld().getName() + ":" + (loc.getBlockX() >> 4) + "," + (loc.getBlockZ() >> 4); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * A single teleport waiting in the queue.
+     */
+    private static final class Request {
+        /**
+         * The name of the player to move.
+         */
+        private final String playerName;
+
+        /**
+         * The Location to move the player to.
+         */
+        private Location destination;
+
+        /**
+         * Receiver for the outcome of the teleport; may be null.
+         */
+        private Callback callback;
+
+        /**
+         * Create a new queued teleport.
+         *
+         * @param name The name of the player to move.
+         * @param dest The Location to move the player to.
+         * @param cb   Receiver for the outcome of the teleport; may be null.
+         */
+        private Request(String name, Location dest, Callback cb) {
+            this.playerName = name;
+            this.destination = dest;
+            this.callback = cb;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.Arrays;
+
+/**
+ * Running counts of the warps in the registry, by scope, owner and world. The
+ * registry's OWWarpMaps adjust the counts as warps are added and removed, so
+ * reading a count takes constant time however many warps and players there
+ * are; nothing is ever recounted.
+ * <p/>
+ * Counts are indexed by the ids of the plugin's player and world dictionaries.
+ * Like the warp maps themselves, this class is only used on the main thread.
+ */
+public class OWWarpCounter {
+
+    /**
+     * Table shared by both scopes until the first warp is counted.
+     */
+    private static final int[][] NO_OWNERS = new int[0][];
+
+    /**
+     * Number of count slots in a new row: one total plus a few worlds.
+     */
+    private static final int INITIAL_ROW_LENGTH = 4;
+
+    /**
+     * Public warp counts, indexed by owner id. Each row holds the owner's total in
+     * slot 0 and the count for the world with id N in slot N + 1; rows are null for
+     * owners with no public warps yet.
+     */
+    private int[][] publicCounts = NO_OWNERS;
+
+    /**
+     * Private warp counts, laid out as #publicCounts.
+     */
+    private int[][] privateCounts = NO_OWNERS;
+
+    /**
+     * Get the number of warps of a scope owned by a player.
+     *
+     * @param scope   The scope of the warps to count.
+     * @param ownerId The id of the owner in the plugin's player dictionary.
+     * @return The number of warps.
+     */
+    public int getCount(Warp.Scope scope, int ownerId) {
+        return this.getSlot(scope, ownerId, 0);
+    }
+
+    /**
+     * Get the number of warps of a scope owned by a player in one world.
+     *
+     * @param scope   The scope of the warps to count.
+     * @param ownerId The id of the owner in the plugin's player dictionary.
+     * @param worldId The id of the world in the plugin's world dictionary.
+     * @return The number of warps.
+     */
+    public int getCount(Warp.Scope scope, int ownerId, int worldId) {
+        if (worldId < 0) {
+            return 0;
+        }
+        return this.getSlot(scope, ownerId, worldId + 1);
+    }
+
+    /**
+     * Read one count slot.
+     *
+     * @param scope   The scope of the warps to count.
+     * @param ownerId The id of the owner.
+     * @param slot    The slot within the owner's row.
+     * @return The count, or 0 if none was ever recorded.
+     */
+    private int getSlot(Warp.Scope scope, int ownerId, int slot) {
+        int[][] table = this.tableFor(scope);
+        if (table == null || ownerId < 0 || ownerId >= table.length) {
+            return 0;
+        }
+        int[] row = table[ownerId];
+        if (row == null || slot >= row.length) {
+            return 0;
+        }
+        return row[slot];
+    }
+
+    /**
+     * Count a warp added to or removed from the registry. Called by OWWarpMap.
+     *
+     * @param scope The scope the warp was added to or removed from.
+     * @param warp  The Warp.
+     * @param delta 1 if the warp was added; -1 if it was removed.
+     */
+    void adjust(Warp.Scope scope, Warp warp, int delta) {
+        int[][] table = this.tableFor(scope);
+        if (table == null) {
+            return;
+        }
+
+        int ownerId = warp.getOwnerId();
+        if (ownerId >= table.length) {
+            table = Arrays.copyOf(table, Math.max(ownerId + 1, table.length * 2));
+            if (scope == Warp.Scope.PUBLIC) {
+                this.publicCounts = table;
+            } else {
+                this.privateCounts = table;
+            }
+        }
+
+        int slot = warp.getWorldId() + 1;
+        int[] row = table[ownerId];
+        if (row == null) {
+            row = new int[Math.max(slot + 1, INITIAL_ROW_LENGTH)];
+            table[ownerId] = row;
+        } else if (slot >= row.length) {
+            row = Arrays.copyOf(row, Math.max(slot + 1, row.length * 2));
+            table[ownerId] = row;
+        }
+
+        row[0] += delta;
+        if (slot > 0) {
+            row[slot] += delta;
+        }
+    }
+
+    /**
+     * Get the table of counts for a scope.
+     *
+     * @param scope The scope.
+     * @return The table, or null if warps of the scope are not counted.
+     */
+    private int[][] tableFor(Warp.Scope scope) {
+        if (scope == Warp.Scope.PUBLIC) {
+            return this.publicCounts;
+        } else if (scope == Warp.Scope.PRIVATE) {
+            return this.privateCounts;
+        }
+        return null;
+    }
+}
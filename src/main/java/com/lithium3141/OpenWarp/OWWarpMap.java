@@ -0,0 +1,242 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map of warp names to Warps for a single scope: the public warps, or one
+ * player's private warps. The map keeps each Warp's scope up to date as it is
+ * added, replaced and removed, so Warp#isPublic() and Warp#isPrivate() take
+ * constant time.
+ * <p/>
+ * A Warp belongs to at most one map. Putting a Warp into a map removes it from
+ * the map it was in before, so moving a warp between scopes is a single put.
+ * Warps must be keyed by their own name, and replaced only through #put
+ * rather than Entry#setValue. Like HashMap, this map is not synchronized.
+ * <p/>
+ * Maps in the warp registry report every change to the registry's
+ * OWWarpSnapshotPublisher, and keep an immutable copy of themselves for the
+ * publisher to reuse until they next change. They also keep the registry's
+ * OWWarpCounter up to date as warps come and go.
+ */
+public class OWWarpMap extends AbstractMap<String, Warp> {
+
+    /**
+     * The scope of every Warp in this map.
+     */
+    private final Warp.Scope scope;
+
+    /**
+     * The Warps in this map, mapped to by name.
+     */
+    private final Map<String, Warp> warps = new HashMap<String, Warp>();
+
+    /**
+     * The publisher told about changes to this map, or null.
+     */
+    private final OWWarpSnapshotPublisher publisher;
+
+    /**
+     * The counter told about every Warp added and removed, or null.
+     */
+    private final OWWarpCounter counter;
+
+    /**
+     * Number of changes made to this map since it was created.
+     */
+    private long changeCount;
+
+    /**
+     * Unmodifiable copy of this map as of its last change, or null if not yet made.
+     */
+    private Map<String, Warp> snapshot;
+
+    /**
+     * Create a new empty warp map for the given scope, outside the warp registry.
+     *
+     * @param warpScope The scope of every Warp in this map.
+     */
+    public OWWarpMap(Warp.Scope warpScope) {
+        this(warpScope, null);
+    }
+
+    /**
+     * Create a new empty warp map for the given scope, reporting changes to the
+     * given publisher.
+     *
+     * @param warpScope The scope of every Warp in this map.
+     * @param snapshots The publisher to tell about changes, or null.
+     */
+    public OWWarpMap(Warp.Scope warpScope, OWWarpSnapshotPublisher snapshots) {
+        this(warpScope, snapshots, null);
+    }
+
+    /**
+     * Create a new empty warp map for the given scope, reporting changes to the
+     * given publisher and counting warps with the given counter.
+     *
+     * @param warpScope The scope of every Warp in this map.
+     * @param snapshots The publisher to tell about changes, or null.
+     * @param counts    The counter to tell about added and removed Warps, or null.
+     */
+    public OWWarpMap(Warp.Scope warpScope, OWWarpSnapshotPublisher snapshots, OWWarpCounter counts) {
+        this.scope = warpScope;
+        this.publisher = snapshots;
+        this.counter = counts;
+        this.changed();
+    }
+
+    /**
+     * Get the scope of the Warps in this map.
+     *
+     * @return The scope of this map.
+     */
+    public Warp.Scope getScope() {
+        return this.scope;
+    }
+
+    /**
+     * Get an unmodifiable copy of this map. The copy is made once per change to
+     * this map and shared until the next change.
+     *
+     * @return An unmodifiable map holding the warps in this map.
+     */
+    public Map<String, Warp> snapshot() {
+        if (this.snapshot == null) {
+            this.snapshot = Collections.unmodifiableMap(new HashMap<String, Warp>(this.warps));
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Get the number of changes made to this map since it was created. Callers
+     * remember the count to tell later whether the map changed in the meantime.
+     *
+     * @return The change count of this map.
+     */
+    public long getChangeCount() {
+        return this.changeCount;
+    }
+
+    /**
+     * Forget the copy of this map and tell the publisher, if any, about a change.
+     */
+    private void changed() {
+        this.changeCount++;
+        this.snapshot = null;
+        if (this.publisher != null) {
+            this.publisher.markDirty();
+        }
+    }
+
+    /**
+     * Tell the counter, if any, that a Warp was added to or removed from this map.
+     *
+     * @param warp  The Warp.
+     * @param delta 1 if the warp was added; -1 if it was removed.
+     */
+    private void counted(Warp warp, int delta) {
+        if (this.counter != null) {
+            this.counter.adjust(this.scope, warp, delta);
+        }
+    }
+
+    @Override
+    public Warp get(Object key) {
+        return this.warps.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.warps.containsKey(key);
+    }
+
+    @Override
+    public Warp put(String key, Warp warp) {
+        if (warp.getContainer() != null && warp.getContainer() != this) {
+            warp.getContainer().remove(warp.getName());
+        }
+        Warp previous = this.warps.put(key, warp);
+        if (previous != warp) {
+            if (previous != null) {
+                previous.setContainer(null);
+                this.counted(previous, -1);
+            }
+            this.counted(warp, 1);
+        }
+        warp.setContainer(this);
+        this.changed();
+        return previous;
+    }
+
+    @Override
+    public Warp remove(Object key) {
+        Warp previous = this.warps.remove(key);
+        if (previous != null) {
+            previous.setContainer(null);
+            this.counted(previous, -1);
+            this.changed();
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return this.warps.size();
+    }
+
+    @Override
+    public void clear() {
+        for (Warp warp : this.warps.values()) {
+            warp.setContainer(null);
+            this.counted(warp, -1);
+        }
+        this.warps.clear();
+        this.changed();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Warp>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Warp>>() {
+            @Override
+            public Iterator<Map.Entry<String, Warp>> iterator() {
+                final Iterator<Map.Entry<String, Warp>> entries = OWWarpMap.this.warps.entrySet().iterator();
+                return new Iterator<Map.Entry<String, Warp>>() {
+                    /**
+                     * The entry last returned by #next().
+                     */
+                    private Map.Entry<String, Warp> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Warp> next() {
+                        this.last = entries.next();
+                        return this.last;
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                        this.last.getValue().setContainer(null);
+                        OWWarpMap.this.counted(this.last.getValue(), -1);
+                        OWWarpMap.this.changed();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return OWWarpMap.this.warps.size();
+            }
+        };
+    }
+}
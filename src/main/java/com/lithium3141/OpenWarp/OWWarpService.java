@@ -0,0 +1,344 @@
+package com.lithium3141.OpenWarp;
+
+import com.lithium3141.OpenWarp.api.OpenWarpService;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpCreateEvent;
+import com.lithium3141.OpenWarp.events.WarpDeleteEvent;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * OpenWarp's implementation of the OpenWarpService API. Lookups read the
+ * latest OWWarpSnapshot on the calling thread. Changes go through the same
+ * warp maps, access permissions and configuration saves as the warp commands,
+ * and are run on the main thread through the Bukkit scheduler. A new snapshot
+ * is published as soon as a change is made, before its Future completes, so
+ * callers always see their own changes.
+ */
+public class OWWarpService implements OpenWarpService {
+
+    /**
+     * Orders warps by name, ignoring case.
+     */
+    private static final Comparator<Warp> BY_NAME = new Comparator<Warp>() {
+        @Override
+        public int compare(Warp a, Warp b) {
+            return a.getName().compareToIgnoreCase(b.getName());
+        }
+    };
+
+    /**
+     * The OpenWarp instance backing this service.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The server's main thread, on which changes are made directly.
+     */
+    private Thread mainThread;
+
+    /**
+     * Create a new service for the given OpenWarp instance. Must be called on the
+     * main thread.
+     *
+     * @param ow The OpenWarp instance backing this service.
+     */
+    public OWWarpService(OpenWarp ow) {
+        this.plugin = ow;
+        this.mainThread = Thread.currentThread();
+    }
+
+    @Override
+    public int getApiVersion() {
+        return API_VERSION;
+    }
+
+    @Override
+    public Future<Warp> findWarp(String owner, String warpName) {
+        Map<String, Warp> warps = this.snapshotWarps(owner);
+        Warp warp = warps.get(warpName);
+        if (warp == null) {
+            for (Entry<String, Warp> entry : warps.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(warpName)) {
+                    warp = entry.getValue();
+                    break;
+                }
+            }
+        }
+        return completed(warp);
+    }
+
+    @Override
+    public Future<List<Warp>> searchWarps(String owner, String prefix, int limit) {
+        List<Warp> result = new ArrayList<Warp>();
+        for (Warp warp : this.snapshotWarps(owner).values()) {
+            if (warp.getName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                result.add(warp);
+            }
+        }
+        Collections.sort(result, BY_NAME);
+        return completed(truncate(result, limit));
+    }
+
+    @Override
+    public Future<List<Warp>> findNearbyWarps(String owner, final Location location, double radius, int limit) {
+        List<Warp> result = new ArrayList<Warp>();
+        if (location.getWorld() != null) {
+            String worldName = location.getWorld().getName();
+            double radiusSquared = radius * radius;
+            for (Warp warp : this.snapshotWarps(owner).values()) {
+                if (worldName.equals(warp.getWorldName()) && distanceSquared(warp, location) <= radiusSquared) {
+                    result.add(warp);
+                }
+            }
+        }
+        Collections.sort(result, new Comparator<Warp>() {
+            @Override
+            public int compare(Warp a, Warp b) {
+                return Double.compare(distanceSquared(a, location), distanceSquared(b, location));
+            }
+        });
+        return completed(truncate(result, limit));
+    }
+
+    @Override
+    public Future<Warp> createWarp(final String owner, final String warpName, final Location location, final String creator) {
+        return this.onMainThread(new Callable<Warp>() {
+            @Override
+            public Warp call() throws Exception {
+                List<Warp> created = createNow(owner, Collections.singletonMap(warpName, location), creator, true);
+                return (created.isEmpty() ? null : created.get(0)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+            }
+        });
+    }
+
+    @Override
+    public Future<List<Warp>> createWarps(final String owner, final Map<String, Location> locations, final String creator) {
+        return this.onMainThread(new Callable<List<Warp>>() {
+            @Override
+            public List<Warp> call() throws Exception {
+                return createNow(owner, locations, creator, false);
+            }
+        });
+    }
+
+    @Override
+    public Future<Boolean> deleteWarp(final String owner, final String warpName) {
+        return this.onMainThread(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return deleteNow(owner, Collections.singleton(warpName), true) > 0;
+            }
+        });
+    }
+
+    @Override
+    public Future<Integer> deleteWarps(final String owner, final Collection<String> warpNames) {
+        return this.onMainThread(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return deleteNow(owner, warpNames, false);
+            }
+        });
+    }
+
+    /**
+     * Create warps in one scope, publish them, register their permissions and save
+     * them, then fire a single WarpsChangedEvent for all of them. Warp quotas are not
+     * checked; API callers are exempt. Must be called on the main thread.
+     *
+     * @param owner     The owner of the new private warps, or null for public warps.
+     * @param locations The destinations of the warps, mapped to by warp name.
+     * @param creator   The name of the player recorded as the owner of public warps.
+     * @param single    Whether to fire a cancellable WarpCreateEvent for each warp first.
+     * @return The new Warps.
+     */
+    private List<Warp> createNow(String owner, Map<String, Location> locations, String creator, boolean single) throws Exception {
+        Map<String, Warp> target = this.liveWarps(owner, true);
+        List<Warp> created = new ArrayList<Warp>(locations.size());
+        List<WarpChange> changes = new ArrayList<WarpChange>(locations.size());
+        for (Entry<String, Location> entry : locations.entrySet()) {
+            Warp warp = new Warp(this.plugin, entry.getKey(), entry.getValue(), (owner == null ? creator : owner)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+            Warp previous = target.get(warp.getName());
+            if (single) {
+                WarpCreateEvent event = new WarpCreateEvent(warp, previous, owner == null, creator);
+                this.plugin.getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    continue;
+                }
+            }
+            target.put(warp.getName(), warp);
+            created.add(warp);
+            changes.add(new WarpChange(previous == null ? WarpChange.Type.CREATED : WarpChange.Type.MOVED, warp, owner == null)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+        if (!created.isEmpty()) {
+            this.plugin.getSnapshotPublisher().publish();
+            this.save(owner);
+            this.plugin.registerAccessPermissions(created, owner == null);
+            this.plugin.fireWarpChanges(changes);
+        }
+        return created;
+    }
+
+    /**
+     * Delete warps from one scope, publish the change, remove their permissions and
+     * save the change, then fire a single WarpsChangedEvent for all of them. Must be
+     * called on the main thread.
+     *
+     * @param owner     The owner of the private warps, or null for public warps.
+     * @param warpNames The exact names of the warps.
+     * @param single    Whether to fire a cancellable WarpDeleteEvent for each warp first.
+     * @return The number of warps deleted.
+     */
+    private int deleteNow(String owner, Collection<String> warpNames, boolean single) throws Exception {
+        Map<String, Warp> target = this.liveWarps(owner, false);
+        if (target == null) {
+            return 0;
+        }
+        List<Warp> deleted = new ArrayList<Warp>();
+        List<WarpChange> changes = new ArrayList<WarpChange>();
+        for (String warpName : warpNames) {
+            Warp warp = target.get(warpName);
+            if (warp == null) {
+                continue;
+            }
+            if (single) {
+                WarpDeleteEvent event = new WarpDeleteEvent(warp, null);
+                this.plugin.getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) {
+                    continue;
+                }
+            }
+            target.remove(warpName);
+            this.plugin.getHotWarpTracker().forget(warp, owner == null);
+            deleted.add(warp);
+            changes.add(new WarpChange(WarpChange.Type.DELETED, warp, owner == null));
+        }
+        if (!deleted.isEmpty()) {
+            this.plugin.getSnapshotPublisher().publish();
+            this.save(owner);
+            this.plugin.unregisterAccessPermissions(deleted, owner == null);
+            this.plugin.fireWarpChanges(changes);
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Get the live warp map for a scope. Must be called on the main thread.
+     *
+     * @param owner  The owner of the private warps, or null for public warps.
+     * @param create Whether to load or create the owner's configuration if needed.
+     * @return The warp map, or null if the owner has none and create is false.
+     */
+    private Map<String, Warp> liveWarps(String owner, boolean create) throws Exception {
+        if (owner == null) {
+            return this.plugin.getPublicWarps();
+        }
+        if (create) {
+            this.plugin.getConfigurationManager().registerPlayerName(owner);
+            return this.plugin.createPrivateWarps(owner);
+        }
+        return this.plugin.getPrivateWarps(owner);
+    }
+
+    /**
+     * Save the configuration holding a scope's warps.
+     *
+     * @param owner The owner of the private warps, or null for public warps.
+     */
+    private void save(String owner) {
+        if (owner == null) {
+            this.plugin.getConfigurationManager().saveGlobalConfiguration();
+        } else {
+            this.plugin.getConfigurationManager().savePlayerConfiguration(owner);
+        }
+    }
+
+    /**
+     * Get the warp map for a scope from the latest snapshot.
+     *
+     * @param owner The owner of the private warps, or null for public warps.
+     * @return An unmodifiable warp map; empty if the owner has no warps.
+     */
+    private Map<String, Warp> snapshotWarps(String owner) {
+        OWWarpSnapshot snapshot = this.plugin.getWarpSnapshot();
+        if (owner == null) {
+            return snapshot.getPublicWarps();
+        }
+        Map<String, Warp> warps = snapshot.getPrivateWarps(owner);
+        return (warps == null ? Collections.<String, Warp>emptyMap() : warps); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Run a task on the main thread: directly if already on it, otherwise through
+     * the Bukkit scheduler.
+     *
+     * @param <T>  The type of the task's result.
+     * @param task The task to run.
+     * @return A Future yielding the task's result.
+     */
+    private <T> Future<T> onMainThread(Callable<T> task) {
+        if (Thread.currentThread() == this.mainThread) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        return this.plugin.getServer().getScheduler().callSyncMethod(this.plugin, task);
+    }
+
+    /**
+     * Get an already-completed Future yielding the given value.
+     *
+     * @param <T>   The type of the value.
+     * @param value The value.
+     * @return A completed Future.
+     */
+    private static <T> Future<T> completed(T value) {
+        FutureTask<T> future = new FutureTask<T>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, value);
+        future.run();
+        return future;
+    }
+
+    /**
+     * Cut a list down to at most the given number of elements.
+     *
+     * @param <T>   The type of the elements.
+     * @param list  The list.
+     * @param limit The maximum number of elements.
+     * @return The list, or a prefix of it.
+     */
+    private static <T> List<T> truncate(List<T> list, int limit) {
+        if (list.size() <= limit) {
+            return list;
+        }
+        return new ArrayList<T>(list.subList(0, Math.max(limit, 0)));
+    }
+
+    /**
+     * Get the squared distance between a warp and a Location, ignoring worlds.
+     *
+     * @param warp     The warp.
+     * @param location The Location.
+     * @return The squared distance.
+     */
+    private static double distanceSquared(Warp warp, Location location) {
+        double dx = warp.getX() - location.getX();
+        double dy = warp.getY() - location.getY();
+        double dz = warp.getZ() - location.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
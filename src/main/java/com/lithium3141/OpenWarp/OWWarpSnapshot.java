@@ -0,0 +1,119 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable view of every warp OpenWarp knows about, as of one version of the
+ * warp registry. Snapshots are published by OWWarpSnapshotPublisher and may be
+ * read from any thread without locking; a reader holding a snapshot sees a
+ * consistent set of warps however the registry changes afterwards.
+ * <p/>
+ * Snapshots share unchanged scopes: a player whose private warps did not
+ * change between two versions has the same map in both.
+ */
+public final class OWWarpSnapshot {
+
+    /**
+     * Private warp maps for players with none, shared by every snapshot.
+     */
+    private static final Object[] NO_PLAYERS = new Object[0];
+
+    /**
+     * The registry version of this snapshot.
+     */
+    private final long version;
+
+    /**
+     * The dictionary of player ids indexing #privateWarps. Safe to read from any thread.
+     */
+    private final OWPlayerDictionary players;
+
+    /**
+     * Unmodifiable public warps, mapped to by warp name.
+     */
+    private final Map<String, Warp> publicWarps;
+
+    /**
+     * Unmodifiable private warp maps, indexed by player id; null where a player has none.
+     */
+    private final Object[] privateWarps;
+
+    /**
+     * Create a snapshot holding the given warp maps, which must not be modified afterwards.
+     *
+     * @param registryVersion The registry version of this snapshot.
+     * @param dictionary      The dictionary of player ids indexing the private warp maps.
+     * @param publics         Unmodifiable public warps, mapped to by warp name.
+     * @param privates        Unmodifiable private warp maps, indexed by player id.
+     */
+    OWWarpSnapshot(long registryVersion, OWPlayerDictionary dictionary, Map<String, Warp> publics, Object[] privates) {
+        this.version = registryVersion;
+        this.players = dictionary;
+        this.publicWarps = publics;
+        this.privateWarps = privates;
+    }
+
+    /**
+     * Create the empty snapshot published before any warps are loaded.
+     *
+     * @param dictionary The dictionary of player ids.
+     * @return A snapshot of version 0 holding no warps.
+     */
+    static OWWarpSnapshot empty(OWPlayerDictionary dictionary) {
+        return new OWWarpSnapshot(0, dictionary, Collections.<String, Warp>emptyMap(), NO_PLAYERS);
+    }
+
+    /**
+     * Get the registry version of this snapshot. Versions increase by one with each
+     * published change, so two snapshots with the same version hold the same warps.
+     *
+     * @return The registry version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Get the public warps in this snapshot.
+     *
+     * @return An unmodifiable map of warp names to Warps.
+     */
+    public Map<String, Warp> getPublicWarps() {
+        return this.publicWarps;
+    }
+
+    /**
+     * Get the private warps of the given player in this snapshot.
+     *
+     * @param playerName The name of the player.
+     * @return An unmodifiable map of warp names to Warps, or null if the player has none.
+     */
+    public Map<String, Warp> getPrivateWarps(String playerName) {
+        return this.getPrivateWarps(this.players.find(playerName));
+    }
+
+    /**
+     * Get the private warps of the player with the given id in this snapshot.
+     *
+     * @param playerId The id of the player in the plugin's player dictionary.
+     * @return An unmodifiable map of warp names to Warps, or null if the player has none.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Warp> getPrivateWarps(int playerId) {
+        if (playerId < 0 || playerId >= this.privateWarps.length) {
+            return null;
+        }
+        return (Map<String, Warp>) this.privateWarps[playerId];
+    }
+
+    /**
+     * Get the number of player id slots in this snapshot. Every player with private
+     * warps has an id below this bound.
+     *
+     * @return One more than the highest player id with private warps, or 0.
+     */
+    public int getPlayerSlots() {
+        return this.privateWarps.length;
+    }
+}
@@ -0,0 +1,146 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publisher of immutable OWWarpSnapshot views of the warp registry, for
+ * readers off the main thread such as async chat handlers, web maps and
+ * worker threads.
+ * <p/>
+ * The registry itself is only changed on the main thread. Each OWWarpMap
+ * marks this publisher dirty when it changes; once per tick, if anything
+ * changed, a new snapshot is built and published with a single volatile
+ * write, so all the changes made during a tick appear together. Only the
+ * scopes that changed are copied; the rest are shared with the previous
+ * snapshot. Readers take no locks.
+ */
+public class OWWarpSnapshotPublisher implements Runnable {
+
+    /**
+     * The OpenWarp instance whose registry is published.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The most recently published snapshot.
+     */
+    private volatile OWWarpSnapshot current;
+
+    /**
+     * Whether the registry changed since the last snapshot. Main thread only.
+     */
+    private boolean dirty;
+
+    /**
+     * Number of changes made to the registry since the plugin was loaded.
+     */
+    private volatile long changeCount;
+
+    /**
+     * Bukkit scheduler ID of the per-tick publishing task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Create a new publisher for the given OpenWarp instance. Until the first
+     * publish, the current snapshot is empty.
+     *
+     * @param ow The OpenWarp instance whose registry to publish.
+     */
+    public OWWarpSnapshotPublisher(OpenWarp ow) {
+        this.plugin = ow;
+        this.current = OWWarpSnapshot.empty(ow.getPlayerDictionary());
+    }
+
+    /**
+     * Start publishing changes once per tick, publishing the current registry first.
+     */
+    public void start() {
+        this.publish();
+        if (this.taskId == -1) {
+            this.taskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(this.plugin, this, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stop publishing changes. The last snapshot stays available.
+     */
+    public void stop() {
+        if (this.taskId != -1) {
+            this.plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+    }
+
+    /**
+     * Get the most recently published snapshot. Safe to call from any thread.
+     *
+     * @return The current OWWarpSnapshot; never null.
+     */
+    public OWWarpSnapshot getSnapshot() {
+        return this.current;
+    }
+
+    /**
+     * Get the number of changes made to the registry so far. Unlike snapshot
+     * versions, this counts every change as soon as it is made, so main-thread
+     * code can use it to tell whether anything it derived from the live warp
+     * maps may be stale.
+     *
+     * @return The registry change count.
+     */
+    public long getChangeCount() {
+        return this.changeCount;
+    }
+
+    /**
+     * Note that the registry changed. Called by OWWarpMap on the main thread.
+     */
+    void markDirty() {
+        this.dirty = true;
+        this.changeCount++;
+    }
+
+    @Override
+    public void run() {
+        if (this.dirty) {
+            this.publish();
+        }
+    }
+
+    /**
+     * Build and publish a snapshot of the registry as it stands. Must be called on
+     * the main thread.
+     */
+    public void publish() {
+        this.dirty = false;
+        OWWarpSnapshot previous = this.current;
+
+        Object[] privates = new Object[this.plugin.getPlayerDictionary().size()];
+        for (int id = 0; id < privates.length; id++) {
+            Map<String, Warp> warps = this.plugin.getPrivateWarps(id);
+            if (warps != null) {
+                privates[id] = freeze(warps);
+            }
+        }
+
+        this.current = new OWWarpSnapshot(previous.getVersion() + 1, this.plugin.getPlayerDictionary(),
+                freeze(this.plugin.getPublicWarps()), privates);
+    }
+
+    /**
+     * Get an unmodifiable copy of the given warp map, reusing the map's cached copy
+     * if it has not changed.
+     *
+     * @param warps The warp map to copy.
+     * @return An unmodifiable map holding the same warps.
+     */
+    private static Map<String, Warp> freeze(Map<String, Warp> warps) {
+        if (warps instanceof OWWarpMap) {
+            return ((OWWarpMap) warps).snapshot();
+        }
+        return Collections.unmodifiableMap(new HashMap<String, Warp>(warps));
+    }
+}
@@ -0,0 +1,523 @@
+package com.lithium3141.OpenWarp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Watchdog timing OpenWarp work on the main server thread. Commands and
+ * listener callbacks bracket their work with #beginCommand(String, String) or
+ * #begin(String) and #end(long, int). Work that runs longer than the budget is logged with the
+ * size of its arguments, the size of the plugin's data set and a stack trace
+ * sampled from the main thread while the work was still running.
+ * <p/>
+ * The slowest operations of the last few minutes are kept for an on-demand
+ * report, whether or not they went over budget.
+ * <p/>
+ * Only the outermost operation is timed: a listener called from inside a
+ * command counts toward the command.
+ */
+public class OWWatchdog implements Runnable {
+
+    /**
+     * Default main-thread time an operation may take, in milliseconds.
+     */
+    public static final int DEFAULT_BUDGET_MILLIS = 10;
+
+    /**
+     * Number of operations kept in the slowest-operations report.
+     */
+    public static final int REPORT_SIZE = 10;
+
+    /**
+     * Length of each window of the slowest-operations report, in milliseconds.
+     * The report covers between one and two windows.
+     */
+    private static final long WINDOW_MILLIS = 5L * 60L * 1000L; // SUPPRESS CHECKSTYLE MagicNumberCheck
+
+    /**
+     * Minimum time between over-budget warnings in the server log, in milliseconds.
+     */
+    private static final long LOG_INTERVAL_MILLIS = 10000L;
+
+    /**
+     * Number of stack frames logged for an over-budget operation.
+     */
+    private static final int LOGGED_FRAMES = 12;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * Token for an operation that is not timed.
+     */
+    private static final long UNTIMED = 0L;
+
+    /**
+     * Orders operations slowest first.
+     */
+    private static final Comparator<SlowOperation> SLOWEST_FIRST = new Comparator<SlowOperation>() {
+        @Override
+        public int compare(SlowOperation a, SlowOperation b) {
+            if (a.getNanos() == b.getNanos()) {
+                return 0;
+            }
+            return (a.getNanos() > b.getNanos() ? -1 : 1); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        }
+    };
+
+    /**
+     * The OpenWarp instance being watched.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Main-thread time an operation may take, in nanoseconds; 0 or less to disable.
+     */
+    private long budgetNanos;
+
+    /**
+     * The main server thread, or null before #start().
+     */
+    private volatile Thread mainThread;
+
+    /**
+     * Number of operations timed so far. Used on the main thread only.
+     */
+    private long operationCount;
+
+    /**
+     * Token of the running operation, or #UNTIMED. Written by the main thread only.
+     */
+    private volatile long currentToken = UNTIMED;
+
+    /**
+     * Name of the running operation: a command label or event name.
+     */
+    private volatile String currentName;
+
+    /**
+     * First argument of the running command, or null.
+     */
+    private volatile String currentArgument;
+
+    /**
+     * Whether the running operation is a command.
+     */
+    private volatile boolean currentIsCommand;
+
+    /**
+     * Time the running operation began, from System#nanoTime().
+     */
+    private volatile long currentStart;
+
+    /**
+     * Stack of the main thread sampled during the running operation, or null.
+     */
+    private volatile StackTraceElement[] sample;
+
+    /**
+     * Background thread sampling the main thread's stack, or null if not running.
+     */
+    private Thread samplerThread;
+
+    /**
+     * Whether the sampler thread should keep running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Slowest operations of the current window, slowest first.
+     */
+    private List<SlowOperation> currentWindow = new ArrayList<SlowOperation>();
+
+    /**
+     * Slowest operations of the previous window, slowest first.
+     */
+    private List<SlowOperation> previousWindow = new ArrayList<SlowOperation>();
+
+    /**
+     * Time the current window began, in milliseconds since the epoch.
+     */
+    private long windowStartedAt = System.currentTimeMillis();
+
+    /**
+     * Time the last over-budget warning was logged, in milliseconds since the epoch.
+     */
+    private long lastLoggedAt;
+
+    /**
+     * Number of over-budget operations not logged since the last warning.
+     */
+    private int unlogged;
+
+    /**
+     * Create a new watchdog for the given OpenWarp instance.
+     *
+     * @param ow           The OpenWarp instance being watched.
+     * @param budgetMillis Main-thread time an operation may take, in milliseconds; 0 to disable.
+     */
+    public OWWatchdog(OpenWarp ow, int budgetMillis) {
+        this.plugin = ow;
+        this.budgetNanos = budgetMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Start watching. Must be called on the main server thread, which is the
+     * only thread whose work is timed.
+     */
+    public void start() {
+        this.mainThread = Thread.currentThread();
+        if (this.budgetNanos <= 0 || this.samplerThread != null) {
+            return;
+        }
+
+        this.running = true;
+        this.samplerThread = new Thread(this, "OpenWarp watchdog");
+        this.samplerThread.setDaemon(true);
+        this.samplerThread.start();
+    }
+
+    /**
+     * Stop watching.
+     */
+    public void stop() {
+        this.running = false;
+        if (this.samplerThread != null) {
+            this.samplerThread.interrupt();
+            try {
+                this.samplerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.samplerThread = null;
+        }
+    }
+
+    /**
+     * Get the budget of this watchdog.
+     *
+     * @return The time an operation may take, in milliseconds; 0 if disabled.
+     */
+    public long getBudgetMillis() {
+        return Math.max(this.budgetNanos, 0) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Note that an operation is beginning.
+     *
+     * @param operation A short description of the operation, e.g. an event name.
+     * @return A token to pass to #end(long, int).
+     */
+    public long begin(String operation) {
+        return this.begin(operation, null, false);
+    }
+
+    /**
+     * Note that a command is beginning. The command is described as
+     * <code>/label argument</code>, but only if it is logged or reported.
+     *
+     * @param label    The command label, e.g. <code>warp</code>.
+     * @param argument The first argument of the command, or null.
+     * @return A token to pass to #end(long, int).
+     */
+    public long beginCommand(String label, String argument) {
+        return this.begin(label, argument, true);
+    }
+
+    /**
+     * Note that an operation is beginning.
+     *
+     * @param name     The command label or event name.
+     * @param argument The first argument of a command, or null.
+     * @param command  Whether the operation is a command.
+     * @return A token to pass to #end(long, int); #UNTIMED if the operation is not timed.
+     */
+    private long begin(String name, String argument, boolean command) {
+        if (this.budgetNanos <= 0 || Thread.currentThread() != this.mainThread || this.currentToken != UNTIMED) {
+            return UNTIMED;
+        }
+        this.sample = null;
+        this.currentName = name;
+        this.currentArgument = argument;
+        this.currentIsCommand = command;
+        this.currentStart = System.nanoTime();
+        this.currentToken = ++this.operationCount;
+        return this.currentToken;
+    }
+
+    /**
+     * Note that an operation has ended.
+     *
+     * @param token     The token returned by #begin(String) or #beginCommand(String, String).
+     * @param argCount  The number of arguments the operation was given.
+     */
+    public void end(long token, int argCount) {
+        if (token == UNTIMED || token != this.currentToken) {
+            return;
+        }
+        long nanos = System.nanoTime() - this.currentStart;
+        StackTraceElement[] trace = this.sample;
+        SlowOperation op = new SlowOperation(this.currentName, this.currentArgument, this.currentIsCommand, argCount, nanos,
+                System.currentTimeMillis(), hotFrame(trace));
+        this.currentToken = UNTIMED;
+        this.currentName = null;
+        this.currentArgument = null;
+        this.sample = null;
+
+        this.remember(op);
+        if (nanos > this.budgetNanos) {
+            this.plugin.getMetrics().counter("watchdog.over-budget").increment();
+            this.warn(op, trace);
+        }
+    }
+
+    /**
+     * Get the slowest operations of the last few minutes.
+     *
+     * @return Up to REPORT_SIZE operations, slowest first.
+     */
+    public List<SlowOperation> getSlowest() {
+        this.rotate();
+        List<SlowOperation> merged = new ArrayList<SlowOperation>(this.currentWindow);
+        merged.addAll(this.previousWindow);
+        Collections.sort(merged, SLOWEST_FIRST);
+        if (merged.size() > REPORT_SIZE) {
+            merged = merged.subList(0, REPORT_SIZE);
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * Body of the sampler thread. Periodically checks whether the running
+     * operation has gone over budget and, the first time it has, samples the
+     * main thread's stack.
+     */
+    @Override
+    public void run() {
+        long sleepMillis = Math.max(this.budgetNanos / NANOS_PER_MILLI / 2, 1);
+        while (this.running) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long token = this.currentToken;
+            if (token == UNTIMED || this.sample != null || System.nanoTime() - this.currentStart <= this.budgetNanos) {
+                continue;
+            }
+            StackTraceElement[] trace = this.mainThread.getStackTrace();
+            if (this.currentToken == token) {
+                this.sample = trace;
+            }
+        }
+    }
+
+    /**
+     * Add an operation to the current window of the slowest-operations report.
+     *
+     * @param op The finished operation.
+     */
+    private void remember(SlowOperation op) {
+        this.rotate();
+        List<SlowOperation> window = this.currentWindow;
+        if (window.size() == REPORT_SIZE && window.get(REPORT_SIZE - 1).getNanos() >= op.getNanos()) {
+            return;
+        }
+        int at = window.size();
+        while (at > 0 && window.get(at - 1).getNanos() < op.getNanos()) {
+            at--;
+        }
+        window.add(at, op);
+        if (window.size() > REPORT_SIZE) {
+            window.remove(REPORT_SIZE);
+        }
+    }
+
+    /**
+     * Start a new window of the slowest-operations report if the current one is over.
+     */
+    private void rotate() {
+        long now = System.currentTimeMillis();
+        if (now - this.windowStartedAt < WINDOW_MILLIS) {
+            return;
+        }
+        if (now - this.windowStartedAt < 2 * WINDOW_MILLIS) {
+            this.previousWindow = this.currentWindow;
+        } else {
+            this.previousWindow = new ArrayList<SlowOperation>();
+        }
+        this.currentWindow = new ArrayList<SlowOperation>();
+        this.windowStartedAt = now;
+    }
+
+    /**
+     * Log an over-budget operation, unless one was logged very recently.
+     *
+     * @param op    The finished operation.
+     * @param trace The stack sampled during the operation, or null.
+     */
+    private void warn(SlowOperation op, StackTraceElement[] trace) {
+        long now = System.currentTimeMillis();
+        if (now - this.lastLoggedAt < LOG_INTERVAL_MILLIS) {
+            this.unlogged++;
+            return;
+        }
+        this.lastLoggedAt = now;
+
+        int queued = 0;
+        if (this.plugin.getTeleportQueue() != null) {
+            queued = this.plugin.getTeleportQueue().size();
+        }
+        OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + String.format(
+                "'%s' held the main thread for %.1f ms (budget %d ms); %d args, %d public warps, %d players with private warps, %d online, %d queued teleports",
+                op.getOperation(), (double) op.getNanos() / NANOS_PER_MILLI, this.getBudgetMillis(), op.getArgCount(), this.plugin.getPublicWarps().size(),
+                this.plugin.getPrivateWarps().size(), this.plugin.getServer().getOnlinePlayers().length, queued));
+        if (this.unlogged > 0) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "    (" + this.unlogged + " more over-budget operations since the last warning; see /warp slow)");
+            this.unlogged = 0;
+        }
+        if (trace == null) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "    (finished before the stack could be sampled)");
+            return;
+        }
+        for (int i = 0; i < trace.length && i < LOGGED_FRAMES; i++) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "    at " + trace[i]);
+        }
+    }
+
+    /**
+     * Pick the most telling frame of a sampled stack: the innermost OpenWarp
+     * frame, or the innermost frame if none is OpenWarp's.
+     *
+     * @param trace The sampled stack, or null.
+     * @return The frame as a String, or null if nothing was sampled.
+     */
+    private static String hotFrame(StackTraceElement[] trace) {
+        if (trace == null || trace.length == 0) {
+            return null;
+        }
+        for (StackTraceElement frame : trace) {
+            if (frame.getClassName().startsWith("com.lithium3141.") || frame.getClassName().startsWith("com.pneumaticraft.")) {
+                return frame.toString();
+            }
+        }
+        return trace[0].toString();
+    }
+
+    /**
+     * A single timed operation, as kept for the slowest-operations report.
+     */
+    public static final class SlowOperation {
+        /**
+         * The command label or event name.
+         */
+        private final String name;
+
+        /**
+         * The first argument of a command, or null.
+         */
+        private final String argument;
+
+        /**
+         * Whether the operation was a command.
+         */
+        private final boolean command;
+
+        /**
+         * The number of arguments the operation was given.
+         */
+        private final int argCount;
+
+        /**
+         * The time the operation took, in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * The time the operation finished, in milliseconds since the epoch.
+         */
+        private final long finishedAt;
+
+        /**
+         * The most telling frame sampled during the operation, or null.
+         */
+        private final String frame;
+
+        /**
+         * Create a new operation record.
+         *
+         * @param opName   The command label or event name.
+         * @param firstArg The first argument of a command, or null.
+         * @param isCmd    Whether the operation was a command.
+         * @param args     The number of arguments the operation was given.
+         * @param took     The time the operation took, in nanoseconds.
+         * @param finished The time the operation finished, in milliseconds since the epoch.
+         * @param hot      The most telling frame sampled during the operation, or null.
+         */
+        private SlowOperation(String opName, String firstArg, boolean isCmd, int args, long took, long finished, String hot) {
+            this.name = opName;
+            this.argument = firstArg;
+            this.command = isCmd;
+            this.argCount = args;
+            this.nanos = took;
+            this.finishedAt = finished;
+            this.frame = hot;
+        }
+
+        /**
+         * Get a short description of the operation, e.g. a command line or event name.
+         *
+         * @return The operation.
+         */
+        public String getOperation() {
+            if (!this.command) {
+                return this.name;
+            }
+            if (this.argument == null) {
+                return "/" + this.name;
+            }
+            return "/" + this.name + " " + this.argument;
+        }
+
+        /**
+         * Get the number of arguments the operation was given.
+         *
+         * @return The argument count.
+         */
+        public int getArgCount() {
+            return this.argCount;
+        }
+
+        /**
+         * Get the time the operation took.
+         *
+         * @return The duration, in nanoseconds.
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * Get the time the operation finished.
+         *
+         * @return The finish time, in milliseconds since the epoch.
+         */
+        public long getFinishedAt() {
+            return this.finishedAt;
+        }
+
+        /**
+         * Get the most telling frame sampled during the operation.
+         *
+         * @return The frame, or null if the operation finished within budget.
+         */
+        public String getFrame() {
+            return this.frame;
+        }
+    }
+}
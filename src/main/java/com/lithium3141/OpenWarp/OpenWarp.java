@@ -1,13 +1,22 @@
 package com.lithium3141.OpenWarp;
 
+import com.lithium3141.OpenWarp.api.OpenWarpService;
 import com.lithium3141.OpenWarp.commands.*;
 import com.lithium3141.OpenWarp.config.OWConfigurationManager;
+import com.lithium3141.OpenWarp.config.OWLocationHistoryStore;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpsChangedEvent;
+import com.lithium3141.OpenWarp.listeners.OWBlockListener;
 import com.lithium3141.OpenWarp.listeners.OWEntityListener;
 import com.lithium3141.OpenWarp.listeners.OWPlayerListener;
+import com.lithium3141.OpenWarp.listeners.OWWorldListener;
+import com.lithium3141.OpenWarp.metrics.OWCounter;
+import com.lithium3141.OpenWarp.metrics.OWHistogram;
+import com.lithium3141.OpenWarp.metrics.OWMetrics;
+import com.lithium3141.OpenWarp.metrics.OWStartupProfiler;
 import com.lithium3141.OpenWarp.util.StringUtil;
 import com.pneumaticraft.commandhandler.CommandHandler;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -15,6 +24,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
@@ -23,8 +33,6 @@ import java.util.*;
 import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Main plugin class. Responsible for setting up plugin and handling
@@ -59,22 +67,42 @@ public class OpenWarp extends JavaPlugin {
     private OWConfigurationManager configurationManager;
 
     /**
-     * Public warps tracked by this plugin. Maps warp names to their corresponding
-     * Warp objects.
+     * Homes tracked by this plugin. Maps world names to their corresponding home
+     * Location objects for each player name.
      */
-    private Map<String, Warp> publicWarps = new HashMap<String, Warp>();
+    private Map<String, Map<String, Location>> homes = new HashMap<String, Map<String, Location>>();
 
     /**
-     * Private warps tracked by this plugin. Maps warp names to their corresponding
-     * Warp objects for each player name.
+     * Names of the worlds warps lead to, shared by every Warp.
      */
-    private Map<String, Map<String, Warp>> privateWarps = new HashMap<String, Map<String, Warp>>();
+    private final OWNameDictionary worldDictionary = new OWNameDictionary();
 
     /**
-     * Homes tracked by this plugin. Maps world names to their corresponding home
-     * Location objects for each player name.
+     * Ids of every player known to this plugin, shared by all per-player structures.
      */
-    private Map<String, Map<String, Location>> homes = new HashMap<String, Map<String, Location>>();
+    private final OWPlayerDictionary playerDictionary = new OWPlayerDictionary();
+
+    /**
+     * Publisher of lock-free snapshots of the warp registry for other threads.
+     */
+    private final OWWarpSnapshotPublisher snapshotPublisher = new OWWarpSnapshotPublisher(this);
+
+    /**
+     * Running counts of warps by scope, owner and world, kept by the warp maps.
+     */
+    private final OWWarpCounter warpCounter = new OWWarpCounter();
+
+    /**
+     * Public warps tracked by this plugin. Maps warp names to their corresponding
+     * Warp objects.
+     */
+    private OWWarpMap publicWarps = new OWWarpMap(Warp.Scope.PUBLIC, this.snapshotPublisher, this.warpCounter);
+
+    /**
+     * Private warps tracked by this plugin. Maps warp names to their corresponding
+     * Warp objects for each player id.
+     */
+    private OWPlayerMap<Map<String, Warp>> privateWarps = new OWPlayerMap<Map<String, Warp>>(this.playerDictionary);
 
     // Supported commands
 
@@ -83,6 +111,47 @@ public class OpenWarp extends JavaPlugin {
      */
     private CommandHandler commandHandler;
 
+    /**
+     * Handler writing the debug log to disk, or null if debugging is off.
+     */
+    private OWDebugHandler debugHandler;
+
+    /**
+     * Registry of counters and histograms describing plugin activity. Created with
+     * the plugin so that activity before and during startup is recorded too.
+     */
+    private final OWMetrics metrics = new OWMetrics();
+
+    /**
+     * Metrics for warp lookups by name.
+     */
+    private final LookupMetrics nameLookups = new LookupMetrics(this.metrics, "lookup.name");
+
+    /**
+     * Metrics for warp lookups by location.
+     */
+    private final LookupMetrics locationLookups = new LookupMetrics(this.metrics, "lookup.location");
+
+    /**
+     * Number of permission checks made.
+     */
+    private final OWCounter permissionChecks = this.metrics.counter("permission.checks");
+
+    /**
+     * Number of permission checks answered by falling back to op status.
+     */
+    private final OWCounter permissionOpFallbacks = this.metrics.counter("permission.op-fallback");
+
+    /**
+     * Number of permission checks denied.
+     */
+    private final OWCounter permissionDenials = this.metrics.counter("permission.denied");
+
+    /**
+     * Timings of the phases of the most recent startup.
+     */
+    private OWStartupProfiler startupProfiler;
+
     // Per-player data
 
     /**
@@ -90,18 +159,87 @@ public class OpenWarp extends JavaPlugin {
      */
     private OWLocationTracker locationTracker;
 
+    /**
+     * Object persisting player location histories to disk.
+     */
+    private OWLocationHistoryStore locationHistoryStore;
+
+    /**
+     * Object releasing the runtime state of players who stay offline.
+     */
+    private OWPlayerStateManager playerStateManager;
+
+    // Teleport support
+
+    /**
+     * Object computing and caching safe landing spots for teleports.
+     */
+    private OWSafeLandingService safeLandingService;
+
+    /**
+     * Object spreading player teleports across server ticks.
+     */
+    private OWTeleportQueue teleportQueue;
+
+    /**
+     * Object keeping the chunks of heavily-used warps loaded.
+     */
+    private OWHotWarpTracker hotWarpTracker;
+
+    /**
+     * Object timing commands and listener callbacks on the main thread.
+     */
+    private OWWatchdog watchdog;
+
+    /**
+     * Object limiting how many warps each player may own.
+     */
+    private OWQuotaManager quotaManager;
+
     @Override
     public void onDisable() {
+        this.getServer().getServicesManager().unregisterAll(this);
+        if (this.watchdog != null) {
+            this.watchdog.stop();
+        }
+        this.snapshotPublisher.stop();
+        if (this.teleportQueue != null) {
+            this.teleportQueue.stop();
+        }
+        if (this.hotWarpTracker != null) {
+            this.hotWarpTracker.stop();
+        }
+        if (this.playerStateManager != null) {
+            this.playerStateManager.stop();
+        }
+        if (this.locationHistoryStore != null) {
+            this.locationHistoryStore.stop();
+            this.locationHistoryStore.save();
+        }
+
         this.configurationManager.saveAllConfigurations();
 
+        this.metrics.stopExport(this);
+        this.metrics.export(new File(this.getDataFolder(), OWMetrics.EXPORT_FILENAME));
+
+        if (this.debugHandler != null) {
+            DEBUG_LOG.removeHandler(this.debugHandler);
+            this.debugHandler.close();
+            this.debugHandler = null;
+        }
+
         LOG.info(LOG_PREFIX + "Disabled!");
     }
 
     @Override
     public void onEnable() {
+        this.startupProfiler = new OWStartupProfiler(this.metrics);
+        PluginManager pm = this.getServer().getPluginManager();
+
         // Create overall permission
-        this.getServer().getPluginManager().addPermission(new Permission("openwarp.*", PermissionDefault.OP));
-        Permission wildcardPerm = this.getServer().getPluginManager().getPermission("*");
+        this.startupProfiler.begin("root-permission");
+        pm.addPermission(new Permission("openwarp.*", PermissionDefault.OP));
+        Permission wildcardPerm = pm.getPermission("*");
         if (wildcardPerm != null) {
             wildcardPerm.getChildren().put("openwarp.*", true);
             wildcardPerm.recalculatePermissibles();
@@ -109,7 +247,9 @@ public class OpenWarp extends JavaPlugin {
 
         try {
             // Load configurations
+            this.startupProfiler.begin("config");
             this.configurationManager = new OWConfigurationManager(this);
+            this.startupProfiler.count("files", this.configurationManager.getFilesRead());
         } catch (InvalidConfigurationException e) {
             e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
         } catch (IOException e) {
@@ -117,15 +257,31 @@ public class OpenWarp extends JavaPlugin {
         }
 
         // Start location tracking
-        this.locationTracker = new OWLocationTracker();
+        this.startupProfiler.begin("location-history");
+        this.locationTracker = new OWLocationTracker(this, this.configurationManager.readBackHistoryDepth());
+        this.locationHistoryStore = new OWLocationHistoryStore(this, this.locationTracker);
+        this.locationHistoryStore.open();
+        for (Player player : this.getServer().getOnlinePlayers()) {
+            this.locationHistoryStore.restore(player.getName());
+        }
+        this.locationHistoryStore.start(this.configurationManager.readBackSaveInterval());
+        this.startupProfiler.count("histories", this.locationTracker.getEntryCount());
+
+        // Start safe landing cache
+        this.safeLandingService = new OWSafeLandingService(this);
 
         // Initialize debug log
+        this.startupProfiler.begin("debug-log");
         this.setupDebugLog();
 
         // Read warp names
+        this.startupProfiler.begin("public-warps");
         this.configurationManager.loadPublicWarps(this.publicWarps);
+        this.startupProfiler.count("warps", this.publicWarps.size());
 
         // Read player names and create configurations for each
+        this.startupProfiler.begin("players");
+        int filesBefore = this.configurationManager.getFilesRead();
         try {
             this.configurationManager.loadPlayers();
         } catch (IOException e) {
@@ -133,18 +289,72 @@ public class OpenWarp extends JavaPlugin {
         } catch (InvalidConfigurationException e) {
             e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
         }
+        int privateWarpCount = 0;
+        for (Map<String, Warp> playerWarps : this.privateWarps.values()) {
+            privateWarpCount += playerWarps.size();
+        }
+        this.startupProfiler.count("players", this.configurationManager.getEntryCount());
+        this.startupProfiler.count("warps", privateWarpCount);
+        this.startupProfiler.count("files", this.configurationManager.getFilesRead() - filesBefore);
+
+        // Start releasing state of players who stay offline
+        this.startupProfiler.begin("background-tasks");
+        this.playerStateManager = this.configurationManager.readPlayerStateManager();
+        this.playerStateManager.register(this.locationTracker);
+        this.playerStateManager.register(this.configurationManager);
+        for (String playerName : this.configurationManager.getPlayerNames()) {
+            if (this.getServer().getPlayerExact(playerName) == null) {
+                this.playerStateManager.playerQuit(playerName);
+            }
+        }
+        this.playerStateManager.start();
+
+        // Start spreading teleports across ticks
+        this.teleportQueue = new OWTeleportQueue(this, this.configurationManager.readTeleportsPerTick(), this.configurationManager.readTeleportMillisPerTick());
+        this.teleportQueue.start();
+
+        // Start holding chunks for heavily-used warps
+        this.hotWarpTracker = this.configurationManager.readHotWarpTracker();
+        this.hotWarpTracker.start();
+
+        // Start timing main-thread work
+        this.watchdog = this.configurationManager.readWatchdog();
+        this.watchdog.start();
+
+        // Read warp quotas
+        this.quotaManager = this.configurationManager.readQuotaManager();
+
+        // Start publishing warp snapshots for other threads
+        this.snapshotPublisher.start();
+
+        // Start exporting metrics
+        this.metrics.startExport(this, this.configurationManager.readMetricsExportInterval());
 
         // Set up supported commands
+        this.startupProfiler.begin("commands");
+        int permissionsBefore = pm.getPermissions().size();
         this.loadCommands();
+        this.startupProfiler.count("permissions", pm.getPermissions().size() - permissionsBefore);
 
         // Instantiate permission nodes for all relevant objects
+        this.startupProfiler.begin("warp-permissions");
+        permissionsBefore = pm.getPermissions().size();
         this.loadWarpPermissions();
+        this.startupProfiler.count("permissions", pm.getPermissions().size() - permissionsBefore);
 //        this.loadHomePermissions();
 
         // Start listening for events
+        this.startupProfiler.begin("listeners");
         this.loadListeners();
 
+        // Offer the warp service to other plugins
+        this.getServer().getServicesManager().register(OpenWarpService.class, new OWWarpService(this), this, ServicePriority.Normal);
+
+        this.startupProfiler.finish();
         LOG.info(LOG_PREFIX + "Enabled version " + this.getDescription().getVersion());
+        for (String line : this.startupProfiler.getSummary()) {
+            LOG.info(LOG_PREFIX + line);
+        }
     }
 
     /**
@@ -157,9 +367,11 @@ public class OpenWarp extends JavaPlugin {
         Level logLevel = (useDebug ? Level.FINEST : Level.OFF); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
 
         DEBUG_LOG.setLevel(logLevel);
-        OWDebugHandler debugHandler = new OWDebugHandler(new File(this.getDataFolder(), "debug.log"));
-        debugHandler.setLevel(logLevel);
-        DEBUG_LOG.addHandler(debugHandler);
+        if (useDebug) {
+            this.debugHandler = this.configurationManager.readDebugHandler(new File(this.getDataFolder(), "debug.log"));
+            this.debugHandler.setLevel(logLevel);
+            DEBUG_LOG.addHandler(this.debugHandler);
+        }
 
         DEBUG_LOG.fine("Enabled debug log at " + (new Date()).toString());
     }
@@ -245,6 +457,8 @@ public class OpenWarp extends JavaPlugin {
      * CommandHandler before it will have messages dispatched to it.
      */
     private void loadCommands() {
+        this.commandHandler = new CommandHandler(this);
+
         this.commandHandler.registerCommand(new OWWarpCommand(this));
         this.commandHandler.registerCommand(new OWWarpListCommand(this));
         this.commandHandler.registerCommand(new OWWarpDetailCommand(this));
@@ -253,6 +467,13 @@ public class OpenWarp extends JavaPlugin {
         this.commandHandler.registerCommand(new OWWarpShareCommand(this));
         this.commandHandler.registerCommand(new OWWarpUnshareCommand(this));
         this.commandHandler.registerCommand(new OWWarpBackCommand(this));
+        this.commandHandler.registerCommand(new OWWarpSafeCommand(this));
+        this.commandHandler.registerCommand(new OWWarpHotCommand(this));
+        this.commandHandler.registerCommand(new OWWarpSendCommand(this));
+        this.commandHandler.registerCommand(new OWWarpMemoryCommand(this));
+        this.commandHandler.registerCommand(new OWWarpStatsCommand(this));
+        this.commandHandler.registerCommand(new OWWarpSlowCommand(this));
+        this.commandHandler.registerCommand(new OWWarpQuotaCommand(this));
     }
 
     /**
@@ -263,16 +484,20 @@ public class OpenWarp extends JavaPlugin {
     private void loadListeners() {
         OWPlayerListener playerListener = new OWPlayerListener(this);
         this.getServer().getPluginManager().registerEvents(playerListener, this);
-        this.getServer().getPluginManager().registerEvents(playerListener, this);
-        this.getServer().getPluginManager().registerEvents(playerListener, this);
 
         OWEntityListener entityListener = new OWEntityListener(this);
         this.getServer().getPluginManager().registerEvents(entityListener, this);
+
+        OWBlockListener blockListener = new OWBlockListener(this);
+        this.getServer().getPluginManager().registerEvents(blockListener, this);
+
+        OWWorldListener worldListener = new OWWorldListener(this);
+        this.getServer().getPluginManager().registerEvents(worldListener, this);
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String commandLabel, String[] args) {
-        DEBUG_LOG.fine("Command received. Name:" + command.getName() + " label:" + command.getLabel() + " arglabel:" + commandLabel);
+        OWDebug.fine("Command received. Name:{} label:{} arglabel:{}", command.getName(), command.getLabel(), commandLabel);
 
         // Construct a trie key path from the command label and args
         List<String> keyPath = new ArrayList<String>();
@@ -282,7 +507,12 @@ public class OpenWarp extends JavaPlugin {
         }
 
         // Locate and run the best matching command from the key path
-        return this.commandHandler.locateAndRunCommand(sender, keyPath);
+        long token = this.watchdog.beginCommand(keyPath.get(0), (args.length > 0 ? args[0] : null)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        try {
+            return this.commandHandler.locateAndRunCommand(sender, keyPath);
+        } finally {
+            this.watchdog.end(token, args.length);
+        }
     }
 
     /**
@@ -314,6 +544,53 @@ public class OpenWarp extends JavaPlugin {
         return this.getPrivateWarps().get(playerName);
     }
 
+    /**
+     * Get private warps for the player with the given id.
+     *
+     * @param playerId The id of the player in the player dictionary.
+     * @return A map of warp names to their corresponding Warp objects, or null if the given
+     *         player has no private warps loaded.
+     */
+    public Map<String, Warp> getPrivateWarps(int playerId) {
+        return this.privateWarps.get(playerId);
+    }
+
+    /**
+     * Get private warps for a particular player, creating an empty map for them if
+     * they have none. Private warp maps should be created only here, so that the
+     * warps in them know they are private.
+     *
+     * @param playerName The name of the player for which to get private warps.
+     * @return A map of warp names to their corresponding Warp objects.
+     */
+    public Map<String, Warp> createPrivateWarps(String playerName) {
+        int playerId = this.playerDictionary.idFor(playerName);
+        Map<String, Warp> warps = this.privateWarps.get(playerId);
+        if (warps == null) {
+            warps = new OWWarpMap(Warp.Scope.PRIVATE, this.snapshotPublisher, this.warpCounter);
+            this.privateWarps.put(playerId, warps);
+        }
+        return warps;
+    }
+
+    /**
+     * Get the dictionary of world names shared by this plugin's warps.
+     *
+     * @return The OWNameDictionary holding warp world names.
+     */
+    public OWNameDictionary getWorldDictionary() {
+        return this.worldDictionary;
+    }
+
+    /**
+     * Get the dictionary of player ids shared by this plugin's per-player structures.
+     *
+     * @return The OWPlayerDictionary holding every known player.
+     */
+    public OWPlayerDictionary getPlayerDictionary() {
+        return this.playerDictionary;
+    }
+
     /**
      * Get the location tracker for this plugin.
      *
@@ -323,6 +600,128 @@ public class OpenWarp extends JavaPlugin {
         return this.locationTracker;
     }
 
+    /**
+     * Get the location history store for this plugin.
+     *
+     * @return The OWLocationHistoryStore instance persisting player location histories.
+     */
+    public OWLocationHistoryStore getLocationHistoryStore() {
+        return this.locationHistoryStore;
+    }
+
+    /**
+     * Get the player state manager for this plugin.
+     *
+     * @return The OWPlayerStateManager instance releasing state of offline players.
+     */
+    public OWPlayerStateManager getPlayerStateManager() {
+        return this.playerStateManager;
+    }
+
+    /**
+     * Get the safe landing service for this plugin.
+     *
+     * @return The OWSafeLandingService instance caching safe teleport targets for this plugin.
+     */
+    public OWSafeLandingService getSafeLandingService() {
+        return this.safeLandingService;
+    }
+
+    /**
+     * Get the teleport queue for this plugin.
+     *
+     * @return The OWTeleportQueue instance spreading teleports across ticks for this plugin.
+     */
+    public OWTeleportQueue getTeleportQueue() {
+        return this.teleportQueue;
+    }
+
+    /**
+     * Get the hot warp tracker for this plugin.
+     *
+     * @return The OWHotWarpTracker instance holding chunks for heavily-used warps.
+     */
+    public OWHotWarpTracker getHotWarpTracker() {
+        return this.hotWarpTracker;
+    }
+
+    /**
+     * Get the metrics registry for this plugin.
+     *
+     * @return The OWMetrics instance recording plugin activity.
+     */
+    public OWMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Get the most recently published snapshot of this plugin's warps. Unlike the
+     * live warp maps, the snapshot may be read from any thread; it reflects changes
+     * made on the main thread up to the end of the previous tick.
+     *
+     * @return The current OWWarpSnapshot; never null.
+     */
+    public OWWarpSnapshot getWarpSnapshot() {
+        return this.snapshotPublisher.getSnapshot();
+    }
+
+    /**
+     * Get the current version of the live warp registry. The version changes
+     * whenever any warp is added to, replaced in or removed from this plugin's
+     * warp maps, so a value derived from the maps is valid for as long as the
+     * version is unchanged.
+     *
+     * @return The registry version.
+     */
+    public long getRegistryVersion() {
+        return this.snapshotPublisher.getChangeCount();
+    }
+
+    /**
+     * Get the publisher of warp snapshots for this plugin.
+     *
+     * @return The OWWarpSnapshotPublisher instance.
+     */
+    public OWWarpSnapshotPublisher getSnapshotPublisher() {
+        return this.snapshotPublisher;
+    }
+
+    /**
+     * Get the startup phase timings for this plugin.
+     *
+     * @return The OWStartupProfiler instance that timed the most recent startup.
+     */
+    public OWStartupProfiler getStartupProfiler() {
+        return this.startupProfiler;
+    }
+
+    /**
+     * Get the main-thread watchdog for this plugin.
+     *
+     * @return The OWWatchdog instance timing commands and listener callbacks.
+     */
+    public OWWatchdog getWatchdog() {
+        return this.watchdog;
+    }
+
+    /**
+     * Get the warp quota manager for this plugin.
+     *
+     * @return The OWQuotaManager instance limiting how many warps players may own.
+     */
+    public OWQuotaManager getQuotaManager() {
+        return this.quotaManager;
+    }
+
+    /**
+     * Get the running counts of warps by scope, owner and world. Main thread only.
+     *
+     * @return The OWWarpCounter kept up to date by this plugin's warp maps.
+     */
+    public OWWarpCounter getWarpCounter() {
+        return this.warpCounter;
+    }
+
     /**
      * Get the configuration handler for this plugin.
      *
@@ -340,13 +739,31 @@ public class OpenWarp extends JavaPlugin {
      * @return In order of precedence: (1) the public warp with the given
      *         name, (2) the private warp belonging to the given sender,
      *         (3) the shared warp belonging to the given owner with the
-     *         specified name, or (4) null.
+     *         specified name, or (4) null. Coordinate destinations are not
+     *         warps and always yield null; see OWCoordinateDestination.
      */
     public Warp getWarp(CommandSender sender, String warpName) {
-        if (sender instanceof Player) {
-            DEBUG_LOG.finer(((Player) sender).getName() + " requests warp '" + warpName + "'");
+        OWDebug.finer("{} requests warp '{}'", (sender == null ? null : sender.getName()), warpName); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        if (OWCoordinateDestination.isCoordinates(warpName)) {
+            return null;
         }
 
+        long start = System.nanoTime();
+        Warp warp = this.findWarp(sender, warpName);
+        this.nameLookups.record(warp, start);
+        return warp;
+    }
+
+    /**
+     * Search for the Warp matching the given name for the given sender.
+     *
+     * @param sender   The sender for whom to check for warps
+     * @param warpName The name of the warp to find
+     * @return The matching warp, or null.
+     * @see #getWarp(CommandSender, String)
+     */
+    private Warp findWarp(CommandSender sender, String warpName) {
+
         // First check public warps
         for (Entry<String, Warp> entry : this.getPublicWarps().entrySet()) {
             String name = entry.getKey();
@@ -368,18 +785,19 @@ public class OpenWarp extends JavaPlugin {
 
         // If still no match, check shared warps
         if (warpName.contains(":") && (sender instanceof Player)) {
-            String requester = ((Player) sender).getName();
+            Player requester = (Player) sender;
+            int requesterId = this.playerDictionary.find(requester.getName());
             String[] parts = warpName.split(":");
             String recipient = parts[0];
             warpName = StringUtil.arrayJoin(Arrays.copyOfRange(parts, 1, parts.length), ":");
-            DEBUG_LOG.finest("Checking shared warps; want player '" + recipient + "' and warp '" + warpName + "'");
+            OWDebug.finest("Checking shared warps; want player '{}' and warp '{}'", recipient, warpName);
 
             for (Entry<String, Map<String, Warp>> mapEntry : this.getPrivateWarps().entrySet()) {
                 if (mapEntry.getKey().equalsIgnoreCase(recipient)) {
                     for (Entry<String, Warp> entry : mapEntry.getValue().entrySet()) {
                         if (entry.getKey().equalsIgnoreCase(warpName)) {
                             Warp warp = entry.getValue();
-                            if (warp.isInvited(requester)) {
+                            if (warp.isInvited(requester, requesterId)) {
                                 return warp;
                             }
                         }
@@ -388,34 +806,29 @@ public class OpenWarp extends JavaPlugin {
             }
         }
 
-        // If still no match, try to cast to coords
-        if (sender instanceof Player) {
-            Pattern coordPattern = Pattern.compile("(?:([a-zA-Z0-9_]+):)?(-?[0-9]+),(-?[0-9]+),(-?[0-9]+)"); // it burns us
-            Matcher coordMatcher = coordPattern.matcher(warpName);
-            if (coordMatcher.matches()) {
-                String worldName = coordMatcher.group(1);
-                int x = Integer.parseInt(coordMatcher.group(2));
-                int y = Integer.parseInt(coordMatcher.group(3)); // SUPPRESS CHECKSTYLE MagicNumberCheck
-                int z = Integer.parseInt(coordMatcher.group(4)); // SUPPRESS CHECKSTYLE MagicNumberCheck
-
-                World world;
-                if (worldName == null) {
-                    world = ((Player) sender).getWorld();
-                } else {
-                    world = this.getServer().getWorld(worldName);
-                }
-                System.out.println("DEBUG: warping exact to world " + world.getName());
-                if (world != null) {
-                    return new Warp(this, "_EXACT", new Location(world, (double) x, (double) y, (double) z), ((Player) sender).getName());
-                }
-            }
-
-        }
-
         // No match
         return null;
     }
 
+    /**
+     * Send a group of players to the named warp. The warp, the sender's access to
+     * it and the destination are resolved once; the teleports themselves are
+     * spread across ticks by the plugin's teleport queue.
+     *
+     * @param sender   The sender requesting the move; used for warp lookup and access checks.
+     * @param warpName The name of the warp to send players to.
+     * @param players  The Players to move.
+     * @param callback Receiver notified once every player has been moved or has failed; may be null.
+     * @return The batch. If OWGroupTeleport#getError() is non-null, nobody was moved.
+     */
+    public OWGroupTeleport sendToWarp(CommandSender sender, String warpName, Collection<Player> players, OWGroupTeleport.Callback callback) {
+        OWGroupTeleport batch = new OWGroupTeleport(this, sender, warpName, callback);
+        if (batch.getError() == null) {
+            batch.start(players);
+        }
+        return batch;
+    }
+
     /**
      * Get the Warp, if any, matching the given Location for the given sender.
      *
@@ -425,10 +838,24 @@ public class OpenWarp extends JavaPlugin {
      * @see #getWarp(CommandSender, String)
      */
     public Warp getWarp(CommandSender sender, Location location) {
+        long start = System.nanoTime();
+        Warp warp = this.findWarp(sender, location);
+        this.locationLookups.record(warp, start);
+        return warp;
+    }
+
+    /**
+     * Search for the Warp matching the given Location for the given sender.
+     *
+     * @param sender   The sender for whom to check for warps
+     * @param location The location of the warp to find
+     * @return The matching warp, or null.
+     * @see #getWarp(CommandSender, Location)
+     */
+    private Warp findWarp(CommandSender sender, Location location) {
         // First check public warps
         for (Entry<String, Warp> entry : this.getPublicWarps().entrySet()) {
-            Location warpLoc = entry.getValue().getLocation();
-            if (location.equals(warpLoc)) {
+            if (entry.getValue().isAt(location)) {
                 return entry.getValue();
             }
         }
@@ -437,8 +864,7 @@ public class OpenWarp extends JavaPlugin {
         if (sender instanceof Player) {
             Player player = (Player) sender;
             for (Entry<String, Warp> entry : this.getPrivateWarps().get(player.getName()).entrySet()) {
-                Location warpLoc = entry.getValue().getLocation();
-                if (location.equals(warpLoc)) {
+                if (entry.getValue().isAt(location)) {
                     return entry.getValue();
                 }
             }
@@ -447,14 +873,15 @@ public class OpenWarp extends JavaPlugin {
         // If still no match, check shared warps
         if (sender instanceof Player) {
             Player player = (Player) sender;
+            int requesterId = this.playerDictionary.find(player.getName());
             for (Entry<String, Map<String, Warp>> mapEntry : this.getPrivateWarps().entrySet()) {
                 String recipient = mapEntry.getKey();
                 if (recipient.equals(player.getName())) {
                     continue;
                 }
-                for (Entry<String, Warp> entry : this.getPrivateWarps().get(recipient).entrySet()) {
+                for (Entry<String, Warp> entry : mapEntry.getValue().entrySet()) {
                     Warp warp = entry.getValue();
-                    if (location.equals(warp.getLocation()) && warp.isInvited(player)) {
+                    if (warp.isAt(location) && warp.isInvited(player, requesterId)) {
                         return warp;
                     }
                 }
@@ -465,7 +892,93 @@ public class OpenWarp extends JavaPlugin {
         return null;
     }
 
+    /**
+     * Tell listeners about a single warp change.
+     *
+     * @param change The change made.
+     */
+    public void fireWarpChange(WarpChange change) {
+        this.fireWarpChanges(Collections.singletonList(change));
+    }
+
+    /**
+     * Tell listeners about a batch of warp changes with a single WarpsChangedEvent.
+     * Does nothing if the batch is empty.
+     *
+     * @param changes The changes made, in order.
+     */
+    public void fireWarpChanges(List<WarpChange> changes) {
+        if (!changes.isEmpty()) {
+            this.getServer().getPluginManager().callEvent(new WarpsChangedEvent(changes));
+        }
+    }
+
+    /**
+     * Get the permission node granting access to the given warp.
+     *
+     * @param warp     The warp.
+     * @param isPublic Whether the warp is, or was, a public warp.
+     * @return The access permission node for the warp.
+     */
+    public String getAccessPermission(Warp warp, boolean isPublic) {
+        if (isPublic) {
+            return "openwarp.warp.access.public." + warp.getName();
+        }
+        return "openwarp.warp.access.private." + warp.getOwner() + "." + warp.getName();
+    }
+
+    /**
+     * Register the access permissions of newly created warps, if not already
+     * registered, as children of the relevant wildcard permission. Online players'
+     * permissions are recalculated once for the whole batch.
+     *
+     * @param warps    The new warps.
+     * @param isPublic Whether the warps are public warps.
+     */
+    public void registerAccessPermissions(Collection<Warp> warps, boolean isPublic) {
+        PluginManager pm = this.getServer().getPluginManager();
+        Permission parentPerm = pm.getPermission("openwarp.warp.access." + (isPublic ? "public" : "private") + ".*"); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        boolean added = false;
+        for (Warp warp : warps) {
+            String permString = this.getAccessPermission(warp, isPublic);
+            if (pm.getPermission(permString) == null) {
+                Permission accessPerm = new Permission(permString, PermissionDefault.TRUE);
+                pm.addPermission(accessPerm);
+                parentPerm.getChildren().put(permString, true);
+                accessPerm.recalculatePermissibles();
+                added = true;
+            }
+        }
+        if (added) {
+            parentPerm.recalculatePermissibles();
+            for (Player p : this.getServer().getOnlinePlayers()) {
+                p.recalculatePermissions();
+            }
+        }
+    }
+
+    /**
+     * Remove the access permissions of deleted warps. Online players' permissions
+     * are recalculated once for the whole batch.
+     *
+     * @param warps    The deleted warps.
+     * @param isPublic Whether the warps were public warps.
+     */
+    public void unregisterAccessPermissions(Collection<Warp> warps, boolean isPublic) {
+        if (warps.isEmpty()) {
+            return;
+        }
+        PluginManager pm = this.getServer().getPluginManager();
+        for (Warp warp : warps) {
+            pm.removePermission(this.getAccessPermission(warp, isPublic));
+        }
+        for (Player p : this.getServer().getOnlinePlayers()) {
+            p.recalculatePermissions();
+        }
+    }
+
     public boolean hasPermission(CommandSender sender, String node, boolean isOpRequired) {
+        this.permissionChecks.increment();
         if (!(sender instanceof Player)) {
             return true;
         } else {
@@ -473,8 +986,10 @@ public class OpenWarp extends JavaPlugin {
             if (player.hasPermission(node)) {
                 return true;
             } else if (isOpRequired) {
+                this.permissionOpFallbacks.increment();
                 return player.isOp();
             } else {
+                this.permissionDenials.increment();
                 return false;
             }
         }
@@ -488,4 +1003,53 @@ public class OpenWarp extends JavaPlugin {
         }
         return false;
     }
+
+    /**
+     * Metrics for one kind of warp lookup, looked up once so that recording a
+     * lookup touches no metric names.
+     */
+    private static final class LookupMetrics {
+
+        /**
+         * Time taken by each lookup, in nanoseconds.
+         */
+        private final OWHistogram latency;
+
+        /**
+         * Number of lookups that found a warp.
+         */
+        private final OWCounter hits;
+
+        /**
+         * Number of lookups that found no warp.
+         */
+        private final OWCounter misses;
+
+        /**
+         * Look up the metrics for a kind of lookup.
+         *
+         * @param metrics The registry holding the metrics.
+         * @param name    The metric name prefix for the kind of lookup.
+         */
+        LookupMetrics(OWMetrics metrics, String name) {
+            this.latency = metrics.histogram(name + ".latency-ns");
+            this.hits = metrics.counter(name + ".hit");
+            this.misses = metrics.counter(name + ".miss");
+        }
+
+        /**
+         * Record the outcome and duration of a lookup.
+         *
+         * @param warp       The warp found, or null on a miss.
+         * @param startNanos The value of System#nanoTime() when the lookup began.
+         */
+        void record(Warp warp, long startNanos) {
+            this.latency.record(System.nanoTime() - startNanos);
+            if (warp == null) {
+                this.misses.increment();
+            } else {
+                this.hits.increment();
+            }
+        }
+    }
 }
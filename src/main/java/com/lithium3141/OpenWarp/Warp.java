@@ -1,5 +1,6 @@
 package com.lithium3141.OpenWarp;
 
+import com.lithium3141.OpenWarp.util.BlockSafety;
 import com.lithium3141.OpenWarp.util.LocationUtil;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -7,9 +8,15 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Representation of a single warp, either public or private. Maintains an
@@ -26,8 +33,35 @@ import java.util.Map;
  * <p/>
  * A warp can be specified as a Multiverse destination using the syntax
  * <code>ow:NAME</code>.
+ * <p/>
+ * Warps are stored compactly, since servers may hold a great many of them:
+ * coordinates are kept as primitives, world names as ids into a dictionary
+ * shared by every warp, and the owner and invitees as player ids. Invitees
+ * are a sorted array of ids, and warps nobody is invited to share a single
+ * empty array. #getLocation() builds a Location on each call.
+ * <p/>
+ * Besides named invitees, a private warp may be shared with everyone, or with
+ * permission groups; see #isInvited(Player).
  */
 public class Warp {
+    /**
+     * The scopes a Warp may belong to.
+     */
+    public enum Scope {
+        /**
+         * The Warp is in no warp registry.
+         */
+        NONE,
+        /**
+         * The Warp is available to all players with the relevant permissions.
+         */
+        PUBLIC,
+        /**
+         * The Warp is available to its owner and invitees.
+         */
+        PRIVATE
+    }
+
     /**
      * The plugin instance against which this Warp queries for public/private status. The
      * plugin is also used to locate World instances and other Bukkit entities that may
@@ -41,22 +75,94 @@ public class Warp {
     protected String name;
 
     /**
-     * The target Location of this Warp.
+     * The x-coordinate of this Warp's target.
      */
-    protected Location location;
+    protected double x;
 
     /**
-     * The name of the owner of this Warp. Stored as a String since the owning Player
-     * may not be logged in at any given time; this is especially a concern for public
-     * warps.
+     * The y-coordinate of this Warp's target.
      */
-    protected String owner;
+    protected double y;
 
     /**
-     * The names of players invited to this Warp. Only truly applicable for private
-     * warps.
+     * The z-coordinate of this Warp's target.
+     */
+    protected double z;
+
+    /**
+     * The yaw of this Warp's target.
+     */
+    protected float yaw;
+
+    /**
+     * The pitch of this Warp's target.
+     */
+    protected float pitch;
+
+    /**
+     * The id of the name of this Warp's target World in the plugin's world
+     * dictionary, or -1 if this Warp has no world. The name is kept even while
+     * the World is not loaded.
+     */
+    protected int worldId = -1;
+
+    /**
+     * The id of the owner of this Warp in the plugin's player dictionary. Stored
+     * by name rather than as a Player since the owning Player may not be logged
+     * in at any given time; this is especially a concern for public warps.
+     */
+    protected int ownerId;
+
+    /**
+     * The ids of players invited to this Warp, in ascending order. Only truly
+     * applicable for private warps. Warps nobody is invited to share NO_INVITEES.
+     * Arrays are never modified once stored here, so readers on other threads
+     * always see a complete invitee list.
+     */
+    protected volatile int[] invitees = NO_INVITEES;
+
+    /**
+     * Whether every player may use this Warp as if invited.
+     */
+    protected volatile boolean sharedWithEveryone;
+
+    /**
+     * Permission nodes of the groups invited to this Warp, one per group. Warps no
+     * group is invited to share NO_GROUPS.
+     */
+    protected volatile String[] groupNodes = NO_GROUPS;
+
+    /**
+     * Whether players moving to this Warp should be placed on the nearest safe
+     * landing rather than at its exact Location.
+     */
+    protected boolean safeTeleport;
+
+    /**
+     * The precomputed feet Y-coordinate of the safe landing for this Warp, or
+     * BlockSafety.NO_LANDING if none is known.
+     */
+    protected int landingY = BlockSafety.NO_LANDING;
+
+    /**
+     * The warp map this Warp is in, or null if it is in none. Maintained by OWWarpMap.
+     */
+    private OWWarpMap container;
+
+    /**
+     * The invitee array shared by every Warp nobody is invited to.
+     */
+    private static final int[] NO_INVITEES = new int[0];
+
+    /**
+     * The group array shared by every Warp no group is invited to.
      */
-    protected List<String> invitees;
+    private static final String[] NO_GROUPS = new String[0];
+
+    /**
+     * Prefix of the permission node marking membership of a group.
+     */
+    public static final String GROUP_PERMISSION_PREFIX = "group.";
 
     /**
      * Configuration key for the World component of this Warp's Location.
@@ -98,6 +204,26 @@ public class Warp {
      */
     public static final String INVITEES_KEY = "invitees";
 
+    /**
+     * Configuration key for whether this Warp is shared with everyone.
+     */
+    public static final String EVERYONE_KEY = "everyone";
+
+    /**
+     * Configuration key for the invited group list of this Warp.
+     */
+    public static final String GROUPS_KEY = "groups";
+
+    /**
+     * Configuration key for the safe teleport flag of this Warp.
+     */
+    public static final String SAFE_KEY = "safe";
+
+    /**
+     * Configuration key for the precomputed safe landing Y-coordinate of this Warp.
+     */
+    public static final String LANDING_KEY = "landing";
+
     /**
      * Create a new Warp with the given name, deriving Location data from the given
      * ConfigurationNode. Will read configuration information using the static keys
@@ -127,9 +253,8 @@ public class Warp {
     public Warp(OpenWarp ow, String warpName, Location warpLoc, String warpOwner) {
         this.plugin = ow;
         this.name = warpName;
-        this.location = warpLoc;
-        this.owner = warpOwner;
-        this.invitees = new ArrayList<String>();
+        this.setLocation(warpLoc);
+        this.ownerId = ow.getPlayerDictionary().idFor(warpOwner);
     }
 
     /**
@@ -148,23 +273,34 @@ public class Warp {
             OpenWarp.LOG.severe(OpenWarp.LOG_PREFIX + "Malformed warp in configuration: no world for warp " + this.name);
         }
 
-        double x = node.getDouble(X_KEY, 0.0);
-        double y = node.getDouble(Y_KEY, 0.0);
-        double z = node.getDouble(Z_KEY, 0.0);
-        float pitch = (float) node.getDouble(PITCH_KEY, 0.0);
-        float yaw = (float) node.getDouble(YAW_KEY, 0.0);
+        this.x = node.getDouble(X_KEY, 0.0);
+        this.y = node.getDouble(Y_KEY, 0.0);
+        this.z = node.getDouble(Z_KEY, 0.0);
+        this.pitch = (float) node.getDouble(PITCH_KEY, 0.0);
+        this.yaw = (float) node.getDouble(YAW_KEY, 0.0);
 
-        World world = null;
         if (worldName != null) {
-            world = this.plugin.getServer().getWorld(worldName);
-            if (world == null) {
+            this.worldId = this.plugin.getWorldDictionary().idFor(worldName);
+            if (this.plugin.getServer().getWorld(worldName) == null) {
                 OpenWarp.LOG.severe(OpenWarp.LOG_PREFIX + "Couldn't locate world named '" + worldName + "'; this is likely a problem");
             }
         }
-        this.location = new Location(world, x, y, z, yaw, pitch);
 
-        this.owner = node.getString(OWNER_KEY, "");
-        this.invitees = node.getStringList(INVITEES_KEY);
+        this.ownerId = this.plugin.getPlayerDictionary().idFor(node.getString(OWNER_KEY, ""));
+        List<String> inviteeList = node.getStringList(INVITEES_KEY);
+        if (inviteeList != null && !inviteeList.isEmpty()) {
+            this.addInvitees(inviteeList);
+        }
+        this.sharedWithEveryone = node.getBoolean(EVERYONE_KEY, false);
+        List<String> groupList = node.getStringList(GROUPS_KEY);
+        if (groupList != null) {
+            for (String group : groupList) {
+                this.addGroup(group);
+            }
+        }
+
+        this.safeTeleport = node.getBoolean(SAFE_KEY, false);
+        this.landingY = node.getInt(LANDING_KEY, BlockSafety.NO_LANDING);
     }
 
     /**
@@ -177,36 +313,152 @@ public class Warp {
     }
 
     /**
-     * Get the destination Location of this Warp.
+     * Get the destination Location of this Warp. A new Location is built on each
+     * call, so callers may modify it freely.
      *
-     * @return The destination Location of this Warp.
+     * @return The destination Location of this Warp. Its World is null if this
+     *         Warp's world is not loaded.
      */
     public Location getLocation() {
-        return this.location;
+        String worldName = this.getWorldName();
+        World world = null;
+        if (worldName != null) {
+            world = this.plugin.getServer().getWorld(worldName);
+        }
+        return new Location(world, this.x, this.y, this.z, this.yaw, this.pitch);
+    }
+
+    /**
+     * Move this Warp to the given Location.
+     *
+     * @param loc The new destination of this Warp.
+     */
+    private void setLocation(Location loc) {
+        this.x = loc.getX();
+        this.y = loc.getY();
+        this.z = loc.getZ();
+        this.yaw = loc.getYaw();
+        this.pitch = loc.getPitch();
+        if (loc.getWorld() == null) {
+            this.worldId = -1;
+        } else {
+            this.worldId = this.plugin.getWorldDictionary().idFor(loc.getWorld().getName());
+        }
+    }
+
+    /**
+     * Get the name of the World this Warp leads to, whether or not it is loaded.
+     *
+     * @return The World name, or null if this Warp has no world.
+     */
+    public String getWorldName() {
+        return this.plugin.getWorldDictionary().nameOf(this.worldId);
+    }
+
+    /**
+     * Get the id of the World this Warp leads to in the plugin's world dictionary.
+     *
+     * @return The world id, or -1 if this Warp has no world.
+     */
+    public int getWorldId() {
+        return this.worldId;
+    }
+
+    /**
+     * Get the x-coordinate of this Warp's destination without building a Location.
+     *
+     * @return The x-coordinate.
+     */
+    public double getX() {
+        return this.x;
+    }
+
+    /**
+     * Get the y-coordinate of this Warp's destination without building a Location.
+     *
+     * @return The y-coordinate.
+     */
+    public double getY() {
+        return this.y;
+    }
+
+    /**
+     * Get the z-coordinate of this Warp's destination without building a Location.
+     *
+     * @return The z-coordinate.
+     */
+    public double getZ() {
+        return this.z;
+    }
+
+    /**
+     * Check whether this Warp leads exactly to the given Location, as
+     * Location#equals(Object) would, without building a Location.
+     *
+     * @param loc The Location to compare with.
+     * @return True if the World, coordinates, yaw and pitch all match.
+     */
+    public boolean isAt(Location loc) {
+        if (loc.getX() != this.x || loc.getY() != this.y || loc.getZ() != this.z
+                || loc.getYaw() != this.yaw || loc.getPitch() != this.pitch) {
+            return false;
+        }
+        if (loc.getWorld() == null) {
+            return this.worldId < 0;
+        }
+        return loc.getWorld().getName().equals(this.getWorldName());
+    }
+
+    /**
+     * Get the scope of this Warp: public, private, or neither if it is not in any
+     * of the plugin's warp maps. Kept up to date by OWWarpMap, so takes constant time.
+     *
+     * @return The scope of this Warp.
+     */
+    public Scope getScope() {
+        return (this.container == null ? Scope.NONE : this.container.getScope()); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Get the warp map this Warp is in.
+     *
+     * @return The containing OWWarpMap, or null if this Warp is in none.
+     */
+    OWWarpMap getContainer() {
+        return this.container;
+    }
+
+    /**
+     * Record the warp map this Warp is in. Called only by OWWarpMap.
+     *
+     * @param map The containing OWWarpMap, or null.
+     */
+    void setContainer(OWWarpMap map) {
+        this.container = map;
     }
 
     /**
      * Check if this Warp is a public warp. A public warp is available to all
      * players with the relevant permissions currently on the server. A Warp is
-     * considered public if it exists in the value set of the OpenWarp plugin
-     * instance's map of public warps.
+     * considered public if it is in the OpenWarp plugin instance's map of public
+     * warps.
      *
      * @return True if this warp is public; false otherwise.
      */
     public boolean isPublic() {
-        return this.plugin.getPublicWarps().values().contains(this);
+        return this.getScope() == Scope.PUBLIC;
     }
 
     /**
      * Check if this Warp is a private warp. A private warp is only available to
-     * its owner (the Player with the same name as this Warp's owner string). A Warp
-     * is considered private if it exists in the value set of the OpenWarp plugin
-     * instance's map of private warps for its owner string.
+     * its owner (the Player with the same name as this Warp's owner string) and
+     * its invitees. A Warp is considered private if it is in one of the OpenWarp
+     * plugin instance's maps of private warps.
      *
      * @return True if this warp is private; false otherwise.
      */
     public boolean isPrivate() {
-        return this.plugin.getPrivateWarps().get(this.getOwner()).values().contains(this);
+        return this.getScope() == Scope.PRIVATE;
     }
 
     /**
@@ -215,7 +467,7 @@ public class Warp {
      * @return A String detailing this Warp's information.
      */
     public String getDetailString() {
-        return LocationUtil.getHumanReadableString(this.location, 2);
+        return LocationUtil.getHumanReadableString(this.getLocation(), 2);
     }
 
     /**
@@ -224,41 +476,99 @@ public class Warp {
      * @return The name of this Warp's owner.
      */
     public String getOwner() {
-        return this.owner;
+        return this.plugin.getPlayerDictionary().nameOf(this.ownerId);
+    }
+
+    /**
+     * Get the player id of the owner of this Warp.
+     *
+     * @return The id of this Warp's owner in the plugin's player dictionary.
+     */
+    public int getOwnerId() {
+        return this.ownerId;
     }
 
     /**
-     * Get the list of people invited to this Warp. Only applicable for private warps;
-     * regardless of return value, a public warp will be accessible to players.
+     * Get the list of people invited to this Warp by name. Only applicable for private
+     * warps; regardless of return value, a public warp will be accessible to players.
+     * Players allowed in through #isSharedWithEveryone() or #getGroups() are not listed.
      *
-     * @return A List of player names who may access this Warp through an invite.
+     * @return A new List of player names who may access this Warp through an invite.
+     * @see #getInviteeSet()
      */
     public List<String> getInvitees() {
-        return this.invitees;
+        return new ArrayList<String>(this.getInviteeSet());
+    }
+
+    /**
+     * Get the set of people invited to this Warp by name, without copying it to a List.
+     * Players allowed in through #isSharedWithEveryone() or #getGroups() are not listed.
+     *
+     * @return An unmodifiable Set of player names who may access this Warp through an invite.
+     */
+    public Set<String> getInviteeSet() {
+        Set<String> result = new LinkedHashSet<String>();
+        for (int id : this.invitees) {
+            result.add(this.plugin.getPlayerDictionary().nameOf(id));
+        }
+        return Collections.unmodifiableSet(result);
     }
 
     /**
-     * Check whether the given Player is invited to this Warp. Calls #isInvited(String)
-     * internally. Only applicable for private warps; regardless of return value, a
-     * public warp will be accessible to the provided Player.
+     * Check whether the given Player is invited to this Warp, either by name, because
+     * this Warp is shared with everyone, or through one of its groups. Only applicable
+     * for private warps; regardless of return value, a public warp will be accessible
+     * to the provided Player.
      *
      * @param player The Player to check for invite status.
      * @return True if the Player is invited to this Warp; false otherwise.
      */
     public boolean isInvited(Player player) {
-        return this.isInvited(player.getName());
+        return this.isInvited(player, this.plugin.getPlayerDictionary().find(player.getName()));
+    }
+
+    /**
+     * Check whether the given Player, whose player id is already known, is invited to
+     * this Warp. Used when checking many warps for the same Player.
+     *
+     * @param player   The Player to check for invite status.
+     * @param playerId The id of the Player in the plugin's player dictionary, or -1.
+     * @return True if the Player is invited to this Warp; false otherwise.
+     */
+    public boolean isInvited(Player player, int playerId) {
+        if (this.isInvited(playerId)) {
+            return true;
+        }
+        for (String node : this.groupNodes) {
+            if (player.hasPermission(node)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Check whether the given player is invited to this Warp. Only applicable for
-     * private warps; regardless of return value, a public warp will be accessible to
-     * the provided player.
+     * Check whether the given player is invited to this Warp by name or because this
+     * Warp is shared with everyone. Group invites need a Player; see #isInvited(Player).
+     * Only applicable for private warps; regardless of return value, a public warp will
+     * be accessible to the provided player.
      *
      * @param playerName The player to check for invite status.
      * @return True if the player is invited to this Warp; false otherwise.
      */
     public boolean isInvited(String playerName) {
-        return this.invitees.contains(playerName);
+        return this.isInvited(this.plugin.getPlayerDictionary().find(playerName));
+    }
+
+    /**
+     * Check whether the player with the given id is invited to this Warp by name or
+     * because this Warp is shared with everyone. Only applicable for private warps.
+     *
+     * @param playerId The id of the player in the plugin's player dictionary, or -1.
+     * @return True if the player is invited to this Warp; false otherwise.
+     */
+    public boolean isInvited(int playerId) {
+        return this.sharedWithEveryone || (playerId >= 0 && Arrays.binarySearch(this.invitees, playerId) >= 0);
     }
 
     /**
@@ -277,9 +587,48 @@ public class Warp {
      * @param playerName The player to invite to this Warp.
      */
     public void addInvitee(String playerName) {
-        if (!this.invitees.contains(playerName)) {
-            this.invitees.add(playerName);
+        this.addInvitees(Collections.singleton(playerName));
+    }
+
+    /**
+     * Invite all of the given players to this Warp at once. The invitee array is
+     * rebuilt a single time however many players are added. Only applicable for
+     * private warps.
+     *
+     * @param playerNames The players to invite to this Warp.
+     * @return The number of players newly invited.
+     */
+    public int addInvitees(Collection<String> playerNames) {
+        int[] added = new int[playerNames.size()];
+        int count = 0;
+        for (String playerName : playerNames) {
+            added[count++] = this.plugin.getPlayerDictionary().idFor(playerName);
+        }
+        Arrays.sort(added);
+
+        // Merge the two sorted arrays, dropping duplicates
+        int[] current = this.invitees;
+        int[] merged = new int[current.length + count];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.length || j < count) {
+            int next;
+            if (j == count || (i < current.length && current[i] <= added[j])) {
+                next = current[i++];
+            } else {
+                next = added[j++];
+            }
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+
+        int newlyInvited = size - current.length;
+        if (newlyInvited > 0) {
+            this.invitees = Arrays.copyOf(merged, size);
         }
+        return newlyInvited;
     }
 
     /**
@@ -298,7 +647,103 @@ public class Warp {
      * @param playerName The player to uninvite from this Warp.
      */
     public void removeInvitee(String playerName) {
-        this.invitees.remove(playerName);
+        this.removeInvitees(Collections.singleton(playerName));
+    }
+
+    /**
+     * Uninvite all of the given players from this Warp at once. The invitee array is
+     * rebuilt a single time however many players are removed. Only applicable for
+     * private warps.
+     *
+     * @param playerNames The players to uninvite from this Warp.
+     * @return The number of players who were invited and no longer are.
+     */
+    public int removeInvitees(Collection<String> playerNames) {
+        int[] current = this.invitees;
+        int[] kept = new int[current.length];
+        int size = 0;
+        Set<Integer> removed = new HashSet<Integer>();
+        for (String playerName : playerNames) {
+            removed.add(this.plugin.getPlayerDictionary().find(playerName));
+        }
+        for (int id : current) {
+            if (!removed.contains(id)) {
+                kept[size++] = id;
+            }
+        }
+
+        int uninvited = current.length - size;
+        if (size == 0) {
+            this.invitees = NO_INVITEES;
+        } else if (uninvited > 0) {
+            this.invitees = Arrays.copyOf(kept, size);
+        }
+        return uninvited;
+    }
+
+    /**
+     * Check whether every player may use this Warp as if invited.
+     *
+     * @return True if this Warp is shared with everyone.
+     */
+    public boolean isSharedWithEveryone() {
+        return this.sharedWithEveryone;
+    }
+
+    /**
+     * Share this Warp with every player, or stop doing so. Invites by name and by
+     * group are kept either way.
+     *
+     * @param everyone True to share this Warp with everyone.
+     */
+    public void setSharedWithEveryone(boolean everyone) {
+        this.sharedWithEveryone = everyone;
+    }
+
+    /**
+     * Get the permission groups invited to this Warp.
+     *
+     * @return An unmodifiable list of group names.
+     */
+    public List<String> getGroups() {
+        List<String> result = new ArrayList<String>(this.groupNodes.length);
+        for (String node : this.groupNodes) {
+            result.add(node.substring(GROUP_PERMISSION_PREFIX.length()));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Invite a permission group to this Warp. A Player is in the group if they have
+     * the permission <code>group.NAME</code>, as granted by most permissions plugins.
+     *
+     * @param group The name of the group to invite.
+     * @return True if the group was not already invited.
+     */
+    public boolean addGroup(String group) {
+        String node = GROUP_PERMISSION_PREFIX + group.toLowerCase();
+        if (Arrays.asList(this.groupNodes).contains(node)) {
+            return false;
+        }
+        String[] grown = Arrays.copyOf(this.groupNodes, this.groupNodes.length + 1);
+        grown[this.groupNodes.length] = node;
+        this.groupNodes = grown;
+        return true;
+    }
+
+    /**
+     * Uninvite a permission group from this Warp.
+     *
+     * @param group The name of the group to uninvite.
+     * @return True if the group was invited.
+     */
+    public boolean removeGroup(String group) {
+        List<String> nodes = new ArrayList<String>(Arrays.asList(this.groupNodes));
+        if (!nodes.remove(GROUP_PERMISSION_PREFIX + group.toLowerCase())) {
+            return false;
+        }
+        this.groupNodes = (nodes.isEmpty() ? NO_GROUPS : nodes.toArray(new String[nodes.size()])); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        return true;
     }
 
     /**
@@ -313,34 +758,76 @@ public class Warp {
     public Map<String, Object> getConfigurationMap() {
         Map<String, Object> result = new HashMap<String, Object>();
 
-        result.put(X_KEY, this.location.getX());
-        result.put(Y_KEY, this.location.getY());
-        result.put(Z_KEY, this.location.getZ());
-        result.put(PITCH_KEY, this.location.getPitch());
-        result.put(YAW_KEY, this.location.getYaw());
+        result.put(X_KEY, this.x);
+        result.put(Y_KEY, this.y);
+        result.put(Z_KEY, this.z);
+        result.put(PITCH_KEY, this.pitch);
+        result.put(YAW_KEY, this.yaw);
 
-        if (this.location.getWorld() == null) {
+        String worldName = this.getWorldName();
+        if (worldName == null) {
             OpenWarp.LOG.severe(OpenWarp.LOG_PREFIX + "Saving warp with no loaded target world! Please check your configuration.");
             // Used to be marked as bug #22 (see https://github.com/PneumatiCraft/OpenWarp/issues/22)
             // In fixes for #47, removing bug marker to handle null-world condition
         } else {
-            result.put(WORLD_KEY, this.location.getWorld().getName());
+            result.put(WORLD_KEY, worldName);
+        }
+
+        result.put(OWNER_KEY, this.getOwner());
+        result.put(INVITEES_KEY, this.getInvitees());
+        if (this.sharedWithEveryone) {
+            result.put(EVERYONE_KEY, true);
+        }
+        if (this.groupNodes.length > 0) {
+            result.put(GROUPS_KEY, new ArrayList<String>(this.getGroups()));
         }
 
-        result.put(OWNER_KEY, this.owner);
-        result.put(INVITEES_KEY, this.invitees);
+        if (this.safeTeleport) {
+            result.put(SAFE_KEY, true);
+            result.put(LANDING_KEY, this.landingY);
+        }
 
         return result;
     }
 
     /**
-     * Check whether to use the Multiverse safe teleporter when moving to this
-     * Warp as a Multiverse destination.
+     * Check whether to use a safe teleporter when moving to this Warp, either
+     * through OpenWarp itself or as a Multiverse destination.
      *
-     * @return True.
+     * @return True if players should be moved to a safe landing near this Warp.
      */
     public boolean useSafeTeleporter() {
-        // TODO Add methods to set this to false when necessary.
-        return true;
+        return this.safeTeleport;
+    }
+
+    /**
+     * Set whether players moving to this Warp should be placed on the nearest
+     * safe landing. Turning safe teleport off forgets any precomputed landing.
+     *
+     * @param safe True to enable safe teleport for this Warp.
+     */
+    public void setSafeTeleport(boolean safe) {
+        this.safeTeleport = safe;
+        if (!safe) {
+            this.landingY = BlockSafety.NO_LANDING;
+        }
+    }
+
+    /**
+     * Get the precomputed feet Y-coordinate of this Warp's safe landing.
+     *
+     * @return The landing Y-coordinate, or BlockSafety.NO_LANDING if unknown.
+     */
+    public int getLandingY() {
+        return this.landingY;
+    }
+
+    /**
+     * Record the feet Y-coordinate of this Warp's safe landing.
+     *
+     * @param y The landing Y-coordinate, or BlockSafety.NO_LANDING.
+     */
+    public void setLandingY(int y) {
+        this.landingY = y;
     }
 }
@@ -0,0 +1,128 @@
+package com.lithium3141.OpenWarp.api;
+
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.Location;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Service through which other plugins read and change OpenWarp's warps. An
+ * implementation is registered with Bukkit's ServicesManager while OpenWarp is
+ * enabled:
+ * <pre>
+ * RegisteredServiceProvider&lt;OpenWarpService&gt; rsp =
+ *     getServer().getServicesManager().getRegistration(OpenWarpService.class);
+ * </pre>
+ * Every method may be called from any thread and returns a Future. Lookups are
+ * answered from the latest published warp snapshot without waiting for the
+ * main thread, so their futures are already complete. Creates and deletes run
+ * on the main thread; a new snapshot is published and the change is saved
+ * before their futures complete, so once a change's future has completed,
+ * every later lookup sees it. Changes made by OpenWarp's own commands become
+ * visible to lookups by the next tick.
+ * Calling Future#get() for a change from the main thread is safe: such changes
+ * run immediately.
+ * <p/>
+ * Owners are given by player name; a null owner means public warps. Warps
+ * returned by this service must be treated as read-only.
+ * <p/>
+ * Callers of this service are exempt from OpenWarp's warp quotas: creates are
+ * never refused for going over an owner's limit, since limits depend on the
+ * permissions of an owner who may be offline. Plugins creating warps on behalf
+ * of players should enforce any limits they need themselves.
+ * <p/>
+ * Single creates and deletes fire the same cancellable WarpCreateEvent and
+ * WarpDeleteEvent as the warp commands. Batch operations fire no per-warp
+ * events; every change is reported by a single WarpsChangedEvent.
+ */
+public interface OpenWarpService {
+
+    /**
+     * The version of this interface. Increased whenever methods are added; callers
+     * needing newer methods should check #getApiVersion() first.
+     */
+    int API_VERSION = 1;
+
+    /**
+     * Get the version of this interface implemented by the running OpenWarp.
+     *
+     * @return The implemented API version.
+     */
+    int getApiVersion();
+
+    /**
+     * Look up a warp by name, ignoring case.
+     *
+     * @param owner    The owner of the private warp, or null for a public warp.
+     * @param warpName The name of the warp.
+     * @return A Future yielding the Warp, or null if there is no such warp.
+     */
+    Future<Warp> findWarp(String owner, String warpName);
+
+    /**
+     * Find warps whose names start with the given prefix, ignoring case.
+     *
+     * @param owner  The owner of the private warps to search, or null for public warps.
+     * @param prefix The name prefix; the empty string matches every warp.
+     * @param limit  The maximum number of warps to return.
+     * @return A Future yielding the matching warps, sorted by name.
+     */
+    Future<List<Warp>> searchWarps(String owner, String prefix, int limit);
+
+    /**
+     * Find the warps nearest to the given Location, within a radius and in the same world.
+     *
+     * @param owner    The owner of the private warps to search, or null for public warps.
+     * @param location The Location to search around.
+     * @param radius   The maximum distance of a warp from the Location.
+     * @param limit    The maximum number of warps to return.
+     * @return A Future yielding the matching warps, nearest first.
+     */
+    Future<List<Warp>> findNearbyWarps(String owner, Location location, double radius, int limit);
+
+    /**
+     * Create a warp, or move an existing warp of the same name, and save it. Not
+     * subject to warp quotas.
+     *
+     * @param owner    The owner of the new private warp, or null for a public warp.
+     * @param warpName The name of the warp.
+     * @param location The destination of the warp.
+     * @param creator  The name of the player recorded as the owner of a public warp.
+     * @return A Future yielding the new Warp, or null if a listener cancelled its creation.
+     */
+    Future<Warp> createWarp(String owner, String warpName, Location location, String creator);
+
+    /**
+     * Create or move many warps of the same scope at once. The warps are saved once,
+     * and permissions recalculated once, for the whole batch. Not subject to warp
+     * quotas.
+     *
+     * @param owner     The owner of the new private warps, or null for public warps.
+     * @param locations The destinations of the warps, mapped to by warp name.
+     * @param creator   The name of the player recorded as the owner of public warps.
+     * @return A Future yielding the new Warps.
+     */
+    Future<List<Warp>> createWarps(String owner, Map<String, Location> locations, String creator);
+
+    /**
+     * Delete a warp and save the change.
+     *
+     * @param owner    The owner of the private warp, or null for a public warp.
+     * @param warpName The exact name of the warp.
+     * @return A Future yielding true if the warp existed and was deleted, or false if it
+     *         did not exist or a listener cancelled its deletion.
+     */
+    Future<Boolean> deleteWarp(String owner, String warpName);
+
+    /**
+     * Delete many warps of the same scope at once, saving once for the whole batch.
+     *
+     * @param owner     The owner of the private warps, or null for public warps.
+     * @param warpNames The exact names of the warps.
+     * @return A Future yielding the number of warps that existed and were deleted.
+     */
+    Future<Integer> deleteWarps(String owner, Collection<String> warpNames);
+}
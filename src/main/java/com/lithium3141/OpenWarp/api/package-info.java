@@ -0,0 +1,6 @@
+/**
+ * Public API for other plugins. Plugins should look up the OpenWarpService
+ * through Bukkit's ServicesManager rather than reaching into the OpenWarp
+ * plugin instance and its warp maps.
+ */
+package com.lithium3141.OpenWarp.api;
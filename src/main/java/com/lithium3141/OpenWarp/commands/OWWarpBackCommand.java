@@ -1,7 +1,9 @@
 package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWLocationHistory;
 import com.lithium3141.OpenWarp.OWLocationTracker;
+import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -11,12 +13,16 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.util.List;
 
 /**
- * List all warps visible to a player. Separates public from private warps.
+ * Return to a previous teleport or death location. With no arguments, moves
+ * the player to their most recent previous location; with a number N, moves
+ * them N steps back through their history. <code>/back list</code> shows the
+ * history instead of moving. Locations passed over or used are removed from
+ * the history.
  */
 public class OWWarpBackCommand extends OWCommand {
 
     /**
-     * Create a new instance of the warp list command. Used in command registration.
+     * Create a new instance of the warp back command. Used in command registration.
      *
      * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
      */
@@ -24,23 +30,81 @@ public class OWWarpBackCommand extends OWCommand {
         super(plugin);
 
         this.setName("back");
-        this.setArgRange(0, 0); // SUPPRESS CHECKSTYLE MagicNumberCheck
-        this.setCommandUsage("/back");
+        this.setArgRange(0, 1); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.setCommandUsage("/back [STEPS|list]");
         this.addCommandExample("/back");
+        this.addCommandExample("/back 3");
+        this.addCommandExample("/back list");
         this.setPermission("openwarp.warp.back", "Warp to last teleport location", PermissionDefault.TRUE);
         this.addKey("back");
-        this.addKey("back", 0, 0);
+        this.addKey("back", 0, 1);
     }
 
     @Override
     public void runCommand(CommandSender sender, List<String> args) {
+        if (!this.checkPlayerSender(sender)) return; // SUPPRESS CHECKSTYLE NeedBracesCheck
         String playerName = sender.getName();
-
         OWLocationTracker tracker = getPlugin().getLocationTracker();
-        Location loc = tracker.getPreviousLocation(playerName);
-        if (loc != null) {
-            ((Player) sender).teleport(loc);
-            tracker.clearPreviousLocation(playerName);
+
+        if (args.size() > 0 && args.get(0).equalsIgnoreCase("list")) {
+            this.sendHistory(sender, tracker);
+            return;
+        }
+
+        int steps = 1;
+        if (args.size() > 0) {
+            try {
+                steps = Integer.parseInt(args.get(0));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.YELLOW + this.getCommandUsage());
+                return;
+            }
+        }
+
+        OWLocationHistory history = tracker.getHistory(playerName);
+        int size = (history == null ? 0 : history.size()); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        if (steps < 1 || steps > size) {
+            sender.sendMessage(ChatColor.RED + "You only have " + size + " previous location(s).");
+            return;
+        }
+
+        Location loc = tracker.getPreviousLocation(playerName, steps - 1);
+        if (loc == null) {
+            sender.sendMessage(ChatColor.RED + "That location's world is not loaded.");
+            return;
+        }
+
+        tracker.suppressRecording(playerName);
+        try {
+            if (((Player) sender).teleport(loc)) {
+                tracker.clearPreviousLocations(playerName, steps);
+                getPlugin().getMetrics().counter("teleport.back.succeeded").increment();
+            } else {
+                getPlugin().getMetrics().counter("teleport.back.failed").increment();
+            }
+        } finally {
+            tracker.suppressRecording(null);
+        }
+    }
+
+    /**
+     * Send the sender's location history to them, most recent first.
+     *
+     * @param sender  The CommandSender whose history to list.
+     * @param tracker The location tracker holding the history.
+     */
+    private void sendHistory(CommandSender sender, OWLocationTracker tracker) {
+        OWLocationHistory history = tracker.getHistory(sender.getName());
+        if (history == null || history.size() == 0) {
+            sender.sendMessage(ChatColor.AQUA + "No previous locations.");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.AQUA + "Previous locations (most recent first):");
+        for (int i = 0; i < history.size(); i++) {
+            sender.sendMessage(ChatColor.YELLOW + "  " + (i + 1) + ": " + ChatColor.WHITE
+                    + String.format("(%.1f, %.1f, %.1f) in world '%s'", history.getX(i), history.getY(i), history.getZ(i),
+                    tracker.getWorldName(history.getWorld(i))));
         }
     }
 }
@@ -1,21 +1,31 @@
 package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWCoordinateDestination;
+import com.lithium3141.OpenWarp.OWDebug;
+import com.lithium3141.OpenWarp.OWTeleportQueue;
 import com.lithium3141.OpenWarp.OpenWarp;
 import com.lithium3141.OpenWarp.Warp;
-import com.lithium3141.OpenWarp.util.LocationUtil;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.List;
+import java.util.logging.Level;
 
 /**
  * Move to a particular warp. This command searches public warps, then
  * the calling player's private warps. If no warp is found matching
- * the requested name, prints a message and does nothing.
+ * the requested name, prints a message and does nothing. Warps marked
+ * safe move the player to their precomputed safe landing instead.
+ * Coordinates, written <code>[world:]x,y,z</code>, move the player to that
+ * exact block.
+ * <p/>
+ * Teleports go through the plugin's teleport queue, so a burst of
+ * warps to the same place is spread across several ticks.
  */
 public class OWWarpCommand extends OWCommand {
 
@@ -31,6 +41,7 @@ public class OWWarpCommand extends OWCommand {
         this.setArgRange(1, 1);
         this.setCommandUsage("/warp {NAME}");
         this.addCommandExample("/warp public");
+        this.addCommandExample("/warp world:100,64,-20");
         this.setPermission("openwarp.warp.use", "Teleport to a warp", PermissionDefault.TRUE);
         this.addKey("warp", 1, 1);
     }
@@ -40,8 +51,24 @@ public class OWWarpCommand extends OWCommand {
         if (!this.checkPlayerSender(sender)) return; // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
         Player player = (Player) sender;
 
+        // Coordinates are not warps; move there directly
+        final String warpName = args.get(0);
+        OWCoordinateDestination coordinates = OWCoordinateDestination.parse(warpName);
+        if (coordinates != null) {
+            if (!getPlugin().hasPermission(sender, "openwarp.warp.coordinates", true)) {
+                sender.sendMessage(ChatColor.RED + "You don't have permission to move to coordinates: " + warpName);
+                return;
+            }
+            Location location = coordinates.getLocation(this.getPlugin().getServer(), player.getWorld());
+            if (location == null) {
+                sender.sendMessage(ChatColor.RED + "No world found matching name: " + coordinates.getWorldName());
+                return;
+            }
+            this.submit(player, location, warpName);
+            return;
+        }
+
         // Locate the warp
-        String warpName = args.get(0);
         Warp target = this.getPlugin().getWarp(sender, warpName);
         if (target == null) {
             sender.sendMessage(ChatColor.RED + "No warp found matching name: " + warpName);
@@ -75,11 +102,41 @@ public class OWWarpCommand extends OWCommand {
             return;
         }
 
-        OpenWarp.DEBUG_LOG.fine("Executing warp for " + player.getName() + " to " + LocationUtil.getHumanReadableString(target.getLocation()));
-        OpenWarp.DEBUG_LOG.finest("    ...chunk is loaded: " + target.getLocation().getChunk().isLoaded());
-        if (!player.teleport(target.getLocation())) {
-            player.sendMessage(ChatColor.RED + "Error teleporting to warp: " + warpName);
+        Location destination = target.getLocation();
+        if (target.useSafeTeleporter()) {
+            destination = this.getPlugin().getSafeLandingService().getSafeLocation(target);
+            if (destination == null) {
+                sender.sendMessage(ChatColor.RED + "No safe landing spot at warp: " + warpName);
+                return;
+            }
+        }
+
+        this.getPlugin().getHotWarpTracker().recordUse(target);
+
+        this.submit(player, destination, warpName);
+    }
+
+    /**
+     * Queue a teleport of the given player, reporting failure to them.
+     *
+     * @param player      The Player to move.
+     * @param destination The Location to move the player to.
+     * @param warpName    The destination as the player gave it, for messages.
+     */
+    private void submit(Player player, Location destination, final String warpName) {
+        OWDebug.fine("Executing warp for {} to {}", player.getName(), destination);
+        if (OWDebug.isEnabled(Level.FINEST)) {
+            OWDebug.finest("    ...chunk is loaded: {}", destination.getChunk().isLoaded());
         }
+        this.getPlugin().getTeleportQueue().submit(player, destination, new OWTeleportQueue.Callback() {
+            @Override
+            public void teleportFinished(String playerName, Location dest, OWTeleportQueue.Outcome outcome) {
+                Player p = getPlugin().getServer().getPlayerExact(playerName);
+                if (outcome == OWTeleportQueue.Outcome.FAILED && p != null) {
+                    p.sendMessage(ChatColor.RED + "Error teleporting to warp: " + warpName);
+                }
+            }
+        });
     }
 
 }
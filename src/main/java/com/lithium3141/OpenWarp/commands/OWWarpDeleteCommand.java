@@ -2,13 +2,15 @@ package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
 import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpDeleteEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissionDefault;
-import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -37,7 +39,8 @@ public class OWWarpDeleteCommand extends OWCommand {
     @Override
     public void runCommand(CommandSender sender, List<String> args) {
         String warpName = args.get(0);
-        String permString = null;
+        Warp removed = null;
+        boolean removedPublic = false;
 
         // Remove warp
         if (this.getPlugin().getPublicWarps().containsKey(warpName)) {
@@ -54,10 +57,15 @@ public class OWWarpDeleteCommand extends OWCommand {
                 return;
             }
 
+            if (!this.allowDelete(sender, warp)) {
+                return;
+            }
+
             // Do the delete
-            if (this.getPlugin().getPublicWarps().remove(warpName) != null) {
+            removed = this.getPlugin().getPublicWarps().remove(warpName);
+            if (removed != null) {
                 sender.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "removed public warp '" + warpName + "'");
-                permString = "openwarp.warp.access.public." + warpName;
+                removedPublic = true;
                 this.getPlugin().getConfigurationManager().saveGlobalConfiguration();
             } else {
                 sender.sendMessage(ChatColor.RED + "No such public warp: " + warpName);
@@ -73,9 +81,14 @@ public class OWWarpDeleteCommand extends OWCommand {
                 return;
             }
 
-            if (this.getPlugin().getPrivateWarps(playerName).remove(warpName) != null) {
+            Warp warp = this.getPlugin().getPrivateWarps(playerName).get(warpName);
+            if (warp != null && !this.allowDelete(sender, warp)) {
+                return;
+            }
+
+            removed = this.getPlugin().getPrivateWarps(playerName).remove(warpName);
+            if (removed != null) {
                 sender.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "removed private warp '" + warpName + "'");
-                permString = "openwarp.warp.access.private." + playerName + "." + warpName;
                 this.getPlugin().getConfigurationManager().savePlayerConfiguration(playerName);
             } else {
                 sender.sendMessage(ChatColor.RED + "No such warp: " + warpName);
@@ -84,13 +97,28 @@ public class OWWarpDeleteCommand extends OWCommand {
         }
 
         // Remove permission
-        if (permString != null) {
-            PluginManager pm = this.getPlugin().getServer().getPluginManager();
-            pm.removePermission(permString);
-            for (Player p : this.getPlugin().getServer().getOnlinePlayers()) {
-                p.recalculatePermissions();
-            }
+        if (removed != null) {
+            this.getPlugin().unregisterAccessPermissions(Collections.singletonList(removed), removedPublic);
+            this.getPlugin().getHotWarpTracker().forget(removed, removedPublic);
+            this.getPlugin().fireWarpChange(new WarpChange(WarpChange.Type.DELETED, removed, removedPublic));
+        }
+    }
+
+    /**
+     * Ask listeners whether the given warp may be deleted.
+     *
+     * @param sender The CommandSender deleting the warp.
+     * @param warp   The warp to delete.
+     * @return True if no listener cancelled the deletion.
+     */
+    private boolean allowDelete(CommandSender sender, Warp warp) {
+        WarpDeleteEvent deleteEvent = new WarpDeleteEvent(warp, sender.getName());
+        this.getPlugin().getServer().getPluginManager().callEvent(deleteEvent);
+        if (deleteEvent.isCancelled()) {
+            sender.sendMessage(ChatColor.RED + "Deletion of warp '" + warp.getName() + "' was cancelled.");
+            return false;
         }
+        return true;
     }
 
 }
@@ -0,0 +1,48 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWHotWarpTracker;
+import com.lithium3141.OpenWarp.OWHotWarpTracker.HeldChunk;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * Show which chunks are being kept loaded for heavily-used warps, and why.
+ */
+public class OWWarpHotCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp hot command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpHotCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp hot");
+        this.setArgRange(0, 0);
+        this.setCommandUsage("/warp hot");
+        this.addCommandExample("/warp hot");
+        this.setPermission("openwarp.warp.hot", "Show chunks held for heavily-used warps", PermissionDefault.OP);
+        this.addKey("warp hot");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        OWHotWarpTracker tracker = this.getPlugin().getHotWarpTracker();
+        List<HeldChunk> held = tracker.getHeldChunks();
+
+        sender.sendMessage(ChatColor.AQUA + "Held chunks: " + ChatColor.WHITE + held.size() + "/" + tracker.getMaxChunks()
+                + " (" + tracker.getRefusedUnloads() + " unloads refused)");
+        for (HeldChunk chunk : held) {
+            sender.sendMessage("    " + ChatColor.YELLOW + chunk.getWorldName() + " (" + chunk.getChunkX() + ", " + chunk.getChunkZ() + ")"
+                    + ChatColor.WHITE + " for warp " + ChatColor.GREEN + chunk.getWarpName()
+                    + ChatColor.WHITE + String.format(" (score %.1f)", chunk.getScore()));
+        }
+    }
+
+}
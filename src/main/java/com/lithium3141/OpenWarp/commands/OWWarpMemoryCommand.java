@@ -0,0 +1,48 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWPlayerStateManager;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Show how much per-player runtime state OpenWarp is holding, by structure.
+ */
+public class OWWarpMemoryCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp memory command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpMemoryCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp memory");
+        this.setArgRange(0, 0);
+        this.setCommandUsage("/warp memory");
+        this.addCommandExample("/warp memory");
+        this.setPermission("openwarp.warp.memory", "Show per-player state held in memory", PermissionDefault.OP);
+        this.addKey("warp memory");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        OWPlayerStateManager manager = this.getPlugin().getPlayerStateManager();
+
+        sender.sendMessage(ChatColor.AQUA + "Per-player state:");
+        for (Entry<String, Integer> entry : manager.getEntryCounts().entrySet()) {
+            sender.sendMessage("    " + ChatColor.YELLOW + entry.getKey() + ": " + ChatColor.WHITE + entry.getValue());
+        }
+        sender.sendMessage("    " + ChatColor.YELLOW + "histories awaiting save: " + ChatColor.WHITE
+                + this.getPlugin().getLocationHistoryStore().getRetiredCount());
+        sender.sendMessage(ChatColor.AQUA + "Offline players in grace period: " + ChatColor.WHITE + manager.getPendingCount()
+                + " (" + manager.getGraceMinutes() + " min; " + manager.getReleasedCount() + " released)");
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWQuotaManager;
+import com.lithium3141.OpenWarp.OWWarpCounter;
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.ChatColor;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * Show how many public and private warps the calling player owns against
+ * their quota, overall and in one world: the given world, or the player's
+ * current world by default.
+ */
+public class OWWarpQuotaCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp quota command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpQuotaCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp quota");
+        this.setArgRange(0, 1);
+        this.setCommandUsage("/warp quota [WORLD]");
+        this.addCommandExample("/warp quota");
+        this.addCommandExample("/warp quota world_nether");
+        this.setPermission("openwarp.warp.quota", "Show your warp quota usage", PermissionDefault.TRUE);
+        this.addKey("warp quota");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        if (!this.checkPlayerSender(sender)) return; // SUPPRESS CHECKSTYLE NeedBracesCheck
+        Player player = (Player) sender;
+
+        World world = player.getWorld();
+        if (args.size() > 0) {
+            world = this.getPlugin().getServer().getWorld(args.get(0));
+            if (world == null) {
+                sender.sendMessage(ChatColor.RED + "No world found matching name: " + args.get(0));
+                return;
+            }
+        }
+        String worldName = world.getName();
+
+        int ownerId = this.getPlugin().getPlayerDictionary().find(player.getName());
+        int worldId = this.getPlugin().getWorldDictionary().find(worldName);
+        sender.sendMessage(ChatColor.AQUA + "Warp usage (overall, in " + worldName + "):");
+        for (Warp.Scope scope : new Warp.Scope[] {Warp.Scope.PUBLIC, Warp.Scope.PRIVATE}) {
+            sender.sendMessage("    " + ChatColor.YELLOW + scope.name().toLowerCase() + ": " + ChatColor.WHITE
+                    + this.usage(player, scope, ownerId, null, -1) + ", "
+                    + this.usage(player, scope, ownerId, worldName, worldId));
+        }
+    }
+
+    /**
+     * Describe a player's usage of one quota.
+     *
+     * @param player    The player.
+     * @param scope     The scope of the warps.
+     * @param ownerId   The player's id in the plugin's player dictionary.
+     * @param worldName The world the quota applies within, or null for the overall quota.
+     * @param worldId   The id of the world in the plugin's world dictionary, or -1.
+     * @return The number of warps owned and the limit, e.g. <code>3/10</code>.
+     */
+    private String usage(Player player, Warp.Scope scope, int ownerId, String worldName, int worldId) {
+        OWWarpCounter counter = this.getPlugin().getWarpCounter();
+        OWQuotaManager quotas = this.getPlugin().getQuotaManager();
+
+        int count;
+        if (worldName == null) {
+            count = counter.getCount(scope, ownerId);
+        } else {
+            count = counter.getCount(scope, ownerId, worldId);
+        }
+
+        int limit = OWQuotaManager.UNLIMITED;
+        if (!quotas.isExempt(player)) {
+            limit = quotas.getLimit(player, scope, worldName);
+        }
+        return count + "/" + (limit == OWQuotaManager.UNLIMITED ? "unlimited" : String.valueOf(limit)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+}
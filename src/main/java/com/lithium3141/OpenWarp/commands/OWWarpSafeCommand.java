@@ -0,0 +1,82 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * Turn safe teleport on or off for a warp. When safe teleport is on, players
+ * moving to the warp are placed on the nearest safe landing in the warp's
+ * column instead of its exact location. The landing is computed immediately
+ * so that a warp without any safe spot is reported to its owner right away.
+ */
+public class OWWarpSafeCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp safe command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpSafeCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp safe");
+        this.setArgRange(2, 2);
+        this.setCommandUsage("/warp safe {NAME} {on|off}");
+        this.addCommandExample("/warp safe community on");
+        this.setPermission("openwarp.warp.safe", "Toggle safe teleport for a warp", PermissionDefault.OP);
+        this.addKey("warp safe");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        String warpName = args.get(0);
+        String mode = args.get(1);
+
+        boolean safe;
+        if (mode.equalsIgnoreCase("on")) {
+            safe = true;
+        } else if (mode.equalsIgnoreCase("off")) {
+            safe = false;
+        } else {
+            sender.sendMessage(ChatColor.YELLOW + this.getCommandUsage());
+            return;
+        }
+
+        Warp warp = this.getPlugin().getWarp(sender, warpName);
+        if (warp == null) {
+            sender.sendMessage(ChatColor.RED + "No warp found matching name: " + warpName);
+            return;
+        }
+        if (!warp.isPublic() && !warp.getOwner().equals(sender.getName())) {
+            sender.sendMessage(ChatColor.RED + "You can only change safe teleport on your own warps.");
+            return;
+        }
+
+        warp.setSafeTeleport(safe);
+        if (safe) {
+            if (warp.getLocation().getWorld() == null) {
+                sender.sendMessage(ChatColor.RED + "Warp '" + warp.getName() + "' has no world; cannot find a safe landing.");
+            } else {
+                Location landing = this.getPlugin().getSafeLandingService().getSafeLocation(warp);
+                if (landing == null) {
+                    sender.sendMessage(ChatColor.YELLOW + "Warning: " + ChatColor.WHITE + "no safe landing near warp '" + warp.getName() + "'; teleports will be refused until one exists.");
+                }
+            }
+        }
+
+        if (warp.isPublic()) {
+            this.getPlugin().getConfigurationManager().saveGlobalConfiguration();
+        } else {
+            this.getPlugin().getConfigurationManager().savePlayerConfiguration(warp.getOwner());
+        }
+        sender.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "safe teleport " + (safe ? "enabled" : "disabled") + " for warp '" + warp.getName() + "'"); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWGroupTeleport;
+import com.lithium3141.OpenWarp.util.PlayerSelector;
+import com.lithium3141.OpenWarp.util.StringUtil;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Send a group of players to a warp. The group is given as a selector
+ * (see PlayerSelector); the warp and the sender's access to it are checked
+ * once for the whole group, and the teleports are spread across ticks.
+ */
+public class OWWarpSendCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp send command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpSendCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp send");
+        this.setArgRange(2, 2);
+        this.setCommandUsage("/warp send {NAME} {PLAYER[,PLAYER...]|*|@world:WORLD|@perm:NODE}");
+        this.addCommandExample("/warp send arena Alice,Bob");
+        this.addCommandExample("/warp send spawn @world:event");
+        this.setPermission("openwarp.warp.send", "Send a group of players to a warp", PermissionDefault.OP);
+        this.addKey("warp send");
+    }
+
+    @Override
+    public void runCommand(final CommandSender sender, List<String> args) {
+        final String warpName = args.get(0);
+        String selector = args.get(1);
+
+        List<String> unresolved = new ArrayList<String>();
+        List<Player> players = PlayerSelector.select(this.getPlugin().getServer(), selector, unresolved);
+        if (players == null) {
+            sender.sendMessage(ChatColor.RED + "No such world in selector: " + selector);
+            return;
+        }
+        if (unresolved.size() > 0) {
+            sender.sendMessage(ChatColor.YELLOW + "Not online: " + ChatColor.WHITE + StringUtil.arrayJoin(unresolved.toArray(new String[0]), ", "));
+        }
+        if (players.size() == 0) {
+            sender.sendMessage(ChatColor.RED + "No players matched: " + selector);
+            return;
+        }
+
+        OWGroupTeleport batch = this.getPlugin().sendToWarp(sender, warpName, players, new OWGroupTeleport.Callback() {
+            @Override
+            public void groupTeleportFinished(OWGroupTeleport finished) {
+                sender.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "sent " + finished.getSucceeded().size()
+                        + "/" + finished.getTotal() + " players to warp '" + warpName + "'");
+                if (finished.getFailed().size() > 0) {
+                    sender.sendMessage(ChatColor.RED + "Failed: " + ChatColor.WHITE + StringUtil.arrayJoin(finished.getFailed().toArray(new String[0]), ", "));
+                }
+            }
+        });
+        if (batch.getError() != null) {
+            sender.sendMessage(ChatColor.RED + batch.getError());
+        } else if (batch.getSucceeded().size() + batch.getFailed().size() < batch.getTotal()) {
+            sender.sendMessage(ChatColor.AQUA + "Sending " + batch.getTotal() + " players to warp '" + warpName + "'...");
+        }
+    }
+
+}
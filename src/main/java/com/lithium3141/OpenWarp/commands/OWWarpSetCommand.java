@@ -1,17 +1,18 @@
 package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
-import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.OWDebug;
 import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpCreateEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
-import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionDefault;
-import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,6 +20,10 @@ import java.util.List;
  * the player's current location. Private warp names may overlap
  * between different players. This command will fail if the setting
  * player is at their warp quota for the specified warp type.
+ * <p/>
+ * Warps may be marked safe when set; a safe warp has its landing spot
+ * validated and precomputed here rather than on every teleport. Moving
+ * an existing safe warp keeps it safe.
  */
 public class OWWarpSetCommand extends OWCommand {
 
@@ -31,9 +36,10 @@ public class OWWarpSetCommand extends OWCommand {
         super(plugin);
 
         this.setName("Warp set");
-        this.setArgRange(1, 2);
-        this.setCommandUsage("/warp set {NAME} [public|private]");
+        this.setArgRange(1, 3); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.setCommandUsage("/warp set {NAME} [public|private] [safe]");
         this.addCommandExample("/warp set community public");
+        this.addCommandExample("/warp set arena public safe");
         this.setPermission("openwarp.warp.set", "Create a new warp", PermissionDefault.OP);
         this.addKey("warp set");
         this.addKey("setwarp");
@@ -60,24 +66,49 @@ public class OWWarpSetCommand extends OWCommand {
             return;
         }
 
+        // Find safe teleport flag
+        boolean safe = false;
+        if (args.size() >= 3) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+            if (!args.get(2).equals("safe")) {
+                player.sendMessage(ChatColor.YELLOW + this.getCommandUsage());
+                return;
+            }
+            safe = true;
+        }
+
         // See if warp exists already - this affects quota checking
-        OpenWarp.DEBUG_LOG.fine("Checking for warp '" + args.get(0) + "' in " + warpType + " warps for player " + player.getName());
-        boolean warpExists = false;
+        OWDebug.fine("Checking for warp '{}' in {} warps for player {}", args.get(0), warpType, player.getName());
+        Warp existing = null;
         if (warpType.equals("public")) {
-            if (this.getPlugin().getPublicWarps().get(args.get(0)) != null) {
-                warpExists = true;
-            }
+            existing = this.getPlugin().getPublicWarps().get(args.get(0));
         } else if (warpType.equals("private")) {
-            if (this.getPlugin().getPrivateWarps().get(player.getName()).get(args.get(0)) != null) {
-                warpExists = true;
-            }
+            existing = this.getPlugin().getPrivateWarps().get(player.getName()).get(args.get(0));
         }
-        OpenWarp.DEBUG_LOG.fine("warp exists: " + warpExists);
+        boolean warpExists = (existing != null);
+        OWDebug.fine("warp exists: {}", warpExists);
 
-        //hey jf - you might want to check quota here
-
-        // Create and set warp
+        // Create warp and check it against the player's quota
         Warp warp = new Warp(this.getPlugin(), args.get(0), playerLoc, player.getName());
+        Warp.Scope scope = (warpType.equals("public") ? Warp.Scope.PUBLIC : Warp.Scope.PRIVATE); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        String quotaError = this.getPlugin().getQuotaManager().checkQuota(player, scope, warp, existing);
+        if (quotaError != null) {
+            player.sendMessage(ChatColor.RED + quotaError + " Use /warp quota to see your usage.");
+            return;
+        }
+
+        // Set warp
+        WarpCreateEvent createEvent = new WarpCreateEvent(warp, existing, warpType.equals("public"), player.getName());
+        this.getPlugin().getServer().getPluginManager().callEvent(createEvent);
+        if (createEvent.isCancelled()) {
+            player.sendMessage(ChatColor.RED + "Creation of warp '" + warp.getName() + "' was cancelled.");
+            return;
+        }
+        if (safe || (warpExists && existing.useSafeTeleporter())) {
+            warp.setSafeTeleport(true);
+            if (this.getPlugin().getSafeLandingService().getSafeLocation(warp) == null) {
+                player.sendMessage(ChatColor.YELLOW + "Warning: " + ChatColor.WHITE + "no safe landing here; teleports to this warp will be refused until one exists.");
+            }
+        }
         String successMsg = (warpExists ? "Moved" : "Created new"); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
         if (warpType.equals("public")) {
             this.getPlugin().getPublicWarps().put(warp.getName(), warp);
@@ -90,24 +121,9 @@ public class OWWarpSetCommand extends OWCommand {
         }
 
         // Create permission for warp
-        String permString = "";
-        if (warpType.equals("public")) {
-            permString = "openwarp.warp.access.public." + warp.getName();
-        } else if (warpType.equals("private")) {
-            permString = "openwarp.warp.access.private." + warp.getOwner() + "." + warp.getName();
-        }
-        Permission accessPerm = new Permission(permString, PermissionDefault.TRUE);
-        PluginManager pm = this.getPlugin().getServer().getPluginManager();
-        if (pm.getPermission(permString) == null) {
-            pm.addPermission(accessPerm);
-            Permission parentPerm = pm.getPermission("openwarp.warp.access." + warpType + ".*");
-            parentPerm.getChildren().put(permString, true);
-            accessPerm.recalculatePermissibles();
-            parentPerm.recalculatePermissibles();
-            for (Player p : this.getPlugin().getServer().getOnlinePlayers()) {
-                p.recalculatePermissions();
-            }
-        }
+        this.getPlugin().registerAccessPermissions(Collections.singletonList(warp), warpType.equals("public"));
+
+        this.getPlugin().fireWarpChange(new WarpChange(warpExists ? WarpChange.Type.MOVED : WarpChange.Type.CREATED, warp, warpType.equals("public"))); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
     }
 
 }
@@ -2,19 +2,35 @@ package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
 import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpShareEvent;
+import com.lithium3141.OpenWarp.util.StringUtil;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Share a private warp with another player.
+ * Share a private warp with other players. Any number of targets may be given
+ * at once; each is a player name, <code>g:GROUP</code> for everyone in a
+ * permission group, or <code>*</code> for every player.
  */
 public class OWWarpShareCommand extends OWCommand {
 
+    /**
+     * Share target meaning every player.
+     */
+    public static final String EVERYONE = "*";
+
+    /**
+     * Prefix of share targets naming a permission group.
+     */
+    public static final String GROUP_PREFIX = "g:";
+
     /**
      * Create a new instance of the warp share command. Used in command registration.
      *
@@ -24,9 +40,11 @@ public class OWWarpShareCommand extends OWCommand {
         super(plugin);
 
         this.setName("Warp share");
-        this.setArgRange(2, 2);
-        this.setCommandUsage("/warp share {warp} {player}");
+        this.setArgRange(2, -1);
+        this.setCommandUsage("/warp share {warp} {player|*|g:GROUP} [...]");
         this.addCommandExample("/warp share MyWarp OtherPerson");
+        this.addCommandExample("/warp share MyWarp Alice Bob g:builders");
+        this.addCommandExample("/warp share MyWarp *");
         this.setPermission("openwarp.warp.share", "Share a private warp with other users", PermissionDefault.TRUE);
         this.addKey("warp share");
     }
@@ -37,7 +55,6 @@ public class OWWarpShareCommand extends OWCommand {
         Player player = (Player) sender;
 
         String warpName = args.get(0);
-        String sharePlayerName = args.get(1);
 
         Warp warp = this.getPlugin().getPrivateWarps().get(player.getName()).get(warpName);
         if (warp == null) {
@@ -45,12 +62,53 @@ public class OWWarpShareCommand extends OWCommand {
             return;
         }
 
-        warp.addInvitee(sharePlayerName);
+        // Sort targets into players, groups and everyone, then apply them in bulk
+        List<String> sharePlayerNames = new ArrayList<String>();
+        List<String> groups = new ArrayList<String>();
+        boolean everyone = false;
+        for (String target : args.subList(1, args.size())) {
+            if (target.equals(EVERYONE)) {
+                everyone = true;
+            } else if (target.startsWith(GROUP_PREFIX) && target.length() > GROUP_PREFIX.length()) {
+                groups.add(target.substring(GROUP_PREFIX.length()));
+            } else {
+                sharePlayerNames.add(target);
+            }
+        }
+
+        WarpShareEvent shareEvent = new WarpShareEvent(warp, true, sharePlayerNames, groups, everyone);
+        this.getPlugin().getServer().getPluginManager().callEvent(shareEvent);
+        if (shareEvent.isCancelled()) {
+            player.sendMessage(ChatColor.RED + "Sharing of warp '" + warpName + "' was cancelled.");
+            return;
+        }
+
+        int added = warp.addInvitees(sharePlayerNames);
+        for (String group : groups) {
+            warp.addGroup(group);
+        }
+        if (everyone) {
+            warp.setSharedWithEveryone(true);
+        }
+        this.getPlugin().getConfigurationManager().savePlayerConfiguration(player.getName());
+        this.getPlugin().fireWarpChange(new WarpChange(WarpChange.Type.SHARED, warp, false));
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(added).append(" new player(s)");
+        if (!groups.isEmpty()) {
+            summary.append(", group(s) ").append(StringUtil.arrayJoin(groups.toArray(new String[groups.size()]), ", "));
+        }
+        if (everyone) {
+            summary.append(", everyone");
+        }
+        player.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "Shared warp '" + warpName + "' with " + summary);
 
-        Player sharePlayer = this.getPlugin().getServer().getPlayer(sharePlayerName);
-        if (sharePlayer != null) {
-            sharePlayer.sendMessage(ChatColor.GOLD + player.getName() + " has shared warp '" + warpName + "' with you!");
-            sharePlayer.sendMessage(ChatColor.GOLD + "Access via: /warp " + player.getName() + ":" + warpName);
+        for (String sharePlayerName : sharePlayerNames) {
+            Player sharePlayer = this.getPlugin().getServer().getPlayer(sharePlayerName);
+            if (sharePlayer != null) {
+                sharePlayer.sendMessage(ChatColor.GOLD + player.getName() + " has shared warp '" + warpName + "' with you!");
+                sharePlayer.sendMessage(ChatColor.GOLD + "Access via: /warp " + player.getName() + ":" + warpName);
+            }
         }
     }
 
@@ -0,0 +1,60 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.OWWatchdog;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * Show the slowest OpenWarp commands and listener callbacks of the last few
+ * minutes, as timed by the main-thread watchdog.
+ */
+public class OWWarpSlowCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp slow command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpSlowCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp slow");
+        this.setArgRange(0, 0);
+        this.setCommandUsage("/warp slow");
+        this.addCommandExample("/warp slow");
+        this.setPermission("openwarp.warp.slow", "Show the slowest recent OpenWarp operations", PermissionDefault.OP);
+        this.addKey("warp slow");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        OWWatchdog watchdog = this.getPlugin().getWatchdog();
+        if (watchdog.getBudgetMillis() == 0) {
+            sender.sendMessage(ChatColor.AQUA + "The watchdog is disabled; set watchdog.budget-millis to enable it.");
+            return;
+        }
+
+        List<OWWatchdog.SlowOperation> slowest = watchdog.getSlowest();
+        if (slowest.isEmpty()) {
+            sender.sendMessage(ChatColor.AQUA + "No operations timed recently.");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        sender.sendMessage(ChatColor.AQUA + "Slowest recent operations (budget " + watchdog.getBudgetMillis() + " ms):");
+        for (OWWatchdog.SlowOperation op : slowest) {
+            ChatColor color = (op.getNanos() > watchdog.getBudgetMillis() * 1000000L ? ChatColor.RED : ChatColor.YELLOW); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck,MagicNumberCheck
+            sender.sendMessage("    " + color + String.format("%.1f ms", op.getNanos() / 1000000.0) + ChatColor.WHITE // SUPPRESS CHECKSTYLE MagicNumberCheck
+                    + " " + op.getOperation() + " (" + op.getArgCount() + " args, " + (now - op.getFinishedAt()) / 1000L + "s ago)"); // SUPPRESS CHECKSTYLE MagicNumberCheck
+            if (op.getFrame() != null) {
+                sender.sendMessage("        " + ChatColor.GRAY + "at " + op.getFrame());
+            }
+        }
+    }
+
+}
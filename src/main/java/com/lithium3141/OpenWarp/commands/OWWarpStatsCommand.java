@@ -0,0 +1,66 @@
+package com.lithium3141.OpenWarp.commands;
+
+import com.lithium3141.OpenWarp.OWCommand;
+import com.lithium3141.OpenWarp.metrics.OWMetrics;
+import com.lithium3141.OpenWarp.metrics.OWStartupProfiler;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+/**
+ * Show counters and latency summaries recorded by OpenWarp since startup,
+ * optionally limited to metrics whose names start with a given prefix.
+ * <code>/warp stats startup</code> shows the timing of each startup phase.
+ */
+public class OWWarpStatsCommand extends OWCommand {
+
+    /**
+     * Create a new instance of the warp stats command. Used in command registration.
+     *
+     * @param plugin The plugin (generally an instance of OpenWarp) backing this command.
+     */
+    public OWWarpStatsCommand(JavaPlugin plugin) {
+        super(plugin);
+
+        this.setName("Warp stats");
+        this.setArgRange(0, 1);
+        this.setCommandUsage("/warp stats [PREFIX]");
+        this.addCommandExample("/warp stats");
+        this.addCommandExample("/warp stats command");
+        this.addCommandExample("/warp stats startup");
+        this.setPermission("openwarp.warp.stats", "Show plugin activity metrics", PermissionDefault.OP);
+        this.addKey("warp stats");
+    }
+
+    @Override
+    public void runCommand(CommandSender sender, List<String> args) {
+        String prefix = (args.size() > 0 ? args.get(0).toLowerCase() : ""); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        OWMetrics metrics = this.getPlugin().getMetrics();
+
+        // Startup timings read best as the phase-ordered summary
+        OWStartupProfiler startup = this.getPlugin().getStartupProfiler();
+        if (prefix.equals("startup") && startup != null) {
+            for (String line : startup.getSummary()) {
+                sender.sendMessage(ChatColor.AQUA + line);
+            }
+            return;
+        }
+
+        SortedMap<String, String> lines = metrics.summarize(prefix);
+        if (lines.isEmpty()) {
+            sender.sendMessage(ChatColor.AQUA + "No metrics recorded" + (prefix.length() > 0 ? " matching '" + prefix + "'" : "") + "."); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+            return;
+        }
+
+        sender.sendMessage(ChatColor.AQUA + "Metrics over the last " + (metrics.getUptimeMillis() / 1000L) + "s:"); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        for (Entry<String, String> entry : lines.entrySet()) {
+            sender.sendMessage("    " + ChatColor.YELLOW + entry.getKey() + ": " + ChatColor.WHITE + entry.getValue());
+        }
+    }
+
+}
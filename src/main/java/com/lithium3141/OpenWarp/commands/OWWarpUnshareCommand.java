@@ -2,16 +2,21 @@ package com.lithium3141.OpenWarp.commands;
 
 import com.lithium3141.OpenWarp.OWCommand;
 import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.events.WarpChange;
+import com.lithium3141.OpenWarp.events.WarpShareEvent;
+import com.lithium3141.OpenWarp.util.StringUtil;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Stop sharing a private warp with another player.
+ * Stop sharing a private warp with other players. Takes the same targets as
+ * OWWarpShareCommand: player names, <code>g:GROUP</code> and <code>*</code>.
  */
 public class OWWarpUnshareCommand extends OWCommand {
 
@@ -24,9 +29,11 @@ public class OWWarpUnshareCommand extends OWCommand {
         super(plugin);
 
         this.setName("Warp unshare");
-        this.setArgRange(2, 2);
-        this.setCommandUsage("/warp unshare {warp} {player}");
+        this.setArgRange(2, -1);
+        this.setCommandUsage("/warp unshare {warp} {player|*|g:GROUP} [...]");
         this.addCommandExample("/warp unshare MyWarp OtherPerson");
+        this.addCommandExample("/warp unshare MyWarp Alice Bob g:builders");
+        this.addCommandExample("/warp unshare MyWarp *");
         this.setPermission("openwarp.warp.unshare", "Stop sharing a private warp with other users", PermissionDefault.TRUE);
         this.addKey("warp unshare");
     }
@@ -37,7 +44,6 @@ public class OWWarpUnshareCommand extends OWCommand {
         Player player = (Player) sender;
 
         String warpName = args.get(0);
-        String sharePlayerName = args.get(1);
 
         Warp warp = this.getPlugin().getPrivateWarps().get(player.getName()).get(warpName);
         if (warp == null) {
@@ -45,11 +51,52 @@ public class OWWarpUnshareCommand extends OWCommand {
             return;
         }
 
-        warp.removeInvitee(sharePlayerName);
+        // Sort targets into players, groups and everyone, then apply them in bulk
+        List<String> sharePlayerNames = new ArrayList<String>();
+        List<String> groups = new ArrayList<String>();
+        boolean everyone = false;
+        for (String target : args.subList(1, args.size())) {
+            if (target.equals(OWWarpShareCommand.EVERYONE)) {
+                everyone = true;
+            } else if (target.startsWith(OWWarpShareCommand.GROUP_PREFIX) && target.length() > OWWarpShareCommand.GROUP_PREFIX.length()) {
+                groups.add(target.substring(OWWarpShareCommand.GROUP_PREFIX.length()));
+            } else {
+                sharePlayerNames.add(target);
+            }
+        }
+
+        WarpShareEvent shareEvent = new WarpShareEvent(warp, false, sharePlayerNames, groups, everyone);
+        this.getPlugin().getServer().getPluginManager().callEvent(shareEvent);
+        if (shareEvent.isCancelled()) {
+            player.sendMessage(ChatColor.RED + "Unsharing of warp '" + warpName + "' was cancelled.");
+            return;
+        }
+
+        int removed = warp.removeInvitees(sharePlayerNames);
+        for (String group : groups) {
+            warp.removeGroup(group);
+        }
+        if (everyone) {
+            warp.setSharedWithEveryone(false);
+        }
+        this.getPlugin().getConfigurationManager().savePlayerConfiguration(player.getName());
+        this.getPlugin().fireWarpChange(new WarpChange(WarpChange.Type.UNSHARED, warp, false));
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(removed).append(" player(s)");
+        if (!groups.isEmpty()) {
+            summary.append(", group(s) ").append(StringUtil.arrayJoin(groups.toArray(new String[groups.size()]), ", "));
+        }
+        if (everyone) {
+            summary.append(", everyone");
+        }
+        player.sendMessage(ChatColor.AQUA + "Success: " + ChatColor.WHITE + "Stopped sharing warp '" + warpName + "' with " + summary);
 
-        Player sharePlayer = this.getPlugin().getServer().getPlayer(sharePlayerName);
-        if (sharePlayer != null) {
-            sharePlayer.sendMessage(ChatColor.GOLD + player.getName() + " has stopped sharing warp '" + warpName + "' with you.");
+        for (String sharePlayerName : sharePlayerNames) {
+            Player sharePlayer = this.getPlugin().getServer().getPlayer(sharePlayerName);
+            if (sharePlayer != null) {
+                sharePlayer.sendMessage(ChatColor.GOLD + player.getName() + " has stopped sharing warp '" + warpName + "' with you.");
+            }
         }
     }
 
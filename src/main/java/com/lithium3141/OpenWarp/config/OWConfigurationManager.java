@@ -1,7 +1,18 @@
 package com.lithium3141.OpenWarp.config;
 
+import com.lithium3141.OpenWarp.OWDebug;
+import com.lithium3141.OpenWarp.OWDebugHandler;
+import com.lithium3141.OpenWarp.OWHotWarpTracker;
+import com.lithium3141.OpenWarp.OWLocationTracker;
+import com.lithium3141.OpenWarp.OWPlayerMap;
+import com.lithium3141.OpenWarp.OWPlayerState;
+import com.lithium3141.OpenWarp.OWPlayerStateManager;
+import com.lithium3141.OpenWarp.OWQuotaManager;
+import com.lithium3141.OpenWarp.OWTeleportQueue;
+import com.lithium3141.OpenWarp.OWWatchdog;
 import com.lithium3141.OpenWarp.OpenWarp;
 import com.lithium3141.OpenWarp.Warp;
+import com.lithium3141.OpenWarp.metrics.OWMetrics;
 import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -16,10 +27,13 @@ import java.util.Map.Entry;
  * Container class for OpenWarp configuration information. Manages both the
  * global configuration and individual player configuration files; responsible
  * for load and save operations.
+ * <p/>
+ * The YAML handles of players who stay offline are released through the
+ * OWPlayerStateManager; their warps remain loaded.
  *
  * @author lithium3141
  */
-public class OWConfigurationManager {
+public class OWConfigurationManager implements OWPlayerState {
 
     /**
      * The OpenWarp instance backing this configuration manager.
@@ -51,15 +65,105 @@ public class OWConfigurationManager {
      */
     public static final String DEBUG_KEY = "debug";
 
+    /**
+     * The YAML key for the maximum size of the debug log before rotation, in kilobytes.
+     */
+    public static final String DEBUG_LOG_MAX_FILE_KEY = "debug-log.max-file-kb";
+
+    /**
+     * The YAML key for the maximum age of the debug log before rotation, in hours.
+     */
+    public static final String DEBUG_LOG_MAX_AGE_KEY = "debug-log.max-age-hours";
+
+    /**
+     * The YAML key for the number of rotated debug logs kept.
+     */
+    public static final String DEBUG_LOG_RETAINED_KEY = "debug-log.retained-files";
+
+    /**
+     * The YAML key for the number of debug records buffered for the writer thread.
+     */
+    public static final String DEBUG_LOG_BUFFER_KEY = "debug-log.buffer-records";
+
+    /**
+     * The YAML key for what to do with debug records when the buffer is full: "drop" or "block".
+     */
+    public static final String DEBUG_LOG_OVERFLOW_KEY = "debug-log.overflow";
+
+    /**
+     * The YAML key for the maximum number of teleports run per tick.
+     */
+    public static final String TELEPORT_MAX_PER_TICK_KEY = "teleport.max-per-tick";
+
+    /**
+     * The YAML key for the maximum milliseconds spent teleporting per tick.
+     */
+    public static final String TELEPORT_MAX_MILLIS_KEY = "teleport.max-millis-per-tick";
+
+    /**
+     * The YAML key for the number of previous locations remembered per player.
+     */
+    public static final String BACK_HISTORY_DEPTH_KEY = "back.history-depth";
+
+    /**
+     * The YAML key for the number of seconds between saves of location histories.
+     */
+    public static final String BACK_SAVE_INTERVAL_KEY = "back.save-interval-seconds";
+
+    /**
+     * The YAML key for the time a player may be offline before their runtime state is released.
+     */
+    public static final String PLAYER_GRACE_MINUTES_KEY = "player-state.offline-grace-minutes";
+
+    /**
+     * The YAML key for the number of top warps whose chunks stay loaded.
+     */
+    public static final String HOT_WARPS_COUNT_KEY = "hot-warps.count";
+
+    /**
+     * The YAML key for the half-life of warp usage scores, in minutes.
+     */
+    public static final String HOT_WARPS_HALF_LIFE_KEY = "hot-warps.half-life-minutes";
+
+    /**
+     * The YAML key for the memory budget of chunks held for hot warps, in kilobytes.
+     */
+    public static final String HOT_WARPS_MEMORY_BUDGET_KEY = "hot-warps.memory-budget-kb";
+
+    /**
+     * The YAML key for the radius of chunks held around each hot warp.
+     */
+    public static final String HOT_WARPS_CHUNK_RADIUS_KEY = "hot-warps.chunk-radius";
+
+    /**
+     * The YAML key for the number of seconds between metrics exports.
+     */
+    public static final String METRICS_EXPORT_INTERVAL_KEY = "metrics.export-interval-seconds";
+
+    /**
+     * The YAML key for the main-thread time budget of a single command or listener callback.
+     */
+    public static final String WATCHDOG_BUDGET_KEY = "watchdog.budget-millis";
+
+    /**
+     * The YAML key for per-group warp quotas.
+     */
+    public static final String QUOTAS_KEY = "quotas";
+
+    /**
+     * Number of configuration files read from disk since startup.
+     */
+    private int filesRead;
+
     /**
      * The Configuration object representing global plugin configuration.
      */
     private YamlConfiguration configuration;
 
     /**
-     * The set of player configuration objects, mapped to by player names.
+     * The set of player configuration objects, indexed by player id.
      */
-    private Map<String, OWPlayerConfiguration> playerConfigs = new HashMap<String, OWPlayerConfiguration>();
+    private OWPlayerMap<OWPlayerConfiguration> playerConfigs;
 
     /**
      * The Configuration object representing public warp information.
@@ -75,6 +179,7 @@ public class OWConfigurationManager {
      */
     public OWConfigurationManager(OpenWarp ow) throws IOException, InvalidConfigurationException {
         this.plugin = ow;
+        this.playerConfigs = new OWPlayerMap<OWPlayerConfiguration>(ow.getPlayerDictionary());
 
         // Set up configuration folder if necessary
         this.plugin.getDataFolder().mkdirs();
@@ -85,6 +190,23 @@ public class OWConfigurationManager {
 
         this.publicWarpsConfig = new YamlConfiguration();
         this.publicWarpsConfig.load(getWarpConfigFile());
+        this.filesRead += 2;
+    }
+
+    /**
+     * Get the number of configuration files read from disk since startup.
+     *
+     * @return The number of files read.
+     */
+    public int getFilesRead() {
+        return this.filesRead;
+    }
+
+    /**
+     * Note that a configuration file was read from disk.
+     */
+    void noteFileRead() {
+        this.filesRead++;
     }
 
     private File getMasterConfigFile() {
@@ -105,7 +227,7 @@ public class OWConfigurationManager {
      * @see #savePlayerConfiguration(String)
      */
     public void saveAllConfigurations() {
-        OpenWarp.DEBUG_LOG.fine("Writing ALL OpenWarp configuration files");
+        OWDebug.fine("Writing ALL OpenWarp configuration files");
         if (this.configuration != null) {
             this.saveGlobalConfiguration();
 
@@ -123,15 +245,18 @@ public class OWConfigurationManager {
      * no checking about whether a write is necessary.
      */
     public void saveGlobalConfiguration() {
-        OpenWarp.DEBUG_LOG.fine("Writing OpenWarp global configuration file");
+        OWDebug.fine("Writing OpenWarp global configuration file");
 
         if (this.configuration != null) {
             // Save overall configuration
-            OpenWarp.DEBUG_LOG.fine("Writing global player name list with " + this.playerConfigs.keySet().size() + " elements");
+            OWDebug.fine("Writing global player name list with {} elements", this.playerConfigs.size());
             this.configuration.set(PLAYER_NAMES_LIST_KEY, new ArrayList<String>(this.playerConfigs.keySet()));
+            long start = System.nanoTime();
             try {
                 this.configuration.save(getMasterConfigFile());
+                this.recordSave(getMasterConfigFile(), start);
             } catch (IOException ex) {
+                this.recordSaveFailure();
                 OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't save player list; continuing...");
             }
 
@@ -142,9 +267,12 @@ public class OWConfigurationManager {
             }
 
             this.publicWarpsConfig.set(WARPS_LIST_KEY, warps);
+            start = System.nanoTime();
             try {
                 this.publicWarpsConfig.save(getWarpConfigFile());
+                this.recordSave(getWarpConfigFile(), start);
             } catch (IOException ex) {
+                this.recordSaveFailure();
                 OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't save public warp list; continuing...");
             }
 
@@ -164,7 +292,7 @@ public class OWConfigurationManager {
      * @param playerName The name of the player for whom to save configuration data.
      */
     public void savePlayerConfiguration(String playerName) {
-        OpenWarp.DEBUG_LOG.fine("Writing OpenWarp player configuration file (" + playerName + ")");
+        OWDebug.fine("Writing OpenWarp player configuration file ({})", playerName);
 
         if (this.configuration != null) {
             OWPlayerConfiguration config = this.playerConfigs.get(playerName);
@@ -176,6 +304,25 @@ public class OWConfigurationManager {
     }
 
 
+    /**
+     * Record a successful configuration file save in the plugin's metrics.
+     *
+     * @param file       The file that was written.
+     * @param startNanos The value of System#nanoTime() when the save began.
+     */
+    void recordSave(File file, long startNanos) {
+        OWMetrics metrics = this.plugin.getMetrics();
+        metrics.histogram("save.latency-ns").record(System.nanoTime() - startNanos);
+        metrics.counter("save.bytes").add(file.length());
+    }
+
+    /**
+     * Record a failed configuration file save in the plugin's metrics.
+     */
+    void recordSaveFailure() {
+        this.plugin.getMetrics().counter("save.failures").increment();
+    }
+
     /**
      * Load public warps into the given map. Mutates the `target` argument.
      *
@@ -200,6 +347,7 @@ public class OWConfigurationManager {
                 ConfigurationSection node = section.getConfigurationSection(key);
                 Warp warp = new Warp(this.plugin, key, node);
                 target.put(warp.getName(), warp);
+                this.plugin.getSafeLandingService().primeLanding(warp);
             }
         }
     }
@@ -231,6 +379,25 @@ public class OWConfigurationManager {
         }
     }
 
+    /**
+     * Read debug log settings from disk and build a handler writing to the given file.
+     *
+     * @param file The file to append debug information to.
+     * @return A new OWDebugHandler using the configured rotation and buffer settings.
+     */
+    public OWDebugHandler readDebugHandler(File file) {
+        OWDebugHandler.OverflowPolicy policy = OWDebugHandler.OverflowPolicy.DROP;
+        if ("block".equalsIgnoreCase(this.configuration.getString(DEBUG_LOG_OVERFLOW_KEY, "drop"))) {
+            policy = OWDebugHandler.OverflowPolicy.BLOCK;
+        }
+        return new OWDebugHandler(file,
+                this.configuration.getInt(DEBUG_LOG_MAX_FILE_KEY, OWDebugHandler.DEFAULT_MAX_FILE_KB),
+                this.configuration.getInt(DEBUG_LOG_MAX_AGE_KEY, OWDebugHandler.DEFAULT_MAX_AGE_HOURS),
+                this.configuration.getInt(DEBUG_LOG_RETAINED_KEY, OWDebugHandler.DEFAULT_RETAINED_FILES),
+                this.configuration.getInt(DEBUG_LOG_BUFFER_KEY, OWDebugHandler.DEFAULT_BUFFER_RECORDS),
+                policy);
+    }
+
     /**
      * Read the debug flag from disk.
      *
@@ -239,4 +406,128 @@ public class OWConfigurationManager {
     public boolean readDebug() {
         return this.configuration.getBoolean(DEBUG_KEY, false);
     }
+
+    /**
+     * Read the maximum number of teleports to run in a single tick from disk.
+     *
+     * @return The per-tick teleport count budget.
+     */
+    public int readTeleportsPerTick() {
+        return this.configuration.getInt(TELEPORT_MAX_PER_TICK_KEY, OWTeleportQueue.DEFAULT_MAX_PER_TICK);
+    }
+
+    /**
+     * Read the maximum milliseconds to spend teleporting in a single tick from disk.
+     *
+     * @return The per-tick teleport time budget, in milliseconds.
+     */
+    public long readTeleportMillisPerTick() {
+        return this.configuration.getLong(TELEPORT_MAX_MILLIS_KEY, OWTeleportQueue.DEFAULT_MAX_MILLIS_PER_TICK);
+    }
+
+    /**
+     * Read the hot warp chunk retention settings from disk and build a tracker
+     * from them.
+     *
+     * @return A new, unstarted OWHotWarpTracker configured from disk.
+     */
+    public OWHotWarpTracker readHotWarpTracker() {
+        return new OWHotWarpTracker(this.plugin,
+                this.configuration.getInt(HOT_WARPS_COUNT_KEY, OWHotWarpTracker.DEFAULT_WARP_COUNT),
+                this.configuration.getInt(HOT_WARPS_HALF_LIFE_KEY, OWHotWarpTracker.DEFAULT_HALF_LIFE_MINUTES),
+                this.configuration.getInt(HOT_WARPS_MEMORY_BUDGET_KEY, OWHotWarpTracker.DEFAULT_MEMORY_BUDGET_KB),
+                this.configuration.getInt(HOT_WARPS_CHUNK_RADIUS_KEY, OWHotWarpTracker.DEFAULT_CHUNK_RADIUS));
+    }
+
+    /**
+     * Read the number of previous locations to remember per player from disk.
+     *
+     * @return The <code>/back</code> history depth.
+     */
+    public int readBackHistoryDepth() {
+        return this.configuration.getInt(BACK_HISTORY_DEPTH_KEY, OWLocationTracker.DEFAULT_HISTORY_DEPTH);
+    }
+
+    /**
+     * Read the number of seconds between location history saves from disk.
+     *
+     * @return The location history save interval, in seconds.
+     */
+    public int readBackSaveInterval() {
+        return this.configuration.getInt(BACK_SAVE_INTERVAL_KEY, OWLocationHistoryStore.DEFAULT_SAVE_INTERVAL_SECONDS);
+    }
+
+    /**
+     * Read the number of seconds between metrics exports from disk.
+     *
+     * @return The metrics export interval, in seconds; 0 or less if export is disabled.
+     */
+    public int readMetricsExportInterval() {
+        return this.configuration.getInt(METRICS_EXPORT_INTERVAL_KEY, OWMetrics.DEFAULT_EXPORT_INTERVAL_SECONDS);
+    }
+
+    /**
+     * Read the main-thread time budget from disk and build a watchdog.
+     *
+     * @return A new OWWatchdog using the configured budget.
+     */
+    public OWWatchdog readWatchdog() {
+        return new OWWatchdog(this.plugin, this.configuration.getInt(WATCHDOG_BUDGET_KEY, OWWatchdog.DEFAULT_BUDGET_MILLIS));
+    }
+
+    /**
+     * Read the per-group warp quotas from disk and build a quota manager from them.
+     *
+     * @return A new OWQuotaManager enforcing the configured quotas; with none configured,
+     *         it allows any number of warps.
+     */
+    public OWQuotaManager readQuotaManager() {
+        return new OWQuotaManager(this.plugin, this.configuration.getConfigurationSection(QUOTAS_KEY));
+    }
+
+    /**
+     * Read the player state grace period from disk and build a state manager.
+     *
+     * @return A new OWPlayerStateManager using the configured grace period.
+     */
+    public OWPlayerStateManager readPlayerStateManager() {
+        return new OWPlayerStateManager(this.plugin,
+                this.configuration.getInt(PLAYER_GRACE_MINUTES_KEY, OWPlayerStateManager.DEFAULT_GRACE_MINUTES));
+    }
+
+    /**
+     * Get the names of every registered player.
+     *
+     * @return An unmodifiable view of the registered player names.
+     */
+    public Set<String> getPlayerNames() {
+        return Collections.unmodifiableSet(this.playerConfigs.keySet());
+    }
+
+    @Override
+    public String getStateName() {
+        return "player config handles";
+    }
+
+    @Override
+    public int getEntryCount() {
+        int count = 0;
+        for (OWPlayerConfiguration config : this.playerConfigs.values()) {
+            if (config.isHandleLoaded()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void releasePlayer(String playerName) {
+        OWPlayerConfiguration config = this.playerConfigs.get(playerName);
+        if (config != null && config.isHandleLoaded()) {
+            if (config.hasUnsavedChanges()) {
+                this.savePlayerConfiguration(playerName);
+            }
+            config.releaseHandle();
+        }
+    }
 }
@@ -0,0 +1,669 @@
+package com.lithium3141.OpenWarp.config;
+
+import com.lithium3141.OpenWarp.OWDebug;
+import com.lithium3141.OpenWarp.OWLocationHistory;
+import com.lithium3141.OpenWarp.OWLocationTracker;
+import com.lithium3141.OpenWarp.OpenWarp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Binary on-disk store for player location histories. Histories are written as
+ * fixed-size records so that a single player's history can be read straight out
+ * of the file's contents when they join, without parsing the rest of the file.
+ * The file is read into the heap once when the store is opened and is not kept
+ * open or mapped, so each save can replace it freely.
+ * <p/>
+ * File layout (big-endian):
+ * <pre>
+ *   int    magic ("OWBH")
+ *   int    format version
+ *   int    entries per record (history depth)
+ *   int    world name count
+ *   int    record count
+ *   UTF    world names, in world index order
+ *   record[record count]:
+ *     byte[32] player name, UTF-8, zero-padded
+ *     int      entry count
+ *     entry[depth]: int world, double x, double y, double z, float yaw, float pitch
+ * </pre>
+ * Entries are stored most recent first. A file is always written with the ids
+ * of the plugin's shared world dictionary; when a file is read, its world list
+ * is translated to current dictionary ids, since other components may already
+ * have assigned ids in a different order.
+ * <p/>
+ * Snapshots are encoded on the main thread and written to disk on a worker
+ * thread; records of players who have not joined since the file was opened are
+ * copied across unchanged. Histories released from the tracker for offline
+ * players are kept here, already encoded, until a snapshot containing them
+ * reaches the disk.
+ * <p/>
+ * Writes are serialized: a synchronous save waits for any snapshot still being
+ * written, and a snapshot older than one already on disk is never written.
+ */
+public class OWLocationHistoryStore {
+
+    /**
+     * The filename to use for stored location histories.
+     */
+    public static final String HISTORY_FILENAME = "history.dat";
+
+    /**
+     * Default number of seconds between periodic snapshots.
+     */
+    public static final int DEFAULT_SAVE_INTERVAL_SECONDS = 300;
+
+    /**
+     * Magic number identifying a history file.
+     */
+    private static final int MAGIC = 0x4F574248; // SUPPRESS CHECKSTYLE MagicNumberCheck
+
+    /**
+     * Current history file format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes reserved for a player name in each record.
+     */
+    private static final int NAME_BYTES = 32;
+
+    /**
+     * Number of bytes taken by a single history entry.
+     */
+    private static final int ENTRY_BYTES = 4 + 8 + 8 + 8 + 4 + 4; // SUPPRESS CHECKSTYLE MagicNumberCheck
+
+    /**
+     * Number of server ticks per second.
+     */
+    private static final long TICKS_PER_SECOND = 20L;
+
+    /**
+     * The OpenWarp instance backing this store.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The tracker whose histories this store persists.
+     */
+    private OWLocationTracker tracker;
+
+    /**
+     * The file holding stored histories.
+     */
+    private File file;
+
+    /**
+     * Contents of the history file as read by #open(), or null if there are none.
+     */
+    private ByteBuffer stored;
+
+    /**
+     * Entries per record in the stored contents.
+     */
+    private int storedDepth;
+
+    /**
+     * World dictionary ids of the worlds in the stored contents, indexed by their
+     * index in the file.
+     */
+    private int[] storedWorldIds = new int[0];
+
+    /**
+     * Offsets of each player's record in the stored contents.
+     */
+    private Map<String, Integer> recordOffsets = new HashMap<String, Integer>();
+
+    /**
+     * Names of players whose history has been handed to the tracker. The tracker
+     * is authoritative for these players from then on.
+     */
+    private Set<String> restored = new HashSet<String>();
+
+    /**
+     * Encoded records of players whose history was released from the tracker and
+     * has not yet been written to disk, mapped to by player name.
+     */
+    private Map<String, byte[]> retired = new HashMap<String, byte[]>();
+
+    /**
+     * Whether a snapshot is currently being written by a worker thread.
+     */
+    private boolean writing;
+
+    /**
+     * Lock held while writing the history file, so only one thread writes it at a time.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Sequence number of the most recently encoded snapshot. Main thread only.
+     */
+    private long encodedSequence;
+
+    /**
+     * Sequence number of the most recent snapshot written to disk. Guarded by #writeLock.
+     */
+    private long writtenSequence;
+
+    /**
+     * Bukkit scheduler ID of the periodic snapshot task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Create a new history store for the given tracker, backed by a file in the
+     * plugin's data folder.
+     *
+     * @param ow The OpenWarp instance used for scheduling.
+     * @param t  The tracker whose histories to persist.
+     */
+    public OWLocationHistoryStore(OpenWarp ow, OWLocationTracker t) {
+        this.plugin = ow;
+        this.tracker = t;
+        this.file = new File(ow.getDataFolder(), HISTORY_FILENAME);
+    }
+
+    /**
+     * Read the history file, if one exists, and index its records by player name.
+     * Only names are read; histories are decoded when each player joins. A file
+     * that is truncated or corrupt is moved aside and the store starts empty.
+     */
+    public void open() {
+        this.stored = null;
+        this.recordOffsets.clear();
+        if (!this.file.exists()) {
+            return;
+        }
+
+        try {
+            RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+            try {
+                if (raf.length() > Integer.MAX_VALUE) {
+                    throw new IOException("Location history file too large: " + this.file.getPath());
+                }
+                byte[] contents = new byte[(int) raf.length()];
+                raf.readFully(contents);
+                this.stored = ByteBuffer.wrap(contents);
+            } finally {
+                raf.close();
+            }
+
+            if (this.stored.getInt() != MAGIC || this.stored.getInt() != VERSION) {
+                OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Ignoring unrecognized location history file " + this.file.getPath());
+                this.stored = null;
+                return;
+            }
+            this.storedDepth = this.stored.getInt();
+            int worldCount = this.stored.getInt();
+            int recordCount = this.stored.getInt();
+
+            // Translate the file's world indexes to world dictionary ids
+            this.storedWorldIds = new int[worldCount];
+            for (int i = 0; i < worldCount; i++) {
+                this.storedWorldIds[i] = this.tracker.getWorldIndex(readUTF(this.stored));
+            }
+
+            int offset = this.stored.position();
+            int recordBytes = recordBytes(this.storedDepth);
+            byte[] nameBytes = new byte[NAME_BYTES];
+            for (int i = 0; i < recordCount; i++) {
+                this.stored.position(offset);
+                this.stored.get(nameBytes);
+                this.recordOffsets.put(decodeName(nameBytes), offset);
+                offset += recordBytes;
+            }
+            OWDebug.fine("Indexed {} stored location histories", recordCount);
+        } catch (IOException e) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't read location history file; continuing without it.");
+            this.stored = null;
+            this.recordOffsets.clear();
+        } catch (RuntimeException e) {
+            // Truncated or corrupt file: BufferUnderflowException, IllegalArgumentException, ...
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Location history file is corrupt (" + e + "); starting with empty histories.");
+            this.stored = null;
+            this.recordOffsets.clear();
+            this.moveAside();
+        }
+    }
+
+    /**
+     * Rename an unreadable history file out of the way so it is kept for inspection
+     * but not read again.
+     */
+    private void moveAside() {
+        File bad = new File(this.file.getPath() + ".corrupt");
+        bad.delete();
+        if (this.file.renameTo(bad)) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Moved corrupt location history file to " + bad.getPath());
+        } else {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't move corrupt location history file " + this.file.getPath());
+        }
+    }
+
+    /**
+     * Hand the stored history of the given player, if any, to the tracker. Only the
+     * first call for each player has any effect.
+     *
+     * @param playerName The player whose history to restore.
+     */
+    public void restore(String playerName) {
+        if (!this.restored.add(playerName)) {
+            return;
+        }
+
+        ByteBuffer record;
+        int depth;
+        boolean fromFile = false;
+        byte[] retiredRecord = this.retired.remove(playerName);
+        if (retiredRecord != null) {
+            record = ByteBuffer.wrap(retiredRecord);
+            depth = this.tracker.getHistoryDepth();
+        } else {
+            Integer offset = this.recordOffsets.get(playerName);
+            if (offset == null || this.stored == null) {
+                return;
+            }
+            record = this.stored.duplicate();
+            record.position(offset);
+            depth = this.storedDepth;
+            fromFile = true;
+        }
+        int recordStart = record.position();
+        record.position(recordStart + NAME_BYTES);
+        int count = Math.min(record.getInt(), depth);
+        int keep = Math.min(count, this.tracker.getHistoryDepth());
+
+        // Entries are stored most recent first; push oldest first
+        OWLocationHistory history = new OWLocationHistory(this.tracker.getHistoryDepth());
+        int entriesStart = record.position();
+        for (int age = keep - 1; age >= 0; age--) {
+            record.position(entriesStart + age * ENTRY_BYTES);
+            int world = record.getInt();
+            if (fromFile) {
+                world = this.storedWorldId(world);
+                if (world < 0) {
+                    continue;
+                }
+            }
+            history.push(world, record.getDouble(), record.getDouble(), record.getDouble(), record.getFloat(), record.getFloat());
+        }
+        this.tracker.restoreHistory(playerName, history);
+    }
+
+    /**
+     * Translate a world index read from the stored contents to a world dictionary id.
+     *
+     * @param index The world index in the file.
+     * @return The world dictionary id, or -1 if the file lists no such world.
+     */
+    private int storedWorldId(int index) {
+        if (index < 0 || index >= this.storedWorldIds.length) {
+            return -1;
+        }
+        return this.storedWorldIds[index];
+    }
+
+    /**
+     * Take over the history of a player whose state is being released from the
+     * tracker. The history is kept in encoded form until it has been saved, and
+     * is handed back to the tracker if the player joins again.
+     *
+     * @param playerName The player whose history is being released.
+     * @param history    The player's history, or null if they have none.
+     */
+    public void retire(String playerName, OWLocationHistory history) {
+        if (!this.restored.remove(playerName)) {
+            return;
+        }
+
+        // Even an empty record is kept, so a stale record on disk is replaced
+        int depth = this.tracker.getHistoryDepth();
+        ByteBuffer record = ByteBuffer.allocate(recordBytes(depth));
+        if (this.putRecord(record, playerName, history, depth)) {
+            this.retired.put(playerName, record.array());
+        }
+    }
+
+    /**
+     * Get the number of released histories waiting to be written to disk.
+     *
+     * @return The number of retired histories held by this store.
+     */
+    public int getRetiredCount() {
+        return this.retired.size();
+    }
+
+    /**
+     * Start snapshotting histories to disk periodically.
+     *
+     * @param intervalSeconds The number of seconds between snapshots.
+     */
+    public void start(int intervalSeconds) {
+        if (this.taskId == -1) {
+            long period = Math.max(intervalSeconds, 1) * TICKS_PER_SECOND;
+            this.taskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(this.plugin, new Runnable() {
+                @Override
+                public void run() {
+                    saveAsync();
+                }
+            }, period, period);
+        }
+    }
+
+    /**
+     * Stop snapshotting histories periodically.
+     */
+    public void stop() {
+        if (this.taskId != -1) {
+            this.plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+    }
+
+    /**
+     * Encode a snapshot on the calling (main) thread and write it to disk on a
+     * worker thread. Skipped if the previous snapshot is still being written.
+     */
+    public void saveAsync() {
+        if (this.writing) {
+            return;
+        }
+
+        final byte[] snapshot = this.encode();
+        final long sequence = ++this.encodedSequence;
+        final Map<String, byte[]> written = new HashMap<String, byte[]>(this.retired);
+        this.writing = true;
+        this.plugin.getServer().getScheduler().scheduleAsyncDelayedTask(this.plugin, new Runnable() {
+            @Override
+            public void run() {
+                final boolean ok = write(snapshot, sequence);
+                plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, new Runnable() {
+                    @Override
+                    public void run() {
+                        writing = false;
+                        if (ok) {
+                            forgetRetired(written);
+                            open();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Encode and write a snapshot on the calling thread, first waiting for any
+     * snapshot still being written by a worker thread. Used on plugin disable.
+     */
+    public void save() {
+        byte[] snapshot = this.encode();
+        this.write(snapshot, ++this.encodedSequence);
+    }
+
+    /**
+     * Drop retired records that have been written to disk, unless they were
+     * replaced while the snapshot was being written.
+     *
+     * @param written The retired records included in the written snapshot.
+     */
+    private void forgetRetired(Map<String, byte[]> written) {
+        for (Entry<String, byte[]> entry : written.entrySet()) {
+            if (this.retired.get(entry.getKey()) == entry.getValue()) {
+                this.retired.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Encode every history known to the tracker, plus stored records of players
+     * not yet restored, into the binary history format.
+     *
+     * @return The encoded file contents.
+     */
+    private byte[] encode() {
+        int depth = this.tracker.getHistoryDepth();
+        int recordBytes = recordBytes(depth);
+
+        // Work out which records will be written
+        Map<String, OWLocationHistory> histories = this.tracker.getHistories();
+        List<String> carried = new ArrayList<String>();
+        for (String name : this.recordOffsets.keySet()) {
+            if (!this.restored.contains(name) && !histories.containsKey(name) && !this.retired.containsKey(name)) {
+                carried.add(name);
+            }
+        }
+
+        List<byte[]> worldNames = new ArrayList<byte[]>();
+        int headerBytes = 4 * 5; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        for (int i = 0; i < this.tracker.getWorldCount(); i++) {
+            byte[] bytes = encodeUTF(this.tracker.getWorldName(i));
+            worldNames.add(bytes);
+            headerBytes += 2 + bytes.length;
+        }
+
+        int recordCount = 0;
+        ByteBuffer out = ByteBuffer.allocate(headerBytes + (histories.size() + this.retired.size() + carried.size()) * recordBytes);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(depth);
+        out.putInt(worldNames.size());
+        int recordCountPosition = out.position();
+        out.putInt(0);
+        for (byte[] bytes : worldNames) {
+            out.putShort((short) bytes.length);
+            out.put(bytes);
+        }
+
+        for (Entry<String, OWLocationHistory> entry : histories.entrySet()) {
+            if (this.putRecord(out, entry.getKey(), entry.getValue(), depth)) {
+                recordCount++;
+            }
+        }
+
+        for (Entry<String, byte[]> entry : this.retired.entrySet()) {
+            if (!histories.containsKey(entry.getKey())) {
+                out.put(entry.getValue());
+                recordCount++;
+            }
+        }
+
+        for (String name : carried) {
+            ByteBuffer record = this.stored.duplicate();
+            record.position(this.recordOffsets.get(name) + NAME_BYTES);
+            if (this.putName(out, name)) {
+                int count = Math.min(record.getInt(), Math.min(this.storedDepth, depth));
+                out.putInt(count);
+                for (int age = 0; age < depth; age++) {
+                    if (age < count) {
+                        byte[] entry = new byte[ENTRY_BYTES];
+                        record.get(entry);
+                        ByteBuffer entryBuffer = ByteBuffer.wrap(entry);
+                        entryBuffer.putInt(0, this.storedWorldId(entryBuffer.getInt(0)));
+                        out.put(entry);
+                    } else {
+                        out.put(new byte[ENTRY_BYTES]);
+                    }
+                }
+                recordCount++;
+            }
+        }
+
+        out.putInt(recordCountPosition, recordCount);
+        byte[] result = new byte[out.position()];
+        out.flip();
+        out.get(result);
+        return result;
+    }
+
+    /**
+     * Write encoded file contents to disk, replacing the history file atomically
+     * where the platform allows.
+     *
+     * @param contents The encoded file contents.
+     * @param sequence The sequence number of the snapshot being written.
+     * @return True if the file was written; false on error or if a newer snapshot
+     *         was already written.
+     */
+    private boolean write(byte[] contents, long sequence) {
+        synchronized (this.writeLock) {
+            if (sequence <= this.writtenSequence) {
+                return false;
+            }
+            if (!this.replaceFile(contents)) {
+                return false;
+            }
+            this.writtenSequence = sequence;
+            return true;
+        }
+    }
+
+    /**
+     * Write encoded file contents to a temporary file and move it over the history
+     * file. Must be called holding #writeLock.
+     *
+     * @param contents The encoded file contents.
+     * @return True if the file was written; false on error.
+     */
+    private boolean replaceFile(byte[] contents) {
+        File tmp = new File(this.file.getPath() + ".tmp");
+        try {
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(contents);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(this.file)) {
+                this.file.delete();
+                if (!tmp.renameTo(this.file)) {
+                    throw new IOException("Couldn't replace " + this.file.getPath());
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't save location histories; continuing...");
+            return false;
+        }
+    }
+
+    /**
+     * Write a single player's record.
+     *
+     * @param out        The buffer to write into.
+     * @param playerName The player name.
+     * @param history    The player's history, or null to write an empty record.
+     * @param depth      The number of entries per record.
+     * @return True if the record was written; false if it was skipped.
+     */
+    private boolean putRecord(ByteBuffer out, String playerName, OWLocationHistory history, int depth) {
+        if (!this.putName(out, playerName)) {
+            return false;
+        }
+
+        int count = (history == null ? 0 : Math.min(history.size(), depth)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        out.putInt(count);
+        for (int age = 0; age < depth; age++) {
+            if (age < count) {
+                out.putInt(history.getWorld(age));
+                out.putDouble(history.getX(age));
+                out.putDouble(history.getY(age));
+                out.putDouble(history.getZ(age));
+                out.putFloat(history.getYaw(age));
+                out.putFloat(history.getPitch(age));
+            } else {
+                out.put(new byte[ENTRY_BYTES]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a zero-padded player name into a record.
+     *
+     * @param out  The buffer to write into.
+     * @param name The player name.
+     * @return True if the name fit; false if the record was skipped.
+     */
+    private boolean putName(ByteBuffer out, String name) {
+        byte[] bytes = encodeUTF(name);
+        if (bytes.length > NAME_BYTES) {
+            OWDebug.fine("Not saving location history for over-long player name {}", name);
+            return false;
+        }
+        out.put(bytes);
+        out.put(new byte[NAME_BYTES - bytes.length]);
+        return true;
+    }
+
+    /**
+     * Get the size of a single record with the given number of entries.
+     *
+     * @param depth The number of entries per record.
+     * @return The record size in bytes.
+     */
+    private static int recordBytes(int depth) {
+        return NAME_BYTES + 4 + depth * ENTRY_BYTES; // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    /**
+     * Decode a zero-padded UTF-8 player name.
+     *
+     * @param bytes The padded name bytes.
+     * @return The player name.
+     */
+    private static String decodeName(byte[] bytes) {
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) {
+            length++;
+        }
+        try {
+            return new String(bytes, 0, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read a length-prefixed UTF-8 string.
+     *
+     * @param in The buffer to read from.
+     * @return The decoded string.
+     */
+    private static String readUTF(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF]; // SUPPRESS CHECKSTYLE MagicNumberCheck
+        in.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encode a string as UTF-8.
+     *
+     * @param s The string to encode.
+     * @return The UTF-8 bytes of the string.
+     */
+    private static byte[] encodeUTF(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.lithium3141.OpenWarp.config;
 
+import com.lithium3141.OpenWarp.OWWarpMap;
 import com.lithium3141.OpenWarp.OpenWarp;
 import com.lithium3141.OpenWarp.Warp;
 import org.bukkit.configuration.InvalidConfigurationException;
@@ -42,10 +43,17 @@ public class OWPlayerConfiguration {
     private File configFolder;
 
     /**
-     * The Configuration object containing player-specific warp info.
+     * The Configuration object containing player-specific warp info, or null
+     * if it has been released since this configuration was loaded.
      */
     private YamlConfiguration warpConfig;
 
+    /**
+     * Change count of the player's warp map when it was last loaded or saved, or -1
+     * if it has not been.
+     */
+    private long savedChangeCount = -1;
+
     /**
      * Construct a new player configuration for the given player name.
      *
@@ -88,14 +96,39 @@ public class OWPlayerConfiguration {
         // Build config objects from files
         this.warpConfig = new YamlConfiguration();
 
-        // Load configs
-        this.warpConfig.load(getWarpConfigFile());
+        // Load configs; a player new to the server has none yet
+        if (getWarpConfigFile().exists()) {
+            this.warpConfig.load(getWarpConfigFile());
+            this.plugin.getConfigurationManager().noteFileRead();
+        }
 
         // Warps
-        if (this.plugin.getPrivateWarps().get(this.playerName) == null) {
-            this.plugin.getPrivateWarps().put(this.playerName, new HashMap<String, Warp>());
+        this.plugin.getConfigurationManager().loadWarps(this.warpConfig, this.plugin.createPrivateWarps(this.playerName));
+        this.savedChangeCount = this.getWarpChangeCount();
+    }
+
+    /**
+     * Check whether the player's warps changed since they were last loaded or saved.
+     * Changes to the warps themselves, such as invitations, are saved as they are
+     * made and are not tracked here.
+     *
+     * @return true if warps were added, moved or removed since the last save.
+     */
+    public boolean hasUnsavedChanges() {
+        return this.getWarpChangeCount() != this.savedChangeCount;
+    }
+
+    /**
+     * Get the change count of the player's warp map.
+     *
+     * @return The change count, or -1 if the player has no warp map.
+     */
+    private long getWarpChangeCount() {
+        Map<String, Warp> playerWarps = this.plugin.getPrivateWarps(this.playerName);
+        if (playerWarps instanceof OWWarpMap) {
+            return ((OWWarpMap) playerWarps).getChangeCount();
         }
-        this.plugin.getConfigurationManager().loadWarps(this.warpConfig, this.plugin.getPrivateWarps().get(this.playerName));
+        return -1;
     }
 
     /**
@@ -112,17 +145,63 @@ public class OWPlayerConfiguration {
         for (Entry<String, Warp> entry : playerWarps.entrySet()) {
             configWarps.put(entry.getKey(), entry.getValue().getConfigurationMap());
         }
-        this.warpConfig.set(OWConfigurationManager.WARPS_LIST_KEY, configWarps);
-
+        long start = System.nanoTime();
+        long changeCount = this.getWarpChangeCount();
         try {
-            this.warpConfig.save(getWarpConfigFile());
+            YamlConfiguration config = this.getWarpConfig();
+            config.set(OWConfigurationManager.WARPS_LIST_KEY, configWarps);
+            config.save(getWarpConfigFile());
+            this.plugin.getConfigurationManager().recordSave(getWarpConfigFile(), start);
+            this.savedChangeCount = changeCount;
             return true;
         } catch (IOException e) {
             e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+            this.plugin.getConfigurationManager().recordSaveFailure();
+            return false;
+        } catch (InvalidConfigurationException e) {
+            e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+            this.plugin.getConfigurationManager().recordSaveFailure();
             return false;
         }
     }
 
+    /**
+     * Check whether the on-disk configuration for this player is held in memory.
+     *
+     * @return true if the YAML handle for this player is loaded.
+     */
+    public boolean isHandleLoaded() {
+        return this.warpConfig != null;
+    }
+
+    /**
+     * Release the in-memory YAML handle for this player. The player's warps stay
+     * loaded; the file is read back temporarily whenever it is saved.
+     */
+    public void releaseHandle() {
+        this.warpConfig = null;
+    }
+
+    /**
+     * Get the YAML handle for this player. If the handle has been released, a
+     * temporary one is read from disk and not retained, so that saving the
+     * configurations of offline players does not pull their handles back in.
+     *
+     * @return The Configuration object containing player-specific warp info.
+     */
+    private YamlConfiguration getWarpConfig() throws IOException, InvalidConfigurationException {
+        if (this.warpConfig != null) {
+            return this.warpConfig;
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        File file = getWarpConfigFile();
+        if (file.exists()) {
+            config.load(file);
+        }
+        return config;
+    }
+
     private File getWarpConfigFile() {
         return new File(this.configFolder, WARP_CONFIG_FILENAME);
     }
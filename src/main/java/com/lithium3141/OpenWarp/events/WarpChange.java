@@ -0,0 +1,90 @@
+package com.lithium3141.OpenWarp.events;
+
+import com.lithium3141.OpenWarp.Warp;
+
+/**
+ * A single change made to a warp, as reported by WarpsChangedEvent.
+ */
+public final class WarpChange {
+
+    /**
+     * The kinds of change a warp may undergo.
+     */
+    public enum Type {
+        /**
+         * A new warp was created.
+         */
+        CREATED,
+        /**
+         * An existing warp was replaced by one at a new location.
+         */
+        MOVED,
+        /**
+         * A warp was deleted.
+         */
+        DELETED,
+        /**
+         * Players, groups or everyone were invited to a warp.
+         */
+        SHARED,
+        /**
+         * Players, groups or everyone were uninvited from a warp.
+         */
+        UNSHARED
+    }
+
+    /**
+     * The kind of this change.
+     */
+    private final Type type;
+
+    /**
+     * The warp changed; for deletions, the warp as it was before deletion.
+     */
+    private final Warp warp;
+
+    /**
+     * Whether the warp is, or for deletions was, a public warp.
+     */
+    private final boolean publicWarp;
+
+    /**
+     * Create a record of a change.
+     *
+     * @param changeType The kind of change.
+     * @param changed    The warp changed.
+     * @param isPublic   Whether the warp is, or was, a public warp.
+     */
+    public WarpChange(Type changeType, Warp changed, boolean isPublic) {
+        this.type = changeType;
+        this.warp = changed;
+        this.publicWarp = isPublic;
+    }
+
+    /**
+     * Get the kind of this change.
+     *
+     * @return The change type.
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Get the warp changed. For deletions, the warp is no longer in any warp map.
+     *
+     * @return The Warp.
+     */
+    public Warp getWarp() {
+        return this.warp;
+    }
+
+    /**
+     * Check whether the warp is, or for deletions was, a public warp.
+     *
+     * @return True for public warps; false for private warps.
+     */
+    public boolean isPublic() {
+        return this.publicWarp;
+    }
+}
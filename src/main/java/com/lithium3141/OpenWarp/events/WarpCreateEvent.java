@@ -0,0 +1,118 @@
+package com.lithium3141.OpenWarp.events;
+
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Event fired before a warp is created or moved. Cancelling it leaves the
+ * warps unchanged.
+ */
+public class WarpCreateEvent extends Event implements Cancellable {
+
+    /**
+     * Handlers listening for this event.
+     */
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The warp about to be stored.
+     */
+    private final Warp warp;
+
+    /**
+     * The warp of the same name about to be replaced, or null.
+     */
+    private final Warp previous;
+
+    /**
+     * Whether the warp is to be public.
+     */
+    private final boolean publicWarp;
+
+    /**
+     * The name of the player or plugin creating the warp.
+     */
+    private final String creator;
+
+    /**
+     * Whether this event has been cancelled.
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new event for the given warp.
+     *
+     * @param created   The warp about to be stored.
+     * @param replaced  The warp of the same name about to be replaced, or null.
+     * @param isPublic  Whether the warp is to be public.
+     * @param createdBy The name of the player or plugin creating the warp.
+     */
+    public WarpCreateEvent(Warp created, Warp replaced, boolean isPublic, String createdBy) {
+        this.warp = created;
+        this.previous = replaced;
+        this.publicWarp = isPublic;
+        this.creator = createdBy;
+    }
+
+    /**
+     * Get the warp about to be stored.
+     *
+     * @return The new Warp.
+     */
+    public Warp getWarp() {
+        return this.warp;
+    }
+
+    /**
+     * Get the warp about to be replaced, if the new warp moves an existing one.
+     *
+     * @return The replaced Warp, or null if the warp is new.
+     */
+    public Warp getPrevious() {
+        return this.previous;
+    }
+
+    /**
+     * Check whether the warp is to be public.
+     *
+     * @return True for a public warp; false for a private warp.
+     */
+    public boolean isPublic() {
+        return this.publicWarp;
+    }
+
+    /**
+     * Get the name of the player or plugin creating the warp.
+     *
+     * @return The creator's name.
+     */
+    public String getCreator() {
+        return this.creator;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    /**
+     * Get the handlers listening for this event.
+     *
+     * @return The handler list for this event.
+     */
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,86 @@
+package com.lithium3141.OpenWarp.events;
+
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Event fired before a warp is deleted. Cancelling it keeps the warp.
+ */
+public class WarpDeleteEvent extends Event implements Cancellable {
+
+    /**
+     * Handlers listening for this event.
+     */
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The warp about to be deleted.
+     */
+    private final Warp warp;
+
+    /**
+     * The name of the player deleting the warp, or null.
+     */
+    private final String deleter;
+
+    /**
+     * Whether this event has been cancelled.
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new event for the given warp.
+     *
+     * @param deleted   The warp about to be deleted.
+     * @param deletedBy The name of the player deleting the warp, or null if deleted through OpenWarpService.
+     */
+    public WarpDeleteEvent(Warp deleted, String deletedBy) {
+        this.warp = deleted;
+        this.deleter = deletedBy;
+    }
+
+    /**
+     * Get the warp about to be deleted. It is still in its warp map, so
+     * Warp#isPublic() and Warp#isPrivate() still answer for it.
+     *
+     * @return The Warp.
+     */
+    public Warp getWarp() {
+        return this.warp;
+    }
+
+    /**
+     * Get the name of the player deleting the warp.
+     *
+     * @return The deleter's name, or null if the warp is deleted through OpenWarpService.
+     */
+    public String getDeleter() {
+        return this.deleter;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    /**
+     * Get the handlers listening for this event.
+     *
+     * @return The handler list for this event.
+     */
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
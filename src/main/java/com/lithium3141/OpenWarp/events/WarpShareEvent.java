@@ -0,0 +1,138 @@
+package com.lithium3141.OpenWarp.events;
+
+import com.lithium3141.OpenWarp.Warp;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event fired before a private warp is shared with, or unshared from, players,
+ * groups or everyone. Cancelling it leaves the warp's invitees unchanged.
+ */
+public class WarpShareEvent extends Event implements Cancellable {
+
+    /**
+     * Handlers listening for this event.
+     */
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The warp being shared or unshared.
+     */
+    private final Warp warp;
+
+    /**
+     * True when sharing; false when unsharing.
+     */
+    private final boolean sharing;
+
+    /**
+     * The names of the players being invited or uninvited.
+     */
+    private final List<String> players;
+
+    /**
+     * The names of the groups being invited or uninvited.
+     */
+    private final List<String> groups;
+
+    /**
+     * Whether sharing with everyone is being turned on or off.
+     */
+    private final boolean everyone;
+
+    /**
+     * Whether this event has been cancelled.
+     */
+    private boolean cancelled;
+
+    /**
+     * Create a new event for the given warp.
+     *
+     * @param shared      The warp being shared or unshared.
+     * @param isSharing   True when sharing; false when unsharing.
+     * @param playerNames The names of the players being invited or uninvited.
+     * @param groupNames  The names of the groups being invited or uninvited.
+     * @param isEveryone  Whether sharing with everyone is being turned on or off.
+     */
+    public WarpShareEvent(Warp shared, boolean isSharing, List<String> playerNames, List<String> groupNames, boolean isEveryone) {
+        this.warp = shared;
+        this.sharing = isSharing;
+        this.players = Collections.unmodifiableList(playerNames);
+        this.groups = Collections.unmodifiableList(groupNames);
+        this.everyone = isEveryone;
+    }
+
+    /**
+     * Get the warp being shared or unshared.
+     *
+     * @return The Warp.
+     */
+    public Warp getWarp() {
+        return this.warp;
+    }
+
+    /**
+     * Check whether the warp is being shared or unshared.
+     *
+     * @return True when sharing; false when unsharing.
+     */
+    public boolean isSharing() {
+        return this.sharing;
+    }
+
+    /**
+     * Get the names of the players being invited or uninvited.
+     *
+     * @return An unmodifiable list of player names.
+     */
+    public List<String> getPlayers() {
+        return this.players;
+    }
+
+    /**
+     * Get the names of the groups being invited or uninvited.
+     *
+     * @return An unmodifiable list of group names.
+     */
+    public List<String> getGroups() {
+        return this.groups;
+    }
+
+    /**
+     * Check whether sharing with everyone is being turned on (when sharing) or off
+     * (when unsharing).
+     *
+     * @return True if everyone is affected.
+     */
+    public boolean isEveryone() {
+        return this.everyone;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    /**
+     * Get the handlers listening for this event.
+     *
+     * @return The handler list for this event.
+     */
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
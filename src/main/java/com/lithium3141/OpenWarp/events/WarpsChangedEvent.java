@@ -0,0 +1,57 @@
+package com.lithium3141.OpenWarp.events;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event fired after warps change. A command fires one event for its change;
+ * batch operations fire a single event carrying every change in the batch,
+ * so listeners need not handle thousands of events for one import or purge.
+ */
+public class WarpsChangedEvent extends Event {
+
+    /**
+     * Handlers listening for this event.
+     */
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The changes made, in the order they were made.
+     */
+    private final List<WarpChange> changes;
+
+    /**
+     * Create a new event reporting the given changes.
+     *
+     * @param changeList The changes made, in order.
+     */
+    public WarpsChangedEvent(List<WarpChange> changeList) {
+        this.changes = Collections.unmodifiableList(changeList);
+    }
+
+    /**
+     * Get the changes reported by this event.
+     *
+     * @return An unmodifiable list of changes, in the order they were made.
+     */
+    public List<WarpChange> getChanges() {
+        return this.changes;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    /**
+     * Get the handlers listening for this event.
+     *
+     * @return The handler list for this event.
+     */
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
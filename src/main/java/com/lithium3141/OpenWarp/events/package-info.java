@@ -0,0 +1,6 @@
+/**
+ * Bukkit events fired by OpenWarp. Pre-events such as WarpCreateEvent are
+ * fired before a single warp changes and may be cancelled; WarpsChangedEvent
+ * is fired after changes are made, once per command or batch operation.
+ */
+package com.lithium3141.OpenWarp.events;
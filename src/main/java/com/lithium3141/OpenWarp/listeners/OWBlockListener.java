@@ -0,0 +1,79 @@
+package com.lithium3141.OpenWarp.listeners;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Block listener for OpenWarp. Watches for blocks being placed or broken so that
+ * cached safe landings in the affected column are recomputed on the next teleport.
+ */
+public class OWBlockListener implements Listener {
+
+    /**
+     * The OpenWarp instance backing this block listener.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Create a new OWBlockListener backed by the given OpenWarp instance.
+     *
+     * @param ow The OpenWarp instance used for various Bukkit queries.
+     */
+    public OWBlockListener(OpenWarp ow) {
+        this.plugin = ow;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            if (event.isCancelled()) {
+                return;
+            }
+            this.invalidate(event.getBlock());
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockBreak(BlockBreakEvent event) {
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            if (event.isCancelled()) {
+                return;
+            }
+            this.invalidate(event.getBlock());
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            if (event.isCancelled()) {
+                return;
+            }
+            this.plugin.getSafeLandingService().invalidateWorld(event.getWorld());
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
+    }
+
+    /**
+     * Invalidate the cached landing for the column containing the given Block.
+     *
+     * @param block The Block that changed.
+     */
+    private void invalidate(Block block) {
+        this.plugin.getSafeLandingService().invalidateColumn(block.getWorld(), block.getX(), block.getZ());
+    }
+}
@@ -1,5 +1,6 @@
 package com.lithium3141.OpenWarp.listeners;
 
+import com.lithium3141.OpenWarp.OWDebug;
 import com.lithium3141.OpenWarp.OpenWarp;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -30,10 +31,15 @@ public class OWEntityListener implements Listener {
 
     @EventHandler
     public void onEntityDeath(EntityDeathEvent event) {
-        if (event.getEntity() instanceof Player) {
-            OpenWarp.DEBUG_LOG.fine("Player died.");
-            Player player = (Player) (event.getEntity());
-            this.plugin.getLocationTracker().setPreviousLocation(player, player.getLocation());
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            if (event.getEntity() instanceof Player) {
+                OWDebug.fine("Player died.");
+                Player player = (Player) (event.getEntity());
+                this.plugin.getLocationTracker().setPreviousLocation(player, player.getLocation());
+            }
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
         }
     }
 }
@@ -1,7 +1,7 @@
 package com.lithium3141.OpenWarp.listeners;
 
+import com.lithium3141.OpenWarp.OWDebug;
 import com.lithium3141.OpenWarp.OpenWarp;
-import com.lithium3141.OpenWarp.util.LocationUtil;
 import org.bukkit.Location;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.entity.Player;
@@ -9,13 +9,14 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 
 import java.io.IOException;
 
 /**
- * Player listener for OpenWarp. Watches for player join, teleport, and respawn
+ * Player listener for OpenWarp. Watches for player join, quit, teleport, and respawn
  * for various player location history updates. Allows use of the <code>/back</code>
  * command.
  */
@@ -42,33 +43,60 @@ public class OWPlayerListener implements Listener {
 
     @EventHandler(priority = EventPriority.LOW)
     public void onPlayerJoin(PlayerJoinEvent event) {
-        Player player = event.getPlayer();
-        OpenWarp.DEBUG_LOG.fine("Player '" + player.getName() + "'joined.");
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
         try {
-            this.plugin.getConfigurationManager().registerPlayerName(player.getName());
-        } catch (IOException e) {
-            e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
-        } catch (InvalidConfigurationException e) {
-            e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+            Player player = event.getPlayer();
+            OWDebug.fine("Player '{}' joined.", player.getName());
+            this.plugin.getPlayerDictionary().idFor(player);
+            this.plugin.getPlayerStateManager().playerJoined(player.getName());
+            this.plugin.getLocationHistoryStore().restore(player.getName());
+            try {
+                this.plugin.getConfigurationManager().registerPlayerName(player.getName());
+            } catch (IOException e) {
+                e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+            } catch (InvalidConfigurationException e) {
+                e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+            }
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            OWDebug.fine("Player '{}' quit.", event.getPlayer().getName());
+            this.plugin.getPlayerStateManager().playerQuit(event.getPlayer().getName());
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
         }
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerTeleport(PlayerTeleportEvent event) {
-        String fromLocation = LocationUtil.getHumanReadableString(event.getFrom(), 1);
-        String toLocation = LocationUtil.getHumanReadableString(event.getTo(), 1);
-        OpenWarp.DEBUG_LOG.fine("Player '" + event.getPlayer().getName() + "' teleported ( " + fromLocation + " -> " + toLocation + " ).");
-        if (event.isCancelled()) {
-            OpenWarp.DEBUG_LOG.fine("...cancelled!");
-        }
-        if (!locationsWithin(event.getFrom(), event.getTo(), FUZZ_FACTOR)) {
-            this.plugin.getLocationTracker().setPreviousLocation(event.getPlayer(), event.getFrom());
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            OWDebug.fine("Player '{}' teleported ( {} -> {} ).", event.getPlayer().getName(), event.getFrom(), event.getTo());
+            if (event.isCancelled()) {
+                OWDebug.fine("...cancelled!");
+            }
+            if (!locationsWithin(event.getFrom(), event.getTo(), FUZZ_FACTOR)) {
+                this.plugin.getLocationTracker().setPreviousLocation(event.getPlayer(), event.getFrom());
+            }
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
         }
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerRespawn(PlayerRespawnEvent event) {
-        OpenWarp.DEBUG_LOG.fine("Player '" + event.getPlayer().getName() + "'respawned.");
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            OWDebug.fine("Player '{}' respawned.", event.getPlayer().getName());
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
     }
 
     /**
@@ -0,0 +1,46 @@
+package com.lithium3141.OpenWarp.listeners;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * World listener for OpenWarp. Keeps the chunks around heavily-used warps
+ * loaded by refusing to unload chunks held by the hot warp tracker.
+ */
+public class OWWorldListener implements Listener {
+
+    /**
+     * The OpenWarp instance backing this world listener.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * Create a new OWWorldListener backed by the given OpenWarp instance.
+     *
+     * @param ow The OpenWarp instance used for various Bukkit queries.
+     */
+    public OWWorldListener(OpenWarp ow) {
+        this.plugin = ow;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        long token = this.plugin.getWatchdog().begin(event.getEventName());
+        try {
+            if (event.isCancelled()) {
+                return;
+            }
+            Chunk chunk = event.getChunk();
+            if (this.plugin.getHotWarpTracker().isHeld(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
+                event.setCancelled(true);
+                this.plugin.getHotWarpTracker().recordRefusedUnload();
+            }
+        } finally {
+            this.plugin.getWatchdog().end(token, 0);
+        }
+    }
+}
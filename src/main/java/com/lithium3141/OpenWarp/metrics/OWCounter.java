@@ -0,0 +1,56 @@
+package com.lithium3141.OpenWarp.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A monotonically increasing counter safe to update from any thread. Updates
+ * are spread over several padded cells chosen by thread, so that threads
+ * counting the same event rarely contend; reads sum the cells.
+ */
+public class OWCounter {
+
+    /**
+     * Number of cells updates are spread over. Must be a power of two.
+     */
+    private static final int STRIPES = 8;
+
+    /**
+     * Distance between used cells, in longs, so each sits on its own cache line.
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * Counter cells; only every PADDING-th element is used.
+     */
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * Add one to this counter.
+     */
+    public void increment() {
+        this.add(1L);
+    }
+
+    /**
+     * Add the given amount to this counter.
+     *
+     * @param amount The amount to add.
+     */
+    public void add(long amount) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        this.cells.addAndGet(stripe * PADDING, amount);
+    }
+
+    /**
+     * Get the current total of this counter.
+     *
+     * @return The sum of every update so far.
+     */
+    public long get() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += this.cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
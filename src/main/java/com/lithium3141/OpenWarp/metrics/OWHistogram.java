@@ -0,0 +1,123 @@
+package com.lithium3141.OpenWarp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values, such as durations in nanoseconds or sizes
+ * in bytes, safe to update from any thread. Values are counted in power-of-two
+ * buckets, so recording is a handful of atomic adds and percentiles are
+ * reported to within a factor of two.
+ */
+public class OWHistogram {
+
+    /**
+     * Number of buckets: one for zero and one per bit of a long.
+     */
+    private static final int BUCKETS = 65;
+
+    /**
+     * Number of values recorded in each bucket. Bucket <i>b</i> holds values
+     * below 2<sup><i>b</i></sup> and at or above 2<sup><i>b</i>-1</sup>.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of values recorded.
+     */
+    private final OWCounter count = new OWCounter();
+
+    /**
+     * Sum of values recorded.
+     */
+    private final OWCounter sum = new OWCounter();
+
+    /**
+     * Largest value recorded.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value. Negative values are recorded as zero.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0L);
+        this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+        this.count.increment();
+        this.sum.add(v);
+
+        long current = this.max.get();
+        while (v > current && !this.max.compareAndSet(current, v)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return The count of recorded values.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Get the sum of values recorded.
+     *
+     * @return The total of recorded values.
+     */
+    public long getSum() {
+        return this.sum.get();
+    }
+
+    /**
+     * Get the mean of values recorded.
+     *
+     * @return The mean value, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long n = this.getCount();
+        return (n == 0 ? 0.0 : (double) this.getSum() / n); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return The maximum value, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Get an upper bound on the given percentile of recorded values.
+     *
+     * @param percentile The percentile to report, between 0 and 100.
+     * @return The upper bound of the bucket holding the percentile, capped at the
+     *         maximum recorded value; 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(rank, 1L)) {
+                long upper = (i == 0 ? 0L : (i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+                return Math.min(upper, this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+}
@@ -0,0 +1,277 @@
+package com.lithium3141.OpenWarp.metrics;
+
+import com.lithium3141.OpenWarp.OpenWarp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of named counters and histograms describing what OpenWarp is doing.
+ * Metrics are created on first use and never removed; recording is cheap and
+ * safe from any thread. The registry can be exported periodically to a JSON file
+ * in the plugin's data folder for collection by external tools.
+ * <p/>
+ * Names are dotted paths, e.g. <tt>command.warp-set.latency-ns</tt>.
+ */
+public class OWMetrics {
+
+    /**
+     * The filename metrics are exported to.
+     */
+    public static final String EXPORT_FILENAME = "metrics.json";
+
+    /**
+     * Default number of seconds between exports.
+     */
+    public static final int DEFAULT_EXPORT_INTERVAL_SECONDS = 60;
+
+    /**
+     * Number of server ticks per second.
+     */
+    private static final long TICKS_PER_SECOND = 20L;
+
+    /**
+     * Percentiles reported for each histogram.
+     */
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0};
+
+    /**
+     * Counters, mapped to by name.
+     */
+    private final ConcurrentMap<String, OWCounter> counters = new ConcurrentHashMap<String, OWCounter>();
+
+    /**
+     * Histograms, mapped to by name.
+     */
+    private final ConcurrentMap<String, OWHistogram> histograms = new ConcurrentHashMap<String, OWHistogram>();
+
+    /**
+     * Time this registry was created, in milliseconds since the epoch.
+     */
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * Bukkit scheduler ID of the periodic export task, or -1 if not running.
+     */
+    private int taskId = -1;
+
+    /**
+     * Get the counter with the given name, creating it if necessary.
+     *
+     * @param name The name of the counter.
+     * @return The counter.
+     */
+    public OWCounter counter(String name) {
+        OWCounter counter = this.counters.get(name);
+        if (counter == null) {
+            OWCounter created = new OWCounter();
+            counter = this.counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Get the histogram with the given name, creating it if necessary.
+     *
+     * @param name The name of the histogram.
+     * @return The histogram.
+     */
+    public OWHistogram histogram(String name) {
+        OWHistogram histogram = this.histograms.get(name);
+        if (histogram == null) {
+            OWHistogram created = new OWHistogram();
+            histogram = this.histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Get every counter, sorted by name.
+     *
+     * @return An unmodifiable sorted view of all counters.
+     */
+    public SortedMap<String, OWCounter> getCounters() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, OWCounter>(this.counters));
+    }
+
+    /**
+     * Get every histogram, sorted by name.
+     *
+     * @return An unmodifiable sorted view of all histograms.
+     */
+    public SortedMap<String, OWHistogram> getHistograms() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, OWHistogram>(this.histograms));
+    }
+
+    /**
+     * Get the time since this registry was created.
+     *
+     * @return The uptime, in milliseconds.
+     */
+    public long getUptimeMillis() {
+        return System.currentTimeMillis() - this.startedAt;
+    }
+
+    /**
+     * Start exporting metrics to the plugin's data folder periodically. The export
+     * is written by an asynchronous task, off the main thread.
+     *
+     * @param plugin          The OpenWarp instance used for scheduling.
+     * @param intervalSeconds The number of seconds between exports; 0 or less disables export.
+     */
+    public void startExport(OpenWarp plugin, int intervalSeconds) {
+        if (this.taskId != -1 || intervalSeconds <= 0) {
+            return;
+        }
+
+        final File file = new File(plugin.getDataFolder(), EXPORT_FILENAME);
+        long period = intervalSeconds * TICKS_PER_SECOND;
+        this.taskId = plugin.getServer().getScheduler().scheduleAsyncRepeatingTask(plugin, new Runnable() {
+            @Override
+            public void run() {
+                export(file);
+            }
+        }, period, period);
+    }
+
+    /**
+     * Stop exporting metrics periodically.
+     *
+     * @param plugin The OpenWarp instance used for scheduling.
+     */
+    public void stopExport(OpenWarp plugin) {
+        if (this.taskId != -1) {
+            plugin.getServer().getScheduler().cancelTask(this.taskId);
+            this.taskId = -1;
+        }
+    }
+
+    /**
+     * Write every metric to the given file as JSON, replacing it.
+     *
+     * @param file The file to write.
+     * @return True if the file was written; false on error.
+     */
+    public boolean export(File file) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8");
+            try {
+                this.writeJson(out);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Couldn't replace " + file.getPath());
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            OpenWarp.LOG.warning(OpenWarp.LOG_PREFIX + "Couldn't export metrics; continuing...");
+            return false;
+        }
+    }
+
+    /**
+     * Write every metric as a single JSON object.
+     *
+     * @param out The writer to write to.
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\"timestamp\":" + System.currentTimeMillis() + ",\"uptime-ms\":" + this.getUptimeMillis());
+
+        out.write(",\"counters\":{");
+        boolean first = true;
+        for (Entry<String, OWCounter> entry : this.getCounters().entrySet()) {
+            out.write((first ? "" : ",") + quote(entry.getKey()) + ":" + entry.getValue().get()); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+            first = false;
+        }
+
+        out.write("},\"histograms\":{");
+        first = true;
+        for (Entry<String, OWHistogram> entry : this.getHistograms().entrySet()) {
+            OWHistogram histogram = entry.getValue();
+            out.write((first ? "" : ",") + quote(entry.getKey()) + ":{\"count\":" + histogram.getCount() // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+                    + ",\"sum\":" + histogram.getSum() + ",\"max\":" + histogram.getMax());
+            for (double percentile : PERCENTILES) {
+                out.write(",\"p" + (int) percentile + "\":" + histogram.getPercentile(percentile));
+            }
+            out.write("}");
+            first = false;
+        }
+        out.write("}}\n");
+    }
+
+    /**
+     * Get a short human-readable summary of every metric whose name starts with
+     * the given prefix.
+     *
+     * @param prefix The name prefix to match; empty for every metric.
+     * @return Summary lines, keyed and sorted by metric name.
+     */
+    public SortedMap<String, String> summarize(String prefix) {
+        SortedMap<String, String> lines = new TreeMap<String, String>();
+        for (Entry<String, OWCounter> entry : this.counters.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                lines.put(entry.getKey(), Long.toString(entry.getValue().get()));
+            }
+        }
+        for (Entry<String, OWHistogram> entry : this.histograms.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                OWHistogram histogram = entry.getValue();
+                lines.put(entry.getKey(), String.format("n=%d mean=%.0f p50<=%d p99<=%d max=%d", histogram.getCount(), histogram.getMean(),
+                        histogram.getPercentile(PERCENTILES[0]), histogram.getPercentile(PERCENTILES[2]), histogram.getMax()));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Quote a string for JSON output.
+     *
+     * @param s The string to quote.
+     * @return The quoted and escaped string.
+     */
+    private static String quote(String s) {
+        StringBuilder builder = new StringBuilder(s.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < ' ') {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Convert a free-form name, such as a command name, into a metric name segment.
+     *
+     * @param name The name to convert.
+     * @return The name in lowercase with spaces replaced by dashes.
+     */
+    public static String segment(String name) {
+        return name.trim().toLowerCase().replace(' ', '-');
+    }
+}
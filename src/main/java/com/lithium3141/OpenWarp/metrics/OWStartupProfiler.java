@@ -0,0 +1,191 @@
+package com.lithium3141.OpenWarp.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Timer for the phases of plugin startup. Each phase is timed from the call
+ * that begins it to the call that begins the next, and may carry counts of
+ * the objects it handled. Once startup finishes, the timings are kept for a
+ * summary and recorded as <tt>startup.*</tt> counters in the metrics registry.
+ */
+public class OWStartupProfiler {
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /**
+     * Microseconds per millisecond, for display.
+     */
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    /**
+     * The registry the finished timings are recorded in.
+     */
+    private final OWMetrics metrics;
+
+    /**
+     * Finished and running phases, in order.
+     */
+    private final List<Phase> phases = new ArrayList<Phase>();
+
+    /**
+     * The running phase, or null.
+     */
+    private Phase current;
+
+    /**
+     * Time startup began, from System#nanoTime().
+     */
+    private long startedAt;
+
+    /**
+     * Total startup time, in microseconds; -1 until startup finishes.
+     */
+    private long totalMicros = -1;
+
+    /**
+     * Create a new profiler recording into the given registry.
+     *
+     * @param registry The registry finished timings are recorded in.
+     */
+    public OWStartupProfiler(OWMetrics registry) {
+        this.metrics = registry;
+        this.startedAt = System.nanoTime();
+    }
+
+    /**
+     * End the running phase, if any, and begin a new one.
+     *
+     * @param name The name of the new phase; a metric name segment.
+     */
+    public void begin(String name) {
+        long now = System.nanoTime();
+        this.end(now);
+        this.current = new Phase(name, now);
+        this.phases.add(this.current);
+    }
+
+    /**
+     * Add to a count of objects handled by the running phase.
+     *
+     * @param what  The kind of object counted, e.g. <tt>warps</tt>; a metric name segment.
+     * @param count The number to add.
+     */
+    public void count(String what, long count) {
+        if (this.current == null) {
+            return;
+        }
+        Long existing = this.current.counts.get(what);
+        this.current.counts.put(what, (existing == null ? count : existing + count)); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+    }
+
+    /**
+     * End the running phase and record every phase in the metrics registry.
+     */
+    public void finish() {
+        long now = System.nanoTime();
+        this.end(now);
+        this.totalMicros = (now - this.startedAt) / NANOS_PER_MICRO;
+
+        this.metrics.counter("startup.total.us").add(this.totalMicros);
+        for (Phase phase : this.phases) {
+            String prefix = "startup." + phase.name + ".";
+            this.metrics.counter(prefix + "us").add(phase.micros);
+            for (Entry<String, Long> entry : phase.counts.entrySet()) {
+                this.metrics.counter(prefix + entry.getKey()).add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the total startup time.
+     *
+     * @return The time from creation to #finish(), in microseconds; -1 if not finished.
+     */
+    public long getTotalMicros() {
+        return this.totalMicros;
+    }
+
+    /**
+     * Get a human-readable summary of startup, one line per phase, slowest
+     * phases marked.
+     *
+     * @return The summary lines, in phase order.
+     */
+    public List<String> getSummary() {
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format("Startup took %.1f ms:", this.totalMicros / MICROS_PER_MILLI));
+
+        long slowest = 0;
+        for (Phase phase : this.phases) {
+            slowest = Math.max(slowest, phase.micros);
+        }
+        for (Phase phase : this.phases) {
+            StringBuilder line = new StringBuilder();
+            line.append(String.format("  %-16s %8.1f ms", phase.name, phase.micros / MICROS_PER_MILLI));
+            for (Entry<String, Long> entry : phase.counts.entrySet()) {
+                line.append("  ").append(entry.getValue()).append(' ').append(entry.getKey());
+            }
+            if (phase.micros == slowest && this.phases.size() > 1) {
+                line.append("  <- slowest");
+            }
+            lines.add(line.toString());
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * End the running phase, if any.
+     *
+     * @param now The current time, from System#nanoTime().
+     */
+    private void end(long now) {
+        if (this.current != null) {
+            this.current.micros = (now - this.current.startedAt) / NANOS_PER_MICRO;
+            this.current = null;
+        }
+    }
+
+    /**
+     * A single startup phase.
+     */
+    private static final class Phase {
+        /**
+         * The name of the phase.
+         */
+        private final String name;
+
+        /**
+         * Time the phase began, from System#nanoTime().
+         */
+        private final long startedAt;
+
+        /**
+         * Duration of the phase, in microseconds.
+         */
+        private long micros;
+
+        /**
+         * Counts of objects handled by the phase, in the order first counted.
+         */
+        private final Map<String, Long> counts = new LinkedHashMap<String, Long>();
+
+        /**
+         * Create a new phase.
+         *
+         * @param phaseName The name of the phase.
+         * @param start     Time the phase began, from System#nanoTime().
+         */
+        private Phase(String phaseName, long start) {
+            this.name = phaseName;
+            this.startedAt = start;
+        }
+    }
+}
@@ -12,6 +12,11 @@ import org.bukkit.block.Block;
  * <p/>
  * A location is declared "safe" if it consists of a non-air block below two
  * air blocks. Note that this is a far cry from Multiverse's definition of "safe."
+ * Lava, fire and cacti are never considered a safe floor.
+ * <p/>
+ * All scans read block type IDs directly from the World and work on primitive
+ * coordinates; no intermediate Block or Location objects are created while
+ * walking a column.
  */
 public class BlockSafety {
 
@@ -24,127 +29,231 @@ public class BlockSafety {
 
     /**
      * The height of a typical Minecraft map.
+     *
+     * @deprecated Worlds may be taller than this; use {@link World#getMaxHeight()}.
      */
+    @Deprecated
     public static final int WORLD_HEIGHT = 127;
 
+    /**
+     * Marker value returned by the primitive scan methods when no safe
+     * landing exists in the scanned range.
+     */
+    public static final int NO_LANDING = -1;
+
+    /**
+     * Block type ID for air.
+     */
+    private static final int AIR = Material.AIR.getId();
+
     /**
      * Find the next safe block up from the given block. Searches in the positive
-     * Y-direction up to Y=127.
+     * Y-direction up to the top of the block's world, falling back to a downward
+     * search if nothing is found.
      *
      * @param block The Block at which to start searching.
-     * @return The next safe Location up from the given Block, inclusive.
+     * @return The next safe Location up from the given Block, inclusive, or null
+     *         if the column has no safe spot.
      */
     public static Location safeNextUpFrom(Block block) {
         if (block == null) return null; // SUPPRESS CHECKSTYLE NeedBracesCheck
 
-        Location loc = block.getLocation();
+        World world = block.getWorld();
+        int y = scanUp(world, block.getX(), block.getY() + 1, block.getZ());
+        if (y == NO_LANDING) {
+            y = scanDown(world, block.getX(), block.getY() + 1, block.getZ(), 1);
+        }
+        return toLocation(world, block.getX(), y, block.getZ(), 0.0F, 0.0F);
+    }
 
-        int x = loc.getBlockX();
-        int y = loc.getBlockY();
-        int z = loc.getBlockZ();
+    /**
+     * Find the next safe block down from the given block. Searches in the negative
+     * Y-direction down to the bottom of the block's world, falling back to an
+     * upward search if nothing is found.
+     *
+     * @param block The Block at which to start searching.
+     * @return The next safe Location down from the given Block, inclusive, or null
+     *         if the column has no safe spot.
+     */
+    public static Location safeNextDownFrom(Block block) {
+        if (block == null) return null; // SUPPRESS CHECKSTYLE NeedBracesCheck
 
-        // Find the next highest block from requested target that has air above it
-        Material last = (new Location(loc.getWorld(), x, y + 1, z)).getBlock().getType();
-        Material last2 = (new Location(loc.getWorld(), x, y + 2, z)).getBlock().getType();
-        int ny;
         World world = block.getWorld();
-        for (ny = y; ny < WORLD_HEIGHT; ny++) {
-            Block b = world.getBlockAt(x, ny, z);
-            Material m = b.getType();
-            if (!m.equals(Material.AIR) && last.equals(Material.AIR) && last2.equals(Material.AIR)) {
-                break;
-            } else {
-                last2 = last;
-                last = m;
-            }
+        int y = scanDown(world, block.getX(), block.getY() + 1, block.getZ(), 1);
+        if (y == NO_LANDING) {
+            y = scanUp(world, block.getX(), block.getY() + 1, block.getZ());
         }
+        return toLocation(world, block.getX(), y, block.getZ(), 0.0F, 0.0F);
+    }
 
-        // If the found block is air, move down
-        if (world.getBlockAt(x, ny - 1, z).getType().equals(Material.AIR)) {
-            ny = safeNextDownFrom(world.getBlockAt(x, ny, z)).getBlockY();
+    /**
+     * Find the safe block closest to the top of the world from the given Location.
+     * Searches in the negative Y-direction starting at the top of the world down
+     * to the given location.
+     *
+     * @param loc The Location at which to stop searching.
+     * @return The highest safe Location sharing a column with the given Location.
+     */
+    public static Location safeTopFrom(Location loc) {
+        World world = loc.getWorld();
+        int y = scanDown(world, loc.getBlockX(), world.getMaxHeight() - 2, loc.getBlockZ(), loc.getBlockY());
+        if (y == NO_LANDING) {
+            y = loc.getBlockY();
         }
-
-        Location result = new Location(loc.getWorld(), loc.getX(), (double) (ny + 1), loc.getZ());
+        Location result = new Location(world, loc.getX(), (double) y, loc.getZ());
         result.setPitch(loc.getPitch());
         result.setYaw(loc.getYaw());
         return result;
     }
 
     /**
-     * Find the next safe block down from the given block. Searches in the negative
-     * Y-direction down to Y=0.
+     * Find the Y-coordinate a player's feet should occupy to land safely at or
+     * near the given coordinates. Searches upward from <code>y</code> first, then
+     * downward.
      *
-     * @param block The Block at which to start searching.
-     * @return The next safe Location down from the given Block, inclusive.
+     * @param world The World in which to search.
+     * @param x     The block X-coordinate of the column to search.
+     * @param y     The preferred feet Y-coordinate.
+     * @param z     The block Z-coordinate of the column to search.
+     * @return The feet Y-coordinate of the nearest safe landing, or
+     *         {@link #NO_LANDING} if the column has no safe spot.
      */
-    public static Location safeNextDownFrom(Block block) {
-        if (block == null) return null; // SUPPRESS CHECKSTYLE NeedBracesCheck
-
-        Location loc = block.getLocation();
+    public static int findLandingY(World world, int x, int y, int z) {
+        int result = scanUp(world, x, y, z);
+        if (result == NO_LANDING) {
+            result = scanDown(world, x, y - 1, z, 1);
+        }
+        return result;
+    }
 
-        int x = loc.getBlockX();
-        int y = loc.getBlockY();
-        int z = loc.getBlockZ();
+    /**
+     * Scan a column upward for a safe landing, starting with the given feet
+     * position and stopping at the top of the world.
+     *
+     * @param world The World in which to search.
+     * @param x     The block X-coordinate of the column.
+     * @param from  The first feet Y-coordinate to check.
+     * @param z     The block Z-coordinate of the column.
+     * @return The first safe feet Y-coordinate at or above <code>from</code>,
+     *         or {@link #NO_LANDING}.
+     */
+    public static int scanUp(World world, int x, int from, int z) {
+        int top = world.getMaxHeight() - 1;
+        int feet = Math.max(from, 1);
+        if (feet >= top) {
+            return NO_LANDING;
+        }
 
-        // Find the next lowest block from requested target that has air above it
-        Material last = (new Location(loc.getWorld(), x, y + 1, z)).getBlock().getType();
-        Material last2 = (new Location(loc.getWorld(), x, y + 2, z)).getBlock().getType();
-        int ny;
-        World world = block.getWorld();
-        for (ny = y; ny > 0; ny--) {
-            Block b = world.getBlockAt(x, ny, z);
-            Material m = b.getType();
-            if (!m.equals(Material.AIR) && last.equals(Material.AIR) && last2.equals(Material.AIR)) {
-                break;
-            } else {
-                last2 = last;
-                last = m;
+        int below = world.getBlockTypeIdAt(x, feet - 1, z);
+        int at = world.getBlockTypeIdAt(x, feet, z);
+        int above = world.getBlockTypeIdAt(x, feet + 1, z);
+        while (true) {
+            if (isSafe(below, at, above)) {
+                return feet;
             }
+            feet++;
+            if (feet >= top) {
+                return NO_LANDING;
+            }
+            below = at;
+            at = above;
+            above = world.getBlockTypeIdAt(x, feet + 1, z);
         }
+    }
 
-        // If the found block doesn't have air, move up
-        if (!world.getBlockAt(x, ny + 1, z).getType().equals(Material.AIR)) {
-            ny = safeNextUpFrom(world.getBlockAt(x, ny, z)).getBlockY();
+    /**
+     * Scan a column downward for a safe landing, starting with the given feet
+     * position and stopping at the given lower bound.
+     *
+     * @param world The World in which to search.
+     * @param x     The block X-coordinate of the column.
+     * @param from  The first feet Y-coordinate to check.
+     * @param z     The block Z-coordinate of the column.
+     * @param to    The lowest feet Y-coordinate to check.
+     * @return The first safe feet Y-coordinate at or below <code>from</code>,
+     *         or {@link #NO_LANDING}.
+     */
+    public static int scanDown(World world, int x, int from, int z, int to) {
+        int feet = Math.min(from, world.getMaxHeight() - 2);
+        int bottom = Math.max(to, 1);
+        if (feet < bottom) {
+            return NO_LANDING;
         }
 
-        Location result = new Location(loc.getWorld(), loc.getX(), (double) (ny + 2), loc.getZ());
-        result.setPitch(loc.getPitch());
-        result.setYaw(loc.getYaw());
-        return result;
+        int below = world.getBlockTypeIdAt(x, feet - 1, z);
+        int at = world.getBlockTypeIdAt(x, feet, z);
+        int above = world.getBlockTypeIdAt(x, feet + 1, z);
+        while (true) {
+            if (isSafe(below, at, above)) {
+                return feet;
+            }
+            feet--;
+            if (feet < bottom) {
+                return NO_LANDING;
+            }
+            above = at;
+            at = below;
+            below = world.getBlockTypeIdAt(x, feet - 1, z);
+        }
     }
 
     /**
-     * Find the safe block closest to the top of the world from the given Location.
-     * Searches in the negative Y-direction starting at Y=127 down to the given location.
+     * Check whether a player's feet can safely occupy the given block. A single
+     * check of three blocks, for confirming a previously found landing.
      *
-     * @param loc The Location at which to stop searching.
-     * @return The highest safe Location sharing a column with the given Location.
+     * @param world The World to check in.
+     * @param x     The block X-coordinate.
+     * @param feet  The feet Y-coordinate.
+     * @param z     The block Z-coordinate.
+     * @return True if the player can stand here without injury.
      */
-    public static Location safeTopFrom(Location loc) {
-        int x = loc.getBlockX();
-        int y = loc.getBlockY();
-        int z = loc.getBlockZ();
-
-        // Find the highest block from requested target that is solid with air above it
-        Block block = loc.getBlock();
-        Material last2 = Material.BEDROCK;
-        Material last = Material.BEDROCK;
-        int ny;
-        World world = block.getWorld();
-        for (ny = WORLD_HEIGHT - 1; ny > y; ny--) {
-            Block b = world.getBlockAt(x, ny, z);
-            Material m = b.getType();
-            if (!m.equals(Material.AIR) && last.equals(Material.AIR) && last2.equals(Material.AIR)) {
-                break;
-            } else {
-                last2 = last;
-                last = m;
-            }
+    public static boolean isSafeLanding(World world, int x, int feet, int z) {
+        if (feet < 1 || feet >= world.getMaxHeight() - 1) {
+            return false;
         }
+        return isSafe(world.getBlockTypeIdAt(x, feet - 1, z), world.getBlockTypeIdAt(x, feet, z), world.getBlockTypeIdAt(x, feet + 1, z));
+    }
 
-        Location result = new Location(loc.getWorld(), loc.getX(), (double) (ny + 1), loc.getZ());
-        result.setPitch(loc.getPitch());
-        result.setYaw(loc.getYaw());
-        return result;
+    /**
+     * Check whether a floor block and the two blocks above it form a safe landing.
+     *
+     * @param floor The type ID of the block the player would stand on.
+     * @param feet  The type ID of the block at the player's feet.
+     * @param head  The type ID of the block at the player's head.
+     * @return True if the player can stand here without injury.
+     */
+    private static boolean isSafe(int floor, int feet, int head) {
+        return feet == AIR && head == AIR && floor != AIR && !isHazard(floor);
+    }
+
+    /**
+     * Check whether the given block type hurts a player standing on it.
+     *
+     * @param typeId The block type ID to check.
+     * @return True if the block type is harmful to stand on.
+     */
+    private static boolean isHazard(int typeId) {
+        return typeId == Material.LAVA.getId()
+                || typeId == Material.STATIONARY_LAVA.getId()
+                || typeId == Material.FIRE.getId()
+                || typeId == Material.CACTUS.getId();
+    }
+
+    /**
+     * Build a Location for the given feet position, or null when no landing was found.
+     *
+     * @param world The World of the Location.
+     * @param x     The block X-coordinate.
+     * @param y     The feet Y-coordinate, or {@link #NO_LANDING}.
+     * @param z     The block Z-coordinate.
+     * @param yaw   The yaw of the resulting Location.
+     * @param pitch The pitch of the resulting Location.
+     * @return A new Location, or null if <code>y</code> is {@link #NO_LANDING}.
+     */
+    private static Location toLocation(World world, int x, int y, int z, float yaw, float pitch) {
+        if (y == NO_LANDING) {
+            return null;
+        }
+        return new Location(world, (double) x, (double) y, (double) z, yaw, pitch);
     }
 }
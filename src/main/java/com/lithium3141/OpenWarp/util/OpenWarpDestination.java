@@ -13,6 +13,10 @@ import java.util.regex.Pattern;
 /**
  * Multiverse 2 destination type for OpenWarp. Allows users of both Multiverse
  * and OpenWarp to use Multiverse commands to move to OpenWarp warps.
+ * <p/>
+ * Multiverse calls several methods of a destination for each use. The warp
+ * named by this destination is resolved once and cached until the plugin's
+ * warp registry version changes.
  */
 public class OpenWarpDestination {
 
@@ -22,10 +26,15 @@ public class OpenWarpDestination {
     private OpenWarp plugin;
 
     /**
-     * The Warp represented by this destination.
+     * The Warp represented by this destination, as last resolved, or null.
      */
     private Warp warp;
 
+    /**
+     * The warp registry version at which #warp was resolved, or -1 if never resolved.
+     */
+    private long resolvedVersion = -1;
+
     /**
      * The name of the Warp represented by this destination.
      */
@@ -36,17 +45,27 @@ public class OpenWarpDestination {
      */
     public static final String IDENTIFIER = "ow";
 
+    /**
+     * Pattern matching destination strings of this type.
+     */
+    private static final Pattern DESTINATION_PATTERN = Pattern.compile("^ow:([a-zA-Z0-9_]+)(?::([a-zA-Z0-9_]+))?$");
+
     public String getIdentifier() {
         return IDENTIFIER;
     }
 
     public boolean isThisType(JavaPlugin owningPlugin, String dest) {
-        return Pattern.matches("^ow:([a-zA-Z0-9_]+)(?::([a-zA-Z0-9_]+))?$", dest);
+        return DESTINATION_PATTERN.matcher(dest).matches();
     }
 
     public Location getLocation(Entity e) {
+        // Public warps resolve the same for every sender
+        Warp w = this.resolve();
+        if (w != null) {
+            return w.getLocation();
+        }
         if (e instanceof CommandSender) {
-            Warp w = this.plugin.getWarp((CommandSender) e, this.warpName);
+            w = this.plugin.getWarp((CommandSender) e, this.warpName);
             if (w != null) {
                 return w.getLocation();
             }
@@ -55,12 +74,14 @@ public class OpenWarpDestination {
     }
 
     public boolean isValid() {
-        return this.plugin.getWarp(null, this.warpName) != null;
+        return this.resolve() != null;
     }
 
     public void setDestination(JavaPlugin owningPlugin, String dest) {
         // If this class exists, then this plugin MUST exist!
-        this.plugin = (OpenWarp) plugin.getServer().getPluginManager().getPlugin("OpenWarp");
+        this.plugin = (OpenWarp) owningPlugin.getServer().getPluginManager().getPlugin("OpenWarp");
+        this.warp = null;
+        this.resolvedVersion = -1;
         try {
             this.warpName = dest.substring(dest.indexOf(":") + 1);
         } catch (IndexOutOfBoundsException e) {
@@ -69,7 +90,7 @@ public class OpenWarpDestination {
     }
 
     public String getType() {
-        Warp w = this.plugin.getWarp(null, this.warpName);
+        Warp w = this.resolve();
         if (w != null) {
             if (w.isPublic()) {
                 return "Public OpenWarp";
@@ -80,7 +101,7 @@ public class OpenWarpDestination {
     }
 
     public String getName() {
-        Warp w = this.plugin.getWarp(null, this.warpName);
+        Warp w = this.resolve();
         if (w != null) {
             return w.getName();
         }
@@ -88,14 +109,10 @@ public class OpenWarpDestination {
     }
 
     public String getRequiredPermission() {
-        Warp w = this.plugin.getWarp(null, this.warpName);
+        Warp w = this.resolve();
         String permString = "";
         if (w != null) {
-            if (w.isPublic()) {
-                permString = "openwarp.warp.access.public." + w.getName();
-            } else {
-                permString = "openwarp.warp.access.private." + w.getOwner() + "." + w.getName();
-            }
+            permString = this.plugin.getAccessPermission(w, w.isPublic());
         }
         return permString;
     }
@@ -107,14 +124,29 @@ public class OpenWarpDestination {
     /**
      * Check whether to use Multiverse's safe teleporter.
      *
-     * @return True.
+     * @return True unless the warp is known and does not use safe teleport.
      */
     public boolean useSafeTeleporter() {
-        Warp w = this.plugin.getWarp(null, this.warpName);
+        Warp w = this.resolve();
         if (w != null) {
-            return warp.useSafeTeleporter();
+            return w.useSafeTeleporter();
         }
         return true;
     }
 
+    /**
+     * Get the Warp named by this destination, looking it up again only if the warp
+     * registry changed since the last lookup.
+     *
+     * @return The Warp, or null if no warp by that name is visible without a sender.
+     */
+    private Warp resolve() {
+        long version = this.plugin.getRegistryVersion();
+        if (version != this.resolvedVersion) {
+            this.warp = this.plugin.getWarp(null, this.warpName);
+            this.resolvedVersion = version;
+        }
+        return this.warp;
+    }
+
 }
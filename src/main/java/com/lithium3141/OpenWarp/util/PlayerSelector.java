@@ -0,0 +1,90 @@
+package com.lithium3141.OpenWarp.util;
+
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utility class for resolving a selector string into a set of online players.
+ * Supported selectors are:
+ * <ul>
+ * <li><code>*</code> or <code>@all</code> - every online player</li>
+ * <li><code>@world:NAME</code> - every player in the named world</li>
+ * <li><code>@perm:NODE</code> - every online player with the given permission</li>
+ * <li><code>NAME[,NAME...]</code> - the named players, if online</li>
+ * </ul>
+ */
+public class PlayerSelector {
+
+    /**
+     * Prefix for world selectors.
+     */
+    public static final String WORLD_PREFIX = "@world:";
+
+    /**
+     * Prefix for permission selectors.
+     */
+    public static final String PERMISSION_PREFIX = "@perm:";
+
+    /**
+     * Protected constructor so that utility classes may not be instantiated.
+     */
+    protected PlayerSelector() {
+        super();
+    }
+
+    /**
+     * Resolve the given selector against the players currently online.
+     *
+     * @param server     The Server whose players to select from.
+     * @param selector   The selector string.
+     * @param unresolved List into which names of players that could not be found
+     *                   are added; may be null.
+     * @return The selected online players, without duplicates, or null if the
+     *         selector names a world that does not exist.
+     */
+    public static List<Player> select(Server server, String selector, List<String> unresolved) {
+        Set<Player> result = new LinkedHashSet<Player>();
+
+        if (selector.equals("*") || selector.equalsIgnoreCase("@all")) {
+            for (Player player : server.getOnlinePlayers()) {
+                result.add(player);
+            }
+        } else if (selector.toLowerCase().startsWith(WORLD_PREFIX)) {
+            World world = server.getWorld(selector.substring(WORLD_PREFIX.length()));
+            if (world == null) {
+                return null;
+            }
+            result.addAll(world.getPlayers());
+        } else if (selector.toLowerCase().startsWith(PERMISSION_PREFIX)) {
+            String node = selector.substring(PERMISSION_PREFIX.length());
+            for (Player player : server.getOnlinePlayers()) {
+                if (player.hasPermission(node)) {
+                    result.add(player);
+                }
+            }
+        } else {
+            for (String name : selector.split(",")) {
+                if (name.length() == 0) {
+                    continue;
+                }
+                Player player = server.getPlayerExact(name);
+                if (player == null) {
+                    player = server.getPlayer(name);
+                }
+                if (player != null) {
+                    result.add(player);
+                } else if (unresolved != null) {
+                    unresolved.add(name);
+                }
+            }
+        }
+
+        return new ArrayList<Player>(result);
+    }
+}
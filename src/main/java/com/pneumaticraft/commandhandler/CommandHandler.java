@@ -1,13 +1,18 @@
 package com.pneumaticraft.commandhandler;
 
 import com.lithium3141.OpenWarp.OpenWarp;
+import com.lithium3141.OpenWarp.metrics.OWCounter;
+import com.lithium3141.OpenWarp.metrics.OWHistogram;
+import com.lithium3141.OpenWarp.metrics.OWMetrics;
 import com.lithium3141.shellparser.ShellParser;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class CommandHandler {
 
@@ -15,10 +20,14 @@ public class CommandHandler {
 
     protected List<Command> allCommands;
 
+    // Metrics of each registered command, looked up once at registration
+    private Map<Command, CommandMetrics> commandMetrics;
+
     public CommandHandler(OpenWarp plugin) {
         this.plugin = plugin;
 
         this.allCommands = new ArrayList<Command>();
+        this.commandMetrics = new IdentityHashMap<Command, CommandMetrics>();
     }
 
     public boolean locateAndRunCommand(CommandSender sender, List<String> args) {
@@ -97,6 +106,7 @@ public class CommandHandler {
 
     public void registerCommand(Command command) {
         this.allCommands.add(command);
+        this.commandMetrics.put(command, new CommandMetrics(this.plugin.getMetrics(), command));
     }
 
     /**
@@ -122,13 +132,21 @@ public class CommandHandler {
     }
 
     private void checkAndRunCommand(CommandSender sender, List<String> parsedArgs, Command foundCommand, boolean notifySender) {
+        CommandMetrics metrics = this.commandMetrics.get(foundCommand);
         if (plugin.hasAnyPermission(sender, foundCommand.getAllPermissionStrings(), foundCommand.isOpRequired())) {
             if (foundCommand.checkArgLength(parsedArgs)) {
-                foundCommand.runCommand(sender, parsedArgs);
+                long start = System.nanoTime();
+                try {
+                    foundCommand.runCommand(sender, parsedArgs);
+                } finally {
+                    metrics.latency.record(System.nanoTime() - start);
+                }
             } else {
+                metrics.usageShown.increment();
                 foundCommand.showHelp(sender);
             }
         } else {
+            metrics.denied.increment();
             if (notifySender) {
                 sender.sendMessage("You do not have any of the required permission(s):");
                 for (String perm : foundCommand.getAllPermissionStrings()) {
@@ -137,4 +155,20 @@ public class CommandHandler {
             }
         }
     }
+
+    /**
+     * Metrics of a single command.
+     */
+    private static final class CommandMetrics {
+        private final OWHistogram latency;
+        private final OWCounter usageShown;
+        private final OWCounter denied;
+
+        CommandMetrics(OWMetrics metrics, Command command) {
+            String name = "command." + OWMetrics.segment(command.getCommandName());
+            this.latency = metrics.histogram(name + ".latency-ns");
+            this.usageShown = metrics.counter(name + ".usage-shown");
+            this.denied = metrics.counter(name + ".denied");
+        }
+    }
 }
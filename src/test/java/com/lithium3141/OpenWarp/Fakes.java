@@ -0,0 +1,106 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Minimal stand-ins for Bukkit objects, for tests that need a World or Player
+ * but no running server. Only the methods OpenWarp's pure logic calls are
+ * answered; everything else returns null, false or zero.
+ */
+final class Fakes {
+
+    /**
+     * Private constructor to avoid utility class instantiation.
+     */
+    private Fakes() {
+    }
+
+    /**
+     * Create a World that only knows its name.
+     *
+     * @param name The name of the world.
+     * @return A World proxy.
+     */
+    static World world(final String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] {World.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getName")) {
+                    return name;
+                }
+                return defaultValue(proxy, method, args);
+            }
+        });
+    }
+
+    /**
+     * Create a non-op Player that has exactly the given permissions.
+     *
+     * @param name        The name of the player.
+     * @param permissions The permission nodes the player has.
+     * @return A Player proxy.
+     */
+    static Player player(final String name, String... permissions) {
+        final Set<String> granted = new HashSet<String>(Arrays.asList(permissions));
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] {Player.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getName")) {
+                    return name;
+                }
+                if (method.getName().equals("hasPermission") && args[0] instanceof String) {
+                    return granted.contains((String) args[0]);
+                }
+                return defaultValue(proxy, method, args);
+            }
+        });
+    }
+
+    /**
+     * Answer a method a fake does not implement.
+     *
+     * @param proxy  The proxy the method was called on.
+     * @param method The method called.
+     * @param args   The arguments of the call.
+     * @return Identity-based results for Object methods; otherwise null, false or zero.
+     */
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        if (method.getName().equals("equals")) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        if (method.getName().equals("toString")) {
+            return "Fake" + method.getDeclaringClass().getSimpleName();
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return (char) 0;
+        }
+        return null;
+    }
+}
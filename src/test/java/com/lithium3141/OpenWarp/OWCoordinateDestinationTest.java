@@ -0,0 +1,128 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the parsing of <code>[world:]x,y,z</code> destinations.
+ */
+public class OWCoordinateDestinationTest {
+
+    /**
+     * Parse text that must be a coordinate destination.
+     *
+     * @param text The text to parse.
+     * @return The destination.
+     */
+    private static OWCoordinateDestination parse(String text) {
+        OWCoordinateDestination destination = OWCoordinateDestination.parse(text);
+        assertNotNull("expected coordinates: " + text, destination);
+        assertTrue(OWCoordinateDestination.isCoordinates(text));
+        return destination;
+    }
+
+    /**
+     * Check that text is not a coordinate destination.
+     *
+     * @param text The text to check.
+     */
+    private static void assertRejected(String text) {
+        assertNull("expected no coordinates: " + text, OWCoordinateDestination.parse(text));
+        assertFalse(OWCoordinateDestination.isCoordinates(text));
+    }
+
+    @Test
+    public void parsesPlainCoordinates() {
+        OWCoordinateDestination destination = parse("100,64,20");
+        assertEquals(100, destination.getX());
+        assertEquals(64, destination.getY());
+        assertEquals(20, destination.getZ());
+        assertFalse(destination.hasWorldName());
+        assertNull(destination.getWorldName());
+        assertEquals("100,64,20", destination.toString());
+    }
+
+    @Test
+    public void parsesNegativeCoordinates() {
+        OWCoordinateDestination destination = parse("-100,-1,-20");
+        assertEquals(-100, destination.getX());
+        assertEquals(-1, destination.getY());
+        assertEquals(-20, destination.getZ());
+        assertEquals(0, parse("-0,0,-0").getX());
+    }
+
+    @Test
+    public void parsesWorldName() {
+        OWCoordinateDestination destination = parse("world_nether:100,64,-20");
+        assertTrue(destination.hasWorldName());
+        assertEquals("world_nether", destination.getWorldName());
+        assertEquals(100, destination.getX());
+        assertEquals(-20, destination.getZ());
+    }
+
+    @Test
+    public void acceptsTheRangeOfInt() {
+        OWCoordinateDestination destination = parse("2147483647,0,-2147483648");
+        assertEquals(Integer.MAX_VALUE, destination.getX());
+        assertEquals(Integer.MIN_VALUE, destination.getZ());
+        assertRejected("2147483648,0,0");
+        assertRejected("0,0,-2147483649");
+        assertRejected("99999999999999999999,0,0");
+    }
+
+    @Test
+    public void rejectsExplicitPlusSigns() {
+        assertRejected("+1,2,3");
+        assertRejected("1,+2,3");
+    }
+
+    @Test
+    public void rejectsDecimals() {
+        assertRejected("1.5,64,2");
+        assertRejected("1,64.0,2");
+        assertRejected("1,64,2.");
+    }
+
+    @Test
+    public void rejectsRelativeCoordinates() {
+        assertRejected("~,~,~");
+        assertRejected("~1,64,~-1");
+        assertRejected("world:~,64,0");
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        assertRejected(null);
+        assertRejected("");
+        assertRejected("spawn");
+        assertRejected("1,2");
+        assertRejected("1,2,3,4");
+        assertRejected("1,,3");
+        assertRejected(",2,3");
+        assertRejected("1,2,");
+        assertRejected("-,2,3");
+        assertRejected("1 ,2,3");
+        assertRejected(":1,2,3");
+        assertRejected("my world:1,2,3");
+        assertRejected("a:b:1,2,3");
+    }
+
+    @Test
+    public void usesDefaultWorldWithoutWorldName() {
+        World world = Fakes.world("world");
+        Location location = parse("10,64,-5").getLocation(null, world);
+        assertSame(world, location.getWorld());
+        assertEquals(10.0, location.getX(), 0.0);
+        assertEquals(64.0, location.getY(), 0.0);
+        assertEquals(-5.0, location.getZ(), 0.0);
+        assertNull(parse("10,64,-5").getLocation(null, null));
+    }
+}
@@ -0,0 +1,205 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the limit arithmetic of OWQuotaManager.
+ */
+public class OWQuotaManagerTest {
+
+    /**
+     * The plugin whose warp counter the quotas read.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The quota configuration, laid out as the <code>quotas</code> section.
+     */
+    private MemoryConfiguration quotas;
+
+    /**
+     * A player in the default group only.
+     */
+    private Player member;
+
+    /**
+     * A player in the default and vip groups.
+     */
+    private Player vip;
+
+    /**
+     * Create a fresh plugin, configuration and players for each test.
+     */
+    @Before
+    public void setUp() {
+        this.plugin = new OpenWarp();
+        this.quotas = new MemoryConfiguration();
+        this.member = Fakes.player("alice");
+        this.vip = Fakes.player("bob", Warp.GROUP_PERMISSION_PREFIX + "vip");
+    }
+
+    /**
+     * Create a quota manager from the current configuration.
+     *
+     * @return The quota manager.
+     */
+    private OWQuotaManager manager() {
+        return new OWQuotaManager(this.plugin, this.quotas);
+    }
+
+    /**
+     * Create a warp owned by a player.
+     *
+     * @param owner     The owner.
+     * @param worldName The name of the warp's world.
+     * @return The Warp.
+     */
+    private Warp warp(Player owner, String worldName) {
+        return new Warp(this.plugin, "warp", new Location(Fakes.world(worldName), 0, 64, 0), owner.getName());
+    }
+
+    /**
+     * Count warps as if they had been added to the registry.
+     *
+     * @param scope The scope the warps were added to.
+     * @param warp  A warp standing in for each one added.
+     * @param count The number of warps added.
+     */
+    private void add(Warp.Scope scope, Warp warp, int count) {
+        for (int i = 0; i < count; i++) {
+            this.plugin.getWarpCounter().adjust(scope, warp, 1);
+        }
+    }
+
+    @Test
+    public void noConfigurationMeansNoLimits() {
+        OWQuotaManager manager = new OWQuotaManager(this.plugin, null);
+        assertFalse(manager.isEnabled());
+        assertEquals(OWQuotaManager.UNLIMITED, manager.getLimit(this.member, Warp.Scope.PRIVATE, null));
+        assertNull(manager.checkQuota(this.member, Warp.Scope.PRIVATE, this.warp(this.member, "world"), null));
+    }
+
+    @Test
+    public void defaultGroupAppliesToEveryone() {
+        this.quotas.set("default.public", 0);
+        this.quotas.set("default.private", 20); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        OWQuotaManager manager = this.manager();
+
+        assertTrue(manager.isEnabled());
+        assertEquals(0, manager.getLimit(this.member, Warp.Scope.PUBLIC, null));
+        assertEquals(20, manager.getLimit(this.member, Warp.Scope.PRIVATE, null)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        assertEquals(20, manager.getLimit(this.vip, Warp.Scope.PRIVATE, null)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    @Test
+    public void otherGroupsNeedTheirPermissionAndTheHighestLimitWins() {
+        this.quotas.set("default.private", 20); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("vip.private", 100); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("builder.private", 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        OWQuotaManager manager = this.manager();
+
+        assertEquals(20, manager.getLimit(this.member, Warp.Scope.PRIVATE, null)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        assertEquals(100, manager.getLimit(this.vip, Warp.Scope.PRIVATE, null)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    @Test
+    public void unsetAndNegativeLimitsMeanUnlimited() {
+        this.quotas.set("default.private", 20); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("vip.private", -1);
+        OWQuotaManager manager = this.manager();
+
+        assertEquals(OWQuotaManager.UNLIMITED, manager.getLimit(this.member, Warp.Scope.PUBLIC, null));
+        assertEquals(OWQuotaManager.UNLIMITED, manager.getLimit(this.vip, Warp.Scope.PRIVATE, null));
+    }
+
+    @Test
+    public void worldLimitsIgnoreCase() {
+        this.quotas.set("default.private", 20); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("default.worlds.World_Nether.private", 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        OWQuotaManager manager = this.manager();
+
+        assertEquals(5, manager.getLimit(this.member, Warp.Scope.PRIVATE, "world_nether")); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        assertEquals(5, manager.getLimit(this.member, Warp.Scope.PRIVATE, "WORLD_NETHER")); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        assertEquals(OWQuotaManager.UNLIMITED, manager.getLimit(this.member, Warp.Scope.PRIVATE, "world"));
+        assertEquals(OWQuotaManager.UNLIMITED, manager.getLimit(this.member, Warp.Scope.PUBLIC, "world_nether"));
+    }
+
+    @Test
+    public void refusesWarpsOverTheOverallLimit() {
+        this.quotas.set("default.private", 2);
+        OWQuotaManager manager = this.manager();
+        Warp warp = this.warp(this.member, "world");
+
+        this.add(Warp.Scope.PRIVATE, warp, 1);
+        assertNull(manager.checkQuota(this.member, Warp.Scope.PRIVATE, warp, null));
+        this.add(Warp.Scope.PRIVATE, warp, 1);
+        assertEquals("You have reached your limit of 2 private warps.",
+                manager.checkQuota(this.member, Warp.Scope.PRIVATE, warp, null));
+        assertNull(manager.checkQuota(this.member, Warp.Scope.PUBLIC, warp, null));
+        assertNull(manager.checkQuota(this.vip, Warp.Scope.PRIVATE, this.warp(this.vip, "world"), null));
+    }
+
+    @Test
+    public void refusesWarpsOverTheWorldLimit() {
+        this.quotas.set("default.public", 10); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("default.worlds.world_nether.public", 1);
+        OWQuotaManager manager = this.manager();
+        Warp nether = this.warp(this.member, "world_nether");
+
+        this.add(Warp.Scope.PUBLIC, nether, 1);
+        assertEquals("You have reached your limit of 1 public warps in world 'world_nether'.",
+                manager.checkQuota(this.member, Warp.Scope.PUBLIC, nether, null));
+        assertNull(manager.checkQuota(this.member, Warp.Scope.PUBLIC, this.warp(this.member, "world"), null));
+    }
+
+    @Test
+    public void replacingOwnWarpDoesNotCount() {
+        this.quotas.set("default.private", 1);
+        this.quotas.set("default.worlds.world_nether.private", 1);
+        OWQuotaManager manager = this.manager();
+        Warp existing = this.warp(this.member, "world_nether");
+        this.add(Warp.Scope.PRIVATE, existing, 1);
+
+        Warp replacement = this.warp(this.member, "world_nether");
+        assertNull(manager.checkQuota(this.member, Warp.Scope.PRIVATE, replacement, existing));
+
+        Warp someoneElses = this.warp(this.vip, "world_nether");
+        assertEquals("You have reached your limit of 1 private warps.",
+                manager.checkQuota(this.member, Warp.Scope.PRIVATE, replacement, someoneElses));
+    }
+
+    @Test
+    public void replacingOwnWarpInAnotherWorldChecksThatWorld() {
+        this.quotas.set("default.private", 5); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        this.quotas.set("default.worlds.world_nether.private", 1);
+        OWQuotaManager manager = this.manager();
+        this.add(Warp.Scope.PRIVATE, this.warp(this.member, "world_nether"), 1);
+
+        Warp existing = this.warp(this.member, "world");
+        Warp moved = this.warp(this.member, "world_nether");
+        assertEquals("You have reached your limit of 1 private warps in world 'world_nether'.",
+                manager.checkQuota(this.member, Warp.Scope.PRIVATE, moved, existing));
+    }
+
+    @Test
+    public void exemptPlayersHaveNoLimits() {
+        this.quotas.set("default.private", 0);
+        OWQuotaManager manager = this.manager();
+        Player exempt = Fakes.player("carol", OWQuotaManager.EXEMPT_PERMISSION);
+
+        assertTrue(manager.isExempt(exempt));
+        assertFalse(manager.isExempt(this.member));
+        assertNull(manager.checkQuota(exempt, Warp.Scope.PRIVATE, this.warp(exempt, "world"), null));
+        assertEquals("You have reached your limit of 0 private warps.",
+                manager.checkQuota(this.member, Warp.Scope.PRIVATE, this.warp(this.member, "world"), null));
+    }
+}
@@ -0,0 +1,114 @@
+package com.lithium3141.OpenWarp;
+
+import org.bukkit.Location;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the running warp counts kept by OWWarpCounter.
+ */
+public class OWWarpCounterTest {
+
+    /**
+     * The plugin whose dictionaries the test warps use.
+     */
+    private OpenWarp plugin;
+
+    /**
+     * The counter under test.
+     */
+    private OWWarpCounter counter;
+
+    /**
+     * Create a fresh plugin and counter for each test.
+     */
+    @Before
+    public void setUp() {
+        this.plugin = new OpenWarp();
+        this.counter = new OWWarpCounter();
+    }
+
+    /**
+     * Create a warp owned by a player in a world.
+     *
+     * @param owner     The name of the owner.
+     * @param worldName The name of the world, or null for no world.
+     * @return The Warp.
+     */
+    private Warp warp(String owner, String worldName) {
+        Location location = new Location((worldName == null ? null : Fakes.world(worldName)), 0, 64, 0); // SUPPRESS CHECKSTYLE AvoidInlineConditionalsCheck
+        return new Warp(this.plugin, "warp", location, owner);
+    }
+
+    @Test
+    public void countsStartAtZero() {
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, 0));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PRIVATE, 0, 0));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, -1));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, 0, -1));
+    }
+
+    @Test
+    public void countsTotalsAndWorldsSeparately() {
+        Warp home = this.warp("alice", "world");
+        Warp mine = this.warp("alice", "world_nether");
+        this.counter.adjust(Warp.Scope.PRIVATE, home, 1);
+        this.counter.adjust(Warp.Scope.PRIVATE, mine, 1);
+        this.counter.adjust(Warp.Scope.PRIVATE, this.warp("alice", "world"), 1);
+
+        int alice = home.getOwnerId();
+        assertEquals(3, this.counter.getCount(Warp.Scope.PRIVATE, alice));
+        assertEquals(2, this.counter.getCount(Warp.Scope.PRIVATE, alice, home.getWorldId()));
+        assertEquals(1, this.counter.getCount(Warp.Scope.PRIVATE, alice, mine.getWorldId()));
+
+        this.counter.adjust(Warp.Scope.PRIVATE, home, -1);
+        assertEquals(2, this.counter.getCount(Warp.Scope.PRIVATE, alice));
+        assertEquals(1, this.counter.getCount(Warp.Scope.PRIVATE, alice, home.getWorldId()));
+    }
+
+    @Test
+    public void keepsScopesAndOwnersApart() {
+        Warp alices = this.warp("alice", "world");
+        Warp bobs = this.warp("bob", "world");
+        this.counter.adjust(Warp.Scope.PUBLIC, alices, 1);
+        this.counter.adjust(Warp.Scope.PRIVATE, bobs, 1);
+        this.counter.adjust(Warp.Scope.NONE, bobs, 1);
+
+        assertEquals(1, this.counter.getCount(Warp.Scope.PUBLIC, alices.getOwnerId()));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PRIVATE, alices.getOwnerId()));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, bobs.getOwnerId()));
+        assertEquals(1, this.counter.getCount(Warp.Scope.PRIVATE, bobs.getOwnerId()));
+        assertEquals(0, this.counter.getCount(Warp.Scope.NONE, bobs.getOwnerId()));
+    }
+
+    @Test
+    public void growsForNewOwnersAndWorlds() {
+        Warp last = null;
+        for (int i = 0; i < 10; i++) { // SUPPRESS CHECKSTYLE MagicNumberCheck
+            last = this.warp("player" + i, "world" + i);
+            this.counter.adjust(Warp.Scope.PUBLIC, last, 1);
+        }
+        assertEquals(1, this.counter.getCount(Warp.Scope.PUBLIC, last.getOwnerId()));
+        assertEquals(1, this.counter.getCount(Warp.Scope.PUBLIC, last.getOwnerId(), last.getWorldId()));
+
+        Warp far = this.warp("player0", "world9");
+        this.counter.adjust(Warp.Scope.PUBLIC, far, 1);
+        assertEquals(2, this.counter.getCount(Warp.Scope.PUBLIC, far.getOwnerId()));
+        assertEquals(1, this.counter.getCount(Warp.Scope.PUBLIC, far.getOwnerId(), far.getWorldId()));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, far.getOwnerId(), far.getWorldId() + 100)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+        assertEquals(0, this.counter.getCount(Warp.Scope.PUBLIC, last.getOwnerId() + 100)); // SUPPRESS CHECKSTYLE MagicNumberCheck
+    }
+
+    @Test
+    public void countsWarpsWithoutWorldInTotalOnly() {
+        Warp nowhere = this.warp("alice", null);
+        assertEquals(-1, nowhere.getWorldId());
+        this.counter.adjust(Warp.Scope.PRIVATE, nowhere, 1);
+
+        assertEquals(1, this.counter.getCount(Warp.Scope.PRIVATE, nowhere.getOwnerId()));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PRIVATE, nowhere.getOwnerId(), -1));
+        assertEquals(0, this.counter.getCount(Warp.Scope.PRIVATE, nowhere.getOwnerId(), 0));
+    }
+}